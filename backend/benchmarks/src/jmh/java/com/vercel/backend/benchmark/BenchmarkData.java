@@ -0,0 +1,68 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.Project;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ベンチマーク用のデータ
+ */
+final class BenchmarkData {
+
+    /** ベンチマーク用のユーザーID */
+    static final String USER_ID = "user_bench";
+
+    /** ベンチマーク用のプロジェクトID */
+    static final String PROJECT_ID = "proj_bench";
+
+    /** 経費カテゴリ */
+    private static final String[] CATEGORIES = {"交通費", "宿泊費", "会議費", "消耗品費", "通信費"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 経費を作成する
+     *
+     * @param index 通し番号
+     * @param base 作成日時の起点
+     * @return 経費
+     */
+    static Expense expense(int index, LocalDateTime base) {
+        Expense expense = new Expense(
+            String.format("exp_%08d", index), PROJECT_ID, USER_ID, CATEGORIES[index % CATEGORIES.length],
+            "ベンチマーク用の経費 " + index, BigDecimal.valueOf(1000 + index % 9000, 0),
+            base.minusDays(index % 365), index % 3 == 0 ? "https://example.com/receipts/" + index : null,
+            index % 2 == 0 ? "APPROVED" : "PENDING");
+        expense.setCreatedAt(base.minusSeconds(index));
+        expense.setUpdatedAt(base.minusSeconds(index));
+        return expense;
+    }
+
+    /**
+     * 関連プロジェクト付きの経費一覧を作成する
+     *
+     * @param count 件数
+     * @return 経費一覧
+     */
+    static List<Expense> expenses(int count) {
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 9, 0);
+        Project project = new Project();
+        project.setId(PROJECT_ID);
+        project.setName("ベンチマーク");
+        project.setClientName("株式会社サンプル");
+        project.setStatus("ACTIVE");
+
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Expense expense = expense(i, base);
+            expense.setProject(project);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
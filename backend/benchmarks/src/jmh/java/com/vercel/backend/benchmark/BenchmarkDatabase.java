@@ -0,0 +1,120 @@
+package com.vercel.backend.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.dialect.Dialect;
+import org.seasar.doma.jdbc.dialect.PostgresDialect;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ベンチマーク用のPostgreSQL
+ * TestcontainersでPostgreSQL（docker-composeと同じ postgres:15-alpine）を起動し、
+ * ベンチマーク用スキーマを作成する
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    /** PostgreSQLコンテナ */
+    private final PostgreSQLContainer<?> postgres;
+
+    /** データソース */
+    private final HikariDataSource dataSource;
+
+    /** Domaの設定 */
+    private final Config config;
+
+    /**
+     * PostgreSQLを起動してスキーマを作成する
+     *
+     * @param poolSize 接続プールの最大接続数
+     * @throws SQLException スキーマの作成に失敗した場合
+     */
+    BenchmarkDatabase(int poolSize) throws SQLException {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"));
+        postgres.start();
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(postgres.getJdbcUrl() + "&reWriteBatchedInserts=true");
+        hikariConfig.setUsername(postgres.getUsername());
+        hikariConfig.setPassword(postgres.getPassword());
+        hikariConfig.setMaximumPoolSize(poolSize);
+        dataSource = new HikariDataSource(hikariConfig);
+        config = domaConfig(dataSource);
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("benchmark-schema.sql"));
+        }
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+            BenchmarkData.USER_ID, "ベンチマーク", "bench@example.com");
+        jdbcTemplate.update("INSERT INTO projects (id, name, client_name, status) VALUES (?, ?, ?, ?)",
+            BenchmarkData.PROJECT_ID, "ベンチマーク", "株式会社サンプル", "ACTIVE");
+    }
+
+    /**
+     * Domaの設定を取得する
+     *
+     * @return Domaの設定
+     */
+    Config config() {
+        return config;
+    }
+
+    /**
+     * データソースを取得する
+     *
+     * @return データソース（接続プール）
+     */
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * JdbcTemplateを作成する
+     *
+     * @return JdbcTemplate
+     */
+    JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+        postgres.stop();
+    }
+
+    /**
+     * ベンチマーク用のDoma設定を作成する
+     *
+     * @param dataSource データソース
+     * @return Domaの設定
+     */
+    private static Config domaConfig(DataSource dataSource) {
+        Dialect dialect = new PostgresDialect();
+        return new Config() {
+            @Override
+            public Dialect getDialect() {
+                return dialect;
+            }
+
+            @Override
+            public DataSource getDataSource() {
+                return dataSource;
+            }
+
+            @Override
+            public int getBatchSize() {
+                return 1000;
+            }
+        };
+    }
+}
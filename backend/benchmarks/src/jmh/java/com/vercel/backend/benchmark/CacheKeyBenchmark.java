@@ -0,0 +1,114 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.cache.RefreshAheadCacheLoader;
+import com.vercel.backend.cache.UserCacheKeyGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * キャッシュキーの生成のベンチマーク
+ * 経費詳細の {@code #expenseId + '_' + #userId}（SpEL）と、一覧のユーザー単位キー生成器を比較する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheKeyBenchmark {
+
+    /** キャッシュ対象メソッドの引数 */
+    private final Object[] args = {"exp_01HZX3V7Q2M8K4T6R9W1Y5B0C3", "user_0001"};
+
+    /** 一覧メソッドの引数 */
+    private final Object[] listArgs = {"user_0001", 3, 20};
+
+    /** 解析済みのSpEL式（Springのキャッシュ処理と同様に式は再利用される） */
+    private Expression expression;
+
+    /** パラメーター名の解決 */
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    /** キャッシュ対象メソッド */
+    private Method method;
+
+    /** 一覧メソッド */
+    private Method listMethod;
+
+    /** ユーザー単位キャッシュのキー生成器 */
+    private UserCacheKeyGenerator userCacheKeyGenerator;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        expression = new SpelExpressionParser().parseExpression("#expenseId + '_' + #userId");
+        method = CacheKeyBenchmark.class.getMethod("findByIdAndUserId", String.class, String.class);
+        listMethod = CacheKeyBenchmark.class.getMethod("findByUserIdWithPagination", String.class, int.class, int.class);
+        userCacheKeyGenerator = new UserCacheKeyGenerator(new RefreshAheadCacheLoader(Duration.ofMinutes(30), 10_000));
+    }
+
+    /**
+     * 経費詳細のキーをSpELで評価する
+     *
+     * @return キャッシュキー
+     */
+    @Benchmark
+    public Object spelExpenseKey() {
+        MethodBasedEvaluationContext context =
+            new MethodBasedEvaluationContext(this, method, args, parameterNameDiscoverer);
+        return expression.getValue(context);
+    }
+
+    /**
+     * 経費詳細のキーを文字列連結で作成する（SpELの評価コストを除いた下限）
+     *
+     * @return キャッシュキー
+     */
+    @Benchmark
+    public Object concatExpenseKey() {
+        return args[0] + "_" + args[1];
+    }
+
+    /**
+     * 一覧のユーザー単位キーを生成する（再読み込み処理の登録を含む）
+     *
+     * @return キャッシュキー
+     */
+    @Benchmark
+    public Object userCacheKey() {
+        return userCacheKeyGenerator.generate(this, listMethod, listArgs);
+    }
+
+    /**
+     * キー生成の対象とする経費詳細メソッド（呼び出されない）
+     *
+     * @param expenseId 経費ID
+     * @param userId ユーザーID
+     * @return なし
+     */
+    public Object findByIdAndUserId(String expenseId, String userId) {
+        return null;
+    }
+
+    /**
+     * キー生成の対象とする一覧メソッド（呼び出されない）
+     *
+     * @param userId ユーザーID
+     * @param page ページ番号
+     * @param size ページサイズ
+     * @return なし
+     */
+    public Object findByUserIdWithPagination(String userId, int page, int size) {
+        return null;
+    }
+}
@@ -0,0 +1,198 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.dao.ExpenseDaoImpl;
+import com.vercel.backend.dao.SalesReportDao;
+import com.vercel.backend.dao.SalesReportDaoImpl;
+import com.vercel.backend.entity.ExpenseDetailRow;
+import com.vercel.backend.entity.SalesReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 経費テーブルの月単位のパーティショニングのベンチマーク
+ * {@link #rows} 件（既定5,000万件、{@link #users} ユーザー・36か月に分散）の経費を登録し、
+ * 通常のテーブル（plain）と、05-expense-partitions.sql の partition_expenses_by_month で
+ * 移行したパーティションテーブル（partitioned）で、1か月を指定した検索の応答時間を比較する
+ * 期間を指定しない一覧（unboundedList）は全パーティションを読むため、パーティションテーブルの方が遅くなる
+ * データの登録と移行に時間がかかるため、行数は -p rows=... で調整する
+ * （例: {@code ./gradlew :benchmarks:jmh -Pjmh.includes=ExpensePartitionBenchmark}）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExpensePartitionBenchmark {
+
+    /** 経費日付の開始年月 */
+    private static final YearMonth FROM = YearMonth.of(2022, 1);
+
+    /** 経費日付の月数 */
+    private static final int MONTHS = 36;
+
+    /** 1回のINSERTで登録する件数 */
+    private static final int LOAD_CHUNK = 5_000_000;
+
+    /** 1ページの件数 */
+    private static final int PAGE_SIZE = 20;
+
+    /** テーブルの構成 */
+    @Param({"plain", "partitioned"})
+    public String layout;
+
+    /** 登録する経費の件数 */
+    @Param({"50000000"})
+    public int rows;
+
+    /** 経費を登録するユーザー数 */
+    @Param({"1000"})
+    public int users;
+
+    /** ベンチマーク用のPostgreSQL */
+    private BenchmarkDatabase database;
+
+    /** 経費DAO */
+    private ExpenseDao expenseDao;
+
+    /** 売上レポートDAO */
+    private SalesReportDao salesReportDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        database = new BenchmarkDatabase(4);
+        expenseDao = new ExpenseDaoImpl(database.config());
+        salesReportDao = new SalesReportDaoImpl(database.config());
+
+        JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+        jdbcTemplate.update("""
+            INSERT INTO users (id, name, email)
+            SELECT 'user_' || g, 'ユーザー' || g, 'user' || g || '@example.com' FROM generate_series(1, ?) g
+            """, users);
+
+        // 経費日付は期間内に分散させ、作成日時は経費日付の1時間後とする
+        long started = System.nanoTime();
+        LocalDateTime start = FROM.atDay(1).atStartOfDay();
+        long spanSeconds = Duration.between(start, FROM.plusMonths(MONTHS).atDay(1).atStartOfDay()).getSeconds();
+        for (int first = 1; first <= rows; first += LOAD_CHUNK) {
+            jdbcTemplate.update("""
+                INSERT INTO expenses (id, project_id, user_id, category, description, amount, expense_date,
+                                      receipt_url, status, created_at, updated_at)
+                SELECT 'exp_' || lpad(g::text, 10, '0'), ?, 'user_' || (g % ? + 1),
+                       (ARRAY['交通費', '宿泊費', '会議費', '消耗品費', '通信費'])[g % 5 + 1],
+                       'ベンチマーク用の経費 ' || g, 1000 + g % 9000, d, NULL,
+                       CASE WHEN g % 2 = 0 THEN 'APPROVED' ELSE 'PENDING' END,
+                       d + INTERVAL '1 hour', d + INTERVAL '1 hour'
+                FROM generate_series(?, ?) g,
+                     LATERAL (SELECT ?::timestamp + (g::bigint * 7919 % ?) * INTERVAL '1 second' AS d) t
+                """, BenchmarkData.PROJECT_ID, users, first, Math.min(rows, first + LOAD_CHUNK - 1), start, spanSeconds);
+        }
+        System.out.printf("%n経費を登録しました: %d件, %ds%n", rows, elapsedSeconds(started));
+
+        if ("partitioned".equals(layout)) {
+            started = System.nanoTime();
+            String script = new ClassPathResource("05-expense-partitions.sql").getContentAsString(StandardCharsets.UTF_8);
+            jdbcTemplate.execute(script);
+            jdbcTemplate.execute("CALL partition_expenses_by_month(0)");
+            System.out.printf("パーティションテーブルに移行しました: %ds%n", elapsedSeconds(started));
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE expenses");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * ランダムなユーザーの1か月分の経費一覧の先頭ページを取得する
+     *
+     * @return 検索結果行
+     */
+    @Benchmark
+    public List<ExpenseDetailRow> monthList() {
+        YearMonth month = randomMonth();
+        return expenseDao.selectPageByUserId(randomUser(), month.atDay(1).atStartOfDay(),
+            month.plusMonths(1).atDay(1).atStartOfDay(), PAGE_SIZE, 0);
+    }
+
+    /**
+     * ランダムなユーザーの1か月分の経費件数を取得する
+     *
+     * @return 経費件数
+     */
+    @Benchmark
+    public int monthCount() {
+        YearMonth month = randomMonth();
+        return expenseDao.countByUserId(randomUser(), month.atDay(1).atStartOfDay(),
+            month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * ランダムな1か月の売上・経費の合計を集計する（月次売上レポートの1か月分）
+     *
+     * @return 月次売上レポート
+     */
+    @Benchmark
+    public SalesReport monthTotals() {
+        YearMonth month = randomMonth();
+        return salesReportDao.selectMonthTotals(month.getYear(), month.getMonthValue(),
+            month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * 期間を指定せずにランダムなユーザーの経費一覧の先頭ページを取得する（比較用）
+     *
+     * @return 検索結果行
+     */
+    @Benchmark
+    public List<ExpenseDetailRow> unboundedList() {
+        return expenseDao.selectPageByUserId(randomUser(), null, null, PAGE_SIZE, 0);
+    }
+
+    /**
+     * 経費を登録した期間からランダムに年月を選ぶ
+     *
+     * @return 年月
+     */
+    private static YearMonth randomMonth() {
+        return FROM.plusMonths(ThreadLocalRandom.current().nextInt(MONTHS));
+    }
+
+    /**
+     * 経費を登録したユーザーからランダムに選ぶ
+     *
+     * @return ユーザーID
+     */
+    private String randomUser() {
+        return "user_" + (ThreadLocalRandom.current().nextInt(users) + 1);
+    }
+
+    /**
+     * 開始時刻からの経過秒数を求める
+     *
+     * @param started 開始時刻（ナノ秒）
+     * @return 経過秒数
+     */
+    private static long elapsedSeconds(long started) {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,224 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.dao.ExpenseDaoImpl;
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.ExpenseDetailRow;
+import com.vercel.backend.entity.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 経費の検索と行マッピングのベンチマーク
+ * Testcontainersで起動したPostgreSQLの1ユーザーに {@link #rows} 件の経費を登録した状態で計測する
+ * 従来の列名によるRowMapperと、Doma（列番号によるマッピング）を同じSQLで比較する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExpenseQueryBenchmark {
+
+    /** 一覧・詳細のSELECT句（ExpenseDaoのSQLファイルと同じ） */
+    private static final String SELECT_DETAIL = """
+        SELECT
+            e.id, e.project_id, e.user_id, e.category, e.description,
+            e.amount, e.expense_date, e.receipt_url, e.status,
+            e.created_at, e.updated_at,
+            p.name AS project_name, p.client_name, p.status AS project_status,
+            u.name AS user_name, u.email AS user_email
+        FROM expenses e
+        LEFT JOIN projects p ON e.project_id = p.id
+        LEFT JOIN users u ON e.user_id = u.id
+        WHERE e.user_id = ?
+        ORDER BY e.created_at DESC
+        LIMIT ? OFFSET ?
+        """;
+
+    /** 1ページの件数 */
+    private static final int PAGE_SIZE = 100;
+
+    /** 一括取得する経費の件数（経費レポート1件分） */
+    private static final int BATCH_GET_SIZE = 20;
+
+    /** 登録する経費の件数 */
+    @Param({"10000"})
+    public int rows;
+
+    /** ベンチマーク用のPostgreSQL */
+    private BenchmarkDatabase database;
+
+    /** JdbcTemplate */
+    private JdbcTemplate jdbcTemplate;
+
+    /** 経費DAO */
+    private ExpenseDao expenseDao;
+
+    /** 深いページの読み飛ばし件数 */
+    private int deepOffset;
+
+    /** 深いページの直前の行（キーセットページネーションのカーソル） */
+    private ExpenseDetailRow deepCursor;
+
+    /** 一括取得する経費ID */
+    private String[] batchGetIds;
+
+    @Setup
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(4);
+        jdbcTemplate = database.jdbcTemplate();
+        expenseDao = new ExpenseDaoImpl(database.config());
+
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 9, 0);
+        List<Expense> batch = new ArrayList<>(1000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(BenchmarkData.expense(i, base));
+            if (batch.size() == 1000) {
+                expenseDao.batchInsert(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            expenseDao.batchInsert(batch);
+        }
+        jdbcTemplate.execute("ANALYZE expenses");
+
+        deepOffset = rows - PAGE_SIZE;
+        List<ExpenseDetailRow> previous =
+            expenseDao.selectPageByUserId(BenchmarkData.USER_ID, null, null, 1, deepOffset - 1);
+        deepCursor = previous.get(0);
+
+        batchGetIds = new String[BATCH_GET_SIZE];
+        for (int i = 0; i < BATCH_GET_SIZE; i++) {
+            batchGetIds[i] = BenchmarkData.expense(i * (rows / BATCH_GET_SIZE), base).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * 先頭ページを従来の列名によるRowMapperで取得する
+     *
+     * @return 経費一覧
+     */
+    @Benchmark
+    public List<Expense> firstPageNameBasedRowMapper() {
+        return jdbcTemplate.query(SELECT_DETAIL, new NameBasedExpenseRowMapper(),
+            BenchmarkData.USER_ID, PAGE_SIZE, 0);
+    }
+
+    /**
+     * 先頭ページをDomaで取得する
+     *
+     * @param blackhole 結果の破棄先
+     */
+    @Benchmark
+    public void firstPageDoma(Blackhole blackhole) {
+        for (ExpenseDetailRow row : expenseDao.selectPageByUserId(BenchmarkData.USER_ID, null, null, PAGE_SIZE, 0)) {
+            blackhole.consume(row.toExpense());
+        }
+    }
+
+    /**
+     * 最後のページをOFFSETで取得する
+     *
+     * @return 検索結果行
+     */
+    @Benchmark
+    public List<ExpenseDetailRow> deepPageOffset() {
+        return expenseDao.selectPageByUserId(BenchmarkData.USER_ID, null, null, PAGE_SIZE, deepOffset);
+    }
+
+    /**
+     * 最後のページをキーセット（カーソル）で取得する
+     *
+     * @return 検索結果行
+     */
+    @Benchmark
+    public List<ExpenseDetailRow> deepPageCursor() {
+        return expenseDao.selectAfterCursor(BenchmarkData.USER_ID, null, null,
+            deepCursor.createdAt(), deepCursor.id(), PAGE_SIZE);
+    }
+
+    /**
+     * ユーザーの経費件数を取得する
+     *
+     * @return 経費件数
+     */
+    @Benchmark
+    public int countByUserId() {
+        return expenseDao.countByUserId(BenchmarkData.USER_ID, null, null);
+    }
+
+    /**
+     * 経費詳細を1件ずつ取得する（GET /api/expenses/{id} を件数分呼ぶ場合）
+     *
+     * @param blackhole 結果の破棄先
+     */
+    @Benchmark
+    public void detailOneByOne(Blackhole blackhole) {
+        for (String id : batchGetIds) {
+            blackhole.consume(expenseDao.selectByIdAndUserId(id, BenchmarkData.USER_ID));
+        }
+    }
+
+    /**
+     * 経費詳細を1回のクエリ（e.id = ANY(?)）で取得する（POST /api/expenses/batch-get のキャッシュミス時）
+     *
+     * @return 検索結果行
+     */
+    @Benchmark
+    public List<ExpenseDetailRow> detailBatch() {
+        return expenseDao.selectByIdsAndUserId(expenseDao.createIdArray(batchGetIds), BenchmarkData.USER_ID);
+    }
+
+    /**
+     * 従来の ExpenseService.ExpenseRowMapper と同じく、行ごとに列名で値を取得するRowMapper（比較の基準）
+     */
+    private static class NameBasedExpenseRowMapper implements RowMapper<Expense> {
+        @Override
+        public Expense mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Expense expense = new Expense();
+            expense.setId(rs.getString("id"));
+            expense.setProjectId(rs.getString("project_id"));
+            expense.setUserId(rs.getString("user_id"));
+            expense.setCategory(rs.getString("category"));
+            expense.setDescription(rs.getString("description"));
+            expense.setAmount(rs.getBigDecimal("amount"));
+            expense.setExpenseDate(rs.getTimestamp("expense_date").toLocalDateTime());
+            expense.setReceiptUrl(rs.getString("receipt_url"));
+            expense.setStatus(rs.getString("status"));
+            expense.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            expense.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+
+            if (rs.getString("project_id") != null) {
+                Project project = new Project();
+                project.setId(rs.getString("project_id"));
+                project.setName(rs.getString("project_name"));
+                project.setClientName(rs.getString("client_name"));
+                project.setStatus(rs.getString("project_status"));
+                expense.setProject(project);
+            }
+            return expense;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.vercel.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.dao.ExpenseDaoImpl;
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.writebehind.ExpenseWriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 経費登録のライトビハインドのベンチマーク
+ * 16スレッドから同時に登録した場合の1件あたりの応答時間を、1件ずつのINSERT（syncInsert）と
+ * 先行書き込みログへの追記（walAppend、同時に追記したスレッドのfsyncは1回にまとめる）で比較する
+ * flushBatch は登録スレッドがまとめて登録する500件の複数行INSERTの時間
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpenseWriteBehindBenchmark {
+
+    /** まとめて登録する件数（expense.write-behind.batch-size の既定値） */
+    private static final int BATCH_SIZE = 500;
+
+    /** ベンチマーク用のPostgreSQL */
+    private BenchmarkDatabase database;
+
+    /** 経費DAO */
+    private ExpenseDao expenseDao;
+
+    /** 先行書き込みログのディレクトリ */
+    private Path directory;
+
+    /** 先行書き込みログ */
+    private ExpenseWriteAheadLog writeAheadLog;
+
+    /** 経費の通し番号 */
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        database = new BenchmarkDatabase(20);
+        expenseDao = new ExpenseDaoImpl(database.config());
+
+        ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        directory = Files.createTempDirectory("expense-wal");
+        writeAheadLog = new ExpenseWriteAheadLog(directory, objectMapper, 16 * 1024 * 1024);
+        writeAheadLog.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writeAheadLog.close();
+        database.close();
+    }
+
+    /**
+     * 経費を1件ずつINSERTする（ライトビハインドが無効な場合の登録）
+     *
+     * @return 登録件数
+     */
+    @Benchmark
+    @Threads(16)
+    public int syncInsert() {
+        return expenseDao.insert(nextExpense());
+    }
+
+    /**
+     * 経費を先行書き込みログに追記する（ライトビハインドが有効な場合の登録の応答まで）
+     *
+     * @return セグメント番号
+     * @throws IOException 追記に失敗した場合
+     */
+    @Benchmark
+    @Threads(16)
+    public long walAppend() throws IOException {
+        return writeAheadLog.append(nextExpense());
+    }
+
+    /**
+     * 500件を1回の複数行INSERTで登録する（登録スレッドの1回分）
+     *
+     * @return 各行の登録件数
+     */
+    @Benchmark
+    public int[] flushBatch() {
+        List<Expense> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(nextExpense());
+        }
+        return expenseDao.batchInsertIfAbsent(batch);
+    }
+
+    /**
+     * 重複しないIDの経費を作成する
+     *
+     * @return 経費
+     */
+    private Expense nextExpense() {
+        return BenchmarkData.expense(sequence.incrementAndGet(), LocalDateTime.of(2024, 6, 1, 9, 0));
+    }
+}
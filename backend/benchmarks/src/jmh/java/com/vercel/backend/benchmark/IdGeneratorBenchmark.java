@@ -0,0 +1,63 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.id.IdGenerator;
+import com.vercel.backend.id.SnowflakeIdGenerator;
+import com.vercel.backend.id.UlidIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 経費IDの生成のベンチマーク
+ * {@code legacy} は従来の generateId（時刻 + 0〜999の乱数）で、比較の基準とする
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdGeneratorBenchmark {
+
+    /** 生成方式 */
+    @Param({"ulid", "snowflake", "legacy"})
+    public String type;
+
+    /** ID生成器 */
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = switch (type) {
+            case "ulid" -> new UlidIdGenerator();
+            case "snowflake" -> new SnowflakeIdGenerator(1);
+            default -> () -> System.currentTimeMillis() + "_" + (int) (Math.random() * 1000);
+        };
+    }
+
+    /**
+     * 単一スレッドでIDを生成する
+     *
+     * @return 生成されたID
+     */
+    @Benchmark
+    public String nextId() {
+        return idGenerator.nextId("exp_");
+    }
+
+    /**
+     * 4スレッドで同時にIDを生成する（CASの競合を含む）
+     *
+     * @return 生成されたID
+     */
+    @Benchmark
+    @Threads(4)
+    public String nextIdContended() {
+        return idGenerator.nextId("exp_");
+    }
+}
@@ -0,0 +1,136 @@
+package com.vercel.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.vercel.backend.dto.ExpenseListItem;
+import com.vercel.backend.dto.ExpenseListResponse;
+import com.vercel.backend.dto.ExpensePage;
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExpenseController のレスポンスのJSONシリアライズのベンチマーク
+ * 従来のHashMap + 関連プロジェクト・ユーザー付きの経費（listResponse・pageResponse）と、
+ * 型付きレコード + 一覧用の射影（typedListResponse・typedPageResponse）を比較する
+ * 1回あたりの割り当て量は {@code -prof gc}、JSONのバイト数はセットアップ時の出力で確認する
+ * ObjectMapperはSpring Bootの既定に合わせ、JavaTimeModuleを登録して日時を文字列で出力する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResponseSerializationBenchmark {
+
+    /** 1ページの件数 */
+    @Param({"20", "100"})
+    public int size;
+
+    /** ObjectMapper */
+    private ObjectMapper objectMapper;
+
+    /** 経費一覧（GET /api/expenses）のレスポンス */
+    private Map<String, Object> listResponse;
+
+    /** ページネーション付き経費一覧（GET /api/expenses/paginated）のレスポンス */
+    private Map<String, Object> pageResponse;
+
+    /** 経費一覧の型付きレスポンス */
+    private ExpenseListResponse typedListResponse;
+
+    /** ページネーション付き経費一覧の型付きレスポンス */
+    private ExpensePage typedPageResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+        List<Expense> expenses = BenchmarkData.expenses(size);
+        // 一覧・詳細の検索結果行から変換した経費と同じく、担当ユーザーの名前とメールアドレスも持たせる
+        User user = new User(null, "ベンチマーク", "bench@example.com", null, null);
+        expenses.forEach(expense -> expense.setUser(user));
+        List<ExpenseListItem> items = expenses.stream()
+            .map(expense -> new ExpenseListItem(expense.getId(), expense.getProjectId(),
+                expense.getProject().getName(), expense.getCategory(), expense.getDescription(),
+                expense.getAmount(), expense.getExpenseDate(), expense.getReceiptUrl(), expense.getStatus(),
+                expense.getCreatedAt()))
+            .toList();
+
+        listResponse = new HashMap<>();
+        listResponse.put("expenses", expenses);
+        listResponse.put("success", true);
+
+        pageResponse = new HashMap<>();
+        pageResponse.put("expenses", expenses);
+        pageResponse.put("totalCount", 10_000);
+        pageResponse.put("page", 3);
+        pageResponse.put("size", size);
+        pageResponse.put("totalPages", 10_000 / size);
+        pageResponse.put("success", true);
+
+        typedListResponse = new ExpenseListResponse(items);
+        typedPageResponse = new ExpensePage(items, 10_000, 3, size, 10_000 / size);
+
+        System.out.printf("%nJSONサイズ（%d件）: list=%d, page=%d, typedList=%d, typedPage=%d バイト%n", size,
+            listResponse().length, pageResponse().length, typedListResponse().length, typedPageResponse().length);
+    }
+
+    /**
+     * 経費一覧のレスポンスをシリアライズする
+     *
+     * @return JSONのバイト列
+     * @throws Exception シリアライズに失敗した場合
+     */
+    @Benchmark
+    public byte[] listResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(listResponse);
+    }
+
+    /**
+     * ページネーション付き経費一覧のレスポンスをシリアライズする
+     *
+     * @return JSONのバイト列
+     * @throws Exception シリアライズに失敗した場合
+     */
+    @Benchmark
+    public byte[] pageResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(pageResponse);
+    }
+
+    /**
+     * 経費一覧の型付きレスポンスをシリアライズする
+     *
+     * @return JSONのバイト列
+     * @throws Exception シリアライズに失敗した場合
+     */
+    @Benchmark
+    public byte[] typedListResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(typedListResponse);
+    }
+
+    /**
+     * ページネーション付き経費一覧の型付きレスポンスをシリアライズする
+     *
+     * @return JSONのバイト列
+     * @throws Exception シリアライズに失敗した場合
+     */
+    @Benchmark
+    public byte[] typedPageResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(typedPageResponse);
+    }
+}
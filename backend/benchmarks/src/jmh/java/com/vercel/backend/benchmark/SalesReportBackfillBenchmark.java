@@ -0,0 +1,122 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.dao.SalesReportDao;
+import com.vercel.backend.dao.SalesReportDaoImpl;
+import com.vercel.backend.entity.SalesReport;
+import com.vercel.backend.report.SalesReportTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 月次売上レポートの期間指定の再作成（3年分）のベンチマーク
+ * 並列度ごとの処理時間を比較し、コア数（と接続数）に応じて短くなることを確認する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SalesReportBackfillBenchmark {
+
+    /** 再作成する期間の開始年月 */
+    private static final YearMonth FROM = YearMonth.of(2022, 1);
+
+    /** 再作成する月数 */
+    private static final int MONTHS = 36;
+
+    /** フォークジョインプールの並列度 */
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    /** 1か月あたりの請求書・経費の件数 */
+    @Param({"5000"})
+    public int rowsPerMonth;
+
+    /** ベンチマーク用のPostgreSQL */
+    private BenchmarkDatabase database;
+
+    /** 売上レポートDAO */
+    private SalesReportDao salesReportDao;
+
+    /** 集計用のフォークジョインプール */
+    private ForkJoinPool pool;
+
+    /** 再作成する年月 */
+    private List<YearMonth> months;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(parallelism);
+        salesReportDao = new SalesReportDaoImpl(database.config());
+        pool = new ForkJoinPool(parallelism);
+
+        months = new ArrayList<>(MONTHS);
+        for (int i = 0; i < MONTHS; i++) {
+            months.add(FROM.plusMonths(i));
+        }
+
+        JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+        LocalDateTime base = LocalDateTime.of(2024, 6, 1, 9, 0);
+        int sequence = 0;
+        for (YearMonth month : months) {
+            List<Object[]> invoices = new ArrayList<>(rowsPerMonth);
+            List<Object[]> expenses = new ArrayList<>(rowsPerMonth);
+            for (int i = 0; i < rowsPerMonth; i++, sequence++) {
+                Timestamp date = Timestamp.valueOf(
+                    month.atDay(1 + i % month.lengthOfMonth()).atTime(i % 24, 0));
+                BigDecimal amount = BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1_000, 500_000));
+                invoices.add(new Object[] {"inv_" + sequence, BenchmarkData.PROJECT_ID, BenchmarkData.USER_ID,
+                    amount, date, Timestamp.valueOf(base)});
+                expenses.add(new Object[] {"exp_" + sequence, BenchmarkData.PROJECT_ID, BenchmarkData.USER_ID,
+                    "交通費", "ベンチマーク用の経費", amount.divide(BigDecimal.TEN), date,
+                    Timestamp.valueOf(base), Timestamp.valueOf(base)});
+            }
+            jdbcTemplate.batchUpdate("""
+                INSERT INTO invoices (id, project_id, user_id, amount, issue_date, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, invoices);
+            jdbcTemplate.batchUpdate("""
+                INSERT INTO expenses (id, project_id, user_id, category, description, amount, expense_date,
+                                      created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, expenses);
+        }
+        jdbcTemplate.execute("ANALYZE invoices");
+        jdbcTemplate.execute("ANALYZE expenses");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        database.close();
+    }
+
+    /**
+     * 3年分の月次売上レポートを並列に集計し、1回のバッチで登録・更新する
+     *
+     * @return 更新件数
+     */
+    @Benchmark
+    public int[] backfill() {
+        List<SalesReport> reports = pool.invoke(new SalesReportTask(salesReportDao, months));
+        return salesReportDao.batchUpsert(reports).getCounts();
+    }
+}
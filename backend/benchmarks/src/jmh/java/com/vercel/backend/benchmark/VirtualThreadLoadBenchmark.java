@@ -0,0 +1,152 @@
+package com.vercel.backend.benchmark;
+
+import com.vercel.backend.jdbc.ConnectionLimiter;
+import com.vercel.backend.jdbc.GradientLimit;
+import com.vercel.backend.jdbc.LimitedDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ブロッキングなJDBCリクエストの同時実行の負荷比較
+ * 接続プール（20接続、application.ymlと同じ）に対して clients 件のリクエストを同時に投入し、
+ * すべて完了するまでの時間と失敗件数（{@code failures}）をモードごとに比較する
+ * <ul>
+ *   <li>platform: Tomcatの既定と同じ200スレッドのプラットフォームスレッドプール</li>
+ *   <li>virtual: リクエストごとの仮想スレッド（全員が接続プールで待つ）</li>
+ *   <li>virtual-limited: 仮想スレッド + {@link ConnectionLimiter}（application.ymlの既定値）</li>
+ * </ul>
+ * 仮想スレッドのモードはJava 21以降で実行する（例: JAVA_HOMEにJava 21を指定して
+ * {@code ./gradlew :benchmarks:jmh -Pjmh.includes=VirtualThreadLoadBenchmark}）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadLoadBenchmark {
+
+    /** 接続プールの最大接続数 */
+    private static final int POOL_SIZE = 20;
+
+    /** プラットフォームスレッドのモードのスレッド数（Tomcatの server.tomcat.threads.max の既定値） */
+    private static final int PLATFORM_THREADS = 200;
+
+    /** 実行モード */
+    @Param({"platform", "virtual", "virtual-limited"})
+    public String mode;
+
+    /** 同時に投入するリクエスト数 */
+    @Param({"200", "2000"})
+    public int clients;
+
+    /** 1リクエストあたりのクエリ時間（ミリ秒） */
+    @Param({"5"})
+    public int queryMillis;
+
+    /** ベンチマーク用のPostgreSQL */
+    private BenchmarkDatabase database;
+
+    /** リクエストを実行するスレッド */
+    private ExecutorService executor;
+
+    /** リクエストが使うJdbcTemplate */
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 失敗件数（接続の取得の失敗・制限による拒否）
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+
+        /** 失敗件数 */
+        public long failures;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase(POOL_SIZE);
+        switch (mode) {
+            case "platform" -> {
+                executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+                jdbcTemplate = database.jdbcTemplate();
+            }
+            case "virtual" -> {
+                executor = newVirtualThreadPerTaskExecutor();
+                jdbcTemplate = database.jdbcTemplate();
+            }
+            case "virtual-limited" -> {
+                executor = newVirtualThreadPerTaskExecutor();
+                ConnectionLimiter limiter = new ConnectionLimiter(
+                    new GradientLimit(4, POOL_SIZE), 1000, Duration.ofSeconds(5), new SimpleMeterRegistry());
+                jdbcTemplate = new JdbcTemplate(new LimitedDataSource(database.dataSource(), limiter));
+            }
+            default -> throw new IllegalArgumentException("未対応のモードです: " + mode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    /**
+     * clients 件のリクエストを同時に投入し、すべての完了を待つ
+     *
+     * @param failures 失敗件数
+     * @return 成功件数
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    @Benchmark
+    public int burst(Failures failures) throws InterruptedException {
+        double seconds = queryMillis / 1000.0;
+        List<Callable<Integer>> requests = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            requests.add(() -> jdbcTemplate.queryForObject("SELECT 1 FROM pg_sleep(?)", Integer.class, seconds));
+        }
+        int succeeded = 0;
+        for (Future<Integer> response : executor.invokeAll(requests)) {
+            try {
+                succeeded += response.get();
+            } catch (ExecutionException e) {
+                failures.failures++;
+            }
+        }
+        return succeeded;
+    }
+
+    /**
+     * タスクごとに仮想スレッドを作成する実行器を作成する
+     * 本体と同じくJava 17でビルドするため、Java 21のAPIはリフレクションで呼び出す
+     *
+     * @return 実行器
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("仮想スレッドのモードはJava 21以降で実行してください", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+-- ベンチマーク用スキーマ（ExpenseDao・SalesReportDao のSQLが参照する列のみ）
+CREATE TABLE users (
+    id TEXT PRIMARY KEY,
+    name TEXT NOT NULL,
+    email TEXT NOT NULL
+);
+
+CREATE TABLE projects (
+    id TEXT PRIMARY KEY,
+    name TEXT NOT NULL,
+    client_name TEXT,
+    status TEXT
+);
+
+CREATE TABLE expenses (
+    id TEXT PRIMARY KEY,
+    project_id TEXT REFERENCES projects(id),
+    user_id TEXT NOT NULL REFERENCES users(id),
+    category TEXT NOT NULL,
+    description TEXT NOT NULL,
+    amount DECIMAL NOT NULL,
+    expense_date TIMESTAMP NOT NULL,
+    receipt_url TEXT,
+    status TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE invoices (
+    id TEXT PRIMARY KEY,
+    project_id TEXT REFERENCES projects(id),
+    user_id TEXT NOT NULL REFERENCES users(id),
+    amount DECIMAL NOT NULL,
+    issue_date TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE sales_reports (
+    id TEXT PRIMARY KEY DEFAULT gen_random_uuid()::text,
+    month INTEGER NOT NULL,
+    year INTEGER NOT NULL,
+    total_sales DECIMAL NOT NULL,
+    total_expenses DECIMAL NOT NULL,
+    net_profit DECIMAL NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE(month, year)
+);
+
+-- 02-performance-indexes.sql の経費・請求書テーブル分
+CREATE INDEX idx_expenses_user_created ON expenses(user_id, created_at DESC);
+CREATE INDEX idx_expenses_user_created_id ON expenses(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_expenses_expense_date ON expenses(expense_date);
+CREATE INDEX idx_invoices_issue_date ON invoices(issue_date);
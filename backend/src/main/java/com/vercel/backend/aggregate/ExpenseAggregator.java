@@ -0,0 +1,288 @@
+package com.vercel.backend.aggregate;
+
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.ExpenseStatsRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 経費の集計をメモリ上で保持する
+ * ユーザー・カテゴリ別とプロジェクト別の集計値を経費の登録・更新・削除の差分で更新し、
+ * 参照時はデータベースを集計せずに返す（ユーザー全体の集計値はカテゴリ別の集計値を合算する）
+ * 未読み込みのキーや最終登録日時が不明になったキーは参照時にそのキーのみデータベースから集計する
+ * 差分の取りこぼし（別ノードからの更新など）は定期的な再集計で補正する
+ */
+@Component
+public class ExpenseAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseAggregator.class);
+
+    @Autowired
+    private ExpenseDao expenseDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** ユーザー・カテゴリ別の集計値（ユーザーID → カテゴリ → 集計値） */
+    private volatile ConcurrentHashMap<String, ConcurrentHashMap<String, ExpenseStats>> byUserCategory =
+        new ConcurrentHashMap<>();
+
+    /** プロジェクト別の集計値 */
+    private volatile ConcurrentHashMap<String, ExpenseStats> byProject = new ConcurrentHashMap<>();
+
+    /** 再集計中に差分を適用したユーザーID（再集計中以外はnull） */
+    private volatile Set<String> touchedUsers;
+
+    /** 再集計中に差分を適用したプロジェクトID（再集計中以外はnull） */
+    private volatile Set<String> touchedProjects;
+
+    /**
+     * 経費の登録を集計に反映する
+     *
+     * @param expense 登録した経費
+     */
+    public void onCreated(Expense expense) {
+        apply(expense, true);
+    }
+
+    /**
+     * 経費の更新を集計に反映する
+     *
+     * @param before 更新前の経費
+     * @param after 更新後の経費
+     */
+    public void onUpdated(Expense before, Expense after) {
+        apply(before, false);
+        apply(after, true);
+    }
+
+    /**
+     * 経費の削除を集計に反映する
+     *
+     * @param expense 削除した経費
+     */
+    public void onDeleted(Expense expense) {
+        apply(expense, false);
+    }
+
+    /**
+     * ユーザーのカテゴリ別の集計値を取得する
+     *
+     * @param userId ユーザーID
+     * @return カテゴリ別の集計値（カテゴリ名順）
+     */
+    public Map<String, ExpenseStats> categoriesOf(String userId) {
+        ConcurrentHashMap<String, ExpenseStats> categories = byUserCategory.get(userId);
+        if (categories == null || categories.values().stream().anyMatch(ExpenseStats::isStale)) {
+            categories = loadUser(userId);
+        }
+        return new TreeMap<>(categories);
+    }
+
+    /**
+     * ユーザー全体の集計値を取得する
+     *
+     * @param categories カテゴリ別の集計値
+     * @return ユーザー全体の集計値
+     */
+    public ExpenseStats totalOf(Map<String, ExpenseStats> categories) {
+        ExpenseStats total = ExpenseStats.EMPTY;
+        for (ExpenseStats stats : categories.values()) {
+            total = total.merge(stats);
+        }
+        return total;
+    }
+
+    /**
+     * プロジェクトの集計値を取得する
+     *
+     * @param projectId プロジェクトID
+     * @return 集計値
+     */
+    public ExpenseStats projectStats(String projectId) {
+        ExpenseStats stats = byProject.get(projectId);
+        if (stats == null || stats.isStale()) {
+            stats = expenseDao.selectStatsByProjectId(projectId).map(ExpenseAggregator::toStats).orElse(ExpenseStats.EMPTY);
+            byProject.put(projectId, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * データベースから全件を再集計してメモリ上の集計値を置き換える
+     * 再集計中に差分を適用したキーは再集計の結果に含まれたか分からないため破棄し、次の参照時に個別に集計する
+     * 置き換え前の集計値と食い違っていたキーの数は {@code expense.aggregate.drift} に記録する
+     */
+    @Scheduled(initialDelayString = "${expense.aggregate.initial-delay:PT0S}",
+               fixedDelayString = "${expense.aggregate.reconcile-interval:PT10M}")
+    public void reconcile() {
+        Set<String> users = ConcurrentHashMap.newKeySet();
+        Set<String> projects = ConcurrentHashMap.newKeySet();
+        touchedUsers = users;
+        touchedProjects = projects;
+        long started = System.nanoTime();
+        int drift;
+        try {
+            ConcurrentHashMap<String, ConcurrentHashMap<String, ExpenseStats>> freshUsers = new ConcurrentHashMap<>();
+            for (ExpenseStatsRow row : expenseDao.selectStatsByUserCategory()) {
+                freshUsers.computeIfAbsent(row.groupKey(), key -> new ConcurrentHashMap<>())
+                    .put(categoryKey(row.category()), toStats(row));
+            }
+            ConcurrentHashMap<String, ExpenseStats> freshProjects = new ConcurrentHashMap<>();
+            for (ExpenseStatsRow row : expenseDao.selectStatsByProject()) {
+                freshProjects.put(row.groupKey(), toStats(row));
+            }
+
+            drift = countUserDrift(freshUsers, users) + countProjectDrift(freshProjects, projects);
+            byUserCategory = freshUsers;
+            byProject = freshProjects;
+        } finally {
+            touchedUsers = null;
+            touchedProjects = null;
+        }
+        users.forEach(byUserCategory::remove);
+        projects.forEach(byProject::remove);
+
+        meterRegistry.counter("expense.aggregate.drift").increment(drift);
+        log.info("経費集計を再集計しました: ユーザー{}件, プロジェクト{}件, 補正{}件, {}ms",
+            byUserCategory.size(), byProject.size(), drift, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * 経費1件の差分を集計値に適用する
+     * 読み込み済みでないキーは参照時にデータベースから集計するため更新しない
+     *
+     * @param expense 経費
+     * @param add 登録の場合はtrue、削除の場合はfalse
+     */
+    private void apply(Expense expense, boolean add) {
+        String userId = expense.getUserId();
+        markTouched(touchedUsers, userId);
+        ConcurrentHashMap<String, ExpenseStats> categories = byUserCategory.get(userId);
+        if (categories != null) {
+            categories.compute(categoryKey(expense.getCategory()), (category, stats) -> {
+                ExpenseStats next = delta(stats != null ? stats : ExpenseStats.EMPTY, expense, add);
+                return next.count() == 0 ? null : next;
+            });
+        }
+
+        String projectId = expense.getProjectId();
+        if (projectId != null) {
+            markTouched(touchedProjects, projectId);
+            byProject.computeIfPresent(projectId, (id, stats) -> delta(stats, expense, add));
+        }
+    }
+
+    /**
+     * 集計値に経費1件を加える、または除く
+     *
+     * @param stats 集計値
+     * @param expense 経費
+     * @param add 加える場合はtrue
+     * @return 集計値
+     */
+    private static ExpenseStats delta(ExpenseStats stats, Expense expense, boolean add) {
+        return add
+            ? stats.add(expense.getAmount(), expense.getCreatedAt())
+            : stats.remove(expense.getAmount(), expense.getCreatedAt());
+    }
+
+    /**
+     * 再集計中であれば差分を適用したキーを記録する
+     *
+     * @param touched 記録先（再集計中以外はnull）
+     * @param key キー
+     */
+    private static void markTouched(Set<String> touched, String key) {
+        if (touched != null && key != null) {
+            touched.add(key);
+        }
+    }
+
+    /**
+     * ユーザーのカテゴリ別集計値をデータベースから読み込む
+     *
+     * @param userId ユーザーID
+     * @return カテゴリ別の集計値
+     */
+    private ConcurrentHashMap<String, ExpenseStats> loadUser(String userId) {
+        ConcurrentHashMap<String, ExpenseStats> categories = new ConcurrentHashMap<>();
+        for (ExpenseStatsRow row : expenseDao.selectStatsByUserId(userId)) {
+            categories.put(categoryKey(row.category()), toStats(row));
+        }
+        byUserCategory.put(userId, categories);
+        return categories;
+    }
+
+    /**
+     * 再集計の結果と食い違っているユーザーの数を数える
+     *
+     * @param fresh 再集計の結果
+     * @param touched 再集計中に差分を適用したユーザーID（比較しない）
+     * @return 食い違っていたユーザーの数
+     */
+    private int countUserDrift(Map<String, ConcurrentHashMap<String, ExpenseStats>> fresh, Set<String> touched) {
+        int drift = 0;
+        for (Map.Entry<String, ConcurrentHashMap<String, ExpenseStats>> entry : byUserCategory.entrySet()) {
+            if (touched.contains(entry.getKey())) {
+                continue;
+            }
+            Map<String, ExpenseStats> expected = fresh.containsKey(entry.getKey()) ? fresh.get(entry.getKey()) : Map.of();
+            Map<String, ExpenseStats> actual = entry.getValue();
+            if (!expected.keySet().equals(actual.keySet())
+                    || expected.entrySet().stream().anyMatch(e -> !e.getValue().sameAs(actual.get(e.getKey())))) {
+                drift++;
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * 再集計の結果と食い違っているプロジェクトの数を数える
+     *
+     * @param fresh 再集計の結果
+     * @param touched 再集計中に差分を適用したプロジェクトID（比較しない）
+     * @return 食い違っていたプロジェクトの数
+     */
+    private int countProjectDrift(Map<String, ExpenseStats> fresh, Set<String> touched) {
+        int drift = 0;
+        for (Map.Entry<String, ExpenseStats> entry : byProject.entrySet()) {
+            if (!touched.contains(entry.getKey())
+                    && !fresh.getOrDefault(entry.getKey(), ExpenseStats.EMPTY).sameAs(entry.getValue())) {
+                drift++;
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * カテゴリをマップのキーに変換する
+     *
+     * @param category カテゴリ
+     * @return キー（nullの場合は空文字）
+     */
+    private static String categoryKey(String category) {
+        return Objects.requireNonNullElse(category, "");
+    }
+
+    /**
+     * 集計結果行を集計値に変換する
+     *
+     * @param row 集計結果行
+     * @return 集計値
+     */
+    private static ExpenseStats toStats(ExpenseStatsRow row) {
+        return new ExpenseStats(row.expenseCount(), row.totalAmount(), row.lastExpenseDate());
+    }
+}
@@ -0,0 +1,120 @@
+package com.vercel.backend.aggregate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 経費の集計値（件数・合計・平均・最終登録日時）
+ * 不変オブジェクトで、登録・削除の差分を適用した新しい集計値を返す
+ *
+ * @param count 件数
+ * @param totalAmount 合計金額
+ * @param lastExpenseDate 最終登録日時（件数が0の場合、または削除により不明になった場合はnull）
+ */
+public record ExpenseStats(long count, BigDecimal totalAmount, LocalDateTime lastExpenseDate) implements Serializable {
+
+    /** 経費がない場合の集計値 */
+    public static final ExpenseStats EMPTY = new ExpenseStats(0, BigDecimal.ZERO, null);
+
+    /**
+     * 平均金額を取得する
+     *
+     * @return 平均金額（小数点以下2桁、件数が0の場合は0）
+     */
+    @JsonProperty("averageAmount")
+    public BigDecimal averageAmount() {
+        if (count == 0) {
+            return BigDecimal.ZERO;
+        }
+        return totalAmount.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 最終登録日時が削除により不明になり、データベースから再集計が必要かどうか
+     *
+     * @return 再集計が必要な場合はtrue
+     */
+    @JsonIgnore
+    public boolean isStale() {
+        return count > 0 && lastExpenseDate == null;
+    }
+
+    /**
+     * 経費1件を加えた集計値を返す
+     *
+     * @param amount 金額
+     * @param createdAt 作成日時
+     * @return 集計値
+     */
+    public ExpenseStats add(BigDecimal amount, LocalDateTime createdAt) {
+        LocalDateTime last = lastExpenseDate;
+        if (count == 0 || (last != null && createdAt != null && createdAt.isAfter(last))) {
+            last = createdAt;
+        }
+        return new ExpenseStats(count + 1, totalAmount.add(nonNull(amount)), last);
+    }
+
+    /**
+     * 経費1件を除いた集計値を返す
+     * 除いた経費が最新だった場合、次に新しい日時は差分からは分からないため最終登録日時を不明にする
+     *
+     * @param amount 金額
+     * @param createdAt 作成日時
+     * @return 集計値
+     */
+    public ExpenseStats remove(BigDecimal amount, LocalDateTime createdAt) {
+        if (count <= 1) {
+            return EMPTY;
+        }
+        LocalDateTime last = lastExpenseDate;
+        if (last != null && (createdAt == null || !createdAt.isBefore(last))) {
+            last = null;
+        }
+        return new ExpenseStats(count - 1, totalAmount.subtract(nonNull(amount)), last);
+    }
+
+    /**
+     * 2つの集計値を合算する
+     *
+     * @param other 集計値
+     * @return 合算した集計値
+     */
+    public ExpenseStats merge(ExpenseStats other) {
+        LocalDateTime last = lastExpenseDate;
+        if (last == null || (other.lastExpenseDate != null && other.lastExpenseDate.isAfter(last))) {
+            last = other.lastExpenseDate;
+        }
+        if (isStale() || other.isStale()) {
+            last = null;
+        }
+        return new ExpenseStats(count + other.count, totalAmount.add(other.totalAmount), last);
+    }
+
+    /**
+     * 金額の桁数（スケール）の違いを無視して集計値が等しいかどうか
+     *
+     * @param other 集計値
+     * @return 等しい場合はtrue
+     */
+    public boolean sameAs(ExpenseStats other) {
+        return count == other.count
+            && totalAmount.compareTo(other.totalAmount) == 0
+            && Objects.equals(lastExpenseDate, other.lastExpenseDate);
+    }
+
+    /**
+     * 未設定の金額を0として扱う
+     *
+     * @param amount 金額
+     * @return 金額（nullの場合は0）
+     */
+    private static BigDecimal nonNull(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
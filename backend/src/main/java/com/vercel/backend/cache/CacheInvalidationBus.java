@@ -0,0 +1,24 @@
+package com.vercel.backend.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * キャッシュ無効化メッセージの配信チャネル
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 全ノードへ無効化メッセージを配信する
+     *
+     * @param message 無効化メッセージ
+     */
+    void publish(CacheInvalidationMessage message);
+
+    /**
+     * 無効化メッセージの受信者を登録する
+     * 自ノードが発行したメッセージも配信されるため、受信者側で発行元を判定する
+     *
+     * @param listener 受信者
+     */
+    void subscribe(Consumer<CacheInvalidationMessage> listener);
+}
@@ -0,0 +1,27 @@
+package com.vercel.backend.cache;
+
+import java.io.Serializable;
+
+/**
+ * ノード間で配信されるキャッシュ無効化メッセージ
+ *
+ * @param origin 発行元ノードID
+ * @param cacheName キャッシュ名
+ * @param type 無効化の種類
+ * @param target 対象（KEYの場合はキャッシュキー、USERの場合はユーザーID、CLEARの場合はnull）
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, Type type, Object target)
+        implements Serializable {
+
+    /**
+     * 無効化の種類
+     */
+    public enum Type {
+        /** 単一キーの削除 */
+        KEY,
+        /** ユーザー単位の削除 */
+        USER,
+        /** キャッシュ全体のクリア */
+        CLEAR
+    }
+}
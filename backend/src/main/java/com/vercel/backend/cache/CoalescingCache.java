@@ -0,0 +1,183 @@
+package com.vercel.backend.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * キャッシュミス時の読み込みを {@link SingleFlight} でまとめるキャッシュデコレーター
+ * {@code @Cacheable(sync = true)} のメソッドで、同一キーへの同時ミスが1回のクエリを共有する
+ * Caffeineの計算ロックを保持したまま読み込まないよう、読み込みはロックの外で行う
+ * 読み込み中に削除（evict・evictUser・clear）されたキーには、読み込んだ古い値を格納しない
+ */
+public class CoalescingCache implements UserEvictableCache {
+
+    /** ユーザーごとの削除の世代を分割する数 */
+    private static final int GENERATION_STRIPES = 64;
+
+    /** 実際のキャッシュ */
+    private final Cache delegate;
+
+    /** 同時実行の集約 */
+    private final SingleFlight singleFlight;
+
+    /**
+     * ユーザーごとの削除の世代（ユーザーIDのハッシュで分割する）
+     * 別のユーザーと世代を共有しても、読み込んだ値を格納しない場合が増えるだけで不整合は生じない
+     */
+    private final AtomicLongArray userGenerations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /** ユーザーで分けられないキー（{@link UserCacheKey} 以外）の削除の世代 */
+    private final AtomicLong unownedGeneration = new AtomicLong();
+
+    /** キャッシュ全体の削除の世代 */
+    private final AtomicLong clearGeneration = new AtomicLong();
+
+    /**
+     * デコレーターのコンストラクタ
+     *
+     * @param delegate 実際のキャッシュ
+     * @param singleFlight 同時実行の集約
+     */
+    public CoalescingCache(Cache delegate, SingleFlight singleFlight) {
+        this.delegate = delegate;
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        return singleFlight.execute(getName(), key, () -> {
+            // 先行する読み込みが完了した直後に到着した場合はキャッシュから返す
+            ValueWrapper loaded = delegate.get(key);
+            if (loaded != null) {
+                return (T) loaded.get();
+            }
+            long generation = generationOf(key);
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (generationOf(key) == generation) {
+                delegate.put(key, value);
+                // 格納する直前に削除された場合は、格納した値を削除し直す
+                if (generationOf(key) != generation) {
+                    delegate.evict(key);
+                }
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        advanceGeneration(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        advanceGeneration(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        clearGeneration.incrementAndGet();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        clearGeneration.incrementAndGet();
+        return delegate.invalidate();
+    }
+
+    @Override
+    public int evictUser(String userId) {
+        // ユーザーで分けられないキーにも、そのユーザーのエントリが含まれうる
+        userGenerations.incrementAndGet(stripe(userId));
+        unownedGeneration.incrementAndGet();
+        if (delegate instanceof UserEvictableCache userEvictableCache) {
+            return userEvictableCache.evictUser(userId);
+        }
+        delegate.clear();
+        return 0;
+    }
+
+    /**
+     * キーの削除の世代を取得する
+     * 読み込みの開始時と格納時で異なる場合は、読み込み中にキーが削除されている
+     *
+     * @param key キャッシュキー
+     * @return 削除の世代
+     */
+    private long generationOf(Object key) {
+        long owned = key instanceof UserCacheKey userCacheKey
+            ? userGenerations.get(stripe(userCacheKey.userId()))
+            : unownedGeneration.get();
+        return clearGeneration.get() + owned;
+    }
+
+    /**
+     * キーを削除する前に、キーの削除の世代を進める
+     *
+     * @param key キャッシュキー
+     */
+    private void advanceGeneration(Object key) {
+        if (key instanceof UserCacheKey userCacheKey) {
+            userGenerations.incrementAndGet(stripe(userCacheKey.userId()));
+        } else {
+            unownedGeneration.incrementAndGet();
+        }
+    }
+
+    /**
+     * ユーザーの削除の世代の格納位置を求める
+     *
+     * @param userId ユーザーID
+     * @return 格納位置
+     */
+    private static int stripe(String userId) {
+        return Math.floorMod(Objects.hashCode(userId), GENERATION_STRIPES);
+    }
+}
@@ -0,0 +1,119 @@
+package com.vercel.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.vercel.backend.dto.ExpenseCursorPage;
+import com.vercel.backend.dto.ExpenseListItem;
+import com.vercel.backend.dto.ExpensePage;
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.Project;
+import com.vercel.backend.entity.User;
+
+import java.math.BigDecimal;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * キャッシュエントリのおおよそのヒープ使用量（バイト）を重みとするWeigher
+ * 1件の経費と100件の経費一覧を同じ1エントリとして数えないために使用する
+ * 正確な値ではなく、エントリ間の大小関係が保たれる程度の見積もり
+ */
+public class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+    /** オブジェクトヘッダーの見積もり */
+    private static final int OBJECT_HEADER = 16;
+
+    /** 参照1つ分の見積もり */
+    private static final int REFERENCE = 8;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, estimate(key) + estimate(value));
+    }
+
+    /**
+     * オブジェクトの推定バイト数を計算する
+     *
+     * @param value 対象オブジェクト
+     * @return 推定バイト数
+     */
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return OBJECT_HEADER + 24L + string.length();
+        }
+        if (value instanceof BigDecimal) {
+            return OBJECT_HEADER + 40L;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return OBJECT_HEADER + 8L;
+        }
+        if (value instanceof Temporal) {
+            return OBJECT_HEADER + 48L;
+        }
+        if (value instanceof UserCacheKey key) {
+            return OBJECT_HEADER + estimate(key.userId()) + estimate(key.suffix());
+        }
+        if (value instanceof Expense expense) {
+            return estimateExpense(expense);
+        }
+        if (value instanceof ExpenseListItem item) {
+            return OBJECT_HEADER + 10L * REFERENCE
+                + estimate(item.id()) + estimate(item.projectId()) + estimate(item.projectName())
+                + estimate(item.category()) + estimate(item.description()) + estimate(item.amount())
+                + estimate(item.expenseDate()) + estimate(item.receiptUrl()) + estimate(item.status())
+                + estimate(item.createdAt());
+        }
+        if (value instanceof ExpensePage page) {
+            return OBJECT_HEADER + 24L + estimate(page.expenses());
+        }
+        if (value instanceof ExpenseCursorPage page) {
+            return OBJECT_HEADER + 40L + estimate(page.expenses()) + estimate(page.nextCursor());
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = OBJECT_HEADER + 24L;
+            for (Object element : collection) {
+                size += REFERENCE + estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = OBJECT_HEADER + 48L;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32L + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        return OBJECT_HEADER + REFERENCE;
+    }
+
+    /**
+     * 経費（関連プロジェクト・ユーザーを含む）の推定バイト数を計算する
+     *
+     * @param expense 経費
+     * @return 推定バイト数
+     */
+    private static long estimateExpense(Expense expense) {
+        long size = OBJECT_HEADER + 13L * REFERENCE
+            + estimate(expense.getId()) + estimate(expense.getProjectId())
+            + estimate(expense.getUserId()) + estimate(expense.getCategory())
+            + estimate(expense.getDescription()) + estimate(expense.getAmount())
+            + estimate(expense.getExpenseDate()) + estimate(expense.getReceiptUrl())
+            + estimate(expense.getStatus()) + estimate(expense.getCreatedAt())
+            + estimate(expense.getUpdatedAt());
+        Project project = expense.getProject();
+        if (project != null) {
+            size += OBJECT_HEADER + 13L * REFERENCE
+                + estimate(project.getId()) + estimate(project.getName())
+                + estimate(project.getClientName()) + estimate(project.getStatus());
+        }
+        User user = expense.getUser();
+        if (user != null) {
+            size += OBJECT_HEADER + 5L * REFERENCE
+                + estimate(user.getName()) + estimate(user.getEmail());
+        }
+        return size;
+    }
+}
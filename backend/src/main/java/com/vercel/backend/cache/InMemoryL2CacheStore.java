@@ -0,0 +1,67 @@
+package com.vercel.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * プロセス内メモリを使うL2の代替実装
+ * Redisを用意せずにローカルで二層キャッシュの動作を確認するために使用する
+ */
+public class InMemoryL2CacheStore implements L2CacheStore {
+
+    /** キャッシュ名ごとの格納領域 */
+    private final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+
+    /** 格納値の有効期間 */
+    private final Duration timeToLive;
+
+    /**
+     * コンストラクタ
+     *
+     * @param timeToLive 格納値の有効期間
+     */
+    public InMemoryL2CacheStore(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        return cache(cacheName).getIfPresent(key);
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value) {
+        cache(cacheName).put(key, value);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        cache(cacheName).invalidate(key);
+    }
+
+    @Override
+    public void evictUser(String cacheName, String userId) {
+        cache(cacheName).asMap().keySet()
+            .removeIf(key -> key instanceof UserCacheKey userKey && userKey.userId().equals(userId));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        cache(cacheName).invalidateAll();
+    }
+
+    /**
+     * キャッシュ名に対応する格納領域を取得する
+     *
+     * @param cacheName キャッシュ名
+     * @return 格納領域
+     */
+    private Cache<Object, Object> cache(String cacheName) {
+        return caches.computeIfAbsent(cacheName,
+            name -> Caffeine.newBuilder().expireAfterWrite(timeToLive).build());
+    }
+}
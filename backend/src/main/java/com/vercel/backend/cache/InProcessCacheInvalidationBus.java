@@ -0,0 +1,27 @@
+package com.vercel.backend.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * プロセス内で完結する無効化チャネル
+ * ブローカーを用意せずにローカルで複数ノードの動作を確認するための代替実装
+ */
+public class InProcessCacheInvalidationBus implements CacheInvalidationBus {
+
+    /** 登録済みの受信者 */
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        for (Consumer<CacheInvalidationMessage> listener : listeners) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,49 @@
+package com.vercel.backend.cache;
+
+/**
+ * ノード間で共有される二次キャッシュ（L2）
+ * 値はnullを {@link org.springframework.cache.support.NullValue} に置き換えた状態で格納する
+ */
+public interface L2CacheStore {
+
+    /**
+     * 値を取得する
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     * @return 格納値（存在しない場合はnull）
+     */
+    Object get(String cacheName, Object key);
+
+    /**
+     * 値を格納する
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     * @param value 格納値
+     */
+    void put(String cacheName, Object key, Object value);
+
+    /**
+     * 値を削除する
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     */
+    void evict(String cacheName, Object key);
+
+    /**
+     * 指定ユーザーが所有する値を削除する
+     *
+     * @param cacheName キャッシュ名
+     * @param userId ユーザーID
+     */
+    void evictUser(String cacheName, String userId);
+
+    /**
+     * キャッシュ内の全ての値を削除する
+     *
+     * @param cacheName キャッシュ名
+     */
+    void clear(String cacheName);
+}
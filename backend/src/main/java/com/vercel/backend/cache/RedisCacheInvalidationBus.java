@@ -0,0 +1,60 @@
+package com.vercel.backend.cache;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Redis Pub/Subを使う無効化チャネル
+ */
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+
+    /** 文字列キー・JDKシリアライズ値のテンプレート */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /** 配信チャネル名 */
+    private final String channel;
+
+    /** 登録済みの受信者 */
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param redisTemplate 文字列キー・JDKシリアライズ値のテンプレート
+     * @param listenerContainer メッセージリスナーコンテナ
+     * @param channel 配信チャネル名
+     */
+    public RedisCacheInvalidationBus(RedisTemplate<String, Object> redisTemplate,
+                                     RedisMessageListenerContainer listenerContainer, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public void publish(CacheInvalidationMessage message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (body instanceof CacheInvalidationMessage invalidation) {
+            for (Consumer<CacheInvalidationMessage> listener : listeners) {
+                listener.accept(invalidation);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.vercel.backend.cache;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Redisを使うL2の実装
+ * キーは {@code cache:<キャッシュ名>:<キー>} 形式で格納し、
+ * {@link UserCacheKey} は {@code cache:<キャッシュ名>:user:<ユーザーID>} の集合にも登録する
+ */
+public class RedisL2CacheStore implements L2CacheStore {
+
+    /** 一度にSCANするキー数 */
+    private static final int SCAN_COUNT = 500;
+
+    /** 文字列キー・JDKシリアライズ値のテンプレート */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /** 格納値の有効期間 */
+    private final Duration timeToLive;
+
+    /**
+     * コンストラクタ
+     *
+     * @param redisTemplate 文字列キー・JDKシリアライズ値のテンプレート
+     * @param timeToLive 格納値の有効期間
+     */
+    public RedisL2CacheStore(RedisTemplate<String, Object> redisTemplate, Duration timeToLive) {
+        this.redisTemplate = redisTemplate;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        return redisTemplate.opsForValue().get(entryKey(cacheName, key));
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value) {
+        String entryKey = entryKey(cacheName, key);
+        redisTemplate.opsForValue().set(entryKey, value, timeToLive);
+        if (key instanceof UserCacheKey userKey) {
+            String userSetKey = userSetKey(cacheName, userKey.userId());
+            redisTemplate.opsForSet().add(userSetKey, entryKey);
+            redisTemplate.expire(userSetKey, timeToLive);
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        redisTemplate.delete(entryKey(cacheName, key));
+    }
+
+    @Override
+    public void evictUser(String cacheName, String userId) {
+        String userSetKey = userSetKey(cacheName, userId);
+        Set<Object> entryKeys = redisTemplate.opsForSet().members(userSetKey);
+        List<String> keys = new ArrayList<>();
+        keys.add(userSetKey);
+        if (entryKeys != null) {
+            for (Object entryKey : entryKeys) {
+                keys.add((String) entryKey);
+            }
+        }
+        redisTemplate.delete(keys);
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix(cacheName) + "*").count(SCAN_COUNT).build();
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    connection.keyCommands().del(cursor.next());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * エントリのRedisキーを作成する
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     * @return Redisキー
+     */
+    private String entryKey(String cacheName, Object key) {
+        return prefix(cacheName) + key;
+    }
+
+    /**
+     * ユーザー別キー集合のRedisキーを作成する
+     *
+     * @param cacheName キャッシュ名
+     * @param userId ユーザーID
+     * @return Redisキー
+     */
+    private String userSetKey(String cacheName, String userId) {
+        return prefix(cacheName) + "user:" + userId;
+    }
+
+    /**
+     * キャッシュ名のRedisキー接頭辞を作成する
+     *
+     * @param cacheName キャッシュ名
+     * @return 接頭辞
+     */
+    private String prefix(String cacheName) {
+        return "cache:" + cacheName + ":";
+    }
+}
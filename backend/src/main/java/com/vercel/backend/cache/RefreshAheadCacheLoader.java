@@ -0,0 +1,69 @@
+package com.vercel.backend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * refreshAfterWrite による事前更新専用のCacheLoader
+ * キーごとに登録された再読み込み処理を非同期で実行し、更新中のリクエストには古い値を返す
+ * 再読み込みできない場合はエントリを削除し、次のリクエストでSpringのキャッシュ処理に読み込ませる
+ * 通常のキャッシュミスでは読み込まず（{@link #load} は常にnull）、Springのキャッシュ処理に任せる
+ */
+public class RefreshAheadCacheLoader implements CacheLoader<Object, Object> {
+
+    /** キーごとの再読み込み処理 */
+    private final Cache<Object, Callable<Object>> reloaders;
+
+    /**
+     * コンストラクタ
+     *
+     * @param retention 再読み込み処理を保持する期間（キャッシュの有効期間以上を指定する）
+     * @param maximumSize 保持する再読み込み処理の最大数
+     */
+    public RefreshAheadCacheLoader(Duration retention, long maximumSize) {
+        this.reloaders = Caffeine.newBuilder()
+            .expireAfterAccess(retention)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    /**
+     * キーに対応する再読み込み処理が登録されているかどうかを返す
+     *
+     * @param key キャッシュキー
+     * @return 登録されている場合はtrue
+     */
+    public boolean isRegistered(Object key) {
+        return reloaders.asMap().containsKey(key);
+    }
+
+    /**
+     * キーに対応する再読み込み処理を登録する（登録済みの場合は何もしない）
+     *
+     * @param key キャッシュキー
+     * @param reloader 再読み込み処理
+     */
+    public void register(Object key, Callable<Object> reloader) {
+        reloaders.asMap().putIfAbsent(key, reloader);
+    }
+
+    @Override
+    public Object load(Object key) {
+        return null;
+    }
+
+    @Override
+    public Object reload(Object key, Object oldValue) throws Exception {
+        Callable<Object> reloader = reloaders.getIfPresent(key);
+        if (reloader == null) {
+            // 再読み込み方法が不明な場合は古い値を使い続けず、エントリを削除する
+            return null;
+        }
+        // nullの場合もエントリを削除する
+        return reloader.call();
+    }
+}
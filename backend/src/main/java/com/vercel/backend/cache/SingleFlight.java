@@ -0,0 +1,91 @@
+package com.vercel.backend.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 同一キーに対する同時実行を1回にまとめる（single-flight）
+ * 実行中のキーに対する後続の呼び出しは新たに実行せず、先行する実行の結果を共有する
+ * 実行回数と共有回数は {@code singleflight.calls}（result=executed/coalesced）に記録する
+ */
+@Component
+public class SingleFlight {
+
+    /** 実行中の処理（グループ・キー → 結果） */
+    private final ConcurrentHashMap<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 同一グループ・キーの実行中の処理があればその結果を待ち、なければ処理を実行する
+     *
+     * @param group 処理のグループ名（メトリクスのタグに使用）
+     * @param key キー
+     * @param loader 処理
+     * @param <T> 結果の型
+     * @return 処理結果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String group, Object key, Supplier<T> loader) {
+        Flight flight = new Flight(group, key);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flight, future);
+        if (existing != null) {
+            meterRegistry.counter("singleflight.calls", "group", group, "result", "coalesced").increment();
+            return (T) await(existing);
+        }
+
+        meterRegistry.counter("singleflight.calls", "group", group, "result", "executed").increment();
+        try {
+            T value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flight, future);
+        }
+    }
+
+    /**
+     * 先行する処理の完了を待つ
+     * 先行する処理が失敗した場合は同じ例外を送出する
+     *
+     * @param future 先行する処理の結果
+     * @return 処理結果
+     */
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("処理結果の待機中に割り込まれました", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 実行中の処理を識別するキー
+     *
+     * @param group グループ名
+     * @param key キー
+     */
+    private record Flight(String group, Object key) {
+    }
+}
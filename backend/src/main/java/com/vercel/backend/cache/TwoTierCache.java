@@ -0,0 +1,239 @@
+package com.vercel.backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * ローカルキャッシュ（L1）と共有キャッシュ（L2）の二層キャッシュ
+ * 読み込みはL1 → L2 → 元データの順に行い、削除はL2とL1から削除した後に
+ * 他ノードへ無効化メッセージを配信して各ノードのL1からも削除させる
+ */
+public class TwoTierCache implements UserEvictableCache {
+
+    /** ローカルキャッシュ（L1） */
+    private final Cache local;
+
+    /** 共有キャッシュ（L2） */
+    private final L2CacheStore shared;
+
+    /** 無効化チャネル */
+    private final CacheInvalidationBus invalidationBus;
+
+    /** 自ノードID */
+    private final String nodeId;
+
+    /** L2ヒット数 */
+    private final Counter sharedHits;
+
+    /** L2ミス数 */
+    private final Counter sharedMisses;
+
+    /**
+     * 二層キャッシュのコンストラクタ
+     * 生成時に無効化チャネルを購読する
+     *
+     * @param local ローカルキャッシュ（L1）
+     * @param shared 共有キャッシュ（L2）
+     * @param invalidationBus 無効化チャネル
+     * @param nodeId 自ノードID
+     * @param meterRegistry メトリクスレジストリ
+     */
+    public TwoTierCache(Cache local, L2CacheStore shared, CacheInvalidationBus invalidationBus,
+                        String nodeId, MeterRegistry meterRegistry) {
+        this.local = local;
+        this.shared = shared;
+        this.invalidationBus = invalidationBus;
+        this.nodeId = nodeId;
+        this.sharedHits = meterRegistry.counter("cache.l2.gets", "cache", local.getName(), "result", "hit");
+        this.sharedMisses = meterRegistry.counter("cache.l2.gets", "cache", local.getName(), "result", "miss");
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = local.get(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        Object stored = getShared(key);
+        if (stored == null) {
+            return null;
+        }
+        Object value = fromStoreValue(stored);
+        local.put(key, value);
+        return new SimpleValueWrapper(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("キャッシュ値の型が一致しません: " + type.getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // L1の計算ロック（ConcurrentHashMapのsynchronized）の中でL2や元データを読み込むと、
+        // 仮想スレッドがキャリアスレッドに固定されるため、読み込みはロックの外で行う
+        // 同一キーへの同時ミスの集約は外側の CoalescingCache が行う
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        shared.put(getName(), key, toStoreValue(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = local.putIfAbsent(key, value);
+        if (existing == null) {
+            shared.put(getName(), key, toStoreValue(value));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        // L2を先に削除し、L1の再読み込みで古い値が戻らないようにする
+        shared.evict(getName(), key);
+        local.evict(key);
+        publish(CacheInvalidationMessage.Type.KEY, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        shared.evict(getName(), key);
+        boolean evicted = local.evictIfPresent(key);
+        publish(CacheInvalidationMessage.Type.KEY, key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        shared.clear(getName());
+        local.clear();
+        publish(CacheInvalidationMessage.Type.CLEAR, null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        shared.clear(getName());
+        boolean invalidated = local.invalidate();
+        publish(CacheInvalidationMessage.Type.CLEAR, null);
+        return invalidated;
+    }
+
+    @Override
+    public int evictUser(String userId) {
+        shared.evictUser(getName(), userId);
+        int evicted = evictLocalUser(userId);
+        publish(CacheInvalidationMessage.Type.USER, userId);
+        return evicted;
+    }
+
+    /**
+     * 他ノードから配信された無効化メッセージをL1に適用する
+     *
+     * @param message 無効化メッセージ
+     */
+    private void onInvalidation(CacheInvalidationMessage message) {
+        if (nodeId.equals(message.origin()) || !getName().equals(message.cacheName())) {
+            return;
+        }
+        switch (message.type()) {
+            case KEY -> local.evict(message.target());
+            case USER -> evictLocalUser((String) message.target());
+            case CLEAR -> local.clear();
+        }
+    }
+
+    /**
+     * L1から指定ユーザーのエントリを削除する
+     * L1がユーザー単位の削除に対応していない場合は全体をクリアする
+     *
+     * @param userId ユーザーID
+     * @return 削除したキーの数
+     */
+    private int evictLocalUser(String userId) {
+        if (local instanceof UserEvictableCache userEvictableCache) {
+            return userEvictableCache.evictUser(userId);
+        }
+        local.clear();
+        return 0;
+    }
+
+    /**
+     * L2から値を取得し、ヒット・ミスを記録する
+     *
+     * @param key キャッシュキー
+     * @return 格納値（存在しない場合はnull）
+     */
+    private Object getShared(Object key) {
+        Object stored = shared.get(getName(), key);
+        (stored != null ? sharedHits : sharedMisses).increment();
+        return stored;
+    }
+
+    /**
+     * 無効化メッセージを配信する
+     *
+     * @param type 無効化の種類
+     * @param target 対象
+     */
+    private void publish(CacheInvalidationMessage.Type type, Object target) {
+        invalidationBus.publish(new CacheInvalidationMessage(nodeId, getName(), type, target));
+    }
+
+    /**
+     * nullをL2に格納できる値に変換する
+     *
+     * @param value キャッシュ値
+     * @return 格納値
+     */
+    private static Object toStoreValue(Object value) {
+        return value != null ? value : NullValue.INSTANCE;
+    }
+
+    /**
+     * L2の格納値をキャッシュ値に戻す
+     *
+     * @param stored 格納値
+     * @return キャッシュ値
+     */
+    private static Object fromStoreValue(Object stored) {
+        return stored instanceof NullValue ? null : stored;
+    }
+}
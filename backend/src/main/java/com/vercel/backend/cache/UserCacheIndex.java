@@ -0,0 +1,91 @@
+package com.vercel.backend.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ユーザー別キャッシュキーの索引
+ * キャッシュ名とユーザーIDごとに格納済みの {@link UserCacheKey} を保持し、
+ * 書き込み時にそのユーザーのエントリのみを無効化できるようにする
+ */
+@Component
+public class UserCacheIndex {
+
+    /** キャッシュ名 → ユーザーID → キー集合 */
+    private final Map<String, Map<String, Set<Object>>> index = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * キャッシュに格納されたキーを索引に登録する
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     */
+    public void register(String cacheName, Object key) {
+        if (key instanceof UserCacheKey userKey) {
+            keysByUser(cacheName).compute(userKey.userId(), (userId, keys) -> {
+                Set<Object> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                result.add(key);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * キャッシュから削除されたキーを索引から外す
+     *
+     * @param cacheName キャッシュ名
+     * @param key キャッシュキー
+     */
+    public void unregister(String cacheName, Object key) {
+        if (key instanceof UserCacheKey userKey) {
+            keysByUser(cacheName).computeIfPresent(userKey.userId(), (userId, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * キャッシュ全体がクリアされた際に索引もクリアする
+     *
+     * @param cacheName キャッシュ名
+     */
+    public void clear(String cacheName) {
+        index.remove(cacheName);
+    }
+
+    /**
+     * 指定ユーザーのキーを索引から取り出す
+     * 呼び出し側は返却されたキーをキャッシュから削除する
+     *
+     * @param cacheName キャッシュ名
+     * @param userId ユーザーID
+     * @return 索引に登録されていたキー（存在しない場合は空）
+     */
+    public Set<Object> removeUser(String cacheName, String userId) {
+        Set<Object> keys = keysByUser(cacheName).remove(userId);
+        if (keys == null) {
+            return Set.of();
+        }
+        meterRegistry.counter("cache.user.evictions", "cache", cacheName).increment(keys.size());
+        return keys;
+    }
+
+    /**
+     * キャッシュ名に対応するユーザー別索引を取得する
+     *
+     * @param cacheName キャッシュ名
+     * @return ユーザーID → キー集合
+     */
+    private Map<String, Set<Object>> keysByUser(String cacheName) {
+        return index.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>());
+    }
+}
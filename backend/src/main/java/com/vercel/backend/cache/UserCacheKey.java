@@ -0,0 +1,23 @@
+package com.vercel.backend.cache;
+
+import java.io.Serializable;
+
+/**
+ * ユーザー単位で無効化できるキャッシュキー
+ * 文字列表現は従来の {@code userId_suffix} 形式と同じ
+ *
+ * @param userId キーを所有するユーザーID
+ * @param suffix ユーザーID以降のキー（ページ番号やサイズなど）
+ */
+public record UserCacheKey(String userId, String suffix) implements Serializable {
+
+    /**
+     * キャッシュキーの文字列表現を返す
+     *
+     * @return {@code userId_suffix} 形式の文字列
+     */
+    @Override
+    public String toString() {
+        return userId + "_" + suffix;
+    }
+}
@@ -0,0 +1,40 @@
+package com.vercel.backend.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.StringJoiner;
+
+/**
+ * 先頭引数をユーザーIDとする {@link UserCacheKey} を生成するKeyGenerator
+ * 初めて生成したキーについて、そのキーを再読み込みするための処理を {@link RefreshAheadCacheLoader} に登録する
+ */
+public class UserCacheKeyGenerator implements KeyGenerator {
+
+    /** 事前更新用のCacheLoader */
+    private final RefreshAheadCacheLoader refreshAheadCacheLoader;
+
+    /**
+     * コンストラクタ
+     *
+     * @param refreshAheadCacheLoader 事前更新用のCacheLoader
+     */
+    public UserCacheKeyGenerator(RefreshAheadCacheLoader refreshAheadCacheLoader) {
+        this.refreshAheadCacheLoader = refreshAheadCacheLoader;
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        StringJoiner suffix = new StringJoiner("_");
+        suffix.add(method.getName());
+        for (int i = 1; i < params.length; i++) {
+            suffix.add(String.valueOf(params[i]));
+        }
+        UserCacheKey key = new UserCacheKey((String) params[0], suffix.toString());
+        if (!refreshAheadCacheLoader.isRegistered(key)) {
+            // targetはプロキシではないため、再読み込み時にキャッシュ処理を経由せず直接実行される
+            refreshAheadCacheLoader.register(key, () -> method.invoke(target, params));
+        }
+        return key;
+    }
+}
@@ -0,0 +1,17 @@
+package com.vercel.backend.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * ユーザー単位でエントリを削除できるキャッシュ
+ */
+public interface UserEvictableCache extends Cache {
+
+    /**
+     * 指定ユーザーが所有するエントリのみを削除する
+     *
+     * @param userId ユーザーID
+     * @return このノードで削除したキーの数
+     */
+    int evictUser(String userId);
+}
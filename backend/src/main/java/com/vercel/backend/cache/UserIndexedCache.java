@@ -0,0 +1,103 @@
+package com.vercel.backend.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * 格納したキーを {@link UserCacheIndex} に登録するキャッシュデコレーター
+ */
+public class UserIndexedCache implements UserEvictableCache {
+
+    /** 実際のキャッシュ */
+    private final Cache delegate;
+
+    /** ユーザー別キー索引 */
+    private final UserCacheIndex userCacheIndex;
+
+    /**
+     * デコレーターのコンストラクタ
+     *
+     * @param delegate 実際のキャッシュ
+     * @param userCacheIndex ユーザー別キー索引
+     */
+    public UserIndexedCache(Cache delegate, UserCacheIndex userCacheIndex) {
+        this.delegate = delegate;
+        this.userCacheIndex = userCacheIndex;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = delegate.get(key, valueLoader);
+        userCacheIndex.register(getName(), key);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        userCacheIndex.register(getName(), key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        userCacheIndex.register(getName(), key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        // 削除と同時に再格納された場合に索引から漏れないよう、先に索引から外す
+        userCacheIndex.unregister(getName(), key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        userCacheIndex.unregister(getName(), key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        userCacheIndex.clear(getName());
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        userCacheIndex.clear(getName());
+        return delegate.invalidate();
+    }
+
+    @Override
+    public int evictUser(String userId) {
+        Set<Object> keys = userCacheIndex.removeUser(getName(), userId);
+        for (Object key : keys) {
+            delegate.evict(key);
+        }
+        return keys.size();
+    }
+}
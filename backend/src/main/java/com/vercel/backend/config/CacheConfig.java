@@ -1,28 +1,219 @@
 package com.vercel.backend.config;
 
+import com.vercel.backend.cache.CacheInvalidationBus;
+import com.vercel.backend.cache.CoalescingCache;
+import com.vercel.backend.cache.EstimatedSizeWeigher;
+import com.vercel.backend.cache.L2CacheStore;
+import com.vercel.backend.cache.RefreshAheadCacheLoader;
+import com.vercel.backend.cache.SingleFlight;
+import com.vercel.backend.cache.TwoTierCache;
+import com.vercel.backend.cache.UserCacheIndex;
+import com.vercel.backend.cache.UserCacheKeyGenerator;
+import com.vercel.backend.cache.UserIndexedCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import java.util.concurrent.TimeUnit;
+import com.github.benmanes.caffeine.cache.Policy;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * キャッシュ設定クラス
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CachePolicyProperties.class)
 public class CacheConfig {
     
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+    
+    /** 経費詳細キャッシュ名 */
+    public static final String EXPENSES = "expenses";
+    
+    /** 経費一覧キャッシュ名（ユーザー単位で無効化する） */
+    public static final String EXPENSE_LIST = "expenseList";
+    
+    @Autowired
+    private CachePolicyProperties cachePolicyProperties;
+    
+    /** 事前更新用のスレッドプール（refreshAfterWrite設定時のみ作成） */
+    private ThreadPoolTaskExecutor refreshExecutor;
+    
+    /**
+     * キャッシュマネージャーを作成する
+     * キャッシュごとの容量・有効期限・事前更新は {@link CachePolicyProperties} から設定し、
+     * L2が有効な場合は各キャッシュを二層キャッシュとして構成する
+     * 最も外側では同一キーへの同時ミスを1回の読み込みにまとめる
+     *
+     * @param userCacheIndex ユーザー別キー索引
+     * @param refreshAheadCacheLoader 事前更新用のCacheLoader
+     * @param singleFlight キャッシュミス時の読み込みの集約
+     * @param l2CacheStore 共有キャッシュ（L2無効時は未定義）
+     * @param cacheInvalidationBus 無効化チャネル（L2無効時は未定義）
+     * @param meterRegistry メトリクスレジストリ
+     * @param nodeId 自ノードID
+     * @return キャッシュマネージャー
+     */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .expireAfterAccess(5, TimeUnit.MINUTES)
-            .recordStats());
+    public CacheManager cacheManager(UserCacheIndex userCacheIndex,
+                                     RefreshAheadCacheLoader refreshAheadCacheLoader,
+                                     SingleFlight singleFlight,
+                                     ObjectProvider<L2CacheStore> l2CacheStore,
+                                     ObjectProvider<CacheInvalidationBus> cacheInvalidationBus,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cache.l2.node-id:${random.uuid}}") String nodeId) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Cache adapted = super.adaptCaffeineCache(name, cache);
+                if (EXPENSE_LIST.equals(name)) {
+                    adapted = new UserIndexedCache(adapted, userCacheIndex);
+                }
+                L2CacheStore shared = l2CacheStore.getIfAvailable();
+                CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+                if (shared != null && bus != null) {
+                    adapted = new TwoTierCache(adapted, shared, bus, nodeId, meterRegistry);
+                }
+                return new CoalescingCache(adapted, singleFlight);
+            }
+        };
+        CachePolicyProperties.Policy defaults = cachePolicyProperties.getDefaults();
+        cacheManager.setCaffeine(caffeine(defaults));
+        if (defaults.getRefreshAfterWrite() != null) {
+            cacheManager.setCacheLoader(refreshAheadCacheLoader);
+        }
+        
+        // 起動時に登録しておき、actuatorのキャッシュメトリクスに載せる
+        Set<String> cacheNames = new LinkedHashSet<>(List.of(EXPENSES, EXPENSE_LIST));
+        cacheNames.addAll(cachePolicyProperties.getPolicies().keySet());
+        for (String name : cacheNames) {
+            CachePolicyProperties.Policy policy = cachePolicyProperties.policyFor(name);
+            Caffeine<Object, Object> builder = caffeine(policy)
+                .evictionListener((key, value, cause) -> userCacheIndex.unregister(name, key));
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                policy.getRefreshAfterWrite() != null ? builder.build(refreshAheadCacheLoader) : builder.build();
+            cacheManager.registerCustomCache(name, nativeCache);
+            reportPolicy(name, nativeCache);
+        }
         return cacheManager;
     }
+    
+    /**
+     * 事前更新用のCacheLoaderを作成する
+     *
+     * @return 事前更新用のCacheLoader
+     */
+    @Bean
+    public RefreshAheadCacheLoader refreshAheadCacheLoader() {
+        return new RefreshAheadCacheLoader(Duration.ofMinutes(30), 10_000);
+    }
+    
+    /**
+     * ユーザー単位キャッシュのキー生成器を作成する
+     * {@code @Cacheable(keyGenerator = "userCacheKeyGenerator")} で使用する
+     *
+     * @param refreshAheadCacheLoader 事前更新用のCacheLoader
+     * @return キー生成器
+     */
+    @Bean
+    public UserCacheKeyGenerator userCacheKeyGenerator(RefreshAheadCacheLoader refreshAheadCacheLoader) {
+        return new UserCacheKeyGenerator(refreshAheadCacheLoader);
+    }
+    
+    /**
+     * デコレーターで包んだキャッシュのヒット・ミス・削除統計をMicrometerに公開する
+     * L1のCaffeine統計を対象とし、L2のヒット・ミスは {@code cache.l2.gets} に記録される
+     *
+     * @return メーターバインダープロバイダー
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public CacheMeterBinderProvider<Cache> decoratedCacheMeterBinderProvider() {
+        return (cache, tags) -> cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+            ? new CaffeineCacheMetrics<>((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache, cache.getName(), tags)
+            : null;
+    }
+    
+    /**
+     * キャッシュごとの設定からCaffeineビルダーを作成する
+     *
+     * @param policy キャッシュの設定
+     * @return Caffeineビルダー
+     */
+    private Caffeine<Object, Object> caffeine(CachePolicyProperties.Policy policy) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (policy.getMaximumWeight() != null) {
+            builder.maximumWeight(policy.getMaximumWeight().toBytes()).weigher(new EstimatedSizeWeigher());
+        } else if (policy.getMaximumSize() != null) {
+            builder.maximumSize(policy.getMaximumSize());
+        }
+        if (policy.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(policy.getExpireAfterWrite());
+        }
+        if (policy.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(policy.getExpireAfterAccess());
+        }
+        if (policy.getRefreshAfterWrite() != null) {
+            // 再読み込みはリクエストスレッドではなく専用スレッドで行い、その間は古い値を返す
+            builder.refreshAfterWrite(policy.getRefreshAfterWrite()).executor(refreshExecutor());
+        }
+        return builder;
+    }
+    
+    /**
+     * 事前更新用のスレッドプールを取得する
+     * Executor型のBeanにするとSpring Boot既定のタスク実行器が無効になるため、Beanにはしない
+     *
+     * @return スレッドプール
+     */
+    private synchronized ThreadPoolTaskExecutor refreshExecutor() {
+        if (refreshExecutor == null) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(cachePolicyProperties.getRefreshThreads());
+            executor.setMaxPoolSize(cachePolicyProperties.getRefreshThreads());
+            executor.setQueueCapacity(256);
+            executor.setThreadNamePrefix("cache-refresh-");
+            executor.setDaemon(true);
+            executor.initialize();
+            refreshExecutor = executor;
+        }
+        return refreshExecutor;
+    }
+    
+    /**
+     * キャッシュごとの実効設定を起動時に出力する
+     *
+     * @param name キャッシュ名
+     * @param cache Caffeineキャッシュ
+     */
+    private void reportPolicy(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        Policy<Object, Object> policy = cache.policy();
+        String bound = policy.eviction()
+            .map(eviction -> eviction.isWeighted()
+                ? "maximumWeight=" + DataSize.ofBytes(eviction.getMaximum()).toMegabytes() + "MB (推定バイト数)"
+                : "maximumSize=" + eviction.getMaximum())
+            .orElse("上限なし");
+        log.info("キャッシュ[{}] {}, expireAfterWrite={}, expireAfterAccess={}, refreshAfterWrite={}",
+            name, bound,
+            policy.expireAfterWrite().map(expiration -> expiration.getExpiresAfter().toString()).orElse("-"),
+            policy.expireAfterAccess().map(expiration -> expiration.getExpiresAfter().toString()).orElse("-"),
+            policy.refreshAfterWrite().map(refresh -> refresh.getRefreshesAfter().toString()).orElse("-"));
+    }
 }
@@ -0,0 +1,121 @@
+package com.vercel.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * キャッシュごとの容量・有効期限・事前更新の設定
+ * {@code cache.policies.<キャッシュ名>} で個別に指定し、未指定のキャッシュには {@code cache.defaults} を適用する
+ */
+@ConfigurationProperties(prefix = "cache")
+public class CachePolicyProperties {
+
+    /** 個別指定のないキャッシュに適用する設定 */
+    private Policy defaults = new Policy();
+
+    /** キャッシュ名ごとの設定 */
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    /** 事前更新（refreshAfterWrite）を実行するスレッド数 */
+    private int refreshThreads = 4;
+
+    /**
+     * キャッシュ名に対応する設定を取得する
+     *
+     * @param cacheName キャッシュ名
+     * @return 個別設定（未指定の場合は既定の設定）
+     */
+    public Policy policyFor(String cacheName) {
+        return policies.getOrDefault(cacheName, defaults);
+    }
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(Map<String, Policy> policies) {
+        this.policies = policies;
+    }
+
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+
+    /**
+     * 1つのキャッシュに適用する設定
+     * maximumWeight を指定した場合はエントリの推定バイト数で容量を制限し、maximumSize は無視する
+     */
+    public static class Policy {
+
+        /** 最大エントリ数 */
+        private Long maximumSize = 1000L;
+
+        /** 推定バイト数による最大容量 */
+        private DataSize maximumWeight;
+
+        /** 書き込み後の有効期間 */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+        /** 最終アクセス後の有効期間 */
+        private Duration expireAfterAccess;
+
+        /** 書き込み後、非同期で再読み込みを始めるまでの期間 */
+        private Duration refreshAfterWrite;
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public DataSize getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(DataSize maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
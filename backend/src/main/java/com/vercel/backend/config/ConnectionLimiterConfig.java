@@ -0,0 +1,86 @@
+package com.vercel.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.jdbc.ConnectionLimiter;
+import com.vercel.backend.jdbc.GradientLimit;
+import com.vercel.backend.jdbc.LimitedDataSource;
+import com.vercel.backend.web.LoadSheddingFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * データベース接続の同時取得数の制限の設定クラス
+ * {@code db.limiter.enabled} が有効な場合、接続プールを {@link LimitedDataSource} で包み、
+ * 同時取得数の上限（接続の使用時間から調整）を超えるスレッドは接続プールではなく {@link ConnectionLimiter} で待たせる
+ * 待ちきれないと見込まれるAPIリクエストは {@link LoadSheddingFilter} が処理前に503で拒否する
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.limiter.enabled", havingValue = "true")
+public class ConnectionLimiterConfig {
+
+    /**
+     * 同時取得数の制限を作成する
+     * 上限は接続プールの最大接続数から始め、接続の使用時間が伸びた場合は min-limit まで下げる
+     *
+     * @param maximumPoolSize 接続プールの最大接続数
+     * @param minLimit 同時取得数の上限の最小値
+     * @param maxWaiting 待機数の上限
+     * @param acquireTimeout 許可の待機時間の上限
+     * @param meterRegistry メトリクスレジストリ
+     * @return 同時取得数の制限
+     */
+    @Bean
+    public ConnectionLimiter connectionLimiter(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${db.limiter.min-limit:4}") int minLimit,
+                                               @Value("${db.limiter.max-waiting:1000}") int maxWaiting,
+                                               @Value("${db.limiter.acquire-timeout:PT5S}") Duration acquireTimeout,
+                                               MeterRegistry meterRegistry) {
+        GradientLimit limit = new GradientLimit(Math.min(minLimit, maximumPoolSize), maximumPoolSize);
+        return new ConnectionLimiter(limit, maxWaiting, acquireTimeout, meterRegistry);
+    }
+
+    /**
+     * APIリクエストの負荷制限フィルターを登録する
+     *
+     * @param connectionLimiter 同時取得数の制限
+     * @param objectMapper JSON変換
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(ConnectionLimiter connectionLimiter,
+                                                                         ObjectMapper objectMapper) {
+        FilterRegistrationBean<LoadSheddingFilter> registration =
+            new FilterRegistrationBean<>(new LoadSheddingFilter(connectionLimiter, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    /**
+     * 接続プールを同時取得数の制限付きのデータソースで包む
+     * DomaConfig・JdbcTemplate・トランザクションマネージャーはすべて包んだデータソースを使う
+     *
+     * @param connectionLimiter 同時取得数の制限（データソースの作成時に取得する）
+     * @return ビーンポストプロセッサー
+     */
+    @Bean
+    public static BeanPostProcessor limitedDataSourcePostProcessor(ObjectProvider<ConnectionLimiter> connectionLimiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new LimitedDataSource(dataSource, connectionLimiter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -4,8 +4,10 @@ import org.seasar.doma.jdbc.Config;
 import org.seasar.doma.jdbc.dialect.Dialect;
 import org.seasar.doma.jdbc.dialect.PostgresDialect;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 
 import javax.sql.DataSource;
 
@@ -20,6 +22,10 @@ public class DomaConfig {
     @Autowired
     private DataSource dataSource;
 
+    /** バッチ更新で1回のJDBCバッチにまとめる件数 */
+    @Value("${doma.batch-size:500}")
+    private int batchSize;
+
     /**
      * Domaの設定Beanを作成する
      * PostgreSQLダイアレクトとデータソースを設定
@@ -28,6 +34,8 @@ public class DomaConfig {
      */
     @Bean
     public Config domaConfig() {
+        // Springのトランザクション（@Transactional、TransactionTemplate）と同じ接続を使う
+        DataSource transactionAwareDataSource = new TransactionAwareDataSourceProxy(dataSource);
         return new Config() {
             /**
              * データベースダイアレクトを取得する
@@ -42,13 +50,24 @@ public class DomaConfig {
 
             /**
              * データソースを取得する
-             * Spring Bootが設定したデータソースを返す
+             * Spring Bootが設定したデータソースをトランザクション対応のプロキシで包んで返す
              * 
              * @return データソース
              */
             @Override
             public DataSource getDataSource() {
-                return dataSource;
+                return transactionAwareDataSource;
+            }
+
+            /**
+             * バッチサイズを取得する
+             * 既定値（10）では一括登録の往復回数が多くなるため設定値を返す
+             * 
+             * @return バッチサイズ
+             */
+            @Override
+            public int getBatchSize() {
+                return batchSize;
             }
         };
     }
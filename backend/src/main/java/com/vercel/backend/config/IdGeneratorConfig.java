@@ -0,0 +1,34 @@
+package com.vercel.backend.config;
+
+import com.vercel.backend.id.IdGenerator;
+import com.vercel.backend.id.SnowflakeIdGenerator;
+import com.vercel.backend.id.UlidIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID生成器設定クラス
+ * {@code id.generator.type} が {@code ulid}（既定）の場合はULID形式、
+ * {@code snowflake} の場合は {@code id.generator.node-id} をノードIDとするSnowflake形式で生成する
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * ID生成器を作成する
+     *
+     * @param type 生成方式
+     * @param nodeId ノードID（Snowflake形式のみ使用）
+     * @return ID生成器
+     */
+    @Bean
+    public IdGenerator idGenerator(@Value("${id.generator.type:ulid}") String type,
+                                   @Value("${id.generator.node-id:0}") int nodeId) {
+        return switch (type) {
+            case "ulid" -> new UlidIdGenerator();
+            case "snowflake" -> new SnowflakeIdGenerator(nodeId);
+            default -> throw new IllegalArgumentException("未対応のID生成方式です: " + type);
+        };
+    }
+}
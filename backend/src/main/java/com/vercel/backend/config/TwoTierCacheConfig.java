@@ -0,0 +1,85 @@
+package com.vercel.backend.config;
+
+import com.vercel.backend.cache.CacheInvalidationBus;
+import com.vercel.backend.cache.InMemoryL2CacheStore;
+import com.vercel.backend.cache.InProcessCacheInvalidationBus;
+import com.vercel.backend.cache.L2CacheStore;
+import com.vercel.backend.cache.RedisCacheInvalidationBus;
+import com.vercel.backend.cache.RedisL2CacheStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * 二層キャッシュ（L2）設定クラス
+ * {@code cache.l2.mode} が {@code none}（既定）の場合はL1のみで動作する
+ * {@code local} はプロセス内の代替実装、{@code redis} はRedisを使用する
+ */
+@Configuration
+public class TwoTierCacheConfig {
+
+    /**
+     * プロセス内の代替実装を使うL2設定
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "cache.l2.mode", havingValue = "local")
+    static class LocalTier {
+
+        @Bean
+        public L2CacheStore l2CacheStore(@Value("${cache.l2.time-to-live:10m}") Duration timeToLive) {
+            return new InMemoryL2CacheStore(timeToLive);
+        }
+
+        @Bean
+        public CacheInvalidationBus cacheInvalidationBus() {
+            return new InProcessCacheInvalidationBus();
+        }
+    }
+
+    /**
+     * Redisを使うL2設定
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "cache.l2.mode", havingValue = "redis")
+    static class RedisTier {
+
+        @Bean
+        public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setKeySerializer(StringRedisSerializer.UTF_8);
+            template.setHashKeySerializer(StringRedisSerializer.UTF_8);
+            template.setValueSerializer(new JdkSerializationRedisSerializer());
+            template.setHashValueSerializer(new JdkSerializationRedisSerializer());
+            return template;
+        }
+
+        @Bean
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        @Bean
+        public L2CacheStore l2CacheStore(RedisTemplate<String, Object> cacheRedisTemplate,
+                                         @Value("${cache.l2.time-to-live:10m}") Duration timeToLive) {
+            return new RedisL2CacheStore(cacheRedisTemplate, timeToLive);
+        }
+
+        @Bean
+        public CacheInvalidationBus cacheInvalidationBus(RedisTemplate<String, Object> cacheRedisTemplate,
+                                                         RedisMessageListenerContainer cacheInvalidationListenerContainer,
+                                                         @Value("${cache.l2.channel:cache-invalidation}") String channel) {
+            return new RedisCacheInvalidationBus(cacheRedisTemplate, cacheInvalidationListenerContainer, channel);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.vercel.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 仮想スレッド実行モードの設定クラス
+ * {@code spring.threads.virtual.enabled} が有効な場合、Spring BootがTomcatのリクエスト処理と
+ * 非同期タスク実行器（StreamingResponseBodyの書き出しなど）を仮想スレッドで実行する
+ * ビルドはJava 17のままで、Java 21以降の実行環境でのみ有効になるため、起動時に実効モードを出力する
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /** 仮想スレッドを有効にするかどうか */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    /** データベース接続の同時取得数の制限を有効にするかどうか */
+    @Value("${db.limiter.enabled:false}")
+    private boolean limiterEnabled;
+
+    /**
+     * 実効モードを出力する
+     */
+    @PostConstruct
+    public void reportMode() {
+        if (!virtualThreadsEnabled) {
+            log.info("リクエストはプラットフォームスレッドで処理します");
+            return;
+        }
+        if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            log.warn("仮想スレッドはJava 21以降で有効になります（実行環境: Java {}）。プラットフォームスレッドで処理します",
+                JavaVersion.getJavaVersion());
+            return;
+        }
+        log.info("リクエストは仮想スレッドで処理します（データベース接続の同時取得数の制限: {}）",
+            limiterEnabled ? "有効" : "無効");
+        if (!limiterEnabled) {
+            log.warn("db.limiter.enabled が無効のため、接続を待つ仮想スレッドはすべて接続プールで待機します");
+        }
+    }
+}
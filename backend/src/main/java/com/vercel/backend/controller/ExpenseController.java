@@ -1,18 +1,46 @@
 package com.vercel.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.aggregate.ExpenseAggregator;
+import com.vercel.backend.aggregate.ExpenseStats;
+import com.vercel.backend.dto.ErrorResponse;
+import com.vercel.backend.dto.ExpenseBatchGetRequest;
+import com.vercel.backend.dto.ExpenseBatchGetResponse;
+import com.vercel.backend.dto.ExpenseCursorPage;
+import com.vercel.backend.dto.ExpenseImportResult;
+import com.vercel.backend.dto.ExpenseListResponse;
+import com.vercel.backend.dto.ExpensePage;
+import com.vercel.backend.dto.ExpenseResponse;
+import com.vercel.backend.dto.ExpenseSummaryResponse;
+import com.vercel.backend.dto.MessageResponse;
 import com.vercel.backend.entity.Expense;
+import com.vercel.backend.jdbc.ConnectionLimitExceededException;
+import com.vercel.backend.service.ExpenseExportWriter;
+import com.vercel.backend.service.ExpenseImportReader;
 import com.vercel.backend.service.ExpenseService;
+import com.vercel.backend.writebehind.WriteBehindUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Set;
 
 /**
  * 経費コントローラー
+ * レスポンスは {@code com.vercel.backend.dto} の型付きレコードで返し、
+ * 一覧系は関連プロジェクト・ユーザーを含まない一覧用の射影（ExpenseListItem）を返す
  */
 @RestController
 @RequestMapping("/api/expenses")
@@ -22,56 +50,156 @@ public class ExpenseController {
     @Autowired
     private ExpenseService expenseService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ExpenseAggregator expenseAggregator;
+    
     /**
      * 経費一覧を取得
      * @param userId ユーザーID
+     * @param from 経費日付の開始日（yyyy-MM-dd、省略時は条件にしない）
+     * @param to 経費日付の終了日（yyyy-MM-dd、この日を含む、省略時は条件にしない）
      * @return 経費一覧
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getExpenses(@RequestParam String userId) {
+    public ResponseEntity<?> getExpenses(
+            @RequestParam String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         try {
-            List<Expense> expenses = expenseService.findByUserId(userId);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("expenses", expenses);
-            response.put("success", true);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new ExpenseListResponse(expenseService.findByUserId(userId, from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(new ErrorResponse("期間が不正です", e.getMessage()));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費の取得に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
-            
-            return ResponseEntity.status(500).body(response);
+            return serverError("経費の取得に失敗しました", e);
         }
     }
     
     /**
      * 経費一覧を取得（ページネーション付き）
      * @param userId ユーザーID
-     * @param page ページ番号（デフォルト: 0）
-     * @param size ページサイズ（デフォルト: 20）
+     * @param from 経費日付の開始日（yyyy-MM-dd、省略時は条件にしない）
+     * @param to 経費日付の終了日（yyyy-MM-dd、この日を含む、省略時は条件にしない）
+     * @param page ページ番号（0以上、デフォルト: 0）
+     * @param size ページサイズ（1以上、デフォルト: 20、最大件数を超える場合は切り詰める）
      * @return 経費一覧とページ情報
      */
     @GetMapping("/paginated")
-    public ResponseEntity<Map<String, Object>> getExpensesWithPagination(
+    public ResponseEntity<?> getExpensesWithPagination(
             @RequestParam String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
-            Map<String, Object> result = expenseService.findByUserIdWithPagination(userId, page, size);
-            result.put("success", true);
+            ExpensePage result = expenseService.findByUserIdWithPagination(userId, from, to, page, size);
+            
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(new ErrorResponse("ページ指定または期間が不正です", e.getMessage()));
+        } catch (Exception e) {
+            return serverError("経費の取得に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 経費一覧を取得（カーソルページネーション付き）
+     * @param userId ユーザーID
+     * @param from 経費日付の開始日（yyyy-MM-dd、省略時は条件にしない）
+     * @param to 経費日付の終了日（yyyy-MM-dd、この日を含む、省略時は条件にしない）
+     * @param after 前ページのレスポンスに含まれる次カーソル（先頭ページでは省略、前ページと同じ期間を指定する）
+     * @param size ページサイズ（1以上、デフォルト: 20、最大件数を超える場合は切り詰める）
+     * @param withTotal 総件数を含めるかどうか（デフォルト: false）
+     * @return 経費一覧と次カーソル
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getExpensesWithCursor(
+            @RequestParam String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            ExpenseCursorPage result = expenseService.findByUserIdWithCursor(userId, from, to, after, size, withTotal);
             
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(new ErrorResponse("ページ指定・カーソルまたは期間が不正です", e.getMessage()));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費の取得に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
+            return serverError("経費の取得に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 経費の集計を取得（ダッシュボード用）
+     * メモリ上で差分更新している集計値を返すため、データベースの集計は行わない
+     * @param userId ユーザーID（件数・合計・平均・最終登録日時とカテゴリ別の内訳）
+     * @param projectId プロジェクトID（件数・合計・平均・最終登録日時）
+     * @return 経費の集計
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getExpenseSummary(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String projectId) {
+        if (userId == null && projectId == null) {
+            return ResponseEntity.status(400).body(ErrorResponse.of("userIdまたはprojectIdを指定してください"));
+        }
+        
+        try {
+            Map<String, ExpenseStats> categories = userId != null ? expenseAggregator.categoriesOf(userId) : null;
+            ExpenseSummaryResponse response = new ExpenseSummaryResponse(
+                userId,
+                categories != null ? expenseAggregator.totalOf(categories) : null,
+                categories,
+                projectId,
+                projectId != null ? expenseAggregator.projectStats(projectId) : null);
             
-            return ResponseEntity.status(500).body(response);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return serverError("経費の集計の取得に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 経費をエクスポート（監査用）
+     * 結果をメモリに溜めず、データベースのカーソルから読み込んだ行を順次レスポンスへ書き出す
+     * @param userId ユーザーID
+     * @param projectId プロジェクトID
+     * @param from 経費日付の開始日（yyyy-MM-dd、省略時は条件にしない）
+     * @param to 経費日付の終了日（yyyy-MM-dd、この日を含む、省略時は条件にしない）
+     * @param format 出力形式（ndjson または csv、デフォルト: ndjson）
+     * @return 経費のストリーム
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportExpenses(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String projectId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if ((userId == null && projectId == null)
+                || !("ndjson".equalsIgnoreCase(format) || "csv".equalsIgnoreCase(format))) {
+            return ResponseEntity.status(400)
+                .body(ErrorResponse.of("userIdまたはprojectIdと、ndjsonまたはcsvの形式を指定してください"));
+        }
+        // ストリームの開始後はステータスを変更できないため、期間は書き出す前に検証する
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.status(400).body(new ErrorResponse("期間が不正です", "開始日が終了日より後です"));
         }
+        
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = out -> {
+            try (ExpenseExportWriter writer = ExpenseExportWriter.open(format, out, objectMapper)) {
+                expenseService.exportExpenses(userId, projectId, from, to, writer);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"expenses." + (csv ? "csv" : "ndjson") + "\"")
+            .body(body);
     }
     
     /**
@@ -81,32 +209,48 @@ public class ExpenseController {
      * @return 経費詳細
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getExpense(
-            @PathVariable String id, 
+    public ResponseEntity<?> getExpense(
+            @PathVariable String id,
             @RequestParam String userId) {
         try {
             Optional<Expense> expense = expenseService.findByIdAndUserId(id, userId);
             
             if (expense.isPresent()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("expense", expense.get());
-                response.put("success", true);
-                
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(new ExpenseResponse(expense.get(), null));
             } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("error", "経費が見つかりません");
-                response.put("success", false);
-                
-                return ResponseEntity.status(404).body(response);
+                return ResponseEntity.status(404).body(ErrorResponse.of("経費が見つかりません"));
             }
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費詳細の取得に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
+            return serverError("経費詳細の取得に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 経費詳細を一括取得
+     * キャッシュにない経費のみを1回のクエリでまとめて取得する
+     * @param userId ユーザーID
+     * @param request 経費ID（重複したIDは1件として扱う）
+     * @return 経費詳細（リクエストの順）と見つからなかった経費ID
+     */
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> batchGetExpenses(
+            @RequestParam String userId,
+            @RequestBody ExpenseBatchGetRequest request) {
+        List<String> ids = request.ids();
+        if (ids == null || ids.isEmpty() || ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            return ResponseEntity.status(400).body(ErrorResponse.of("経費IDが不正です"));
+        }
+        try {
+            List<Expense> expenses = expenseService.findByIdsAndUserId(ids, userId);
             
-            return ResponseEntity.status(500).body(response);
+            Set<String> foundIds = new HashSet<>();
+            expenses.forEach(expense -> foundIds.add(expense.getId()));
+            List<String> notFound = ids.stream().distinct().filter(id -> !foundIds.contains(id)).toList();
+            return ResponseEntity.ok(new ExpenseBatchGetResponse(expenses, notFound));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(new ErrorResponse("経費IDが不正です", e.getMessage()));
+        } catch (Exception e) {
+            return serverError("経費詳細の取得に失敗しました", e);
         }
     }
     
@@ -116,23 +260,35 @@ public class ExpenseController {
      * @return 作成された経費
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createExpense(@RequestBody Expense expense) {
+    public ResponseEntity<?> createExpense(@RequestBody Expense expense) {
         try {
             Expense createdExpense = expenseService.create(expense);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("expense", createdExpense);
-            response.put("message", "経費が正常に登録されました");
-            response.put("success", true);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new ExpenseResponse(createdExpense, "経費が正常に登録されました"));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費の登録に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
+            return serverError("経費の登録に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 経費を一括登録
+     * CSV（1行目はヘッダー）またはNDJSONのボディを全体を読み込まずに1行ずつ処理する
+     * @param userId ユーザーID
+     * @param contentType ボディの形式（text/csv または application/x-ndjson）
+     * @param body リクエストボディ
+     * @return 登録件数・失敗件数・行ごとのエラー
+     */
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson", "application/ndjson"})
+    public ResponseEntity<?> importExpenses(
+            @RequestParam String userId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try (ExpenseImportReader reader = ExpenseImportReader.open(contentType, body, objectMapper)) {
+            ExpenseImportResult result = expenseService.importExpenses(userId, reader);
             
-            return ResponseEntity.status(500).body(response);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return serverError("経費の一括登録に失敗しました", e);
         }
     }
     
@@ -143,26 +299,16 @@ public class ExpenseController {
      * @return 更新された経費
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateExpense(
-            @PathVariable String id, 
+    public ResponseEntity<?> updateExpense(
+            @PathVariable String id,
             @RequestBody Expense expense) {
         try {
             expense.setId(id);
             Expense updatedExpense = expenseService.update(expense);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("expense", updatedExpense);
-            response.put("message", "経費が正常に更新されました");
-            response.put("success", true);
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new ExpenseResponse(updatedExpense, "経費が正常に更新されました"));
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費の更新に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
-            
-            return ResponseEntity.status(500).body(response);
+            return serverError("経費の更新に失敗しました", e);
         }
     }
     
@@ -173,32 +319,45 @@ public class ExpenseController {
      * @return 削除結果
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteExpense(
-            @PathVariable String id, 
+    public ResponseEntity<?> deleteExpense(
+            @PathVariable String id,
             @RequestParam String userId) {
         try {
             boolean deleted = expenseService.delete(id, userId);
             
             if (deleted) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "経費が正常に削除されました");
-                response.put("success", true);
-                
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(new MessageResponse("経費が正常に削除されました"));
             } else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("error", "経費が見つからないか、削除権限がありません");
-                response.put("success", false);
-                
-                return ResponseEntity.status(404).body(response);
+                return ResponseEntity.status(404).body(ErrorResponse.of("経費が見つからないか、削除権限がありません"));
             }
         } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("error", "経費の削除に失敗しました");
-            response.put("success", false);
-            response.put("details", e.getMessage());
-            
-            return ResponseEntity.status(500).body(response);
+            return serverError("経費の削除に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 処理の失敗をレスポンスに変換する
+     * データベース接続の同時取得数の制限で接続を取得できなかった場合と、
+     * ライトビハインドの未登録の経費が上限に達している場合は、
+     * 500ではなく503と再試行までの推奨秒数（Retry-After）を返す
+     *
+     * @param error エラーメッセージ
+     * @param e 例外
+     * @return エラーレスポンス
+     */
+    private ResponseEntity<ErrorResponse> serverError(String error, Exception e) {
+        ErrorResponse response = new ErrorResponse(error, e.getMessage());
+        
+        Optional<Duration> retryAfter = ConnectionLimitExceededException.find(e)
+            .map(ConnectionLimitExceededException::getRetryAfter);
+        if (e instanceof WriteBehindUnavailableException unavailable) {
+            retryAfter = Optional.of(unavailable.getRetryAfter());
+        }
+        if (retryAfter.isPresent()) {
+            return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.get().toSeconds()))
+                .body(response);
         }
+        return ResponseEntity.status(500).body(response);
     }
 }
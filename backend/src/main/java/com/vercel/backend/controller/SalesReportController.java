@@ -0,0 +1,88 @@
+package com.vercel.backend.controller;
+
+import com.vercel.backend.jdbc.ConnectionLimitExceededException;
+import com.vercel.backend.report.SalesReportEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 売上レポートコントローラー
+ */
+@RestController
+@RequestMapping("/api/reports/sales")
+@CrossOrigin(origins = "*")
+public class SalesReportController {
+    
+    @Autowired
+    private SalesReportEngine salesReportEngine;
+    
+    /**
+     * 前回作成以降に更新された月の売上レポートを再作成
+     * @return 再作成した月数と処理時間
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh() {
+        try {
+            Map<String, Object> response = salesReportEngine.refresh();
+            response.put("success", true);
+            
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return error(409, "売上レポートを作成中です", e);
+        } catch (Exception e) {
+            return error(500, "売上レポートの作成に失敗しました", e);
+        }
+    }
+    
+    /**
+     * 指定期間の売上レポートを作成し直す
+     * @param from 開始年月（yyyy-MM）
+     * @param to 終了年月（yyyy-MM）
+     * @return 再作成した月数と処理時間
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Object>> backfill(
+            @RequestParam String from,
+            @RequestParam String to) {
+        try {
+            Map<String, Object> response = salesReportEngine.backfill(YearMonth.parse(from), YearMonth.parse(to));
+            response.put("success", true);
+            
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return error(400, "期間の指定が不正です", e);
+        } catch (IllegalStateException e) {
+            return error(409, "売上レポートを作成中です", e);
+        } catch (Exception e) {
+            return error(500, "売上レポートの作成に失敗しました", e);
+        }
+    }
+    
+    /**
+     * エラーレスポンスを作成
+     * データベース接続の同時取得数の制限による失敗は503と再試行までの推奨秒数（Retry-After）を返す
+     * @param status HTTPステータス
+     * @param message エラーメッセージ
+     * @param e 例外
+     * @return エラーレスポンス
+     */
+    private ResponseEntity<Map<String, Object>> error(int status, String message, Exception e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        response.put("success", false);
+        response.put("details", e.getMessage());
+        
+        return ConnectionLimitExceededException.find(e)
+            .map(overloaded -> ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(overloaded.getRetryAfter().toSeconds()))
+                .body(response))
+            .orElseGet(() -> ResponseEntity.status(status).body(response));
+    }
+}
@@ -0,0 +1,238 @@
+package com.vercel.backend.dao;
+
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.ExpenseDetailRow;
+import com.vercel.backend.entity.ExpenseStatsRow;
+import org.seasar.doma.AnnotateWith;
+import org.seasar.doma.ArrayFactory;
+import org.seasar.doma.Annotation;
+import org.seasar.doma.AnnotationTarget;
+import org.seasar.doma.BatchDelete;
+import org.seasar.doma.BatchInsert;
+import org.seasar.doma.BatchUpdate;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Delete;
+import org.seasar.doma.Insert;
+import org.seasar.doma.Select;
+import org.seasar.doma.SelectType;
+import org.seasar.doma.Update;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 経費DAO
+ * SQLは META-INF/com/vercel/backend/dao/ExpenseDao/ 配下のSQLファイルに定義し、コンパイル時に検証する
+ * 検索結果は結果セットごとに列名とプロパティの対応を1回だけ解決し、各行は列番号で読み込む
+ * 生成される実装クラスはSpringのリポジトリとして登録される
+ */
+@Dao
+@AnnotateWith(annotations = {
+    @Annotation(target = AnnotationTarget.CLASS, type = Repository.class),
+    @Annotation(target = AnnotationTarget.CONSTRUCTOR, type = Autowired.class)
+})
+public interface ExpenseDao {
+
+    /**
+     * ユーザーの経費をプロジェクト・ユーザー情報付きで取得する
+     *
+     * @param id 経費ID
+     * @param userId ユーザーID
+     * @return 経費（存在しない場合は空）
+     */
+    @Select
+    Optional<ExpenseDetailRow> selectByIdAndUserId(String id, String userId);
+
+    /**
+     * ユーザーの経費のうち、IDの配列に含まれるものをプロジェクト・ユーザー情報付きで取得する
+     * IDの件数によらず同じSQL（e.id = ANY(?)）となるため、プリペアドステートメントを再利用できる
+     *
+     * @param ids 経費IDの配列（{@link #createIdArray} で作成する）
+     * @param userId ユーザーID
+     * @return 経費（存在するもののみ、順不同）
+     */
+    @Select
+    List<ExpenseDetailRow> selectByIdsAndUserId(Array ids, String userId);
+
+    /**
+     * IDの配列に含まれる経費のうち、登録済みのもののIDを取得する
+     *
+     * @param ids 経費IDの配列（{@link #createIdArray} で作成する）
+     * @return 登録済みの経費ID（順不同）
+     */
+    @Select
+    List<String> selectExistingIds(Array ids);
+
+    /**
+     * 経費IDの配列を作成する
+     * 接続ごとに作成するため、{@link #selectByIdsAndUserId}・{@link #selectExistingIds} と同じトランザクション内で呼ぶ
+     *
+     * @param ids 経費ID
+     * @return 経費IDの配列
+     */
+    @ArrayFactory(typeName = "text")
+    Array createIdArray(String[] ids);
+
+    /**
+     * ユーザーの経費一覧を作成日時の降順で取得する（LIMIT/OFFSET）
+     * 経費日付の範囲を指定すると、範囲外の月のパーティションは読まない
+     *
+     * @param userId ユーザーID
+     * @param expenseDateFrom 経費日付の開始日時（含む、nullの場合は条件にしない）
+     * @param expenseDateTo 経費日付の終了日時（含まない、nullの場合は条件にしない）
+     * @param limit 取得件数
+     * @param offset 読み飛ばす件数
+     * @return 経費一覧
+     */
+    @Select
+    List<ExpenseDetailRow> selectPageByUserId(String userId, LocalDateTime expenseDateFrom, LocalDateTime expenseDateTo,
+                                              int limit, long offset);
+
+    /**
+     * ユーザーの経費一覧を (created_at DESC, id DESC) の指定位置の続きから取得する
+     *
+     * @param userId ユーザーID
+     * @param expenseDateFrom 経費日付の開始日時（含む、nullの場合は条件にしない）
+     * @param expenseDateTo 経費日付の終了日時（含まない、nullの場合は条件にしない）
+     * @param afterCreatedAt 前ページ最後の行の作成日時（先頭ページの場合はnull）
+     * @param afterId 前ページ最後の行の経費ID（先頭ページの場合はnull）
+     * @param limit 取得件数
+     * @return 経費一覧
+     */
+    @Select
+    List<ExpenseDetailRow> selectAfterCursor(String userId, LocalDateTime expenseDateFrom, LocalDateTime expenseDateTo,
+                                             LocalDateTime afterCreatedAt, String afterId, int limit);
+
+    /**
+     * ユーザーの経費件数を取得する
+     *
+     * @param userId ユーザーID
+     * @param expenseDateFrom 経費日付の開始日時（含む、nullの場合は条件にしない）
+     * @param expenseDateTo 経費日付の終了日時（含まない、nullの場合は条件にしない）
+     * @return 経費件数
+     */
+    @Select
+    int countByUserId(String userId, LocalDateTime expenseDateFrom, LocalDateTime expenseDateTo);
+
+    /**
+     * 全ユーザーの経費をユーザー・カテゴリ別に集計する
+     *
+     * @return 集計結果
+     */
+    @Select
+    List<ExpenseStatsRow> selectStatsByUserCategory();
+
+    /**
+     * ユーザーの経費をカテゴリ別に集計する
+     *
+     * @param userId ユーザーID
+     * @return 集計結果
+     */
+    @Select
+    List<ExpenseStatsRow> selectStatsByUserId(String userId);
+
+    /**
+     * 全プロジェクトの経費をプロジェクト別に集計する
+     *
+     * @return 集計結果
+     */
+    @Select
+    List<ExpenseStatsRow> selectStatsByProject();
+
+    /**
+     * プロジェクトの経費を集計する
+     *
+     * @param projectId プロジェクトID
+     * @return 集計結果（経費がない場合は空）
+     */
+    @Select
+    Optional<ExpenseStatsRow> selectStatsByProjectId(String projectId);
+
+    /**
+     * 経費を (created_at, id) の昇順でストリームとして取得する（エクスポート用）
+     * ストリームは関数の中でのみ有効で、フェッチサイズ（1000行）分ずつ読み込まれる
+     *
+     * @param <R> 関数の戻り値の型
+     * @param userId ユーザーID（nullの場合は条件にしない）
+     * @param projectId プロジェクトID（nullの場合は条件にしない）
+     * @param expenseDateFrom 経費日付の開始日時（含む、nullの場合は条件にしない）
+     * @param expenseDateTo 経費日付の終了日時（含まない、nullの場合は条件にしない）
+     * @param mapper ストリームを処理する関数
+     * @return 関数の戻り値
+     */
+    @Select(strategy = SelectType.STREAM, fetchSize = 1000)
+    <R> R selectForExport(String userId, String projectId, LocalDateTime expenseDateFrom, LocalDateTime expenseDateTo,
+                          Function<Stream<Expense>, R> mapper);
+
+    /**
+     * 経費を登録する
+     *
+     * @param expense 経費
+     * @return 登録件数
+     */
+    @Insert
+    int insert(Expense expense);
+
+    /**
+     * 経費をバッチ登録する
+     * JDBCバッチの件数は {@code doma.batch-size} に従う
+     *
+     * @param expenses 経費
+     * @return 各行の登録件数
+     */
+    @BatchInsert
+    int[] batchInsert(List<Expense> expenses);
+
+    /**
+     * 登録済みでない経費をバッチ登録する（主キーが重複する行は登録しない）
+     * ライトビハインドの先行書き込みログを再登録する際に、登録済みの行を重複させないために使用する
+     *
+     * @param expenses 経費
+     * @return 各行の登録件数（登録済みの行は0）
+     */
+    @BatchInsert(sqlFile = true)
+    int[] batchInsertIfAbsent(List<Expense> expenses);
+
+    /**
+     * ユーザーの経費を更新する
+     *
+     * @param expense 経費
+     * @return 更新件数
+     */
+    @Update(sqlFile = true)
+    int update(Expense expense);
+
+    /**
+     * ユーザーの経費をバッチ更新する
+     *
+     * @param expenses 経費
+     * @return 各行の更新件数
+     */
+    @BatchUpdate(sqlFile = true)
+    int[] batchUpdate(List<Expense> expenses);
+
+    /**
+     * ユーザーの経費を削除する
+     *
+     * @param id 経費ID
+     * @param userId ユーザーID
+     * @return 削除件数
+     */
+    @Delete(sqlFile = true)
+    int deleteByIdAndUserId(String id, String userId);
+
+    /**
+     * ユーザーの経費をバッチ削除する
+     *
+     * @param expenses 経費
+     * @return 各行の削除件数
+     */
+    @BatchDelete(sqlFile = true)
+    int[] batchDelete(List<Expense> expenses);
+}
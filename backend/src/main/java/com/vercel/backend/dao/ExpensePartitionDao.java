@@ -0,0 +1,53 @@
+package com.vercel.backend.dao;
+
+import org.seasar.doma.AnnotateWith;
+import org.seasar.doma.Annotation;
+import org.seasar.doma.AnnotationTarget;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Select;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 経費テーブルのパーティション管理DAO
+ * パーティションの作成・切り離しは 05-expense-partitions.sql で定義したデータベース関数で行う
+ * SQLは META-INF/com/vercel/backend/dao/ExpensePartitionDao/ 配下のSQLファイルに定義する
+ */
+@Dao
+@AnnotateWith(annotations = {
+    @Annotation(target = AnnotationTarget.CLASS, type = Repository.class),
+    @Annotation(target = AnnotationTarget.CONSTRUCTOR, type = Autowired.class)
+})
+public interface ExpensePartitionDao {
+
+    /**
+     * 経費テーブルがパーティションテーブルに移行済みかどうかを取得する
+     *
+     * @return 移行済みの場合はtrue
+     */
+    @Select
+    boolean selectIsPartitioned();
+
+    /**
+     * 指定月から指定か月分のパーティションを作成する（作成済みの月は何もしない）
+     *
+     * @param from 開始月（月の途中の日付の場合はその月から）
+     * @param months 月数
+     * @return 新たに作成したパーティションの数
+     */
+    @Select
+    int ensurePartitions(LocalDate from, int months);
+
+    /**
+     * 指定月より前の月のパーティションを経費テーブルから切り離し、アーカイブ用のスキーマに移動する
+     *
+     * @param before この月より前の月を切り離す
+     * @param archiveSchema 移動先のスキーマ
+     * @return 切り離したパーティションの名前
+     */
+    @Select
+    List<String> archivePartitions(LocalDate before, String archiveSchema);
+}
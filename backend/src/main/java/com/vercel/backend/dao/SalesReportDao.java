@@ -0,0 +1,87 @@
+package com.vercel.backend.dao;
+
+import com.vercel.backend.entity.SalesReport;
+import com.vercel.backend.entity.SalesReportMonth;
+import org.seasar.doma.AnnotateWith;
+import org.seasar.doma.Annotation;
+import org.seasar.doma.AnnotationTarget;
+import org.seasar.doma.BatchInsert;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Insert;
+import org.seasar.doma.Select;
+import org.seasar.doma.jdbc.BatchResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 売上レポートDAO
+ * SQLは META-INF/com/vercel/backend/dao/SalesReportDao/ 配下のSQLファイルに定義する
+ */
+@Dao
+@AnnotateWith(annotations = {
+    @Annotation(target = AnnotationTarget.CLASS, type = Repository.class),
+    @Annotation(target = AnnotationTarget.CONSTRUCTOR, type = Autowired.class)
+})
+public interface SalesReportDao {
+
+    /**
+     * 1か月分の売上合計・経費合計を集計する
+     *
+     * @param year 年
+     * @param month 月
+     * @param from 集計期間の開始日時（含む）
+     * @param to 集計期間の終了日時（含まない）
+     * @return 月次売上レポート
+     */
+    @Select
+    SalesReport selectMonthTotals(int year, int month, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 指定日時より後に更新された請求書・経費が属する年月を取得する
+     *
+     * @param since 前回処理時のウォーターマーク（nullの場合は全件）
+     * @return 年月（昇順）
+     */
+    @Select
+    List<SalesReportMonth> selectTouchedMonths(LocalDateTime since);
+
+    /**
+     * 請求書・経費の最新の更新日時を取得する
+     *
+     * @return 最新の更新日時（データがない場合は空）
+     */
+    @Select
+    Optional<LocalDateTime> selectSourceWatermark();
+
+    /**
+     * 月次売上レポートを一括で登録または更新する
+     *
+     * @param reports 月次売上レポート
+     * @return 各行の更新件数と登録したエンティティ（SalesReport はイミュータブルなため BatchResult で返す）
+     */
+    @BatchInsert(sqlFile = true)
+    BatchResult<SalesReport> batchUpsert(List<SalesReport> reports);
+
+    /**
+     * バッチ処理のウォーターマークを取得する
+     *
+     * @param job ジョブ名
+     * @return ウォーターマーク（未処理の場合は空）
+     */
+    @Select
+    Optional<LocalDateTime> selectWatermark(String job);
+
+    /**
+     * バッチ処理のウォーターマークを登録または更新する
+     *
+     * @param job ジョブ名
+     * @param watermark ウォーターマーク
+     * @return 更新件数
+     */
+    @Insert(sqlFile = true)
+    int upsertWatermark(String job, LocalDateTime watermark);
+}
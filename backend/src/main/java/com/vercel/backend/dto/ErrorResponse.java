@@ -0,0 +1,35 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * エラーレスポンス
+ *
+ * @param error エラーメッセージ
+ * @param details 詳細（例外のメッセージ、ない場合は省略）
+ */
+public record ErrorResponse(
+        String error,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String details) {
+
+    /**
+     * 詳細のないエラーレスポンスを作成する
+     *
+     * @param error エラーメッセージ
+     * @return エラーレスポンス
+     */
+    public static ErrorResponse of(String error) {
+        return new ErrorResponse(error, null);
+    }
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にfalse
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vercel.backend.dto;
+
+import java.util.List;
+
+/**
+ * 経費詳細の一括取得（POST /api/expenses/batch-get）のリクエスト
+ *
+ * @param ids 経費ID
+ */
+public record ExpenseBatchGetRequest(List<String> ids) {
+}
@@ -0,0 +1,25 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vercel.backend.entity.Expense;
+
+import java.util.List;
+
+/**
+ * 経費詳細の一括取得（POST /api/expenses/batch-get）のレスポンス
+ *
+ * @param expenses 経費（関連プロジェクト・ユーザーを含む、リクエストの経費IDの順）
+ * @param notFound 見つからなかった経費ID（リクエストの順）
+ */
+public record ExpenseBatchGetResponse(List<Expense> expenses, List<String> notFound) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * カーソルページネーション付き経費一覧（GET /api/expenses/cursor）のレスポンス
+ * キャッシュにもこの形のまま格納する
+ *
+ * @param expenses 経費一覧
+ * @param size ページサイズ
+ * @param hasMore 次ページがあるかどうか
+ * @param nextCursor 次カーソル（次ページがない場合はnull）
+ * @param totalCount 総件数（要求された場合のみ）
+ */
+public record ExpenseCursorPage(
+        List<ExpenseListItem> expenses,
+        int size,
+        boolean hasMore,
+        String nextCursor,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Integer totalCount) implements Serializable {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
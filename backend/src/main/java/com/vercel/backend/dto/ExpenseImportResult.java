@@ -0,0 +1,39 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * 経費の一括登録（POST /api/expenses/bulk）の結果
+ *
+ * @param imported 登録件数
+ * @param failed 失敗件数
+ * @param errors 行ごとのエラー（上限を超えた分は含まない）
+ * @param errorsTruncated エラーを上限で打ち切ったかどうか
+ */
+public record ExpenseImportResult(
+        int imported,
+        int failed,
+        List<RowError> errors,
+        boolean errorsTruncated) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+
+    /**
+     * 一括登録の行ごとのエラー
+     *
+     * @param line 行番号
+     * @param error エラーの内容
+     */
+    public record RowError(int line, String error) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.vercel.backend.dto;
+
+import com.vercel.backend.entity.Expense;
+import com.vercel.backend.entity.ExpenseDetailRow;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 経費一覧の1行（一覧表示用の射影）
+ * 一覧はユーザー単位で取得するため担当ユーザーは含めず、プロジェクトは名前のみを平坦に持つ
+ * 関連プロジェクト・ユーザーを含む経費全体は詳細（GET /api/expenses/{id}）で返す
+ *
+ * @param id 経費ID
+ * @param projectId 関連プロジェクトID
+ * @param projectName プロジェクト名
+ * @param category 経費カテゴリ
+ * @param description 経費の説明
+ * @param amount 経費金額
+ * @param expenseDate 経費発生日
+ * @param receiptUrl 領収書URL
+ * @param status 経費ステータス
+ * @param createdAt 作成日時
+ */
+public record ExpenseListItem(
+        String id,
+        String projectId,
+        String projectName,
+        String category,
+        String description,
+        BigDecimal amount,
+        LocalDateTime expenseDate,
+        String receiptUrl,
+        String status,
+        LocalDateTime createdAt) implements Serializable {
+
+    /**
+     * 検索結果行から一覧の1行を作成する
+     *
+     * @param row 検索結果行
+     * @return 一覧の1行
+     */
+    public static ExpenseListItem from(ExpenseDetailRow row) {
+        return new ExpenseListItem(row.id(), row.projectId(), row.projectName(), row.category(),
+            row.description(), row.amount(), row.expenseDate(), row.receiptUrl(), row.status(), row.createdAt());
+    }
+
+    /**
+     * 経費から一覧の1行を作成する（データベースに未登録の経費など、検索結果行がない場合）
+     *
+     * @param expense 経費
+     * @return 一覧の1行
+     */
+    public static ExpenseListItem from(Expense expense) {
+        return new ExpenseListItem(expense.getId(), expense.getProjectId(),
+            expense.getProject() != null ? expense.getProject().getName() : null, expense.getCategory(),
+            expense.getDescription(), expense.getAmount(), expense.getExpenseDate(), expense.getReceiptUrl(),
+            expense.getStatus(), expense.getCreatedAt());
+    }
+}
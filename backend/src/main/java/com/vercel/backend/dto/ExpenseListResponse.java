@@ -0,0 +1,23 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * 経費一覧（GET /api/expenses）のレスポンス
+ *
+ * @param expenses 経費一覧
+ */
+public record ExpenseListResponse(List<ExpenseListItem> expenses) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * ページネーション付き経費一覧（GET /api/expenses/paginated）のレスポンス
+ * キャッシュにもこの形のまま格納する
+ *
+ * @param expenses 経費一覧
+ * @param totalCount 総件数
+ * @param page ページ番号（0から開始）
+ * @param size ページサイズ
+ * @param totalPages 総ページ数
+ */
+public record ExpensePage(
+        List<ExpenseListItem> expenses,
+        int totalCount,
+        int page,
+        int size,
+        int totalPages) implements Serializable {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vercel.backend.entity.Expense;
+
+/**
+ * 経費1件（詳細・登録・更新）のレスポンス
+ *
+ * @param expense 経費（関連プロジェクト・ユーザーを含む）
+ * @param message メッセージ（詳細の場合はなし）
+ */
+public record ExpenseResponse(
+        Expense expense,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String message) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
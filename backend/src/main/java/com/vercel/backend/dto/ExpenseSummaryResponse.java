@@ -0,0 +1,36 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vercel.backend.aggregate.ExpenseStats;
+
+import java.util.Map;
+
+/**
+ * 経費の集計（GET /api/expenses/summary）のレスポンス
+ * 指定されなかった側（ユーザー・プロジェクト）の項目は省略する
+ *
+ * @param userId ユーザーID
+ * @param summary ユーザーの集計
+ * @param categories ユーザーのカテゴリ別の集計
+ * @param projectId プロジェクトID
+ * @param projectSummary プロジェクトの集計
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExpenseSummaryResponse(
+        String userId,
+        ExpenseStats summary,
+        Map<String, ExpenseStats> categories,
+        String projectId,
+        ExpenseStats projectSummary) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
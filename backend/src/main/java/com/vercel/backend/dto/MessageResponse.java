@@ -0,0 +1,21 @@
+package com.vercel.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * メッセージのみのレスポンス（削除など）
+ *
+ * @param message メッセージ
+ */
+public record MessageResponse(String message) {
+
+    /**
+     * 成功フラグを取得する
+     *
+     * @return 常にtrue
+     */
+    @JsonProperty("success")
+    public boolean success() {
+        return true;
+    }
+}
@@ -1,15 +1,29 @@
 package com.vercel.backend.entity;
 
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+import org.seasar.doma.Table;
+import org.seasar.doma.Transient;
+import org.seasar.doma.jdbc.entity.NamingType;
+
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 /**
  * 経費エンティティクラス
  * プロジェクトに関連する経費情報を表現するエンティティ
+ * プロパティ名はスネークケースの列名（例: projectId → project_id）に対応する
  */
-public class Expense {
+@Entity(naming = NamingType.SNAKE_LOWER_CASE)
+@Table(name = "expenses")
+public class Expense implements Serializable {
+    
+    /** シリアルバージョンUID（共有キャッシュへの格納用） */
+    private static final long serialVersionUID = 1L;
     
     /** 経費ID（主キー） */
+    @Id
     private String id;
     
     /** 関連プロジェクトID */
@@ -45,9 +59,11 @@ public class Expense {
     // ========== 関連エンティティ ==========
     
     /** 関連プロジェクト */
+    @Transient
     private Project project;
     
     /** 関連ユーザー */
+    @Transient
     private User user;
     
     /**
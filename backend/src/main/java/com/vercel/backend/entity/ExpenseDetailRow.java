@@ -0,0 +1,75 @@
+package com.vercel.backend.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.jdbc.entity.NamingType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 経費一覧・詳細の検索結果行
+ * 経費にプロジェクトとユーザーの一部の列を結合した結果を表現する
+ *
+ * @param id 経費ID
+ * @param projectId 関連プロジェクトID
+ * @param userId 担当ユーザーID
+ * @param category 経費カテゴリ
+ * @param description 経費の説明
+ * @param amount 経費金額
+ * @param expenseDate 経費発生日
+ * @param receiptUrl 領収書URL
+ * @param status 経費ステータス
+ * @param createdAt 作成日時
+ * @param updatedAt 更新日時
+ * @param projectName プロジェクト名
+ * @param clientName クライアント名
+ * @param projectStatus プロジェクトのステータス
+ * @param userName ユーザー名
+ * @param userEmail ユーザーのメールアドレス
+ */
+@Entity(naming = NamingType.SNAKE_LOWER_CASE)
+public record ExpenseDetailRow(
+        String id,
+        String projectId,
+        String userId,
+        String category,
+        String description,
+        BigDecimal amount,
+        LocalDateTime expenseDate,
+        String receiptUrl,
+        String status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        String projectName,
+        String clientName,
+        String projectStatus,
+        String userName,
+        String userEmail) {
+
+    /**
+     * 関連プロジェクト・ユーザーを設定した経費に変換する
+     *
+     * @return 経費
+     */
+    public Expense toExpense() {
+        Expense expense = new Expense(id, projectId, userId, category, description,
+            amount, expenseDate, receiptUrl, status);
+        expense.setCreatedAt(createdAt);
+        expense.setUpdatedAt(updatedAt);
+
+        if (projectId != null) {
+            Project project = new Project();
+            project.setId(projectId);
+            project.setName(projectName);
+            project.setClientName(clientName);
+            project.setStatus(projectStatus);
+            expense.setProject(project);
+        }
+
+        // Userエンティティのidは数値型のため設定せず、ユーザーIDは経費のuserIdを参照する
+        if (userName != null) {
+            expense.setUser(new User(null, userName, userEmail, null, null));
+        }
+        return expense;
+    }
+}
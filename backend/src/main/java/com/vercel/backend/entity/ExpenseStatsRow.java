@@ -0,0 +1,26 @@
+package com.vercel.backend.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.jdbc.entity.NamingType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 経費の集計結果行
+ * ユーザー・カテゴリ別またはプロジェクト別の件数・合計・最終登録日時を表現する
+ *
+ * @param groupKey 集計キー（ユーザーIDまたはプロジェクトID）
+ * @param category 経費カテゴリ（プロジェクト別の場合はnull）
+ * @param expenseCount 件数
+ * @param totalAmount 合計金額
+ * @param lastExpenseDate 最終登録日時
+ */
+@Entity(naming = NamingType.SNAKE_LOWER_CASE)
+public record ExpenseStatsRow(
+        String groupKey,
+        String category,
+        long expenseCount,
+        BigDecimal totalAmount,
+        LocalDateTime lastExpenseDate) {
+}
@@ -1,5 +1,6 @@
 package com.vercel.backend.entity;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
@@ -7,7 +8,10 @@ import java.math.BigDecimal;
  * プロジェクトエンティティクラス
  * プロジェクト情報を表現するエンティティ
  */
-public class Project {
+public class Project implements Serializable {
+    
+    /** シリアルバージョンUID（共有キャッシュへの格納用） */
+    private static final long serialVersionUID = 1L;
     
     /** プロジェクトID（主キー） */
     private String id;
@@ -0,0 +1,26 @@
+package com.vercel.backend.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.jdbc.entity.NamingType;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 月次売上レポート
+ * 請求書（売上）と経費を月単位で集計した結果を表現する
+ *
+ * @param year 年
+ * @param month 月
+ * @param totalSales 売上合計（請求書の発行日で集計）
+ * @param totalExpenses 経費合計（経費発生日で集計）
+ * @param netProfit 純利益（売上合計 - 経費合計）
+ */
+@Entity(naming = NamingType.SNAKE_LOWER_CASE)
+public record SalesReport(
+        int year,
+        int month,
+        BigDecimal totalSales,
+        BigDecimal totalExpenses,
+        BigDecimal netProfit) implements Serializable {
+}
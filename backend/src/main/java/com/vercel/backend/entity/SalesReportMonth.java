@@ -0,0 +1,14 @@
+package com.vercel.backend.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.jdbc.entity.NamingType;
+
+/**
+ * 売上レポートの再作成が必要な年月
+ *
+ * @param year 年
+ * @param month 月
+ */
+@Entity(naming = NamingType.SNAKE_LOWER_CASE)
+public record SalesReportMonth(int year, int month) {
+}
@@ -6,6 +6,7 @@ import org.seasar.doma.Table;
 import org.seasar.doma.GeneratedValue;
 import org.seasar.doma.GenerationType;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 /**
@@ -14,7 +15,10 @@ import java.time.LocalDateTime;
  */
 @Entity(immutable = true)
 @Table(name = "users")
-public class User {
+public class User implements Serializable {
+    
+    /** シリアルバージョンUID（共有キャッシュへの格納用） */
+    private static final long serialVersionUID = 1L;
     
     /** ユーザーID（主キー、自動生成） */
     @Id
@@ -0,0 +1,50 @@
+package com.vercel.backend.id;
+
+/**
+ * Crockford Base32 エンコーダー
+ * 固定長で出力するため、数値の大小と文字列の辞書順が一致する
+ */
+final class CrockfordBase32 {
+
+    /** 符号化文字（I, L, O, U を除く） */
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private CrockfordBase32() {
+    }
+
+    /**
+     * 128ビット値の下位 {@code length * 5} ビットを固定長でエンコードする
+     *
+     * @param high 上位64ビット
+     * @param low 下位64ビット
+     * @param length 出力文字数（26以下）
+     * @return エンコードされた文字列
+     */
+    static String encode(long high, long low, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1, shift = 0; i >= 0; i--, shift += 5) {
+            chars[i] = ALPHABET[bitsAt(high, low, shift)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 128ビット値の指定位置から5ビットを取り出す
+     *
+     * @param high 上位64ビット
+     * @param low 下位64ビット
+     * @param shift 最下位ビットからの位置
+     * @return 5ビットの値
+     */
+    private static int bitsAt(long high, long low, int shift) {
+        if (shift >= 64) {
+            return (int) (high >>> (shift - 64)) & 0x1F;
+        }
+        long bits = low >>> shift;
+        if (shift > 59) {
+            // 上位・下位の境界をまたぐ場合
+            bits |= high << (64 - shift);
+        }
+        return (int) bits & 0x1F;
+    }
+}
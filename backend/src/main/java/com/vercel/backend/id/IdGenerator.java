@@ -0,0 +1,26 @@
+package com.vercel.backend.id;
+
+/**
+ * ID生成器
+ * 生成するIDは同一ノード内で一意かつ時刻順に単調増加し、
+ * 文字列として比較しても生成順に並ぶ（B-treeの末尾に追記される）
+ */
+public interface IdGenerator {
+
+    /**
+     * 新しいIDを生成する
+     *
+     * @return ID
+     */
+    String nextId();
+
+    /**
+     * 接頭辞付きの新しいIDを生成する
+     *
+     * @param prefix 接頭辞（例: {@code exp_}）
+     * @return 接頭辞付きID
+     */
+    default String nextId(String prefix) {
+        return prefix + nextId();
+    }
+}
@@ -0,0 +1,77 @@
+package com.vercel.backend.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake形式（64ビット、13文字）のID生成器
+ * 41ビットのエポックからの経過ミリ秒、10ビットのノードID、12ビットのミリ秒内連番で構成する
+ * ノードIDが重複しない限り、複数ノードでも乱数に頼らずに一意になる
+ * 時刻と連番を1つのAtomicLongで管理し、ロックを使わずに同一ミリ秒内でも単調増加させる
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /** 時刻の起点（2024-01-01T00:00:00Z） */
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    /** ノードIDのビット数 */
+    private static final int NODE_BITS = 10;
+
+    /** 連番のビット数 */
+    private static final int SEQUENCE_BITS = 12;
+
+    /** ノードIDの最大値 */
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    /** 時計 */
+    private final Clock clock;
+
+    /** ノードID（ビット位置に移動済み） */
+    private final long node;
+
+    /** 直前に発行した時刻と連番（経過ミリ秒 << 12 | 連番） */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * システム時計を使うID生成器のコンストラクタ
+     *
+     * @param nodeId ノードID（0〜1023）
+     */
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    /**
+     * ID生成器のコンストラクタ
+     *
+     * @param nodeId ノードID（0〜1023）
+     * @param clock 時計
+     * @throws IllegalArgumentException ノードIDが範囲外の場合
+     */
+    public SnowflakeIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ノードIDは0〜" + MAX_NODE_ID + "で指定してください: " + nodeId);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        long next;
+        for (;;) {
+            long previous = last.get();
+            long elapsed = clock.millis() - EPOCH;
+            // 同一ミリ秒内または時計が戻った場合は直前の値から連番を進める（溢れると時刻が進む）
+            next = elapsed > previous >>> SEQUENCE_BITS ? elapsed << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                break;
+            }
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        long id = timestamp << (NODE_BITS + SEQUENCE_BITS) | node | sequence;
+        return CrockfordBase32.encode(0L, id, 13);
+    }
+}
@@ -0,0 +1,61 @@
+package com.vercel.backend.id;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ULID形式（26文字）のID生成器
+ * 先頭48ビットがミリ秒時刻、続く16ビットがミリ秒内の連番、残り64ビットが乱数
+ * 時刻と連番を1つのAtomicLongで管理し、ロックを使わずに同一ミリ秒内でも単調増加させる
+ * 連番はミリ秒ごとに乱数から始め、使い切った場合や時計が戻った場合は時刻を先へ進める
+ */
+public class UlidIdGenerator implements IdGenerator {
+
+    /** 連番のビット数 */
+    private static final int SEQUENCE_BITS = 16;
+
+    /** ミリ秒ごとの連番の開始値の上限（開始直後の連番の枯渇を避けるため半分に抑える） */
+    private static final int SEQUENCE_START_BOUND = 1 << (SEQUENCE_BITS - 1);
+
+    /** 時計 */
+    private final Clock clock;
+
+    /** 直前に発行した時刻と連番（時刻 << 16 | 連番） */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * システム時計を使うID生成器のコンストラクタ
+     */
+    public UlidIdGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * ID生成器のコンストラクタ
+     *
+     * @param clock 時計
+     */
+    public UlidIdGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        long next;
+        for (;;) {
+            long previous = last.get();
+            long now = clock.millis();
+            if (now > previous >>> SEQUENCE_BITS) {
+                next = now << SEQUENCE_BITS | ThreadLocalRandom.current().nextInt(SEQUENCE_START_BOUND);
+            } else {
+                // 同一ミリ秒内または時計が戻った場合は直前の値から連番を進める（溢れると時刻が進む）
+                next = previous + 1;
+            }
+            if (last.compareAndSet(previous, next)) {
+                break;
+            }
+        }
+        return CrockfordBase32.encode(next, ThreadLocalRandom.current().nextLong(), 26);
+    }
+}
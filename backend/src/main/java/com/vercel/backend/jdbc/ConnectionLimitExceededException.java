@@ -0,0 +1,54 @@
+package com.vercel.backend.jdbc;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * データベース接続の同時取得数の制限により接続を取得できなかったことを表す例外
+ * 接続プールのタイムアウトと同じく一時的な接続エラーとして扱う
+ * Domaやspring-jdbcの例外に包まれて届くため、呼び出し側は {@link #find(Throwable)} で取り出す
+ */
+public class ConnectionLimitExceededException extends SQLTransientConnectionException {
+
+    /** 再試行までの推奨時間 */
+    private final Duration retryAfter;
+
+    /**
+     * 例外のコンストラクタ
+     *
+     * @param message メッセージ
+     * @param retryAfter 再試行までの推奨時間
+     */
+    public ConnectionLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 再試行までの推奨時間を取得する
+     *
+     * @return 再試行までの推奨時間
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * 例外の原因をたどり、同時取得数の制限による例外を取り出す
+     *
+     * @param throwable 例外
+     * @return 同時取得数の制限による例外（含まれない場合は空）
+     */
+    public static Optional<ConnectionLimitExceededException> find(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectionLimitExceededException exceeded) {
+                return Optional.of(exceeded);
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,261 @@
+package com.vercel.backend.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * データベース接続の同時取得数の制限
+ * 同時取得数の上限は接続プールの最大接続数を最大値として {@link GradientLimit} が接続の使用時間から調整し、
+ * 上限内のスレッドだけが接続プールから接続を取得する
+ * 仮想スレッドでは数千のリクエストが同時に接続を待つため、接続プールの待ち行列に全員を並ばせず、
+ * 待機数の上限と短い待機時間で早めに失敗させる
+ * 上限・使用中・待機数は {@code db.limiter.*}、待機時間と使用時間は
+ * {@code db.limiter.wait}・{@code db.limiter.usage}（ヒストグラム）に記録する
+ */
+public class ConnectionLimiter {
+
+    /** 同時取得数の上限 */
+    private final GradientLimit limit;
+
+    /** 使用中の数と待機を保護するロック */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** 接続の返却の通知 */
+    private final Condition released = lock.newCondition();
+
+    /** 使用中の数（lock で保護） */
+    private int inFlight;
+
+    /** 許可を待っているスレッドの数 */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /** 待機数の上限 */
+    private final int maxWaiting;
+
+    /** 許可の待機時間の上限 */
+    private final Duration acquireTimeout;
+
+    /** 許可を得るまでの待機時間 */
+    private final Timer acquiredWait;
+
+    /** 許可を得られずに失敗するまでの待機時間 */
+    private final Timer rejectedWait;
+
+    /** 接続の使用時間 */
+    private final Timer usage;
+
+    /** 接続の取得前に拒否したリクエストの数 */
+    private final Counter shed;
+
+    /**
+     * 同時取得数の制限のコンストラクタ
+     *
+     * @param limit 同時取得数の上限
+     * @param maxWaiting 待機数の上限
+     * @param acquireTimeout 許可の待機時間の上限
+     * @param meterRegistry メトリクスレジストリ
+     */
+    public ConnectionLimiter(GradientLimit limit, int maxWaiting, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeout = acquireTimeout;
+        this.acquiredWait = waitTimer("acquired", meterRegistry);
+        this.rejectedWait = waitTimer("rejected", meterRegistry);
+        this.usage = Timer.builder("db.limiter.usage")
+            .description("接続の取得から返却までの時間")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.shed = meterRegistry.counter("db.limiter.shed");
+        Gauge.builder("db.limiter.limit", limit::current).register(meterRegistry);
+        Gauge.builder("db.limiter.in-use", this::inUse).register(meterRegistry);
+        Gauge.builder("db.limiter.waiting", waiting::get).register(meterRegistry);
+    }
+
+    /**
+     * 接続の許可を取得する
+     * 待機数が上限に達している場合は待たずに失敗する
+     *
+     * @throws ConnectionLimitExceededException 待機数の上限を超えた場合、または待機時間内に許可を得られなかった場合
+     * @throws SQLException 待機中に割り込まれた場合
+     */
+    public void acquire() throws SQLException {
+        long start = System.nanoTime();
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw reject(start, "データベース接続の待機数が上限に達しました: " + maxWaiting);
+        }
+        try {
+            lock.lockInterruptibly();
+            try {
+                long remaining = acquireTimeout.toNanos();
+                while (inFlight >= limit.current()) {
+                    if (remaining <= 0) {
+                        throw reject(start,
+                            "データベース接続を " + acquireTimeout.toMillis() + "ms 以内に取得できませんでした");
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("データベース接続の待機中に割り込まれました", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        acquiredWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 接続の許可を返却し、接続の使用時間を上限の調整に反映する
+     * エクスポートやバッチのように待機時間の上限より長く接続を使う処理は、
+     * 混雑の指標にならないため上限の調整には使わない
+     *
+     * @param usageNanos 接続の取得から返却までの時間（ナノ秒）
+     */
+    public void release(long usageNanos) {
+        usage.record(usageNanos, TimeUnit.NANOSECONDS);
+        lock.lock();
+        try {
+            if (usageNanos <= acquireTimeout.toNanos()) {
+                limit.onSample(usageNanos, inFlight);
+            }
+            inFlight--;
+            signalAvailable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 接続を取得できなかった場合に、使用時間を反映せずに許可を返却する
+     */
+    public void abandon() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalAvailable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 接続の取得を待たずにリクエストを拒否すべきかどうかを判定する
+     * 待機数が上限に達しているか、推定待機時間が待機時間の上限を超える場合に拒否する
+     *
+     * @return 拒否すべき場合はtrue
+     */
+    public boolean shouldShed() {
+        if (waiting.get() >= maxWaiting) {
+            return true;
+        }
+        return estimatedWaitNanos() > acquireTimeout.toNanos();
+    }
+
+    /**
+     * 接続の取得前にリクエストを拒否したことを記録する
+     */
+    public void recordShed() {
+        shed.increment();
+    }
+
+    /**
+     * 再試行までの推奨時間を取得する
+     * 待機中のスレッドがすべて接続を使い終えるまでの推定時間とし、1秒以上とする
+     *
+     * @return 再試行までの推奨時間
+     */
+    public Duration retryAfter() {
+        long seconds = (long) Math.ceil(estimatedWaitNanos() / 1_000_000_000.0);
+        return Duration.ofSeconds(Math.max(1, seconds));
+    }
+
+    /**
+     * 現在の同時取得数の上限を取得する
+     *
+     * @return 同時取得数の上限
+     */
+    public int getLimit() {
+        return limit.current();
+    }
+
+    /**
+     * 使用中の許可の数を取得する
+     *
+     * @return 使用中の許可の数
+     */
+    public int inUse() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 許可を待っているスレッドの数を取得する
+     *
+     * @return 待機数
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * 待機中のスレッドがすべて接続を使い終えるまでの推定時間を求める
+     *
+     * @return 推定待機時間（ナノ秒）
+     */
+    private double estimatedWaitNanos() {
+        return (double) waiting.get() / limit.current() * limit.shortRttNanos();
+    }
+
+    /**
+     * 上限に空きがある分だけ待機中のスレッドを起こす（lock の保持中に呼ぶ）
+     */
+    private void signalAvailable() {
+        for (int available = limit.current() - inFlight; available > 0; available--) {
+            released.signal();
+        }
+    }
+
+    /**
+     * 許可を得られなかったことを記録し、例外を作成する
+     *
+     * @param start 待機の開始時刻（ナノ秒）
+     * @param message メッセージ
+     * @return 例外
+     */
+    private ConnectionLimitExceededException reject(long start, String message) {
+        rejectedWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new ConnectionLimitExceededException(message, retryAfter());
+    }
+
+    /**
+     * 待機時間のタイマーを作成する
+     *
+     * @param outcome 待機の結果（acquired / rejected）
+     * @param meterRegistry メトリクスレジストリ
+     * @return タイマー
+     */
+    private static Timer waitTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("db.limiter.wait")
+            .description("接続の許可を得るまで（または拒否されるまで）の待機時間")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
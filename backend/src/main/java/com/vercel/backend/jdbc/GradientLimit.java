@@ -0,0 +1,112 @@
+package com.vercel.backend.jdbc;
+
+/**
+ * 観測した接続の使用時間から同時実行数の上限を調整する（Gradient方式）
+ * 長期の平均使用時間に対して短期の平均使用時間が伸びた場合はデータベースが混雑しているとみなして上限を下げ、
+ * 同程度であれば上限を少しずつ上げる
+ * <pre>
+ * gradient = clamp(tolerance × 長期平均 / 短期平均, 0.5, 1.0)
+ * 新しい上限 = 上限 × gradient + √上限
+ * </pre>
+ * 更新は {@link ConnectionLimiter} のロック内で行い、読み取りはロック外からも行う
+ */
+public class GradientLimit {
+
+    /** 短期平均の平滑化係数（直近およそ10件） */
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+
+    /** 長期平均の平滑化係数（直近およそ600件） */
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+
+    /** 長期平均に対して許容する短期平均の伸び */
+    private static final double TOLERANCE = 1.5;
+
+    /** 上限の変化の平滑化係数 */
+    private static final double SMOOTHING = 0.2;
+
+    /** 上限の最小値 */
+    private final int minLimit;
+
+    /** 上限の最大値（接続プールの最大接続数） */
+    private final int maxLimit;
+
+    /** 現在の上限 */
+    private volatile double limit;
+
+    /** 短期の平均使用時間（ナノ秒） */
+    private volatile double shortRtt;
+
+    /** 長期の平均使用時間（ナノ秒） */
+    private volatile double longRtt;
+
+    /**
+     * 上限のコンストラクタ
+     * 初期値は最大値とし、混雑を観測してから下げる
+     *
+     * @param minLimit 上限の最小値
+     * @param maxLimit 上限の最大値（接続プールの最大接続数）
+     */
+    public GradientLimit(int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("上限の範囲が不正です: " + minLimit + "〜" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * 接続の使用時間を反映して上限を更新する
+     *
+     * @param rttNanos 接続の使用時間（ナノ秒）
+     * @param inFlight 返却前の使用中の接続数
+     */
+    void onSample(long rttNanos, int inFlight) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt = shortRtt + SHORT_ALPHA * (rttNanos - shortRtt);
+        longRtt = longRtt + LONG_ALPHA * (rttNanos - longRtt);
+        if (longRtt > 2 * shortRtt) {
+            // 混雑が解消した後は長期平均を早めに戻し、上限が上がらない状態が続かないようにする
+            longRtt *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            // 上限まで使われていない間は使用時間が上限の妥当性を表さないため変更しない
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * 現在の上限を取得する
+     *
+     * @return 同時実行数の上限
+     */
+    public int current() {
+        return (int) limit;
+    }
+
+    /**
+     * 上限の最大値を取得する
+     *
+     * @return 上限の最大値
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * 短期の平均使用時間を取得する
+     *
+     * @return 短期の平均使用時間（ナノ秒、未観測の場合は0）
+     */
+    public double shortRttNanos() {
+        return shortRtt;
+    }
+}
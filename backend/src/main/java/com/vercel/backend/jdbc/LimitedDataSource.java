@@ -0,0 +1,119 @@
+package com.vercel.backend.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 接続の取得を {@link ConnectionLimiter} で制限するデータソース
+ * 許可を得てから接続プールの接続を取得し、接続のクローズ時に許可を返却する
+ * 取得からクローズまでの時間（クエリ・トランザクションの所要時間）は上限の調整に使われる
+ * 接続プール（HikariDataSource）への unwrap は {@link DelegatingDataSource} が委譲する
+ */
+public class LimitedDataSource extends DelegatingDataSource {
+
+    /** 同時取得数の制限 */
+    private final ConnectionLimiter limiter;
+
+    /**
+     * データソースのコンストラクタ
+     *
+     * @param targetDataSource 接続プール
+     * @param limiter 同時取得数の制限
+     */
+    public LimitedDataSource(DataSource targetDataSource, ConnectionLimiter limiter) {
+        super(targetDataSource);
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        limiter.acquire();
+        try {
+            return releasing(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            limiter.abandon();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        limiter.acquire();
+        try {
+            return releasing(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            limiter.abandon();
+            throw e;
+        }
+    }
+
+    /**
+     * クローズ時に許可を返却する接続を作成する
+     *
+     * @param connection 接続プールの接続
+     * @return 接続
+     */
+    private Connection releasing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, new ReleasingHandler(connection, limiter));
+    }
+
+    /**
+     * 接続のクローズ時に使用時間を添えて許可を1回だけ返却するハンドラー
+     */
+    private static final class ReleasingHandler implements InvocationHandler {
+
+        /** 接続プールの接続 */
+        private final Connection target;
+
+        /** 同時取得数の制限 */
+        private final ConnectionLimiter limiter;
+
+        /** 許可を返却済みかどうか */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /** 接続の取得時刻（ナノ秒） */
+        private final long acquiredAt = System.nanoTime();
+
+        ReleasingHandler(Connection target, ConnectionLimiter limiter) {
+            this.target = target;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    try {
+                        return invokeTarget(method, args);
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            limiter.release(System.nanoTime() - acquiredAt);
+                        }
+                    }
+                default:
+                    return invokeTarget(method, args);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
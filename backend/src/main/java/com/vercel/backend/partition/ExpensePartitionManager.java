@@ -0,0 +1,70 @@
+package com.vercel.backend.partition;
+
+import com.vercel.backend.dao.ExpensePartitionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 経費テーブルの月単位のパーティションの管理
+ * 起動時と定期的に、当月から months-ahead か月先までのパーティションを事前に作成し、
+ * retention-months か月より前の月のパーティションを切り離してアーカイブ用のスキーマへ移動する
+ * 経費テーブルがパーティションテーブルに移行されていない場合（partition_expenses_by_month の実行前）は何もしない
+ */
+@Component
+public class ExpensePartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpensePartitionManager.class);
+
+    @Autowired
+    private ExpensePartitionDao expensePartitionDao;
+
+    /** 当月より先に作成しておく月数（既定パーティションに行が入る前に作成するため1以上とする） */
+    @Value("${expense.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    /** 経費テーブルに残す月数（当月を含む、0以下の場合は切り離さない） */
+    @Value("${expense.partition.retention-months:0}")
+    private int retentionMonths;
+
+    /** 切り離したパーティションの移動先のスキーマ */
+    @Value("${expense.partition.archive-schema:archive}")
+    private String archiveSchema;
+
+    /**
+     * 定期的にパーティションを作成・切り離す
+     */
+    @Scheduled(initialDelayString = "${expense.partition.initial-delay:PT0S}",
+               fixedDelayString = "${expense.partition.interval:PT24H}")
+    public void maintain() {
+        if (!expensePartitionDao.selectIsPartitioned()) {
+            log.debug("経費テーブルがパーティションテーブルではないため、パーティションの管理をスキップしました");
+            return;
+        }
+        maintain(LocalDate.now());
+    }
+
+    /**
+     * 指定日を当月としてパーティションを作成・切り離す
+     *
+     * @param today 当日
+     */
+    public void maintain(LocalDate today) {
+        LocalDate currentMonth = today.withDayOfMonth(1);
+        int created = expensePartitionDao.ensurePartitions(currentMonth, monthsAhead + 1);
+
+        List<String> archived = List.of();
+        if (retentionMonths > 0) {
+            archived = expensePartitionDao.archivePartitions(currentMonth.minusMonths(retentionMonths - 1), archiveSchema);
+        }
+
+        log.info("経費テーブルのパーティションを管理しました: 作成{}件, 切り離し{}件{}",
+            created, archived.size(), archived.isEmpty() ? "" : " " + archived);
+    }
+}
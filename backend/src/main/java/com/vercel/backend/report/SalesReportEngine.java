@@ -0,0 +1,187 @@
+package com.vercel.backend.report;
+
+import com.vercel.backend.dao.SalesReportDao;
+import com.vercel.backend.entity.SalesReport;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 月次売上レポート（sales_reports）の作成処理
+ * 前回処理時のウォーターマーク（請求書・経費の最新の更新日時）より後に更新された行が属する月のみを再集計し、
+ * 月単位に分割してフォークジョインプールで並列に集計した結果を1回のバッチで登録・更新する
+ * 日付を変更した行の変更前の月や、削除した行の月は検出できないため、必要に応じて期間を指定して再作成する
+ */
+@Component
+public class SalesReportEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesReportEngine.class);
+
+    /** ウォーターマークのジョブ名 */
+    public static final String JOB = "sales_reports";
+
+    @Autowired
+    private SalesReportDao salesReportDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 並列度（0以下の場合はCPUコア数） */
+    @Value("${report.sales.parallelism:0}")
+    private int parallelism;
+
+    /** 前回のウォーターマークから遡って再集計する時間（更新日時の前後や長いトランザクションの取りこぼし対策） */
+    @Value("${report.sales.watermark-overlap:PT5M}")
+    private Duration watermarkOverlap;
+
+    /** 実行中かどうか（同時実行の防止） */
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /** 集計用のフォークジョインプール */
+    private ForkJoinPool pool;
+
+    /**
+     * 集計用のフォークジョインプールを作成する
+     */
+    @PostConstruct
+    public void start() {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(size, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("sales-report-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * 集計用のフォークジョインプールを停止する
+     */
+    @PreDestroy
+    public void stop() {
+        pool.shutdown();
+    }
+
+    /**
+     * 定期的に更新された月の売上レポートを再作成する
+     */
+    @Scheduled(cron = "${report.sales.cron:0 15 * * * *}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (IllegalStateException e) {
+            log.info("売上レポートの定期作成をスキップしました: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 前回処理以降に更新された月の売上レポートを再作成する
+     * 初回（ウォーターマークがない場合）は全ての月を作成する
+     *
+     * @return 再作成した月数・処理時間・ウォーターマーク
+     * @throws IllegalStateException 売上レポートを作成中の場合
+     */
+    public Map<String, Object> refresh() {
+        return exclusive(() -> {
+            Optional<LocalDateTime> previous = salesReportDao.selectWatermark(JOB);
+            // 集計より前に取得し、集計中に更新された行は次回の対象にする
+            LocalDateTime next = salesReportDao.selectSourceWatermark().orElse(null);
+            LocalDateTime since = previous.map(watermark -> watermark.minus(watermarkOverlap)).orElse(null);
+
+            List<YearMonth> months = new ArrayList<>();
+            salesReportDao.selectTouchedMonths(since)
+                .forEach(month -> months.add(YearMonth.of(month.year(), month.month())));
+
+            Map<String, Object> result = build(months, next);
+            result.put("since", since);
+            return result;
+        });
+    }
+
+    /**
+     * 指定期間の全ての月の売上レポートを作成し直す
+     * ウォーターマークは変更しない
+     *
+     * @param from 開始年月（含む）
+     * @param to 終了年月（含む）
+     * @return 再作成した月数・処理時間
+     * @throws IllegalArgumentException 開始年月が終了年月より後の場合
+     * @throws IllegalStateException 売上レポートを作成中の場合
+     */
+    public Map<String, Object> backfill(YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("開始年月が終了年月より後です: " + from + " - " + to);
+        }
+        return exclusive(() -> {
+            List<YearMonth> months = new ArrayList<>();
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                months.add(month);
+            }
+            return build(months, null);
+        });
+    }
+
+    /**
+     * 指定した月の売上レポートを並列に集計し、1つのトランザクションで登録・更新する
+     *
+     * @param months 対象の年月
+     * @param watermark 更新するウォーターマーク（nullの場合は更新しない）
+     * @return 再作成した月数・処理時間・ウォーターマーク
+     */
+    private Map<String, Object> build(List<YearMonth> months, LocalDateTime watermark) {
+        long started = System.nanoTime();
+        List<SalesReport> reports = pool.invoke(new SalesReportTask(salesReportDao, months));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!reports.isEmpty()) {
+                salesReportDao.batchUpsert(reports);
+            }
+            if (watermark != null) {
+                salesReportDao.upsertWatermark(JOB, watermark);
+            }
+        });
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("売上レポートを作成しました: {}か月, {}ms", reports.size(), elapsedMillis);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("months", reports.size());
+        result.put("elapsedMillis", elapsedMillis);
+        result.put("watermark", watermark);
+        return result;
+    }
+
+    /**
+     * 同時に1つだけ実行する
+     *
+     * @param job 処理
+     * @return 処理結果
+     * @throws IllegalStateException 別の処理が実行中の場合
+     */
+    private Map<String, Object> exclusive(Supplier<Map<String, Object>> job) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("売上レポートを作成中です");
+        }
+        try {
+            return job.get();
+        } finally {
+            running.set(false);
+        }
+    }
+}
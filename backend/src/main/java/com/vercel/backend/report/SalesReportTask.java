@@ -0,0 +1,57 @@
+package com.vercel.backend.report;
+
+import com.vercel.backend.dao.SalesReportDao;
+import com.vercel.backend.entity.SalesReport;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 月次売上レポートを月単位に分割して並列に集計するタスク
+ * 対象の年月を二分して分岐し、1か月になったところでデータベースで集計する
+ */
+public class SalesReportTask extends RecursiveTask<List<SalesReport>> {
+
+    /** 売上レポートDAO */
+    private final SalesReportDao salesReportDao;
+
+    /** 集計対象の年月 */
+    private final List<YearMonth> months;
+
+    /**
+     * コンストラクタ
+     *
+     * @param salesReportDao 売上レポートDAO
+     * @param months 集計対象の年月
+     */
+    public SalesReportTask(SalesReportDao salesReportDao, List<YearMonth> months) {
+        this.salesReportDao = salesReportDao;
+        this.months = months;
+    }
+
+    @Override
+    protected List<SalesReport> compute() {
+        if (months.isEmpty()) {
+            return List.of();
+        }
+        if (months.size() == 1) {
+            YearMonth month = months.get(0);
+            return List.of(salesReportDao.selectMonthTotals(month.getYear(), month.getMonthValue(),
+                month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay()));
+        }
+
+        int middle = months.size() / 2;
+        SalesReportTask left = new SalesReportTask(salesReportDao, months.subList(0, middle));
+        SalesReportTask right = new SalesReportTask(salesReportDao, months.subList(middle, months.size()));
+        left.fork();
+        List<SalesReport> rightReports = right.compute();
+        List<SalesReport> leftReports = left.join();
+
+        List<SalesReport> reports = new ArrayList<>(leftReports.size() + rightReports.size());
+        reports.addAll(leftReports);
+        reports.addAll(rightReports);
+        return reports;
+    }
+}
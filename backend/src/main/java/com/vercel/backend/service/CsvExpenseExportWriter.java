@@ -0,0 +1,89 @@
+package com.vercel.backend.service;
+
+import com.vercel.backend.entity.Expense;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV形式の出力ライター
+ * 列は一括登録（{@link CsvExpenseImportReader}）と同じ列名に、ID・ユーザーID・作成日時・更新日時を加えたもの
+ */
+public class CsvExpenseExportWriter implements ExpenseExportWriter {
+
+    /** ヘッダー行 */
+    private static final String HEADER =
+        "id,projectId,userId,category,description,amount,expenseDate,receiptUrl,status,createdAt,updatedAt";
+
+    /** 出力 */
+    private final BufferedWriter writer;
+
+    /**
+     * コンストラクタ
+     * ヘッダー行を書き出す
+     *
+     * @param out 出力ストリーム
+     * @throws IOException ヘッダー行の書き出しに失敗した場合
+     */
+    public CsvExpenseExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(Expense expense) throws IOException {
+        writeValue(expense.getId());
+        writer.write(',');
+        writeValue(expense.getProjectId());
+        writer.write(',');
+        writeValue(expense.getUserId());
+        writer.write(',');
+        writeValue(expense.getCategory());
+        writer.write(',');
+        writeValue(expense.getDescription());
+        writer.write(',');
+        writeValue(expense.getAmount());
+        writer.write(',');
+        writeValue(expense.getExpenseDate());
+        writer.write(',');
+        writeValue(expense.getReceiptUrl());
+        writer.write(',');
+        writeValue(expense.getStatus());
+        writer.write(',');
+        writeValue(expense.getCreatedAt());
+        writer.write(',');
+        writeValue(expense.getUpdatedAt());
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 出力ストリームはコンテナが閉じるため、バッファの書き出しのみ行う
+        writer.flush();
+    }
+
+    /**
+     * 値を書き出す
+     * カンマ・ダブルクォート・改行を含む値はダブルクォートで囲む
+     *
+     * @param value 値
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,165 @@
+package com.vercel.backend.service;
+
+import com.vercel.backend.entity.Expense;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV形式の一括登録リーダー
+ * 1行目はヘッダー行とし、列名（projectId, category, description, amount, expenseDate, receiptUrl, status）で値を対応付ける
+ * ダブルクォートで囲んだ値にはカンマと二重のダブルクォートを含められるが、改行は含められない
+ */
+public class CsvExpenseImportReader implements ExpenseImportReader {
+
+    /** 入力 */
+    private final BufferedReader reader;
+
+    /** 列名 → 列番号 */
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    /** 現在の行番号 */
+    private int line;
+
+    /**
+     * コンストラクタ
+     * ヘッダー行を読み込む
+     *
+     * @param reader 入力
+     * @throws IOException ヘッダー行の読み込みに失敗した場合
+     */
+    public CsvExpenseImportReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        line++;
+        // UTF-8のBOMを除去する
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+    }
+
+    @Override
+    public ExpenseImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        try {
+            List<String> values = split(text);
+            Expense expense = new Expense();
+            expense.setProjectId(value(values, "projectId"));
+            expense.setCategory(value(values, "category"));
+            expense.setDescription(value(values, "description"));
+            String amount = value(values, "amount");
+            expense.setAmount(amount == null ? null : new BigDecimal(amount));
+            expense.setExpenseDate(parseDate(value(values, "expenseDate")));
+            expense.setReceiptUrl(value(values, "receiptUrl"));
+            expense.setStatus(value(values, "status"));
+            return ExpenseImportRow.of(line, expense);
+        } catch (NumberFormatException e) {
+            return ExpenseImportRow.failed(line, "金額の形式が不正です");
+        } catch (DateTimeParseException e) {
+            return ExpenseImportRow.failed(line, "経費発生日の形式が不正です: " + e.getParsedString());
+        } catch (IllegalArgumentException e) {
+            return ExpenseImportRow.failed(line, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 列名に対応する値を取得する
+     *
+     * @param values 行の値
+     * @param column 列名
+     * @return 値（列がない場合や空の場合はnull）
+     */
+    private String value(List<String> values, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 経費発生日を解析する
+     * 日時（2024-01-31T10:00:00）と日付（2024-01-31）の両方を受け付ける
+     *
+     * @param value 値
+     * @return 経費発生日
+     */
+    private static LocalDateTime parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    /**
+     * CSVの1行を値に分割する
+     *
+     * @param text 行
+     * @return 値の一覧
+     * @throws IllegalArgumentException ダブルクォートが閉じていない場合
+     */
+    private static List<String> split(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("ダブルクォートが閉じていません");
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
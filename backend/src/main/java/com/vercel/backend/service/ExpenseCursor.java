@@ -0,0 +1,85 @@
+package com.vercel.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 経費一覧のキーセットページネーション用カーソル
+ * (created_at DESC, id DESC) の並びにおける最後の行の位置を表す
+ * クライアントには不透明な文字列として返却する
+ */
+public final class ExpenseCursor {
+
+    /** 作成日時とIDの区切り文字 */
+    private static final char SEPARATOR = '|';
+
+    /** 最後に返却した行の作成日時 */
+    private final LocalDateTime createdAt;
+
+    /** 最後に返却した行の経費ID */
+    private final String id;
+
+    /**
+     * カーソルのコンストラクタ
+     *
+     * @param createdAt 最後に返却した行の作成日時
+     * @param id 最後に返却した行の経費ID
+     */
+    public ExpenseCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * 不透明なカーソル文字列をデコードする
+     *
+     * @param value カーソル文字列
+     * @return デコードされたカーソル
+     * @throws IllegalArgumentException カーソルの形式が不正な場合
+     */
+    public static ExpenseCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("不正なカーソルです: " + value);
+            }
+            return new ExpenseCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("不正なカーソルです: " + value, e);
+        }
+    }
+
+    /**
+     * カーソルを不透明な文字列にエンコードする
+     *
+     * @return URLセーフなBase64文字列
+     */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 作成日時を取得する
+     *
+     * @return 作成日時
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * 経費IDを取得する
+     *
+     * @return 経費ID
+     */
+    public String getId() {
+        return id;
+    }
+}
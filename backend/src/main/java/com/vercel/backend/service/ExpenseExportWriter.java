@@ -0,0 +1,44 @@
+package com.vercel.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.entity.Expense;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 経費を1件ずつ出力ストリームへ書き出すライター
+ * 書き出した経費は保持しないため、件数に関わらずメモリ使用量は一定
+ */
+public interface ExpenseExportWriter extends Closeable {
+
+    /**
+     * 経費を1件書き出す
+     *
+     * @param expense 経費
+     * @throws IOException 書き出しに失敗した場合
+     */
+    void write(Expense expense) throws IOException;
+
+    /**
+     * 出力形式に応じたライターを作成する
+     * {@link #close()} はバッファを書き出すが、出力ストリーム自体は閉じない
+     *
+     * @param format 出力形式（ndjson または csv）
+     * @param out 出力ストリーム
+     * @param objectMapper NDJSONの出力に使用するObjectMapper
+     * @return ライター
+     * @throws IOException ヘッダーの書き出しに失敗した場合
+     * @throws IllegalArgumentException 未対応の出力形式の場合
+     */
+    static ExpenseExportWriter open(String format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return new NdjsonExpenseExportWriter(out, objectMapper);
+        }
+        if ("csv".equalsIgnoreCase(format)) {
+            return new CsvExpenseExportWriter(out);
+        }
+        throw new IllegalArgumentException("未対応の形式です: " + format);
+    }
+}
@@ -0,0 +1,47 @@
+package com.vercel.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一括登録のリクエストボディを1行ずつ読み込むリーダー
+ * ボディ全体をメモリに読み込まず、呼び出しごとに次の1件を返す
+ */
+public interface ExpenseImportReader extends Closeable {
+
+    /**
+     * 次の1件を読み込む
+     *
+     * @return 読み込み結果（終端に達した場合はnull）
+     * @throws IOException 入力の読み込みに失敗した場合
+     */
+    ExpenseImportRow next() throws IOException;
+
+    /**
+     * Content-Typeに応じたリーダーを作成する
+     *
+     * @param contentType リクエストのContent-Type（text/csv または application/x-ndjson）
+     * @param body リクエストボディ
+     * @param objectMapper NDJSONの解析に使用するObjectMapper
+     * @return リーダー
+     * @throws IOException CSVのヘッダー行の読み込みに失敗した場合
+     * @throws IllegalArgumentException 未対応のContent-Typeの場合
+     */
+    static ExpenseImportReader open(String contentType, InputStream body, ObjectMapper objectMapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.startsWith("text/csv")) {
+            return new CsvExpenseImportReader(reader);
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/ndjson")) {
+            return new NdjsonExpenseImportReader(reader, objectMapper);
+        }
+        throw new IllegalArgumentException("未対応の形式です: " + contentType);
+    }
+}
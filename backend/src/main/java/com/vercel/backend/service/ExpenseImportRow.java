@@ -0,0 +1,36 @@
+package com.vercel.backend.service;
+
+import com.vercel.backend.entity.Expense;
+
+/**
+ * 一括登録で読み込んだ1行分の結果
+ * 解析に成功した場合は expense、失敗した場合は error を保持する
+ *
+ * @param line 行番号（1から開始、CSVのヘッダー行を含む）
+ * @param expense 解析した経費
+ * @param error 解析エラーの内容
+ */
+public record ExpenseImportRow(int line, Expense expense, String error) {
+
+    /**
+     * 解析に成功した行を作成する
+     *
+     * @param line 行番号
+     * @param expense 解析した経費
+     * @return 読み込み結果
+     */
+    public static ExpenseImportRow of(int line, Expense expense) {
+        return new ExpenseImportRow(line, expense, null);
+    }
+
+    /**
+     * 解析に失敗した行を作成する
+     *
+     * @param line 行番号
+     * @param error エラーの内容
+     * @return 読み込み結果
+     */
+    public static ExpenseImportRow failed(int line, String error) {
+        return new ExpenseImportRow(line, null, error);
+    }
+}
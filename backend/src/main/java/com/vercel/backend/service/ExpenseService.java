@@ -1,25 +1,45 @@
 package com.vercel.backend.service;
 
+import com.vercel.backend.aggregate.ExpenseAggregator;
+import com.vercel.backend.cache.SingleFlight;
+import com.vercel.backend.cache.UserEvictableCache;
+import com.vercel.backend.config.CacheConfig;
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.dto.ExpenseCursorPage;
+import com.vercel.backend.dto.ExpenseImportResult;
+import com.vercel.backend.dto.ExpenseListItem;
+import com.vercel.backend.dto.ExpensePage;
 import com.vercel.backend.entity.Expense;
-import com.vercel.backend.entity.Project;
-import com.vercel.backend.entity.User;
+import com.vercel.backend.entity.ExpenseDetailRow;
+import com.vercel.backend.id.IdGenerator;
+import com.vercel.backend.writebehind.ExpenseWriteBehindQueue;
+import org.seasar.doma.jdbc.JdbcException;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * 経費サービスクラス
@@ -27,8 +47,46 @@ import java.util.HashMap;
 @Service
 public class ExpenseService {
     
+    /** 一括登録のレスポンスに含めるエラーの最大件数 */
+    private static final int MAX_IMPORT_ERRORS = 1000;
+    
+    /** 一覧の並び順（作成日時・IDの降順） */
+    private static final Comparator<ExpenseListItem> NEWEST_FIRST =
+        Comparator.comparing(ExpenseListItem::createdAt).thenComparing(ExpenseListItem::id).reversed();
+    
+    @Autowired
+    private ExpenseDao expenseDao;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private ExpenseAggregator expenseAggregator;
+    
+    /** 経費登録のライトビハインド（expense.write-behind.enabled が有効な場合のみ） */
+    @Autowired(required = false)
+    private ExpenseWriteBehindQueue writeBehindQueue;
+    
+    /** 一括登録で1回のバッチINSERTにまとめる件数 */
+    @Value("${expense.import.batch-size:500}")
+    private int importBatchSize;
+    
+    /** 一括取得で1回に指定できる経費IDの最大件数 */
+    @Value("${expense.batch-get.max-ids:100}")
+    private int batchGetMaxIds;
+    
+    /** 経費一覧の1ページの最大件数（これより大きいページサイズは切り詰める） */
+    @Value("${expense.list.max-page-size:100}")
+    private int maxPageSize;
     
     /**
      * 経費詳細を取得（キャッシュ付き）
@@ -36,150 +94,405 @@ public class ExpenseService {
      * @param userId ユーザーID
      * @return 経費詳細
      */
-    @Cacheable(value = "expenses", key = "#expenseId + '_' + #userId")
+    @Cacheable(value = "expenses", key = "#expenseId + '_' + #userId", sync = true)
     public Optional<Expense> findByIdAndUserId(String expenseId, String userId) {
-        String sql = """
-            SELECT 
-                e.id, e.project_id, e.user_id, e.category, e.description, 
-                e.amount, e.expense_date, e.receipt_url, e.status,
-                e.created_at, e.updated_at,
-                p.id as project_id, p.name as project_name, p.client_name, p.status as project_status,
-                u.id as user_id, u.name as user_name, u.email as user_email
-            FROM expenses e
-            LEFT JOIN projects p ON e.project_id = p.id
-            LEFT JOIN users u ON e.user_id = u.id
-            WHERE e.id = ? AND e.user_id = ?
-            """;
+        if (writeBehindQueue != null) {
+            Optional<Expense> pending = writeBehindQueue.pending(userId, expenseId);
+            if (pending.isPresent()) {
+                return pending;
+            }
+        }
+        return expenseDao.selectByIdAndUserId(expenseId, userId).map(ExpenseDetailRow::toExpense);
+    }
+    
+    /**
+     * 経費詳細を一括取得（キャッシュ付き）
+     * 経費詳細のキャッシュにある経費はキャッシュから返し、ない経費のみを1回のクエリ（e.id = ANY(?)）で取得して
+     * キャッシュに格納する
+     * @param expenseIds 経費ID（重複したIDは1件として扱う）
+     * @param userId ユーザーID
+     * @return 経費詳細（指定したIDの順、存在しない経費は含まない）
+     * @throws IllegalArgumentException 経費IDが上限を超える場合
+     */
+    public List<Expense> findByIdsAndUserId(List<String> expenseIds, String userId) {
+        Set<String> ids = new LinkedHashSet<>(expenseIds);
+        if (ids.size() > batchGetMaxIds) {
+            throw new IllegalArgumentException("経費IDは" + batchGetMaxIds + "件以下で指定してください: " + ids.size() + "件");
+        }
         
-        try {
-            Expense expense = jdbcTemplate.queryForObject(sql, new ExpenseRowMapper(), expenseId, userId);
-            return Optional.ofNullable(expense);
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+        Cache cache = cacheManager.getCache(CacheConfig.EXPENSES);
+        Map<String, Expense> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String expenseId : ids) {
+            Cache.ValueWrapper cached = cache != null ? cache.get(expenseKey(expenseId, userId)) : null;
+            if (cached != null) {
+                // 存在しないことをキャッシュしている場合は値がnull
+                if (cached.get() instanceof Expense expense) {
+                    found.put(expenseId, expense);
+                }
+                continue;
+            }
+            Optional<Expense> pending = writeBehindQueue != null
+                ? writeBehindQueue.pending(userId, expenseId) : Optional.empty();
+            if (pending.isPresent()) {
+                found.put(expenseId, pending.get());
+            } else {
+                misses.add(expenseId);
+            }
+        }
+        
+        if (!misses.isEmpty()) {
+            // 配列の作成と検索を同じ接続で行う
+            TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            readOnly.setReadOnly(true);
+            List<ExpenseDetailRow> rows = readOnly.execute(status -> expenseDao.selectByIdsAndUserId(
+                expenseDao.createIdArray(misses.toArray(String[]::new)), userId));
+            for (ExpenseDetailRow row : rows) {
+                Expense expense = row.toExpense();
+                found.put(expense.getId(), expense);
+                if (cache != null) {
+                    cache.put(expenseKey(expense.getId(), userId), expense);
+                }
+            }
         }
+        
+        List<Expense> expenses = new ArrayList<>(found.size());
+        for (String expenseId : ids) {
+            Expense expense = found.get(expenseId);
+            if (expense != null) {
+                expenses.add(expense);
+            }
+        }
+        return expenses;
     }
     
     /**
      * ユーザーの経費一覧を取得（ページネーション付き）
      * @param userId ユーザーID
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
      * @param page ページ番号（0から開始）
-     * @param size ページサイズ
+     * @param size ページサイズ（最大件数を超える場合は切り詰める）
      * @return 経費一覧とページ情報
+     * @throws IllegalArgumentException 期間・ページ番号・ページサイズが不正な場合
      */
-    @Cacheable(value = "expenseList", key = "#userId + '_' + #page + '_' + #size")
-    public Map<String, Object> findByUserIdWithPagination(String userId, int page, int size) {
+    @Cacheable(value = "expenseList", keyGenerator = "userCacheKeyGenerator", sync = true)
+    public ExpensePage findByUserIdWithPagination(String userId, LocalDate from, LocalDate to, int page, int size) {
+        checkDateRange(from, to);
+        if (page < 0) {
+            throw new IllegalArgumentException("ページ番号は0以上で指定してください: " + page);
+        }
+        size = pageSize(size);
+        // 読み飛ばし件数（page * size）と、その1ページ先（+ size）がintに収まる範囲に限る
+        int maxPage = Integer.MAX_VALUE / size - 1;
+        if (page > maxPage) {
+            throw new IllegalArgumentException("ページ番号は" + maxPage + "以下で指定してください: " + page);
+        }
         int offset = page * size;
+        List<ExpenseListItem> pending = pendingItems(userId, from, to);
         
-        // 総件数を取得
-        String countSql = "SELECT COUNT(*) FROM expenses WHERE user_id = ?";
-        int totalCount = jdbcTemplate.queryForObject(countSql, Integer.class, userId);
+        // 総件数を取得（同一ユーザー・同一期間の別ページの同時ミスとも共有する）
+        int totalCount = countByUserId(userId, from, to) + pending.size();
         
-        // 経費一覧を取得
-        String sql = """
-            SELECT 
-                e.id, e.project_id, e.user_id, e.category, e.description, 
-                e.amount, e.expense_date, e.receipt_url, e.status,
-                e.created_at, e.updated_at,
-                p.id as project_id, p.name as project_name, p.client_name, p.status as project_status,
-                u.id as user_id, u.name as user_name, u.email as user_email
-            FROM expenses e
-            LEFT JOIN projects p ON e.project_id = p.id
-            LEFT JOIN users u ON e.user_id = u.id
-            WHERE e.user_id = ?
-            ORDER BY e.created_at DESC
-            LIMIT ? OFFSET ?
-            """;
+        // 経費一覧を取得（未登録の経費は登録済みの経費より新しいため先頭に並べ、その分データベースの読み飛ばし件数を減らす）
+        List<ExpenseListItem> expenses = new ArrayList<>(
+            pending.subList(Math.min(offset, pending.size()), Math.min(offset + size, pending.size())));
+        if (expenses.size() < size) {
+            List<ExpenseListItem> rows = toListItems(expenseDao.selectPageByUserId(userId, startOf(from), endOf(to),
+                size - expenses.size(), Math.max(0, offset - pending.size())));
+            expenses.addAll(withoutPending(rows, pending));
+        }
         
-        List<Expense> expenses = jdbcTemplate.query(sql, new ExpenseRowMapper(), userId, size, offset);
+        return new ExpensePage(expenses, totalCount, page, size, (int) Math.ceil((double) totalCount / size));
+    }
+    
+    /**
+     * ユーザーの経費一覧を取得（キーセットページネーション）
+     * (created_at DESC, id DESC) の位置から続きを読むため、OFFSETと異なり
+     * 深いページでも先頭ページと同じコストで取得できる
+     * @param userId ユーザーID
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
+     * @param after 前ページの次カーソル（先頭ページの場合はnull）
+     * @param size ページサイズ（最大件数を超える場合は切り詰める）
+     * @param withTotal 総件数を取得するかどうか
+     * @return 経費一覧と次カーソル
+     * @throws IllegalArgumentException 期間・カーソル・ページサイズが不正な場合
+     */
+    @Cacheable(value = "expenseList", keyGenerator = "userCacheKeyGenerator", sync = true)
+    public ExpenseCursorPage findByUserIdWithCursor(String userId, LocalDate from, LocalDate to,
+                                                    String after, int size, boolean withTotal) {
+        checkDateRange(from, to);
+        size = pageSize(size);
         
-        Map<String, Object> result = new HashMap<>();
-        result.put("expenses", expenses);
-        result.put("totalCount", totalCount);
-        result.put("page", page);
-        result.put("size", size);
-        result.put("totalPages", (int) Math.ceil((double) totalCount / size));
+        // 次ページの有無を判定するため1件多く取得する
+        ExpenseCursor cursor = after == null || after.isEmpty() ? null : ExpenseCursor.decode(after);
+        List<ExpenseListItem> expenses = toListItems(expenseDao.selectAfterCursor(userId, startOf(from), endOf(to),
+            cursor != null ? cursor.getCreatedAt() : null, cursor != null ? cursor.getId() : null, size + 1));
+        List<ExpenseListItem> pending = pendingItems(userId, from, to);
+        if (!pending.isEmpty()) {
+            expenses = mergePending(expenses, pending, cursor, size + 1);
+        }
         
-        return result;
+        boolean hasMore = expenses.size() > size;
+        if (hasMore) {
+            expenses = new ArrayList<>(expenses.subList(0, size));
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            ExpenseListItem last = expenses.get(expenses.size() - 1);
+            nextCursor = new ExpenseCursor(last.createdAt(), last.id()).encode();
+        }
+        
+        // 総件数は要求された場合のみ取得する
+        Integer totalCount = withTotal ? countByUserId(userId, from, to) + pending.size() : null;
+        
+        return new ExpenseCursorPage(expenses, size, hasMore, nextCursor, totalCount);
+    }
+    
+    /**
+     * ページサイズを検証し、最大件数に切り詰める
+     * @param size 指定されたページサイズ
+     * @return ページサイズ
+     * @throws IllegalArgumentException ページサイズが1未満の場合
+     */
+    private int pageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("ページサイズは1以上で指定してください: " + size);
+        }
+        return Math.min(size, maxPageSize);
+    }
+    
+    /**
+     * ユーザーの経費件数を取得
+     * 同一ユーザー・同一期間の件数取得が同時に発生した場合は1回のクエリにまとめる
+     * @param userId ユーザーID
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
+     * @return 経費件数
+     */
+    private int countByUserId(String userId, LocalDate from, LocalDate to) {
+        return singleFlight.execute("expenseCount", Arrays.asList(userId, from, to),
+            () -> expenseDao.countByUserId(userId, startOf(from), endOf(to)));
     }
     
     /**
      * ユーザーの経費一覧を取得（従来のメソッド、後方互換性のため）
      * @param userId ユーザーID
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
      * @return 経費一覧
      */
-    @Cacheable(value = "expenseList", key = "#userId + '_all'")
-    public List<Expense> findByUserId(String userId) {
-        String sql = """
-            SELECT 
-                e.id, e.project_id, e.user_id, e.category, e.description, 
-                e.amount, e.expense_date, e.receipt_url, e.status,
-                e.created_at, e.updated_at,
-                p.id as project_id, p.name as project_name, p.client_name, p.status as project_status,
-                u.id as user_id, u.name as user_name, u.email as user_email
-            FROM expenses e
-            LEFT JOIN projects p ON e.project_id = p.id
-            LEFT JOIN users u ON e.user_id = u.id
-            WHERE e.user_id = ?
-            ORDER BY e.created_at DESC
-            LIMIT 100
-            """;
-        
-        return jdbcTemplate.query(sql, new ExpenseRowMapper(), userId);
+    @Cacheable(value = "expenseList", keyGenerator = "userCacheKeyGenerator", sync = true)
+    public List<ExpenseListItem> findByUserId(String userId, LocalDate from, LocalDate to) {
+        checkDateRange(from, to);
+        List<ExpenseListItem> expenses = toListItems(expenseDao.selectPageByUserId(userId, startOf(from), endOf(to), 100, 0));
+        List<ExpenseListItem> pending = pendingItems(userId, from, to);
+        return pending.isEmpty() ? expenses : mergePending(expenses, pending, null, 100);
+    }
+    
+    /**
+     * 経費をストリームで出力（監査用エクスポート）
+     * 前方スクロールのみのカーソルでフェッチサイズ分ずつ読み込み、1行ごとにライターへ書き出すため、
+     * 対象件数に関わらずヒープ使用量は一定となる
+     * PostgreSQLはトランザクション内でのみフェッチサイズを有効にするため、読み取り専用トランザクションで実行する
+     * @param userId ユーザーID（nullの場合は条件にしない）
+     * @param projectId プロジェクトID（nullの場合は条件にしない）
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
+     * @param writer 出力ライター
+     * @return 出力件数
+     */
+    public long exportExpenses(String userId, String projectId, LocalDate from, LocalDate to,
+                               ExpenseExportWriter writer) {
+        checkDateRange(from, to);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> expenseDao.selectForExport(userId, projectId, startOf(from), endOf(to),
+            expenses -> {
+                long count = 0;
+                for (Iterator<Expense> it = expenses.iterator(); it.hasNext(); count++) {
+                    try {
+                        writer.write(it.next());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return count;
+            }));
     }
     
     /**
      * 経費を作成
+     * ライトビハインドが有効な場合は、先行書き込みログへの追記で確定させ、データベースへの登録はまとめて非同期に行う
      * @param expense 経費
      * @return 作成された経費
      */
-    @CacheEvict(value = "expenseList", allEntries = true)
     public Expense create(Expense expense) {
-        String sql = """
-            INSERT INTO expenses (id, project_id, user_id, category, description, 
-                                amount, expense_date, receipt_url, status, created_at, updated_at)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        String id = generateId();
         LocalDateTime now = LocalDateTime.now();
-        
-        jdbcTemplate.update(sql, 
-            id, expense.getProjectId(), expense.getUserId(), expense.getCategory(),
-            expense.getDescription(), expense.getAmount(), expense.getExpenseDate(),
-            expense.getReceiptUrl(), expense.getStatus(), now, now);
-        
-        expense.setId(id);
+        expense.setId(generateId());
         expense.setCreatedAt(now);
         expense.setUpdatedAt(now);
         
+        if (writeBehindQueue != null) {
+            writeBehindQueue.submit(expense);
+        } else {
+            expenseDao.insert(expense);
+        }
+        
+        expenseAggregator.onCreated(expense);
+        evictUserLists(expense.getUserId());
         return expense;
     }
     
+    /**
+     * 経費を一括登録
+     * リーダーから1件ずつ読み込み、設定した件数ごとにバッチINSERTする
+     * 解析エラーや制約違反の行はスキップし、行番号とともにエラーとして返す
+     * キャッシュの無効化は一括登録全体で1回のみ行う
+     * @param userId ユーザーID（全ての行がこのユーザーの経費として登録される）
+     * @param reader 一括登録リーダー
+     * @return 登録件数・失敗件数・行ごとのエラー
+     * @throws IOException 入力の読み込みに失敗した場合
+     */
+    public ExpenseImportResult importExpenses(String userId, ExpenseImportReader reader) throws IOException {
+        List<Expense> batch = new ArrayList<>(importBatchSize);
+        List<Integer> batchLines = new ArrayList<>(importBatchSize);
+        List<ExpenseImportResult.RowError> errors = new ArrayList<>();
+        int imported = 0;
+        int failed = 0;
+        
+        ExpenseImportRow row;
+        while ((row = reader.next()) != null) {
+            String error = row.error() != null ? row.error() : validateImportRow(row.expense());
+            if (error != null) {
+                failed++;
+                addImportError(errors, row.line(), error);
+                continue;
+            }
+            
+            Expense expense = row.expense();
+            LocalDateTime now = LocalDateTime.now();
+            expense.setId(generateId());
+            expense.setUserId(userId);
+            expense.setCreatedAt(now);
+            expense.setUpdatedAt(now);
+            batch.add(expense);
+            batchLines.add(row.line());
+            
+            if (batch.size() >= importBatchSize) {
+                int inserted = flushImportBatch(batch, batchLines, errors);
+                imported += inserted;
+                failed += batch.size() - inserted;
+                batch.clear();
+                batchLines.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int inserted = flushImportBatch(batch, batchLines, errors);
+            imported += inserted;
+            failed += batch.size() - inserted;
+        }
+        
+        if (imported > 0) {
+            evictUserLists(userId);
+        }
+        
+        return new ExpenseImportResult(imported, failed, errors, failed > errors.size());
+    }
+    
+    /**
+     * 一括登録の1バッチをINSERTする
+     * バッチ全体を1トランザクションで登録し、失敗した場合はロールバックして
+     * 1行ずつ登録し直すことで失敗した行を特定する
+     * @param batch 登録する行の値
+     * @param batchLines 各行の行番号
+     * @param errors 行ごとのエラー（失敗した行を追加する）
+     * @return 登録できた件数
+     */
+    private int flushImportBatch(List<Expense> batch, List<Integer> batchLines,
+                                 List<ExpenseImportResult.RowError> errors) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> expenseDao.batchInsert(batch));
+            batch.forEach(expenseAggregator::onCreated);
+            return batch.size();
+        } catch (JdbcException e) {
+            int inserted = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    expenseDao.insert(batch.get(i));
+                    expenseAggregator.onCreated(batch.get(i));
+                    inserted++;
+                } catch (JdbcException rowError) {
+                    addImportError(errors, batchLines.get(i),
+                        NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+            return inserted;
+        }
+    }
+    
+    /**
+     * 一括登録の行を検証する
+     * @param expense 経費
+     * @return エラーの内容（問題がない場合はnull）
+     */
+    private String validateImportRow(Expense expense) {
+        if (expense.getCategory() == null || expense.getCategory().isBlank()) {
+            return "カテゴリは必須です";
+        }
+        if (expense.getDescription() == null || expense.getDescription().isBlank()) {
+            return "説明は必須です";
+        }
+        if (expense.getAmount() == null) {
+            return "金額は必須です";
+        }
+        if (expense.getExpenseDate() == null) {
+            return "経費発生日は必須です";
+        }
+        return null;
+    }
+    
+    /**
+     * 一括登録のエラーを追加する
+     * レスポンスが大きくなりすぎないよう、上限を超えたエラーは件数のみ数える
+     * @param errors 行ごとのエラー
+     * @param line 行番号
+     * @param message エラーの内容
+     */
+    private void addImportError(List<ExpenseImportResult.RowError> errors, int line, String message) {
+        if (errors.size() < MAX_IMPORT_ERRORS) {
+            errors.add(new ExpenseImportResult.RowError(line, message));
+        }
+    }
+    
     /**
      * 経費を更新
      * @param expense 経費
      * @return 更新された経費
      */
-    @CacheEvict(value = {"expenses", "expenseList"}, allEntries = true)
+    @CacheEvict(value = "expenses", key = "#expense.id + '_' + #expense.userId")
     public Expense update(Expense expense) {
-        String sql = """
-            UPDATE expenses 
-            SET project_id = ?, category = ?, description = ?, amount = ?, 
-                expense_date = ?, receipt_url = ?, status = ?, updated_at = ?
-            WHERE id = ? AND user_id = ?
-            """;
+        awaitFlushed(expense.getUserId(), expense.getId());
         
-        LocalDateTime now = LocalDateTime.now();
+        // 集計の差分を求めるため更新前の値を取得する
+        Optional<ExpenseDetailRow> before = expenseDao.selectByIdAndUserId(expense.getId(), expense.getUserId());
+        LocalDateTime previousUpdatedAt = expense.getUpdatedAt();
+        expense.setUpdatedAt(LocalDateTime.now());
         
-        int updated = jdbcTemplate.update(sql,
-            expense.getProjectId(), expense.getCategory(), expense.getDescription(),
-            expense.getAmount(), expense.getExpenseDate(), expense.getReceiptUrl(),
-            expense.getStatus(), now, expense.getId(), expense.getUserId());
+        int updated = expenseDao.update(expense);
         
         if (updated > 0) {
-            expense.setUpdatedAt(now);
+            before.ifPresent(row -> {
+                Expense previous = row.toExpense();
+                expense.setCreatedAt(previous.getCreatedAt());
+                expenseAggregator.onUpdated(previous, expense);
+            });
+            evictUserLists(expense.getUserId());
             return expense;
         } else {
+            expense.setUpdatedAt(previousUpdatedAt);
             throw new RuntimeException("経費の更新に失敗しました");
         }
     }
@@ -190,61 +503,182 @@ public class ExpenseService {
      * @param userId ユーザーID
      * @return 削除成功フラグ
      */
-    @CacheEvict(value = {"expenses", "expenseList"}, allEntries = true)
+    @CacheEvict(value = "expenses", key = "#expenseId + '_' + #userId")
     public boolean delete(String expenseId, String userId) {
-        String sql = "DELETE FROM expenses WHERE id = ? AND user_id = ?";
+        awaitFlushed(userId, expenseId);
+        
+        // 集計の差分を求めるため削除前の値を取得する
+        Optional<ExpenseDetailRow> before = expenseDao.selectByIdAndUserId(expenseId, userId);
         
-        int deleted = jdbcTemplate.update(sql, expenseId, userId);
+        int deleted = expenseDao.deleteByIdAndUserId(expenseId, userId);
+        if (deleted > 0) {
+            before.ifPresent(row -> expenseAggregator.onDeleted(row.toExpense()));
+            evictUserLists(userId);
+        }
         return deleted > 0;
     }
     
+    /**
+     * ライトビハインドで未登録の経費の場合は、データベースへの登録を待つ
+     * @param userId ユーザーID
+     * @param expenseId 経費ID
+     */
+    private void awaitFlushed(String userId, String expenseId) {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.awaitFlushed(userId, expenseId);
+        }
+    }
+    
+    /**
+     * ライトビハインドで未登録の経費のうち、期間内のものを作成日時の降順で取得
+     * 登録したユーザー自身の一覧に登録直後から含めるために使用する
+     * @param userId ユーザーID
+     * @param from 経費日付の開始日（含む、nullの場合は条件にしない）
+     * @param to 経費日付の終了日（含む、nullの場合は条件にしない）
+     * @return 未登録の経費
+     */
+    private List<ExpenseListItem> pendingItems(String userId, LocalDate from, LocalDate to) {
+        if (writeBehindQueue == null) {
+            return List.of();
+        }
+        LocalDateTime start = startOf(from);
+        LocalDateTime end = endOf(to);
+        List<ExpenseListItem> items = new ArrayList<>();
+        for (Expense expense : writeBehindQueue.pendingOf(userId)) {
+            LocalDateTime expenseDate = expense.getExpenseDate();
+            if ((start == null || !expenseDate.isBefore(start)) && (end == null || expenseDate.isBefore(end))) {
+                items.add(ExpenseListItem.from(expense));
+            }
+        }
+        return items;
+    }
+    
+    /**
+     * データベースの経費一覧に未登録の経費を (created_at DESC, id DESC) の順で合わせる
+     * @param rows データベースの経費一覧
+     * @param pending 未登録の経費
+     * @param cursor 前ページの次カーソル（この位置より後の未登録の経費のみ含める、nullの場合は全て）
+     * @param limit 最大件数
+     * @return 経費一覧
+     */
+    private static List<ExpenseListItem> mergePending(List<ExpenseListItem> rows, List<ExpenseListItem> pending,
+                                                      ExpenseCursor cursor, int limit) {
+        List<ExpenseListItem> merged = new ArrayList<>(withoutPending(rows, pending));
+        for (ExpenseListItem item : pending) {
+            if (cursor == null || isBeyond(item, cursor)) {
+                merged.add(item);
+            }
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+    
+    /**
+     * 行が (created_at, id) < カーソルの位置（降順でカーソルより後ろ）にあるかを判定
+     * @param item 一覧の行
+     * @param cursor 前ページの次カーソル
+     * @return カーソルより後ろの場合はtrue
+     */
+    private static boolean isBeyond(ExpenseListItem item, ExpenseCursor cursor) {
+        int byCreatedAt = item.createdAt().compareTo(cursor.getCreatedAt());
+        return byCreatedAt < 0 || (byCreatedAt == 0 && item.id().compareTo(cursor.getId()) < 0);
+    }
+    
+    /**
+     * 未登録の経費と同じIDの行を取り除く（一覧の取得中に登録された経費の重複を防ぐ）
+     * @param rows データベースの経費一覧
+     * @param pending 未登録の経費
+     * @return 経費一覧
+     */
+    private static List<ExpenseListItem> withoutPending(List<ExpenseListItem> rows, List<ExpenseListItem> pending) {
+        if (pending.isEmpty()) {
+            return rows;
+        }
+        Set<String> pendingIds = new HashSet<>();
+        pending.forEach(item -> pendingIds.add(item.id()));
+        List<ExpenseListItem> filtered = new ArrayList<>(rows.size());
+        for (ExpenseListItem row : rows) {
+            if (!pendingIds.contains(row.id())) {
+                filtered.add(row);
+            }
+        }
+        return filtered;
+    }
+    
+    /**
+     * 指定ユーザーの経費一覧キャッシュのみを削除する
+     * 他ユーザーのページはキャッシュに残す
+     * @param userId ユーザーID
+     */
+    private void evictUserLists(String userId) {
+        Cache cache = cacheManager.getCache(CacheConfig.EXPENSE_LIST);
+        if (cache instanceof UserEvictableCache userEvictableCache) {
+            userEvictableCache.evictUser(userId);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+    
+    /**
+     * 経費詳細のキャッシュのキーを作成（findByIdAndUserId の @Cacheable と同じキー）
+     * @param expenseId 経費ID
+     * @param userId ユーザーID
+     * @return キャッシュのキー
+     */
+    private static String expenseKey(String expenseId, String userId) {
+        return expenseId + "_" + userId;
+    }
+    
     /**
      * IDを生成
+     * 時刻順に並ぶため、主キーのインデックスの末尾に追記される
      * @return 生成されたID
      */
     private String generateId() {
-        return "exp_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
-    }
-    
-    /**
-     * 経費のRowMapper
-     */
-    private static class ExpenseRowMapper implements RowMapper<Expense> {
-        @Override
-        public Expense mapRow(ResultSet rs, int rowNum) throws SQLException {
-            Expense expense = new Expense();
-            expense.setId(rs.getString("id"));
-            expense.setProjectId(rs.getString("project_id"));
-            expense.setUserId(rs.getString("user_id"));
-            expense.setCategory(rs.getString("category"));
-            expense.setDescription(rs.getString("description"));
-            expense.setAmount(rs.getBigDecimal("amount"));
-            expense.setExpenseDate(rs.getTimestamp("expense_date").toLocalDateTime());
-            expense.setReceiptUrl(rs.getString("receipt_url"));
-            expense.setStatus(rs.getString("status"));
-            expense.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-            expense.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-            
-            // プロジェクト情報を設定
-            if (rs.getString("project_id") != null) {
-                Project project = new Project();
-                project.setId(rs.getString("project_id"));
-                project.setName(rs.getString("project_name"));
-                project.setClientName(rs.getString("client_name"));
-                project.setStatus(rs.getString("project_status"));
-                expense.setProject(project);
-            }
-            
-            // ユーザー情報を設定
-            if (rs.getString("user_id") != null) {
-                User user = new User();
-                user.setId(rs.getString("user_id"));
-                user.setName(rs.getString("user_name"));
-                user.setEmail(rs.getString("user_email"));
-                expense.setUser(user);
-            }
-            
-            return expense;
+        return idGenerator.nextId("exp_");
+    }
+    
+    /**
+     * 検索結果行を一覧の行に変換
+     * @param rows 検索結果行
+     * @return 経費一覧
+     */
+    private static List<ExpenseListItem> toListItems(List<ExpenseDetailRow> rows) {
+        List<ExpenseListItem> expenses = new ArrayList<>(rows.size());
+        for (ExpenseDetailRow row : rows) {
+            expenses.add(ExpenseListItem.from(row));
+        }
+        return expenses;
+    }
+    
+    /**
+     * 経費日付の期間を検証
+     * @param from 開始日（nullの場合は条件にしない）
+     * @param to 終了日（nullの場合は条件にしない）
+     * @throws IllegalArgumentException 開始日が終了日より後の場合
+     */
+    private static void checkDateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("開始日が終了日より後です: from=" + from + ", to=" + to);
         }
     }
+    
+    /**
+     * 期間の開始日を検索条件の開始日時（含む）に変換
+     * @param from 開始日
+     * @return 開始日の0時（開始日がnullの場合はnull）
+     */
+    private static LocalDateTime startOf(LocalDate from) {
+        return from != null ? from.atStartOfDay() : null;
+    }
+    
+    /**
+     * 期間の終了日を検索条件の終了日時（含まない）に変換
+     * 月末日を指定すると翌月1日0時となり、範囲外の月のパーティションを読まずに済む
+     * @param to 終了日
+     * @return 終了日の翌日の0時（終了日がnullの場合はnull）
+     */
+    private static LocalDateTime endOf(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : null;
+    }
 }
@@ -0,0 +1,69 @@
+package com.vercel.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.entity.Expense;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * NDJSON（1行1経費のJSON）形式の出力ライター
+ */
+public class NdjsonExpenseExportWriter implements ExpenseExportWriter {
+
+    /** JSONジェネレーター */
+    private final JsonGenerator generator;
+
+    /**
+     * コンストラクタ
+     *
+     * @param out 出力ストリーム
+     * @param objectMapper JSONの出力に使用するObjectMapper
+     * @throws IOException ジェネレーターの作成に失敗した場合
+     */
+    public NdjsonExpenseExportWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(Expense expense) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", expense.getId());
+        generator.writeStringField("projectId", expense.getProjectId());
+        generator.writeStringField("userId", expense.getUserId());
+        generator.writeStringField("category", expense.getCategory());
+        generator.writeStringField("description", expense.getDescription());
+        if (expense.getAmount() != null) {
+            generator.writeNumberField("amount", expense.getAmount());
+        } else {
+            generator.writeNullField("amount");
+        }
+        writeDateTime("expenseDate", expense.getExpenseDate());
+        generator.writeStringField("receiptUrl", expense.getReceiptUrl());
+        generator.writeStringField("status", expense.getStatus());
+        writeDateTime("createdAt", expense.getCreatedAt());
+        writeDateTime("updatedAt", expense.getUpdatedAt());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+    /**
+     * 日時をISO-8601形式の文字列として書き出す
+     *
+     * @param name フィールド名
+     * @param value 日時
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private void writeDateTime(String name, LocalDateTime value) throws IOException {
+        generator.writeStringField(name, value != null ? value.toString() : null);
+    }
+}
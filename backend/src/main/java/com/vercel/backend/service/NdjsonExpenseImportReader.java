@@ -0,0 +1,68 @@
+package com.vercel.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.vercel.backend.entity.Expense;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * NDJSON（1行1経費のJSON）形式の一括登録リーダー
+ * 空行は読み飛ばす。オブジェクト以外（null・配列・数値など）の行は解析エラーとする
+ */
+public class NdjsonExpenseImportReader implements ExpenseImportReader {
+
+    /** 入力 */
+    private final BufferedReader reader;
+
+    /** 行をツリーとして読むJSONリーダー */
+    private final ObjectReader treeReader;
+
+    /** 経費用のJSONリーダー */
+    private final ObjectReader expenseReader;
+
+    /** 現在の行番号 */
+    private int line;
+
+    /**
+     * コンストラクタ
+     *
+     * @param reader 入力
+     * @param objectMapper JSONの解析に使用するObjectMapper
+     */
+    public NdjsonExpenseImportReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.treeReader = objectMapper.readerFor(JsonNode.class);
+        this.expenseReader = objectMapper.readerFor(Expense.class);
+    }
+
+    @Override
+    public ExpenseImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        try {
+            JsonNode node = treeReader.readTree(text);
+            if (node == null || !node.isObject()) {
+                return ExpenseImportRow.failed(line, "JSONの形式が不正です: 経費はオブジェクトで指定してください");
+            }
+            return ExpenseImportRow.of(line, expenseReader.readValue(node));
+        } catch (JsonProcessingException e) {
+            return ExpenseImportRow.failed(line, "JSONの形式が不正です: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.vercel.backend.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.jdbc.ConnectionLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * データベース接続の待ち行列があふれると見込まれる間、APIリクエストを処理前に拒否するフィルター
+ * コントローラーに入ってから接続待ちでタイムアウトさせるのではなく、
+ * 503と再試行までの推奨秒数（Retry-After）を即座に返す
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    /** 同時取得数の制限 */
+    private final ConnectionLimiter limiter;
+
+    /** JSON変換 */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * フィルターのコンストラクタ
+     *
+     * @param limiter 同時取得数の制限
+     * @param objectMapper JSON変換
+     */
+    public LoadSheddingFilter(ConnectionLimiter limiter, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!limiter.shouldShed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        limiter.recordShed();
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "アクセスが集中しています。しばらくしてから再度お試しください");
+        body.put("success", false);
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfter().toSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
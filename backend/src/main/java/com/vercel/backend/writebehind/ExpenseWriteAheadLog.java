@@ -0,0 +1,320 @@
+package com.vercel.backend.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.entity.Expense;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 経費登録の先行書き込みログ
+ * 登録する経費を1行1件のJSONでセグメントファイル（wal-00000000000000000001.log）に追記し、
+ * fsyncしてから呼び出し元に戻る。同時に追記したスレッドのfsyncは1回にまとめる（グループコミット）
+ * セグメントは segmentSize を超えると切り替え、全件がデータベースに登録されたセグメントから削除する
+ * 起動時に残っているセグメントの経費は、データベースへの登録が完了していない可能性があるため再登録の対象とする
+ * 仮想スレッドで追記してもキャリアスレッドを占有しないよう、synchronized ではなく ReentrantLock で排他する
+ */
+public class ExpenseWriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseWriteAheadLog.class);
+
+    /** セグメントファイル名 */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+
+    /** セグメントファイルを置くディレクトリ */
+    private final Path directory;
+
+    /** JSON変換 */
+    private final ObjectMapper objectMapper;
+
+    /** セグメントを切り替えるサイズ（バイト） */
+    private final long segmentSize;
+
+    /** 追記とセグメントの切り替え・削除を保護するロック */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** fsyncを1スレッドずつ行うロック */
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    /** セグメントごとのデータベースに未登録の件数（writeLock で保護） */
+    private final Map<Long, Integer> outstanding = new HashMap<>();
+
+    /** 追記中のセグメント番号（writeLock で保護） */
+    private long segment;
+
+    /** 追記中のセグメント（writeLock で保護） */
+    private FileChannel channel;
+
+    /** 追記中のセグメントのサイズ（writeLock で保護） */
+    private long segmentBytes;
+
+    /** 追記した件数の通番（writeLock で保護） */
+    private long written;
+
+    /** fsync済みの通番 */
+    private volatile long synced;
+
+    /**
+     * 先行書き込みログのコンストラクタ
+     *
+     * @param directory セグメントファイルを置くディレクトリ
+     * @param objectMapper JSON変換
+     * @param segmentSize セグメントを切り替えるサイズ（バイト）
+     */
+    public ExpenseWriteAheadLog(Path directory, ObjectMapper objectMapper, long segmentSize) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * 残っているセグメントから未登録の経費を読み込み、新しいセグメントへの追記を開始する
+     * fsync前に停止して途中までしか書き込まれていない行は、呼び出し元に応答していないため読み飛ばす
+     *
+     * @return 未登録の可能性がある経費（追記順）
+     * @throws IOException セグメントの読み込み・作成に失敗した場合
+     */
+    public List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+
+        List<Entry> recovered = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (Map.Entry<Long, Path> file : segments.entrySet()) {
+                int count = 0;
+                try (BufferedReader reader = Files.newBufferedReader(file.getValue(), StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            recovered.add(new Entry(file.getKey(), objectMapper.readValue(line, Expense.class)));
+                            count++;
+                        } catch (JsonProcessingException e) {
+                            log.warn("先行書き込みログの不完全な行を読み飛ばしました: {}", file.getValue().getFileName());
+                        }
+                    }
+                }
+                if (count > 0) {
+                    outstanding.put(file.getKey(), count);
+                } else {
+                    Files.delete(file.getValue());
+                }
+            }
+            segment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+            channel = openSegment(segment);
+        } finally {
+            writeLock.unlock();
+        }
+        return recovered;
+    }
+
+    /**
+     * 経費を追記し、fsyncが完了するまで待つ
+     *
+     * @param expense 経費
+     * @return 追記したセグメント番号（登録後に {@link #acknowledge} に渡す）
+     * @throws IOException 追記・fsyncに失敗した場合
+     */
+    public long append(Expense expense) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(expense) + "\n").getBytes(StandardCharsets.UTF_8);
+        long sequence;
+        long appended;
+        writeLock.lock();
+        try {
+            if (segmentBytes > 0 && segmentBytes + line.length > segmentSize) {
+                rotate();
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // 途中まで書き込んだ行に次の行が続かないよう、追記前の位置まで戻す
+                channel.truncate(segmentBytes);
+                throw e;
+            }
+            segmentBytes += line.length;
+            outstanding.merge(segment, 1, Integer::sum);
+            sequence = ++written;
+            appended = segment;
+        } finally {
+            writeLock.unlock();
+        }
+        sync(sequence);
+        return appended;
+    }
+
+    /**
+     * データベースに登録した件数を反映し、全件を登録済みのセグメントを削除する
+     * 削除に失敗したセグメントは次回起動時に再登録されるが、登録済みの経費は重複して登録されない
+     *
+     * @param segment セグメント番号
+     * @param count 登録した件数
+     */
+    public void acknowledge(long segment, int count) {
+        writeLock.lock();
+        try {
+            if (outstanding.merge(segment, -count, Integer::sum) <= 0) {
+                outstanding.remove(segment);
+                if (segment != this.segment) {
+                    delete(segment);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 追記中のセグメントを閉じる
+     * 全件を登録済みの場合はセグメントを削除し、未登録の経費が残っている場合は次回起動時に再登録する
+     *
+     * @throws IOException セグメントのクローズに失敗した場合
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            channel.close();
+            if (!outstanding.containsKey(segment)) {
+                delete(segment);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 指定した通番までをfsyncする
+     * fsyncの実行中に追記したスレッドは、次のfsyncでまとめて永続化される
+     *
+     * @param sequence 追記した通番
+     * @throws IOException fsyncに失敗した場合
+     */
+    private void sync(long sequence) throws IOException {
+        if (synced >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+            FileChannel target;
+            long upTo;
+            writeLock.lock();
+            try {
+                target = channel;
+                upTo = written;
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                target.force(false);
+            } catch (ClosedChannelException e) {
+                // セグメントの切り替え時にfsync済み
+            }
+            synced = upTo;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 追記中のセグメントをfsyncして閉じ、次のセグメントへの追記を開始する（writeLock の保持中に呼ぶ）
+     *
+     * @throws IOException セグメントの切り替えに失敗した場合
+     */
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        if (!outstanding.containsKey(segment)) {
+            delete(segment);
+        }
+        segment++;
+        channel = openSegment(segment);
+        segmentBytes = 0;
+    }
+
+    /**
+     * セグメントを作成し、ディレクトリのエントリも永続化する
+     *
+     * @param number セグメント番号
+     * @return セグメント
+     * @throws IOException セグメントの作成に失敗した場合
+     */
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel created = FileChannel.open(path(number),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // ディレクトリのfsyncに対応していないファイルシステム
+        }
+        return created;
+    }
+
+    /**
+     * セグメントを削除する
+     *
+     * @param number セグメント番号
+     */
+    private void delete(long number) {
+        try {
+            Files.deleteIfExists(path(number));
+        } catch (IOException e) {
+            log.warn("先行書き込みログのセグメントを削除できませんでした: {}", path(number), e);
+        }
+    }
+
+    /**
+     * セグメントファイルのパスを求める
+     *
+     * @param number セグメント番号
+     * @return パス
+     */
+    private Path path(long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+
+    /**
+     * 先行書き込みログから読み込んだ経費
+     *
+     * @param segment セグメント番号
+     * @param expense 経費
+     */
+    public record Entry(long segment, Expense expense) {
+    }
+}
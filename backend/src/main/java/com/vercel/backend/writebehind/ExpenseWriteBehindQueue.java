@@ -0,0 +1,526 @@
+package com.vercel.backend.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.backend.aggregate.ExpenseAggregator;
+import com.vercel.backend.cache.UserEvictableCache;
+import com.vercel.backend.config.CacheConfig;
+import com.vercel.backend.dao.ExpenseDao;
+import com.vercel.backend.entity.Expense;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 経費登録のライトビハインド
+ * 登録は {@link ExpenseWriteAheadLog} への追記（fsync）で確定させて応答し、
+ * バックグラウンドの1スレッドが待ち行列から最大 batch-size 件ずつ取り出して複数行INSERTでまとめて登録する
+ * <ul>
+ *   <li>待ち行列（未登録の件数）は capacity 件までとし、空きを offer-timeout 待っても得られない場合は
+ *       {@link WriteBehindUnavailableException} で拒否する（背圧）</li>
+ *   <li>接続エラーなどの一時的な失敗は retry-backoff ごとに再試行し、制約違反などの行は1行ずつ登録し直して特定し、破棄する</li>
+ *   <li>未登録の経費はメモリ上にも保持し、登録したユーザー自身の詳細・一覧の取得に反映する（read-your-writes）</li>
+ *   <li>停止時に登録できなかった経費は先行書き込みログに残り、次回起動時に重複を除いて再登録する</li>
+ * </ul>
+ * 未登録の経費の保持はノード内のみのため、複数ノード構成ではユーザーのリクエストを同じノードに振り分ける
+ * 未登録件数・登録件数・破棄件数・拒否件数は {@code expense.write-behind.*} に記録する
+ */
+@Component
+@ConditionalOnProperty(name = "expense.write-behind.enabled", havingValue = "true")
+public class ExpenseWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseWriteBehindQueue.class);
+
+    /** 未登録の経費の並び順（一覧と同じ作成日時・IDの降順） */
+    private static final Comparator<Expense> NEWEST_FIRST =
+        Comparator.comparing(Expense::getCreatedAt).thenComparing(Expense::getId).reversed();
+
+    @Autowired
+    private ExpenseDao expenseDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExpenseAggregator expenseAggregator;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 先行書き込みログのディレクトリ */
+    @Value("${expense.write-behind.directory:./data/expense-wal}")
+    private Path directory;
+
+    /** 先行書き込みログのセグメントを切り替えるサイズ */
+    @Value("${expense.write-behind.segment-size:16MB}")
+    private DataSize segmentSize;
+
+    /** 未登録の経費の上限件数 */
+    @Value("${expense.write-behind.capacity:10000}")
+    private int capacity;
+
+    /** 1回のINSERTにまとめる件数 */
+    @Value("${expense.write-behind.batch-size:500}")
+    private int batchSize;
+
+    /** 1件目を取り出してから後続の経費を待つ時間 */
+    @Value("${expense.write-behind.linger:PT0.02S}")
+    private Duration linger;
+
+    /** 待ち行列の空きを待つ時間の上限 */
+    @Value("${expense.write-behind.offer-timeout:PT1S}")
+    private Duration offerTimeout;
+
+    /** 更新・削除の前に未登録の経費の登録を待つ時間の上限 */
+    @Value("${expense.write-behind.await-timeout:PT10S}")
+    private Duration awaitTimeout;
+
+    /** 一時的な失敗の再試行間隔 */
+    @Value("${expense.write-behind.retry-backoff:PT1S}")
+    private Duration retryBackoff;
+
+    /** 停止時に未登録の経費の登録を待つ時間の上限 */
+    @Value("${expense.write-behind.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+
+    /** 先行書き込みログ */
+    private ExpenseWriteAheadLog writeAheadLog;
+
+    /** 待ち行列の空き */
+    private Semaphore permits;
+
+    /** 登録待ちの経費 */
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    /** 未登録の経費（ユーザーID → 経費ID → 経費） */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Pending>> pendingByUser = new ConcurrentHashMap<>();
+
+    /** 登録スレッド */
+    private Thread flusher;
+
+    /** 受け付け中かどうか */
+    private volatile boolean running;
+
+    /** まとめて登録した時間 */
+    private Timer flushTimer;
+
+    /** 登録した件数 */
+    private Counter flushed;
+
+    /** 破棄した件数 */
+    private Counter dropped;
+
+    /** 拒否した件数 */
+    private Counter rejected;
+
+    /**
+     * 先行書き込みログに残っている経費を待ち行列に戻し、登録スレッドを開始する
+     *
+     * @throws IOException 先行書き込みログを開けなかった場合
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        writeAheadLog = new ExpenseWriteAheadLog(directory, objectMapper, segmentSize.toBytes());
+        List<ExpenseWriteAheadLog.Entry> recovered = writeAheadLog.open();
+        // 再登録する経費は上限を超えても受け入れ、その分だけ新規の登録を待たせる
+        permits = new Semaphore(capacity - recovered.size());
+        for (ExpenseWriteAheadLog.Entry entry : recovered) {
+            enqueue(new Pending(entry.segment(), entry.expense(), false));
+        }
+        if (!recovered.isEmpty()) {
+            log.info("先行書き込みログから未登録の経費を再登録します: {}件", recovered.size());
+        }
+
+        flushTimer = Timer.builder("expense.write-behind.flush")
+            .description("未登録の経費をまとめて登録した時間")
+            .register(meterRegistry);
+        flushed = meterRegistry.counter("expense.write-behind.rows", "outcome", "flushed");
+        dropped = meterRegistry.counter("expense.write-behind.rows", "outcome", "dropped");
+        rejected = meterRegistry.counter("expense.write-behind.rejected");
+        Gauge.builder("expense.write-behind.pending", () -> capacity - permits.availablePermits())
+            .description("未登録の経費の件数")
+            .register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::run, "expense-write-behind");
+        flusher.start();
+    }
+
+    /**
+     * 新規の受け付けを止め、未登録の経費を shutdown-timeout まで登録してから停止する
+     * 登録できなかった経費は先行書き込みログに残り、次回起動時に再登録される
+     *
+     * @throws IOException 先行書き込みログのクローズに失敗した場合
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            log.warn("未登録の経費を先行書き込みログに残して停止します: {}件", queue.size());
+        }
+        writeAheadLog.close();
+    }
+
+    /**
+     * 経費を先行書き込みログに追記して登録を受け付ける
+     * 待ち行列に空きがない場合は offer-timeout まで待つ
+     *
+     * @param expense 経費（ID・作成日時・更新日時を設定済み）
+     * @throws WriteBehindUnavailableException 待ち行列に空きがない場合
+     * @throws UncheckedIOException 先行書き込みログへの追記に失敗した場合
+     */
+    public void submit(Expense expense) {
+        if (!running) {
+            throw unavailable("経費の登録を停止しています");
+        }
+        try {
+            if (!permits.tryAcquire(offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw unavailable("未登録の経費が上限に達しました: " + capacity);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unavailable("経費の登録の待機中に割り込まれました");
+        }
+
+        long segment;
+        try {
+            segment = writeAheadLog.append(expense);
+        } catch (IOException e) {
+            permits.release();
+            throw new UncheckedIOException("先行書き込みログへの追記に失敗しました", e);
+        }
+        enqueue(new Pending(segment, expense, true));
+    }
+
+    /**
+     * 未登録の経費を取得する
+     *
+     * @param userId ユーザーID
+     * @param expenseId 経費ID
+     * @return 未登録の経費（登録済み・存在しない場合は空）
+     */
+    public Optional<Expense> pending(String userId, String expenseId) {
+        Map<String, Pending> pending = pendingByUser.get(userId);
+        return Optional.ofNullable(pending != null ? pending.get(expenseId) : null).map(Pending::expense);
+    }
+
+    /**
+     * ユーザーの未登録の経費を作成日時の降順で取得する
+     *
+     * @param userId ユーザーID
+     * @return 未登録の経費
+     */
+    public List<Expense> pendingOf(String userId) {
+        Map<String, Pending> pending = pendingByUser.get(userId);
+        if (pending == null || pending.isEmpty()) {
+            return List.of();
+        }
+        List<Expense> expenses = new ArrayList<>(pending.size());
+        pending.values().forEach(entry -> expenses.add(entry.expense()));
+        expenses.sort(NEWEST_FIRST);
+        return expenses;
+    }
+
+    /**
+     * 未登録の経費の場合は、データベースへの登録（または破棄）を待つ
+     * 更新・削除の対象がデータベースに存在するようにするため、更新・削除の前に呼び出す
+     *
+     * @param userId ユーザーID
+     * @param expenseId 経費ID
+     * @throws WriteBehindUnavailableException await-timeout までに登録されなかった場合
+     */
+    public void awaitFlushed(String userId, String expenseId) {
+        Map<String, Pending> pending = pendingByUser.get(userId);
+        Pending entry = pending != null ? pending.get(expenseId) : null;
+        if (entry == null) {
+            return;
+        }
+        try {
+            entry.flushed().get(awaitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // 破棄された経費は存在しない経費として扱う
+        } catch (TimeoutException e) {
+            throw unavailable("経費の登録が完了していません: " + expenseId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw unavailable("経費の登録の待機中に割り込まれました");
+        }
+    }
+
+    /**
+     * 未登録の経費として保持し、待ち行列に追加する
+     *
+     * @param pending 未登録の経費
+     */
+    private void enqueue(Pending pending) {
+        Expense expense = pending.expense();
+        pendingByUser.computeIfAbsent(expense.getUserId(), key -> new ConcurrentHashMap<>()).put(expense.getId(), pending);
+        queue.add(pending);
+    }
+
+    /**
+     * 待ち行列から経費を取り出してまとめて登録する（登録スレッド）
+     * 停止後も待ち行列が空になるまで登録を続ける
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + linger.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 停止時の割り込み（未登録の経費は先行書き込みログに残る）
+        }
+    }
+
+    /**
+     * 経費をまとめて登録する
+     * 制約違反などで失敗した場合は1行ずつ登録し直し、失敗した行を破棄する
+     * 接続エラーなどの一時的な失敗は、登録できるまで retry-backoff ごとに再試行する
+     *
+     * @param batch 経費
+     * @throws InterruptedException 再試行の待機中に割り込まれた場合
+     */
+    private void flush(List<Pending> batch) throws InterruptedException {
+        List<Pending> remaining = new ArrayList<>(batch);
+        boolean rowByRow = false;
+        while (!remaining.isEmpty()) {
+            try {
+                if (!rowByRow) {
+                    insert(remaining);
+                    remaining.clear();
+                } else {
+                    Pending pending = remaining.get(0);
+                    try {
+                        insert(List.of(pending));
+                    } catch (RuntimeException e) {
+                        if (!isPermanent(e)) {
+                            throw e;
+                        }
+                        drop(pending, e);
+                    }
+                    remaining.remove(0);
+                }
+            } catch (RuntimeException e) {
+                if (!rowByRow && isPermanent(e)) {
+                    rowByRow = true;
+                    continue;
+                }
+                log.warn("未登録の経費の登録に失敗しました。{}後に再試行します: {}件, {}",
+                    retryBackoff, remaining.size(), e.getMessage());
+                Thread.sleep(retryBackoff.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 経費を1回の複数行INSERTで登録し、未登録の経費から取り除く
+     * 再登録の経費は、登録済みでなかった（実際に登録した）ものだけを集計に反映する
+     *
+     * @param batch 経費
+     */
+    private void insert(List<Pending> batch) {
+        List<Expense> expenses = new ArrayList<>(batch.size());
+        List<String> recoveredIds = new ArrayList<>();
+        for (Pending pending : batch) {
+            expenses.add(pending.expense());
+            if (!pending.counted()) {
+                recoveredIds.add(pending.expense().getId());
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        int[] counts = flushTimer.record(() -> transactionTemplate.execute(status -> {
+            if (!recoveredIds.isEmpty()) {
+                // reWriteBatchedInserts で書き換えたバッチは各行の件数が SUCCESS_NO_INFO となるため、登録前に確認しておく
+                existing.addAll(expenseDao.selectExistingIds(expenseDao.createIdArray(recoveredIds.toArray(String[]::new))));
+            }
+            return expenseDao.batchInsertIfAbsent(expenses);
+        }));
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (!pending.counted() && inserted(counts[i], pending.expense(), existing)) {
+                expenseAggregator.onCreated(pending.expense());
+            }
+        }
+        completed(batch, null);
+        flushed.increment(batch.size());
+    }
+
+    /**
+     * 経費をバッチ登録で実際に登録したかどうかを判定する
+     *
+     * @param count バッチ登録が返した行の件数
+     * @param expense 経費
+     * @param existing 登録前に登録済みだった経費ID
+     * @return 登録した場合はtrue（登録済みで読み飛ばした場合はfalse）
+     */
+    private static boolean inserted(int count, Expense expense, Set<String> existing) {
+        if (count == Statement.SUCCESS_NO_INFO) {
+            return !existing.contains(expense.getId());
+        }
+        return count > 0;
+    }
+
+    /**
+     * 登録できない経費を破棄する
+     *
+     * @param pending 経費
+     * @param cause 登録できなかった原因
+     */
+    private void drop(Pending pending, RuntimeException cause) {
+        Expense expense = pending.expense();
+        log.error("登録できない経費を破棄しました: id={}, userId={}", expense.getId(), expense.getUserId(), cause);
+        if (pending.counted()) {
+            expenseAggregator.onDeleted(expense);
+        }
+        Cache expenses = cacheManager.getCache(CacheConfig.EXPENSES);
+        if (expenses != null) {
+            expenses.evict(expense.getId() + "_" + expense.getUserId());
+        }
+        completed(List.of(pending), cause);
+        dropped.increment();
+    }
+
+    /**
+     * 登録・破棄した経費を先行書き込みログと未登録の経費から取り除き、待ち行列の空きを戻す
+     * 一覧のキャッシュには未登録の経費を含めているため、データベースから読み直すよう無効化する
+     *
+     * @param batch 経費
+     * @param cause 破棄した原因（登録した場合はnull）
+     */
+    private void completed(List<Pending> batch, RuntimeException cause) {
+        Map<Long, Integer> segments = new HashMap<>();
+        Set<String> users = new HashSet<>();
+        for (Pending pending : batch) {
+            Expense expense = pending.expense();
+            segments.merge(pending.segment(), 1, Integer::sum);
+            users.add(expense.getUserId());
+            pendingByUser.computeIfPresent(expense.getUserId(), (userId, pendings) -> {
+                pendings.remove(expense.getId());
+                return pendings.isEmpty() ? null : pendings;
+            });
+            if (cause == null) {
+                pending.flushed().complete(null);
+            } else {
+                pending.flushed().completeExceptionally(cause);
+            }
+        }
+        segments.forEach(writeAheadLog::acknowledge);
+        permits.release(batch.size());
+
+        Cache cache = cacheManager.getCache(CacheConfig.EXPENSE_LIST);
+        if (cache instanceof UserEvictableCache userEvictableCache) {
+            users.forEach(userEvictableCache::evictUser);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 再試行しても成功しない失敗（データ例外・制約違反）かどうかを判定する
+     *
+     * @param e 例外
+     * @return 再試行しても成功しない場合はtrue
+     */
+    private static boolean isPermanent(Throwable e) {
+        for (Throwable cause = e; cause != null && cause.getCause() != cause; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String sqlState = sqlException.getSQLState();
+                return sqlState.startsWith("22") || sqlState.startsWith("23");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拒否を記録し、例外を作成する
+     *
+     * @param message メッセージ
+     * @return 例外
+     */
+    private WriteBehindUnavailableException unavailable(String message) {
+        rejected.increment();
+        return new WriteBehindUnavailableException(message, Duration.ofSeconds(Math.max(1, offerTimeout.toSeconds())));
+    }
+
+    /**
+     * 未登録の経費
+     *
+     * @param segment 先行書き込みログのセグメント番号
+     * @param expense 経費
+     * @param counted 受け付け時に集計に反映したかどうか（再登録の場合はfalse）
+     * @param flushed 登録の完了（破棄した場合は例外で完了する）
+     */
+    private record Pending(long segment, Expense expense, boolean counted, CompletableFuture<Void> flushed) {
+
+        Pending(long segment, Expense expense, boolean counted) {
+            this(segment, expense, counted, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.vercel.backend.writebehind;
+
+import java.time.Duration;
+
+/**
+ * ライトビハインドの待ち行列が上限に達している間に経費を登録しようとした場合、
+ * または未登録の経費のデータベースへの登録を待ちきれなかった場合の例外
+ * 呼び出し側は503と再試行までの推奨秒数（Retry-After）を返す
+ */
+public class WriteBehindUnavailableException extends RuntimeException {
+
+    /** 再試行までの推奨時間 */
+    private final Duration retryAfter;
+
+    /**
+     * 例外のコンストラクタ
+     *
+     * @param message メッセージ
+     * @param retryAfter 再試行までの推奨時間
+     */
+    public WriteBehindUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 再試行までの推奨時間を取得する
+     *
+     * @return 再試行までの推奨時間
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1 @@
+DELETE FROM expenses WHERE id = /* expenses.id */'exp_0' AND user_id = /* expenses.userId */'user_0'
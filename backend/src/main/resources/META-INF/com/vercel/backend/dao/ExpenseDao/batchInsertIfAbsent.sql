@@ -0,0 +1,7 @@
+INSERT INTO expenses (id, project_id, user_id, category, description, amount, expense_date,
+                      receipt_url, status, created_at, updated_at)
+VALUES (/* expenses.id */'exp_0', /* expenses.projectId */'proj_0', /* expenses.userId */'user_0',
+        /* expenses.category */'category', /* expenses.description */'description', /* expenses.amount */0,
+        /* expenses.expenseDate */'2024-01-01 00:00:00', /* expenses.receiptUrl */'url', /* expenses.status */'status',
+        /* expenses.createdAt */'2024-01-01 00:00:00', /* expenses.updatedAt */'2024-01-01 00:00:00')
+ON CONFLICT DO NOTHING
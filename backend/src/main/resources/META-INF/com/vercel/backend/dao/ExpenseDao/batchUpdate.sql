@@ -0,0 +1,6 @@
+UPDATE expenses
+SET project_id = /* expenses.projectId */'proj_0', category = /* expenses.category */'category',
+    description = /* expenses.description */'description', amount = /* expenses.amount */0,
+    expense_date = /* expenses.expenseDate */'2024-01-01 00:00:00', receipt_url = /* expenses.receiptUrl */'url',
+    status = /* expenses.status */'status', updated_at = /* expenses.updatedAt */'2024-01-01 00:00:00'
+WHERE id = /* expenses.id */'exp_0' AND user_id = /* expenses.userId */'user_0'
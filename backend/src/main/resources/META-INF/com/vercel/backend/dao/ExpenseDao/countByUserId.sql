@@ -0,0 +1,8 @@
+SELECT COUNT(*) FROM expenses e
+WHERE e.user_id = /* userId */'user_0'
+/*%if expenseDateFrom != null */
+  AND e.expense_date >= /* expenseDateFrom */'2024-01-01 00:00:00'
+/*%end*/
+/*%if expenseDateTo != null */
+  AND e.expense_date < /* expenseDateTo */'2024-02-01 00:00:00'
+/*%end*/
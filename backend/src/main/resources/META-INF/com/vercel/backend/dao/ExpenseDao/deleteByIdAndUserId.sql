@@ -0,0 +1 @@
+DELETE FROM expenses WHERE id = /* id */'exp_0' AND user_id = /* userId */'user_0'
@@ -0,0 +1,21 @@
+SELECT
+    e.id, e.project_id, e.user_id, e.category, e.description,
+    e.amount, e.expense_date, e.receipt_url, e.status,
+    e.created_at, e.updated_at,
+    p.name AS project_name, p.client_name, p.status AS project_status,
+    u.name AS user_name, u.email AS user_email
+FROM expenses e
+LEFT JOIN projects p ON e.project_id = p.id
+LEFT JOIN users u ON e.user_id = u.id
+WHERE e.user_id = /* userId */'user_0'
+/*%if expenseDateFrom != null */
+  AND e.expense_date >= /* expenseDateFrom */'2024-01-01 00:00:00'
+/*%end*/
+/*%if expenseDateTo != null */
+  AND e.expense_date < /* expenseDateTo */'2024-02-01 00:00:00'
+/*%end*/
+/*%if afterCreatedAt != null */
+  AND (e.created_at, e.id) < (/* afterCreatedAt */'2024-01-01 00:00:00', /* afterId */'exp_0')
+/*%end*/
+ORDER BY e.created_at DESC, e.id DESC
+LIMIT /* limit */20
@@ -0,0 +1,3 @@
+SELECT id
+FROM expenses
+WHERE id = ANY(/* ids */'{exp_0}')
@@ -0,0 +1,19 @@
+SELECT
+    e.id, e.project_id, e.user_id, e.category, e.description,
+    e.amount, e.expense_date, e.receipt_url, e.status,
+    e.created_at, e.updated_at
+FROM expenses e
+WHERE
+/*%if userId != null */
+    e.user_id = /* userId */'user_0'
+/*%end*/
+/*%if projectId != null */
+    AND e.project_id = /* projectId */'proj_0'
+/*%end*/
+/*%if expenseDateFrom != null */
+    AND e.expense_date >= /* expenseDateFrom */'2024-01-01 00:00:00'
+/*%end*/
+/*%if expenseDateTo != null */
+    AND e.expense_date < /* expenseDateTo */'2024-02-01 00:00:00'
+/*%end*/
+ORDER BY e.created_at, e.id
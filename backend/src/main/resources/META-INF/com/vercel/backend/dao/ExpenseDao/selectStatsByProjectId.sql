@@ -0,0 +1,6 @@
+SELECT
+    project_id AS group_key, NULL AS category,
+    COUNT(*) AS expense_count, SUM(amount) AS total_amount, MAX(created_at) AS last_expense_date
+FROM expenses
+WHERE project_id = /* projectId */'proj_0'
+GROUP BY project_id
@@ -0,0 +1,5 @@
+SELECT
+    user_id AS group_key, category,
+    COUNT(*) AS expense_count, SUM(amount) AS total_amount, MAX(created_at) AS last_expense_date
+FROM expenses
+GROUP BY user_id, category
@@ -0,0 +1,6 @@
+SELECT
+    user_id AS group_key, category,
+    COUNT(*) AS expense_count, SUM(amount) AS total_amount, MAX(created_at) AS last_expense_date
+FROM expenses
+WHERE user_id = /* userId */'user_0'
+GROUP BY user_id, category
@@ -0,0 +1,6 @@
+UPDATE expenses
+SET project_id = /* expense.projectId */'proj_0', category = /* expense.category */'category',
+    description = /* expense.description */'description', amount = /* expense.amount */0,
+    expense_date = /* expense.expenseDate */'2024-01-01 00:00:00', receipt_url = /* expense.receiptUrl */'url',
+    status = /* expense.status */'status', updated_at = /* expense.updatedAt */'2024-01-01 00:00:00'
+WHERE id = /* expense.id */'exp_0' AND user_id = /* expense.userId */'user_0'
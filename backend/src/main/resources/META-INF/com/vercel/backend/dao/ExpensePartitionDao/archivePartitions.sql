@@ -0,0 +1 @@
+SELECT archive_expense_partitions(/* before */'2024-01-01', /* archiveSchema */'archive')
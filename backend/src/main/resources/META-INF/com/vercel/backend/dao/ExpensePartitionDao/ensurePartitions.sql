@@ -0,0 +1 @@
+SELECT ensure_expense_partitions(/* from */'2024-01-01', /* months */3)
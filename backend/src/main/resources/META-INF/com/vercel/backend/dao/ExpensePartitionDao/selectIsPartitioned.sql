@@ -0,0 +1,3 @@
+SELECT EXISTS (
+    SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('expenses')
+)
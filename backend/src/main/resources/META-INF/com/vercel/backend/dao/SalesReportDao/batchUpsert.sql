@@ -0,0 +1,8 @@
+INSERT INTO sales_reports (month, year, total_sales, total_expenses, net_profit, created_at, updated_at)
+VALUES (/* reports.month */1, /* reports.year */2024, /* reports.totalSales */0, /* reports.totalExpenses */0,
+        /* reports.netProfit */0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+ON CONFLICT (month, year) DO UPDATE
+SET total_sales = EXCLUDED.total_sales,
+    total_expenses = EXCLUDED.total_expenses,
+    net_profit = EXCLUDED.net_profit,
+    updated_at = EXCLUDED.updated_at
@@ -0,0 +1,13 @@
+SELECT
+    /* year */2024 AS year,
+    /* month */1 AS month,
+    sales.total AS total_sales,
+    spent.total AS total_expenses,
+    sales.total - spent.total AS net_profit
+FROM
+    (SELECT COALESCE(SUM(amount), 0) AS total
+       FROM invoices
+      WHERE issue_date >= /* from */'2024-01-01 00:00:00' AND issue_date < /* to */'2024-02-01 00:00:00') sales,
+    (SELECT COALESCE(SUM(amount), 0) AS total
+       FROM expenses
+      WHERE expense_date >= /* from */'2024-01-01 00:00:00' AND expense_date < /* to */'2024-02-01 00:00:00') spent
@@ -0,0 +1 @@
+SELECT GREATEST((SELECT MAX(updated_at) FROM invoices), (SELECT MAX(updated_at) FROM expenses))
@@ -0,0 +1,12 @@
+SELECT year, month FROM (
+    SELECT CAST(EXTRACT(YEAR FROM issue_date) AS INTEGER) AS year,
+           CAST(EXTRACT(MONTH FROM issue_date) AS INTEGER) AS month
+      FROM invoices
+     WHERE /*%if since != null */updated_at > /* since */'2024-01-01 00:00:00'/*%end*/
+    UNION
+    SELECT CAST(EXTRACT(YEAR FROM expense_date) AS INTEGER) AS year,
+           CAST(EXTRACT(MONTH FROM expense_date) AS INTEGER) AS month
+      FROM expenses
+     WHERE /*%if since != null */updated_at > /* since */'2024-01-01 00:00:00'/*%end*/
+) touched
+ORDER BY year, month
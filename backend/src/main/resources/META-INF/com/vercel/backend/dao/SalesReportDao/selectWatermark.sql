@@ -0,0 +1 @@
+SELECT watermark FROM batch_watermarks WHERE job = /* job */'sales_reports'
@@ -0,0 +1,5 @@
+INSERT INTO batch_watermarks (job, watermark, updated_at)
+VALUES (/* job */'sales_reports', /* watermark */'2024-01-01 00:00:00', CURRENT_TIMESTAMP)
+ON CONFLICT (job) DO UPDATE
+SET watermark = EXCLUDED.watermark,
+    updated_at = EXCLUDED.updated_at
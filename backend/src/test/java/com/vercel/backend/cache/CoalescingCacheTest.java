@@ -0,0 +1,72 @@
+package com.vercel.backend.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link CoalescingCache} のテスト
+ */
+class CoalescingCacheTest {
+
+    private CoalescingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        SingleFlight singleFlight = new SingleFlight();
+        ReflectionTestUtils.setField(singleFlight, "meterRegistry", new SimpleMeterRegistry());
+        cache = new CoalescingCache(new ConcurrentMapCache("expenseList"), singleFlight);
+    }
+
+    /**
+     * 読み込んだ値を格納する
+     */
+    @Test
+    void storesLoadedValue() {
+        UserCacheKey key = new UserCacheKey("u_1", "list");
+
+        assertThat(cache.get(key, () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get(key).get()).isEqualTo("loaded");
+    }
+
+    /**
+     * 読み込み中にユーザーのエントリが削除された場合は、読み込んだ古い値を返すが格納しない
+     */
+    @Test
+    void skipsPutWhenUserIsEvictedDuringLoad() {
+        UserCacheKey key = new UserCacheKey("u_1", "list");
+
+        Object value = cache.get(key, () -> {
+            cache.evictUser("u_1");
+            return "stale";
+        });
+
+        assertThat(value).isEqualTo("stale");
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.get(key, () -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.get(key).get()).isEqualTo("fresh");
+    }
+
+    /**
+     * 読み込み中にキーが削除された場合・キャッシュ全体がクリアされた場合も格納しない
+     */
+    @Test
+    void skipsPutWhenKeyIsEvictedOrCacheIsClearedDuringLoad() {
+        cache.get("exp_1_u_1", () -> {
+            cache.evict("exp_1_u_1");
+            return "stale";
+        });
+        UserCacheKey key = new UserCacheKey("u_1", "list");
+        cache.get(key, () -> {
+            cache.clear();
+            return "stale";
+        });
+
+        assertThat(cache.get("exp_1_u_1")).isNull();
+        assertThat(cache.get(key)).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package com.vercel.backend.id;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ID生成器のテストで共通の検証
+ */
+final class IdGeneratorAssertions {
+
+    private IdGeneratorAssertions() {
+    }
+
+    /**
+     * 複数スレッドから同時にIDを生成し、全体で重複がなく、スレッドごとに文字列として単調増加することを検証する
+     *
+     * @param generator ID生成器
+     * @param threads スレッド数
+     * @param idsPerThread 1スレッドあたりの生成件数
+     * @throws Exception スレッドの実行に失敗した場合
+     */
+    static void assertUniqueAndMonotonicPerThread(IdGenerator generator, int threads, int idsPerThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> ids = new ArrayList<>(idsPerThread);
+                    start.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                List<String> ids = future.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+                }
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(threads * idsPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.vercel.backend.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * テスト用の時計
+ * 任意の時刻に進めたり戻したりできる
+ */
+class MutableClock extends Clock {
+
+    /** 現在時刻（ミリ秒） */
+    private volatile long millis;
+
+    /**
+     * テスト用の時計のコンストラクタ
+     *
+     * @param millis 開始時刻（ミリ秒）
+     */
+    MutableClock(long millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * 時刻を設定する
+     *
+     * @param millis 時刻（ミリ秒）
+     */
+    void set(long millis) {
+        this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+}
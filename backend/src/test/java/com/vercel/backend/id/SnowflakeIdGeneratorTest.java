@@ -0,0 +1,103 @@
+package com.vercel.backend.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link SnowflakeIdGenerator} のテスト
+ */
+class SnowflakeIdGeneratorTest {
+
+    /** 2024-01-01T00:00:01Z */
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000;
+
+    /**
+     * 13文字のCrockford Base32で、経過ミリ秒・ノードID・連番の順に並ぶ
+     */
+    @Test
+    void encodesTimestampNodeAndSequence() {
+        String id = new SnowflakeIdGenerator(5, new MutableClock(NOW)).nextId();
+
+        assertThat(id).hasSize(13).isEqualTo(CrockfordBase32.encode(0L, 1_000L << 22 | 5L << 12, 13));
+    }
+
+    /**
+     * ノードIDが範囲外の場合は作成できない
+     */
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 複数スレッドから同時に生成しても重複せず、スレッドごとに単調増加する
+     */
+    @Test
+    void generatesUniqueAndMonotonicIdsAcrossThreads() throws Exception {
+        IdGeneratorAssertions.assertUniqueAndMonotonicPerThread(new SnowflakeIdGenerator(1), 8, 20_000);
+    }
+
+    /**
+     * ノードIDが異なる生成器同士では、同じ時刻でも重複しない
+     */
+    @Test
+    void generatesDistinctIdsForDistinctNodes() {
+        MutableClock clock = new MutableClock(NOW);
+        List<String> ids = new ArrayList<>();
+        ids.addAll(generate(new SnowflakeIdGenerator(1, clock), 1_000));
+        ids.addAll(generate(new SnowflakeIdGenerator(2, clock), 1_000));
+
+        assertThat(ids).doesNotHaveDuplicates();
+    }
+
+    /**
+     * ミリ秒内の連番（4096件）を使い切っても、時刻を進めて単調増加する
+     */
+    @Test
+    void staysMonotonicWhenSequenceOverflows() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, new MutableClock(NOW));
+
+        assertThat(generate(generator, 10_000)).isSorted().doesNotHaveDuplicates();
+    }
+
+    /**
+     * 時計が戻っても、直前のIDより大きいIDを発行し、時計が追いつくまで連番を進める
+     */
+    @Test
+    void staysMonotonicWhenClockMovesBackwards() {
+        MutableClock clock = new MutableClock(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock);
+        List<String> ids = new ArrayList<>(generate(generator, 10));
+
+        clock.set(NOW - 5_000);
+        ids.addAll(generate(generator, 10));
+        clock.set(NOW + 1);
+        ids.addAll(generate(generator, 10));
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids.get(ids.size() - 10))
+            .isEqualTo(CrockfordBase32.encode(0L, 1_001L << 22 | 1L << 12, 13));
+    }
+
+    /**
+     * count 件生成する
+     *
+     * @param generator ID生成器
+     * @param count 生成件数
+     * @return 生成したID（生成順）
+     */
+    private static List<String> generate(IdGenerator generator, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generator.nextId());
+        }
+        return ids;
+    }
+}
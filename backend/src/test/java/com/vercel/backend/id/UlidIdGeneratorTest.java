@@ -0,0 +1,76 @@
+package com.vercel.backend.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link UlidIdGenerator} のテスト
+ */
+class UlidIdGeneratorTest {
+
+    /** 2024-01-01T00:00:00Z */
+    private static final long NOW = SnowflakeIdGenerator.EPOCH;
+
+    /**
+     * 26文字のCrockford Base32で、先頭10文字がミリ秒時刻となる
+     */
+    @Test
+    void encodesTimestampInFirstTenCharacters() {
+        String id = new UlidIdGenerator(new MutableClock(NOW)).nextId();
+
+        assertThat(id).hasSize(26).matches("[0-9A-HJKMNP-TV-Z]{26}");
+        assertThat(id.substring(0, 10)).isEqualTo(CrockfordBase32.encode(0L, NOW, 10));
+    }
+
+    /**
+     * 複数スレッドから同時に生成しても重複せず、スレッドごとに単調増加する
+     */
+    @Test
+    void generatesUniqueAndMonotonicIdsAcrossThreads() throws Exception {
+        IdGeneratorAssertions.assertUniqueAndMonotonicPerThread(new UlidIdGenerator(), 8, 20_000);
+    }
+
+    /**
+     * 時計が止まっていても、ミリ秒内の連番を使い切った後も単調増加する
+     */
+    @Test
+    void staysMonotonicWithinSameMillisecond() {
+        UlidIdGenerator generator = new UlidIdGenerator(new MutableClock(NOW));
+
+        assertMonotonic(generator, 100_000);
+    }
+
+    /**
+     * 時計が戻っても、直前のIDより大きいIDを発行する
+     */
+    @Test
+    void staysMonotonicWhenClockMovesBackwards() {
+        MutableClock clock = new MutableClock(NOW);
+        UlidIdGenerator generator = new UlidIdGenerator(clock);
+        String before = generator.nextId();
+
+        clock.set(NOW - 5_000);
+        String after = generator.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertMonotonic(generator, 1_000);
+    }
+
+    /**
+     * count 件生成し、文字列として単調増加することを検証する
+     *
+     * @param generator ID生成器
+     * @param count 生成件数
+     */
+    private static void assertMonotonic(IdGenerator generator, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(generator.nextId());
+        }
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,89 @@
+package com.vercel.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link NdjsonExpenseImportReader} のテスト
+ */
+class NdjsonExpenseImportReaderTest {
+
+    /**
+     * 空行を読み飛ばし、行番号は入力の行に合わせる
+     */
+    @Test
+    void skipsBlankLines() throws IOException {
+        List<ExpenseImportRow> rows = readAll("""
+            {"category":"交通費","amount":1200}
+
+            {"category":"会議費","amount":3000}
+            """);
+
+        assertThat(rows).extracting(ExpenseImportRow::line).containsExactly(1, 3);
+        assertThat(rows).extracting(row -> row.expense().getCategory()).containsExactly("交通費", "会議費");
+        assertThat(rows.get(1).expense().getAmount()).isEqualByComparingTo(new BigDecimal("3000"));
+    }
+
+    /**
+     * null の行は経費を null とせず、解析エラーの行とする
+     */
+    @Test
+    void failsNullLine() throws IOException {
+        List<ExpenseImportRow> rows = readAll("""
+            null
+            {"category":"交通費","amount":1200}
+            """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).line()).isEqualTo(1);
+        assertThat(rows.get(0).expense()).isNull();
+        assertThat(rows.get(0).error()).isNotNull();
+        assertThat(rows.get(1).expense().getCategory()).isEqualTo("交通費");
+    }
+
+    /**
+     * オブジェクト以外（配列・数値・文字列）の行と、JSONとして不正な行は解析エラーの行とする
+     */
+    @Test
+    void failsNonObjectAndMalformedLines() throws IOException {
+        List<ExpenseImportRow> rows = readAll("""
+            [{"category":"交通費"}]
+            123
+            "交通費"
+            {"category":
+            """);
+
+        assertThat(rows).extracting(ExpenseImportRow::line).containsExactly(1, 2, 3, 4);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.expense()).isNull();
+            assertThat(row.error()).startsWith("JSONの形式が不正です");
+        });
+    }
+
+    /**
+     * 入力をすべて読み込む
+     *
+     * @param ndjson NDJSON形式の入力
+     * @return 読み込み結果
+     */
+    private static List<ExpenseImportRow> readAll(String ndjson) throws IOException {
+        List<ExpenseImportRow> rows = new ArrayList<>();
+        try (NdjsonExpenseImportReader reader =
+                 new NdjsonExpenseImportReader(new BufferedReader(new StringReader(ndjson)), new ObjectMapper())) {
+            ExpenseImportRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -10,6 +10,8 @@ CREATE INDEX IF NOT EXISTS idx_expenses_status ON expenses(status);
 
 -- 複合インデックス（よく使われるクエリパターン用）
 CREATE INDEX IF NOT EXISTS idx_expenses_user_created ON expenses(user_id, created_at DESC);
+-- キーセットページネーション用（created_atが同値の行をidで一意に並べる）
+CREATE INDEX IF NOT EXISTS idx_expenses_user_created_id ON expenses(user_id, created_at DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_expenses_user_category ON expenses(user_id, category);
 CREATE INDEX IF NOT EXISTS idx_expenses_project_created ON expenses(project_id, created_at DESC);
 
@@ -29,6 +31,9 @@ CREATE INDEX IF NOT EXISTS idx_invoices_project_id ON invoices(project_id);
 CREATE INDEX IF NOT EXISTS idx_invoices_status ON invoices(status);
 CREATE INDEX IF NOT EXISTS idx_invoices_due_date ON invoices(due_date);
 CREATE INDEX IF NOT EXISTS idx_invoices_issue_date ON invoices(issue_date);
+-- 売上レポートの差分作成用（ウォーターマーク以降に更新された行の検索）
+CREATE INDEX IF NOT EXISTS idx_invoices_updated_at ON invoices(updated_at);
+CREATE INDEX IF NOT EXISTS idx_expenses_updated_at ON expenses(updated_at);
 
 -- 売上レポートテーブルのインデックス
 CREATE INDEX IF NOT EXISTS idx_sales_reports_month_year ON sales_reports(month, year);
@@ -53,6 +58,8 @@ SELECT
 FROM expenses;
 
 -- よく使われるクエリのためのマテリアライズドビュー（PostgreSQL 9.3+）
+-- ※ バックエンドのユーザー別集計は ExpenseAggregator がメモリ上で差分更新するため、
+--   このビューの更新（refresh_user_expense_summary）には依存しない
 CREATE MATERIALIZED VIEW IF NOT EXISTS user_expense_summary AS
 SELECT 
     u.id as user_id,
@@ -77,9 +84,8 @@ END;
 $$ LANGUAGE plpgsql;
 
 -- パーティショニング（大量データの場合）
--- 経費テーブルを月単位でパーティション化
--- CREATE TABLE expenses_y2024m01 PARTITION OF expenses
--- FOR VALUES FROM ('2024-01-01') TO ('2024-02-01');
+-- 経費テーブルを月単位でパーティション化する手順は 05-expense-partitions.sql を参照
+-- （CALL partition_expenses_by_month(3); で既存データを移行する）
 
 -- 接続プール設定の確認
 -- SHOW max_connections;
@@ -0,0 +1,7 @@
+-- バッチ処理のウォーターマーク（前回処理時点の元データの最新の更新日時）
+-- 売上レポート（sales_reports）の差分作成で使用する
+CREATE TABLE IF NOT EXISTS batch_watermarks (
+    job TEXT PRIMARY KEY,
+    watermark TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
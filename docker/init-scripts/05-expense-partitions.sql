@@ -0,0 +1,175 @@
+-- 経費テーブルの月単位のパーティショニング（expense_date による範囲パーティション）
+-- パーティション名は expenses_yYYYYmMM（例: expenses_y2024m01）、どの月にも入らない行は expenses_default に入る
+-- このスクリプトは関数・プロシージャの定義のみで、既存の経費テーブルは変更しない
+--
+-- 既存データの移行は、メンテナンス時間帯にアプリケーションを停止してトランザクションの外で実行する:
+--   CALL partition_expenses_by_month(3);
+-- 移行後の将来月のパーティションの作成と保存期間を過ぎたパーティションの切り離しは、
+-- バックエンドの ExpensePartitionManager（expense.partition.*）が定期的に実行する
+-- 経費一覧・エクスポートのAPIは from/to（expense_date の範囲）を指定するとパーティションの枝刈りが効く
+
+-- 切り離したパーティションの移動先
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- p_from の月から p_months か月分のパーティションを作成する（作成済みの月は何もしない）
+-- 既定パーティションに該当月の行がある場合は作成に失敗するため、行が入る前の将来月を作成しておく
+-- 戻り値は新たに作成したパーティションの数
+CREATE OR REPLACE FUNCTION ensure_expense_partitions(p_from DATE, p_months INTEGER, p_parent TEXT DEFAULT 'expenses')
+RETURNS INTEGER AS $$
+DECLARE
+    v_month DATE := date_trunc('month', p_from)::date;
+    v_name TEXT;
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 1 .. p_months LOOP
+        v_name := 'expenses_y' || to_char(v_month, 'YYYY') || 'm' || to_char(v_month, 'MM');
+        IF to_regclass(v_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                v_name, p_parent, v_month, (v_month + INTERVAL '1 month')::date);
+            v_created := v_created + 1;
+        END IF;
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- p_before の月より前の月のパーティションを経費テーブルから切り離し、p_schema に移動する
+-- 切り離したパーティションの名前を返す（バックアップ後に削除するか、そのまま保管する）
+-- 既定パーティションがある場合は DETACH ... CONCURRENTLY を使えないため、親テーブルのロックは lock_timeout で打ち切る
+CREATE OR REPLACE FUNCTION archive_expense_partitions(p_before DATE, p_schema TEXT DEFAULT 'archive')
+RETURNS SETOF TEXT AS $$
+DECLARE
+    v_name TEXT;
+BEGIN
+    SET LOCAL lock_timeout = '5s';
+    FOR v_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'expenses'::regclass
+          AND c.relname ~ '^expenses_y[0-9]{4}m[0-9]{2}$'
+          AND to_date(substr(c.relname, 11, 4) || substr(c.relname, 16, 2), 'YYYYMM') < date_trunc('month', p_before)
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE expenses DETACH PARTITION %I', v_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA %I', v_name, p_schema);
+        RETURN NEXT v_name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 既存の経費テーブルを月単位のパーティションテーブルに移行する
+-- 1. 同じ列・既定値・制約の expenses_partitioned を作成し、最古の月から当月 + p_months_ahead か月までのパーティションを作成する
+-- 2. 1か月分ずつコピーしてコミットする（1トランザクションのWAL・ロックを1か月分に抑える）
+-- 3. 元のテーブルを expenses_legacy に、新しいテーブルを expenses に名前を変更し、
+--    インデックス・外部キー・依存するビュー（マテリアライズドビューを含む）を作り直す
+-- 主キーはパーティションキーを含める必要があるため (id, expense_date) となる
+-- 移行中に書き込まれた行はコピーされないため、アプリケーションを停止して実行する
+-- 確認後、元のテーブルは DROP TABLE expenses_legacy で削除する
+CREATE OR REPLACE PROCEDURE partition_expenses_by_month(p_months_ahead INTEGER DEFAULT 3)
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_current DATE := date_trunc('month', CURRENT_DATE)::date;
+    v_first DATE;
+    v_last DATE;
+    v_month DATE;
+    v_statement TEXT;
+    v_index TEXT;
+    v_drops TEXT[] := '{}';
+    v_creates TEXT[] := '{}';
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'expenses'::regclass) THEN
+        RAISE NOTICE 'expenses は既にパーティションテーブルです';
+        RETURN;
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_constraint WHERE confrelid = 'expenses'::regclass) THEN
+        RAISE EXCEPTION 'expenses を参照する外部キーがあるため移行できません（主キーが (id, expense_date) になるため）';
+    END IF;
+    IF EXISTS (SELECT 1 FROM expenses WHERE expense_date IS NULL) THEN
+        RAISE EXCEPTION 'expense_date がNULLの経費があるため移行できません';
+    END IF;
+
+    -- 1. パーティションテーブルと月ごとのパーティションを作成する
+    SELECT LEAST(COALESCE(date_trunc('month', MIN(expense_date))::date, v_current), v_current)
+    INTO v_first
+    FROM expenses;
+    v_last := (v_current + make_interval(months => p_months_ahead))::date;
+
+    CREATE TABLE expenses_partitioned (
+        LIKE expenses INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE INCLUDING COMMENTS
+    ) PARTITION BY RANGE (expense_date);
+    ALTER TABLE expenses_partitioned ADD PRIMARY KEY (id, expense_date);
+    PERFORM ensure_expense_partitions(v_first,
+        ((extract(year FROM age(v_last, v_first)) * 12 + extract(month FROM age(v_last, v_first)))::integer + 1),
+        'expenses_partitioned');
+    CREATE TABLE expenses_default PARTITION OF expenses_partitioned DEFAULT;
+    COMMIT;
+
+    -- 2. 1か月分ずつコピーする（当月 + p_months_ahead か月より後の行は既定パーティションに入る）
+    v_month := v_first;
+    WHILE v_month <= v_last LOOP
+        INSERT INTO expenses_partitioned
+        SELECT * FROM expenses
+        WHERE expense_date >= v_month AND expense_date < v_month + INTERVAL '1 month';
+        COMMIT;
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+    INSERT INTO expenses_partitioned
+    SELECT * FROM expenses
+    WHERE expense_date >= v_month;
+    COMMIT;
+
+    -- 3. 名前の変更前に、作り直すオブジェクトの定義を取得する
+    -- 主キー・一意インデックス以外のインデックス（パーティションごとに作成される）
+    FOR v_index, v_statement IN
+        SELECT c.relname, pg_get_indexdef(i.indexrelid)
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = 'expenses'::regclass AND NOT i.indisunique
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', v_index, left(v_index, 56) || '_legacy');
+        v_creates := v_creates || v_statement;
+    END LOOP;
+    -- 外部キー（users・projects への参照）
+    FOR v_statement IN
+        SELECT format('ALTER TABLE expenses ADD CONSTRAINT %I %s', conname, pg_get_constraintdef(oid))
+        FROM pg_constraint
+        WHERE conrelid = 'expenses'::regclass AND contype = 'f'
+    LOOP
+        v_creates := v_creates || v_statement;
+    END LOOP;
+    -- 経費テーブルを参照するビュー・マテリアライズドビュー（expense_performance_stats・user_expense_summary）
+    -- ビューは CREATE OR REPLACE で参照先を差し替え、マテリアライズドビューは削除してインデックスごと作り直す
+    FOR v_statement, v_index IN
+        SELECT DISTINCT
+            format(CASE c.relkind WHEN 'm' THEN 'CREATE MATERIALIZED VIEW %I.%I AS %s' ELSE 'CREATE OR REPLACE VIEW %I.%I AS %s' END,
+                n.nspname, c.relname, rtrim(pg_get_viewdef(c.oid), '; ')),
+            CASE c.relkind WHEN 'm' THEN format('%I.%I', n.nspname, c.relname) END
+        FROM pg_depend d
+        JOIN pg_rewrite r ON r.oid = d.objid
+        JOIN pg_class c ON c.oid = r.ev_class
+        JOIN pg_namespace n ON n.oid = c.relnamespace
+        WHERE d.classid = 'pg_rewrite'::regclass
+          AND d.refobjid = 'expenses'::regclass
+          AND c.oid <> 'expenses'::regclass
+    LOOP
+        v_creates := v_creates || v_statement;
+        IF v_index IS NOT NULL THEN
+            v_drops := v_drops || format('DROP MATERIALIZED VIEW %s', v_index);
+            v_creates := v_creates || ARRAY(SELECT pg_get_indexdef(indexrelid) FROM pg_index WHERE indrelid = v_index::regclass);
+        END IF;
+    END LOOP;
+
+    -- 名前を変更して作り直す（このトランザクションで一括して切り替える）
+    FOREACH v_statement IN ARRAY v_drops LOOP
+        EXECUTE v_statement;
+    END LOOP;
+    ALTER TABLE expenses RENAME TO expenses_legacy;
+    ALTER TABLE expenses_partitioned RENAME TO expenses;
+    FOREACH v_statement IN ARRAY v_creates LOOP
+        EXECUTE v_statement;
+    END LOOP;
+    ANALYZE expenses;
+END;
+$$;
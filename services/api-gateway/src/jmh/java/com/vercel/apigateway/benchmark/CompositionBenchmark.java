@@ -0,0 +1,164 @@
+package com.vercel.apigateway.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.apigateway.composition.CompositionFilter;
+import com.vercel.apigateway.composition.CompositionPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * APIコンポジションで、ユーザーと商品を順番に呼び出す場合（sequential）と並行に呼び出してまとめる場合（composed）の所要時間の比較
+ * ローカルに user-service・product-service のスタブ（reactor-netty）を起動し、それぞれ userMillis・productMillis 遅らせて応答させる
+ * sequential は2つの呼び出しの合計、composed は遅い方の呼び出しのみ（+ JSONをまとめる時間）となる
+ * lb:// のサービスIDは、ロードバランサーの代わりにスタブのポートへ書き換えるフィルターで解決する
+ * 例: ./gradlew :services:api-gateway:jmh -Pjmh.includes=CompositionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class CompositionBenchmark {
+
+    /** user-service のスタブの応答時間（ミリ秒） */
+    @Param({"50"})
+    public long userMillis;
+
+    /** product-service のスタブの応答時間（ミリ秒） */
+    @Param({"80"})
+    public long productMillis;
+
+    /** user-service のスタブ */
+    private DisposableServer userService;
+
+    /** product-service のスタブ */
+    private DisposableServer productService;
+
+    /** 下流の呼び出しに使うクライアント */
+    private WebClient webClient;
+
+    /** コンポジションのフィルター */
+    private CompositionFilter filter;
+
+    /** コンポジションのルート */
+    private Route route;
+
+    /** 下流への転送（コンポジションのルートでは呼ばれない） */
+    private final GatewayFilterChain chain = exchange -> Mono.error(new IllegalStateException("下流に転送されました"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = stub(userMillis);
+        productService = stub(productMillis);
+        Map<String, Integer> ports = Map.of("user-service", userService.port(), "product-service", productService.port());
+        webClient = WebClient.builder()
+            .filter((request, next) -> next.exchange(ClientRequest.from(request)
+                .url(UriComponentsBuilder.fromUri(request.url())
+                    .host("127.0.0.1")
+                    .port(ports.get(request.url().getHost()))
+                    .build(true)
+                    .toUri())
+                .build()))
+            .build();
+        filter = new CompositionFilter(webClient, new ObjectMapper(), List.of("X-User-Id"), new SimpleMeterRegistry());
+        route = Route.async()
+            .id("product-page")
+            .uri("no://op")
+            .predicate(exchange -> true)
+            .metadata(Map.of(CompositionPolicy.METADATA_KEY, Map.of(
+                "user", Map.of("uri", "lb://user-service/{userId}", "timeout", "1s"),
+                "product", Map.of("uri", "lb://product-service/{productId}", "timeout", "1s", "required", true))))
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        userService.disposeNow();
+        productService.disposeNow();
+    }
+
+    /**
+     * ユーザー・商品を順番に呼び出す（UIから2回リクエストする場合に相当）
+     *
+     * @return 商品のJSON
+     */
+    @Benchmark
+    public JsonNode sequential() {
+        int id = ThreadLocalRandom.current().nextInt(1000);
+        webClient.get().uri("http://user-service/{id}", id).retrieve().bodyToMono(JsonNode.class).block();
+        return webClient.get().uri("http://product-service/{id}", id).retrieve().bodyToMono(JsonNode.class).block();
+    }
+
+    /**
+     * コンポジションのフィルターで並行に呼び出してまとめる
+     *
+     * @return 応答のステータス
+     */
+    @Benchmark
+    public HttpStatusCode composed() {
+        int id = ThreadLocalRandom.current().nextInt(1000);
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/pages/users/{userId}/products/{productId}", id, id)
+                .header("X-User-Id", String.valueOf(id)));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        ServerWebExchangeUtils.putUriTemplateVariables(exchange,
+            Map.of("userId", String.valueOf(id), "productId", String.valueOf(id)));
+        filter.filter(exchange, chain).block();
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null || !status.is2xxSuccessful()) {
+            throw new IllegalStateException("コンポジションが " + status + " を返しました");
+        }
+        return status;
+    }
+
+    /**
+     * delayMillis 遅れて {"id": ...} を返すスタブのサービスを起動する
+     *
+     * @param delayMillis 応答時間（ミリ秒）
+     * @return スタブのサービス
+     */
+    private static DisposableServer stub(long delayMillis) {
+        return HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .route(routes -> routes.get("/{id}", (request, response) -> response
+                .header("Content-Type", "application/json")
+                .sendString(Mono.just("{\"id\":" + request.param("id") + "}")
+                    .delayElement(Duration.ofMillis(delayMillis)))))
+            .bindNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.vercel.apigateway.benchmark;
+
+import com.vercel.apigateway.auth.JwtTokenVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * アクセストークンの検証の1リクエストあたりの処理時間のベンチマーク
+ * cached はキャッシュ済みのトークン（SHA-256ハッシュと Caffeine の参照のみ）、uncached は毎回署名の検証と
+ * クレームの解析を行う場合（キャッシュの上限0）。tokens は同時に使われるトークン数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class JwtTokenVerifierBenchmark {
+
+    /** 同時に使われるトークン数 */
+    @Param({"1", "10000"})
+    public int tokens;
+
+    /** キャッシュの有無 */
+    @Param({"cached", "uncached"})
+    public String mode;
+
+    /** トークンの検証 */
+    private JwtTokenVerifier verifier;
+
+    /** 事前に発行したトークン */
+    private String[] issued;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SecretKey key = Keys.hmacShaKeyFor(
+            "benchmark-secret-key-0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        verifier = new JwtTokenVerifier(key, null, Duration.ofSeconds(30),
+            "cached".equals(mode) ? 100_000 : 0, Duration.ofHours(1));
+
+        Instant now = Instant.now();
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = Jwts.builder()
+                .setSubject("user_" + i)
+                .setId("token_" + i)
+                .claim("email", "user_" + i + "@example.com")
+                .claim("roles", List.of("USER"))
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(Duration.ofHours(1))))
+                .signWith(key)
+                .compact();
+            verifier.verify(issued[i]);
+        }
+    }
+
+    @Benchmark
+    public Object verify() {
+        return verifier.verify(issued[ThreadLocalRandom.current().nextInt(issued.length)]);
+    }
+}
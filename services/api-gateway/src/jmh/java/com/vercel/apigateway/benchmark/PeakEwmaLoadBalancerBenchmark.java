@@ -0,0 +1,88 @@
+package com.vercel.apigateway.benchmark;
+
+import com.vercel.apigateway.loadbalancer.InstanceStats;
+import com.vercel.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.vercel.apigateway.loadbalancer.PeakEwmaStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 転送先の選択の1リクエストあたりの処理時間のベンチマーク
+ * roundRobin は既定のラウンドロビン、peakEwma は Power of Two Choices の選択と転送の開始・完了の記録を合わせた時間
+ * instances はサービスのインスタンス数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class PeakEwmaLoadBalancerBenchmark {
+
+    /** サービスID */
+    private static final String SERVICE_ID = "product-service";
+
+    /** インスタンス数 */
+    @Param({"3", "50"})
+    public int instances;
+
+    /** ラウンドロビン */
+    private RoundRobinLoadBalancer roundRobin;
+
+    /** Peak EWMA + Power of Two Choices */
+    private PeakEwmaLoadBalancer peakEwma;
+
+    /** インスタンスごとの負荷の統計 */
+    private PeakEwmaStats stats;
+
+    /** 選択のリクエスト */
+    private final Request<?> request = new DefaultRequest<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ServiceInstance[] list = new ServiceInstance[instances];
+        for (int i = 0; i < instances; i++) {
+            list[i] = new DefaultServiceInstance(SERVICE_ID + "-" + i, SERVICE_ID, "10.0.0." + i, 8080, false);
+        }
+        ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from(SERVICE_ID, list);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+
+        roundRobin = new RoundRobinLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID);
+        stats = new PeakEwmaStats(Duration.ofMillis(50), Duration.ofSeconds(10), Duration.ofSeconds(1));
+        peakEwma = new PeakEwmaLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID,
+            stats);
+    }
+
+    @Benchmark
+    public Object roundRobin() {
+        return roundRobin.choose(request).block();
+    }
+
+    @Benchmark
+    public Object peakEwma() {
+        Response<ServiceInstance> response = peakEwma.choose(request).block();
+        InstanceStats instanceStats = stats.get(SERVICE_ID, response.getServer());
+        instanceStats.start();
+        stats.complete(instanceStats, 10_000_000, false);
+        return response;
+    }
+}
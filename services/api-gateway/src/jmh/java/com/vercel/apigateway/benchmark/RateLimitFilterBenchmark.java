@@ -0,0 +1,137 @@
+package com.vercel.apigateway.benchmark;
+
+import com.vercel.apigateway.config.RateLimitProperties;
+import com.vercel.apigateway.ratelimit.LocalRateLimitStore;
+import com.vercel.apigateway.ratelimit.RateLimitFilter;
+import com.vercel.apigateway.ratelimit.RateLimitPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * レート制限フィルターの1リクエストあたりのオーバーヘッドのベンチマーク
+ * 下流への転送の代わりに何もしないフィルターチェーンを使い、フィルターなし（baseline）との差をフィルターの処理時間とする
+ * 50,000 rps で受けた場合のCPU使用量は「(rateLimited - baseline) × 50,000」秒/秒となる
+ * （例: 0.5µs の差であれば 1コアの2.5%）
+ * clients はバケット数（ルート1本・クライアント数）、outcome は受け付ける制限値（allowed）と
+ * ほぼ全てを拒否する制限値（rejected）の切り替え
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class RateLimitFilterBenchmark {
+
+    /** 事前に作成するリクエスト数 */
+    private static final int EXCHANGES = 4096;
+
+    /** クライアント数 */
+    @Param({"1", "10000", "1000000"})
+    public int clients;
+
+    /** 判定結果 */
+    @Param({"allowed", "rejected"})
+    public String outcome;
+
+    /** バケットの格納先 */
+    private LocalRateLimitStore store;
+
+    /** レート制限フィルター */
+    private RateLimitFilter filter;
+
+    /** 何もしないフィルターチェーン */
+    private final GatewayFilterChain chain = exchange -> Mono.empty();
+
+    /** 事前に作成したリクエスト */
+    private ServerWebExchange[] exchanges;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setClientHeader("X-Client-Id");
+        store = new LocalRateLimitStore(properties.getStripes(), properties.getIdleTtl(), Duration.ZERO);
+        filter = new RateLimitFilter(store, new SimpleMeterRegistry(), properties);
+
+        Map<String, Object> limit = "allowed".equals(outcome)
+            ? Map.of("capacity", 1_000_000_000, "refill-rate", 1_000_000_000)
+            : Map.of("capacity", 1, "refill-rate", 0.001);
+        Route route = Route.async()
+            .id("user-service")
+            .uri("http://localhost:8081")
+            .predicate(exchange -> true)
+            .metadata(Map.of(RateLimitPolicy.METADATA_KEY, limit))
+            .build();
+
+        exchanges = new ServerWebExchange[EXCHANGES];
+        for (int i = 0; i < EXCHANGES; i++) {
+            MockServerHttpRequest request = MockServerHttpRequest.get("/api/users/1")
+                .header("X-Client-Id", "client-" + ThreadLocalRandom.current().nextInt(clients))
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 50000))
+                .build();
+            ServerWebExchange exchange = MockServerWebExchange.from(request);
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+            exchanges[i] = exchange;
+        }
+        // クライアント全員のバケットを作成しておく
+        RateLimitPolicy policy = RateLimitPolicy.fromMetadata(route.getMetadata()).orElseThrow();
+        for (int i = 0; i < clients; i++) {
+            store.consume("user-service:c:client-" + i, policy, System.nanoTime());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+    }
+
+    /**
+     * フィルターなしでフィルターチェーンを呼ぶ（比較の基準）
+     *
+     * @return 処理結果
+     */
+    @Benchmark
+    public Void baseline() {
+        return chain.filter(nextExchange()).block();
+    }
+
+    /**
+     * レート制限フィルターを通す
+     *
+     * @return 処理結果
+     */
+    @Benchmark
+    public Void rateLimited() {
+        return filter.filter(nextExchange(), chain).block();
+    }
+
+    /**
+     * 事前に作成したリクエストからランダムに選ぶ
+     *
+     * @return リクエスト
+     */
+    private ServerWebExchange nextExchange() {
+        return exchanges[ThreadLocalRandom.current().nextInt(EXCHANGES)];
+    }
+}
@@ -2,15 +2,14 @@ package com.vercel.apigateway;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.context.annotation.ComponentScan;
 
 /**
  * APIゲートウェイアプリケーションのメインクラス
  * マイクロサービスへの統一エントリーポイントを提供する
+ * Eurekaクライアントは spring-cloud-starter-netflix-eureka-client の自動設定で有効になる
  */
 @SpringBootApplication
-@EnableEurekaClient
 @ComponentScan(basePackages = "com.vercel.apigateway")
 public class ApiGatewayApplication {
 
@@ -0,0 +1,18 @@
+package com.vercel.apigateway.auth;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 検証済みのアクセストークンの利用者
+ *
+ * @param subject ユーザーID（sub）
+ * @param email メールアドレス（email、ない場合はnull）
+ * @param roles ロール（roles、ない場合は空）
+ * @param tokenId トークンID（jti、ない場合はnull）
+ * @param issuedAt 発行日時（iat、ない場合はnull）
+ * @param expiresAt 有効期限（exp、ない場合はnull）
+ */
+public record AuthenticatedUser(String subject, String email, List<String> roles, String tokenId,
+                                Instant issuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,220 @@
+package com.vercel.apigateway.auth;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * アクセストークンの認証フィルター
+ * メタデータ {@code auth} を指定したルートで Authorization: Bearer のトークンをゲートウェイ内で検証し（{@link JwtTokenVerifier}）、
+ * 利用者を X-User-Id・X-User-Email・X-User-Roles ヘッダーで下流のサービスに転送する。下流のサービスはトークンを検証し直さずに
+ * これらのヘッダーを信頼してよい（クライアントが付けた X-User-* ヘッダーは全てのルートで取り除く）
+ * <ul>
+ *   <li>{@code required}: トークンがない・不正・失効している場合は下流に転送せずに401を返す</li>
+ *   <li>{@code optional}: トークンがない場合は匿名で転送し、不正・失効している場合は401を返す</li>
+ * </ul>
+ * 利用者は交換の属性 {@link #USER_ATTR} にも格納し、レート制限やレスポンスキャッシュで参照する
+ */
+public class JwtAuthFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
+
+    /** フィルターの順序（利用者ごとに制限できるよう、レート制限より前） */
+    public static final int ORDER = -200;
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "auth";
+
+    /** 利用者を格納する交換の属性 */
+    public static final String USER_ATTR = JwtAuthFilter.class.getName() + ".user";
+
+    /** ユーザーIDのヘッダー */
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    /** メールアドレスのヘッダー */
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+
+    /** ロール（カンマ区切り）のヘッダー */
+    public static final String USER_ROLES_HEADER = "X-User-Roles";
+
+    /** クライアントから受け付けないヘッダーの接頭辞 */
+    private static final String IDENTITY_HEADER_PREFIX = "x-user-";
+
+    /** Bearer トークンの接頭辞 */
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** トークンの検証 */
+    private final JwtTokenVerifier verifier;
+
+    /** 失効リスト */
+    private final TokenRevocationList revocationList;
+
+    /** Authorization ヘッダーを下流に転送するかどうか */
+    private final boolean forwardAuthorization;
+
+    /** 認証したリクエスト数 */
+    private final Counter authenticated;
+
+    /** トークンなしで転送したリクエスト数（optional のルート） */
+    private final Counter anonymous;
+
+    /** トークンがないため拒否したリクエスト数 */
+    private final Counter missing;
+
+    /** トークンが不正なため拒否したリクエスト数 */
+    private final Counter invalid;
+
+    /** トークンが失効しているため拒否したリクエスト数 */
+    private final Counter revoked;
+
+    /**
+     * コンストラクタ
+     *
+     * @param verifier トークンの検証
+     * @param revocationList 失効リスト
+     * @param forwardAuthorization Authorization ヘッダーを下流に転送するかどうか
+     * @param meterRegistry メトリクスの登録先
+     */
+    public JwtAuthFilter(JwtTokenVerifier verifier, TokenRevocationList revocationList, boolean forwardAuthorization,
+                         MeterRegistry meterRegistry) {
+        this.verifier = verifier;
+        this.revocationList = revocationList;
+        this.forwardAuthorization = forwardAuthorization;
+        this.authenticated = counter(meterRegistry, "authenticated");
+        this.anonymous = counter(meterRegistry, "anonymous");
+        this.missing = counter(meterRegistry, "missing");
+        this.invalid = counter(meterRegistry, "invalid");
+        this.revoked = counter(meterRegistry, "revoked");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Object mode = route != null ? route.getMetadata().get(METADATA_KEY) : null;
+        if (mode == null) {
+            return chain.filter(forward(exchange, null));
+        }
+
+        String token = bearerToken(exchange.getRequest().getHeaders());
+        if (token == null) {
+            if ("optional".equals(mode.toString())) {
+                anonymous.increment();
+                return chain.filter(forward(exchange, null));
+            }
+            missing.increment();
+            return unauthorized(exchange, "Bearer");
+        }
+
+        AuthenticatedUser user;
+        try {
+            user = verifier.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            invalid.increment();
+            log.debug("アクセストークンが不正です: route={}, reason={}", route.getId(), e.getMessage());
+            return unauthorized(exchange, "Bearer error=\"invalid_token\"");
+        }
+        if (revocationList.isRevoked(user)) {
+            revoked.increment();
+            log.debug("アクセストークンは失効しています: route={}, sub={}, jti={}", route.getId(), user.subject(),
+                user.tokenId());
+            return unauthorized(exchange, "Bearer error=\"invalid_token\", error_description=\"revoked\"");
+        }
+
+        authenticated.increment();
+        exchange.getAttributes().put(USER_ATTR, user);
+        return chain.filter(forward(exchange, user));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 下流に転送するリクエストを作成する
+     * クライアントが付けた X-User-* ヘッダーを取り除き、利用者がいる場合は利用者のヘッダーを付ける
+     *
+     * @param exchange リクエスト
+     * @param user 利用者（匿名の場合はnull）
+     * @return 下流に転送するリクエスト
+     */
+    private ServerWebExchange forward(ServerWebExchange exchange, AuthenticatedUser user) {
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        boolean spoofed = requestHeaders.keySet().stream().anyMatch(JwtAuthFilter::isIdentityHeader);
+        if (user == null && !spoofed) {
+            return exchange;
+        }
+        return exchange.mutate().request(request -> request.headers(headers -> {
+            List<String> identityHeaders = headers.keySet().stream().filter(JwtAuthFilter::isIdentityHeader).toList();
+            identityHeaders.forEach(headers::remove);
+            if (user == null) {
+                return;
+            }
+            if (!forwardAuthorization) {
+                headers.remove(HttpHeaders.AUTHORIZATION);
+            }
+            headers.set(USER_ID_HEADER, user.subject());
+            if (user.email() != null) {
+                headers.set(USER_EMAIL_HEADER, user.email());
+            }
+            if (!user.roles().isEmpty()) {
+                headers.set(USER_ROLES_HEADER, String.join(",", user.roles()));
+            }
+        })).build();
+    }
+
+    /**
+     * Authorization ヘッダーから Bearer トークンを取得する
+     *
+     * @param headers リクエストヘッダー
+     * @return トークン（ない場合はnull）
+     */
+    private static String bearerToken(HttpHeaders headers) {
+        String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null
+            || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static boolean isIdentityHeader(String name) {
+        return name.regionMatches(true, 0, IDENTITY_HEADER_PREFIX, 0, IDENTITY_HEADER_PREFIX.length());
+    }
+
+    /**
+     * 下流に転送せずに401を返す
+     *
+     * @param exchange リクエスト
+     * @param challenge WWW-Authenticate ヘッダーの値
+     * @return 応答の完了
+     */
+    private static Mono<Void> unauthorized(ServerWebExchange exchange, String challenge) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, challenge);
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        return response.setComplete();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("gateway.auth.requests")
+            .description("認証の結果ごとのリクエスト数")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,189 @@
+package com.vercel.apigateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * アクセストークン（HMAC署名のJWT）をゲートウェイ内で検証する
+ * 検証済みのトークンはSHA-256ハッシュをキーに、有効期限（exp、最長 maxCacheTtl）までキャッシュし、
+ * 同じトークンの2回目以降は署名の検証とクレームの解析を省く（キャッシュにトークン自体は保持しない）
+ * キャッシュは件数で上限を設け、超えた分はW-TinyLFUで追い出す。検証に失敗したトークンはキャッシュしない
+ * 失効の判定はキャッシュの有無に関わらず呼び出し側で毎回行う
+ */
+public class JwtTokenVerifier {
+
+    /** SHA-256（MessageDigest はスレッドセーフではないため、スレッドごとに保持する） */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /** JWTの解析・検証 */
+    private final JwtParser parser;
+
+    /** トークンのハッシュごとの検証済みの利用者 */
+    private final Cache<String, AuthenticatedUser> cache;
+
+    /**
+     * コンストラクタ
+     *
+     * @param signingKey 署名の検証鍵（256ビット以上）
+     * @param issuer 発行者（iss、nullの場合は検証しない）
+     * @param clockSkew 有効期限の判定で許容する時刻のずれ
+     * @param cacheMaximumSize キャッシュするトークン数の上限
+     * @param maxCacheTtl キャッシュする最長の期間（有効期限のないトークンはこの期間キャッシュする）
+     */
+    public JwtTokenVerifier(SecretKey signingKey, String issuer, Duration clockSkew, long cacheMaximumSize,
+                            Duration maxCacheTtl) {
+        JwtParserBuilder builder = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .setAllowedClockSkewSeconds(clockSkew.toSeconds());
+        if (issuer != null && !issuer.isBlank()) {
+            builder.requireIssuer(issuer);
+        }
+        this.parser = builder.build();
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheMaximumSize)
+            .expireAfter(new TokenExpiry(maxCacheTtl))
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * トークンを検証し、利用者を取得する
+     *
+     * @param token アクセストークン
+     * @return 利用者
+     * @throws JwtException 署名・有効期限・形式が不正な場合
+     */
+    public AuthenticatedUser verify(String token) {
+        String hash = hash(token);
+        AuthenticatedUser cached = cache.getIfPresent(hash);
+        if (cached != null) {
+            return cached;
+        }
+        AuthenticatedUser user = toUser(parser.parseClaimsJws(token).getBody());
+        cache.put(hash, user);
+        return user;
+    }
+
+    /**
+     * 検証済みのトークンのキャッシュを取得する（メトリクスの登録用）
+     *
+     * @return キャッシュ
+     */
+    public Cache<String, AuthenticatedUser> cache() {
+        return cache;
+    }
+
+    /**
+     * クレームから利用者を作成する
+     *
+     * @param claims クレーム
+     * @return 利用者
+     * @throws JwtException ユーザーID（sub）がない場合
+     */
+    private static AuthenticatedUser toUser(Claims claims) {
+        String subject = claims.getSubject();
+        if (subject == null || subject.isBlank()) {
+            throw new JwtException("sub がありません");
+        }
+        Object email = claims.get("email");
+        return new AuthenticatedUser(subject, email != null ? email.toString() : null, roles(claims),
+            claims.getId(), toInstant(claims.getIssuedAt()), toInstant(claims.getExpiration()));
+    }
+
+    /**
+     * ロールを取得する（roles の配列またはカンマ区切りの文字列、なければ role の文字列）
+     *
+     * @param claims クレーム
+     * @return ロール
+     */
+    private static List<String> roles(Claims claims) {
+        Object roles = claims.get("roles");
+        if (roles == null) {
+            roles = claims.get("role");
+        }
+        if (roles instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).map(String::trim).filter(role -> !role.isEmpty()).toList();
+        }
+        if (roles instanceof String value) {
+            return Arrays.stream(value.split(",")).map(String::trim).filter(role -> !role.isEmpty()).toList();
+        }
+        return List.of();
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+
+    /**
+     * トークンのハッシュを求める
+     *
+     * @param token アクセストークン
+     * @return SHA-256（Base64）
+     */
+    private static String hash(String token) {
+        MessageDigest digest = SHA256.get();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * トークンの有効期限（最長 maxCacheTtl）で期限切れにする
+     * 期限は格納時に求め、更新・読み取りでは変えない
+     */
+    private static final class TokenExpiry implements Expiry<String, AuthenticatedUser> {
+
+        /** キャッシュする最長の期間 */
+        private final Duration maxCacheTtl;
+
+        TokenExpiry(Duration maxCacheTtl) {
+            this.maxCacheTtl = maxCacheTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String hash, AuthenticatedUser user, long currentTime) {
+            if (user.expiresAt() == null) {
+                return maxCacheTtl.toNanos();
+            }
+            // 数百年先の exp はナノ秒に変換すると溢れるため、変換する前に最長の期間と比べる
+            Duration remaining = Duration.between(Instant.now(), user.expiresAt());
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.compareTo(maxCacheTtl) < 0 ? remaining.toNanos() : maxCacheTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String hash, AuthenticatedUser user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
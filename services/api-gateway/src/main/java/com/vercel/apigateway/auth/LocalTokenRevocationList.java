@@ -0,0 +1,92 @@
+package com.vercel.apigateway.auth;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * プロセス内の失効リスト
+ * 失効させたトークンは有効期限まで、ユーザー単位の失効はトークンの最長の有効期間（retention）まで保持し、
+ * それ以降は失効させなくてもトークン自体が期限切れとなるため、失効の登録時にまとめて削除する
+ */
+public class LocalTokenRevocationList implements TokenRevocationList {
+
+    /** 失効させたトークンID（jti）と、記録を保持する期限 */
+    private final Map<String, Instant> tokens = new ConcurrentHashMap<>();
+
+    /** 失効させたユーザーID（sub）と、この日時以前に発行したトークンを失効させる日時 */
+    private final Map<String, Instant> subjects = new ConcurrentHashMap<>();
+
+    /** トークンの最長の有効期間（ユーザー単位の失効の記録を保持する期間） */
+    private final Duration retention;
+
+    /** 時計 */
+    private final Clock clock;
+
+    /**
+     * コンストラクタ
+     *
+     * @param retention トークンの最長の有効期間
+     */
+    public LocalTokenRevocationList(Duration retention) {
+        this(retention, Clock.systemUTC());
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param retention トークンの最長の有効期間
+     * @param clock 時計
+     */
+    public LocalTokenRevocationList(Duration retention, Clock clock) {
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isRevoked(AuthenticatedUser user) {
+        if (!tokens.isEmpty() && user.tokenId() != null && tokens.containsKey(user.tokenId())) {
+            return true;
+        }
+        if (subjects.isEmpty()) {
+            return false;
+        }
+        Instant issuedBefore = subjects.get(user.subject());
+        // 発行日時のないトークンは、失効より後に発行したことを確認できないため失効させる
+        return issuedBefore != null && (user.issuedAt() == null || !user.issuedAt().isAfter(issuedBefore));
+    }
+
+    @Override
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        purge();
+        tokens.merge(tokenId, expiresAt != null ? expiresAt : clock.instant().plus(retention),
+            (current, added) -> current.isAfter(added) ? current : added);
+    }
+
+    @Override
+    public void revokeSubject(String subject, Instant issuedBefore) {
+        purge();
+        subjects.merge(subject, issuedBefore, (current, added) -> current.isAfter(added) ? current : added);
+    }
+
+    /**
+     * 保持している失効の記録数を取得する
+     *
+     * @return 記録数
+     */
+    public int size() {
+        return tokens.size() + subjects.size();
+    }
+
+    /**
+     * 期限を過ぎた記録を削除する
+     */
+    private void purge() {
+        Instant now = clock.instant();
+        tokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        Instant oldest = now.minus(retention);
+        subjects.values().removeIf(issuedBefore -> issuedBefore.isBefore(oldest));
+    }
+}
@@ -0,0 +1,163 @@
+package com.vercel.apigateway.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Redisで全レプリカと共有する失効リスト
+ * 判定はリクエストごとにRedisへ問い合わせず、プロセス内の失効リスト（{@link LocalTokenRevocationList}）で行う
+ * 失効は {@code <prefix>:jti:<jti>} と {@code <prefix>:sub:<sub>} のキー（値は有効期限・発行日時のエポック秒、
+ * 記録を保持する期限までのTTL付き）に格納し、チャンネル {@code <prefix>:events} に「キー=値」を通知する
+ * 起動時と再接続時には既存のキーを読み込み、以降は通知を購読してプロセス内の失効リストに反映する
+ * ユーザーサービスなどゲートウェイ以外からも、同じ形式で SET と PUBLISH を行えば失効させられる
+ */
+public class RedisTokenRevocationList implements TokenRevocationList, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisTokenRevocationList.class);
+
+    /** 判定に使うプロセス内の失効リスト */
+    private final LocalTokenRevocationList local;
+
+    /** Redisクライアント */
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    /** トークン単位の失効のキーの接頭辞 */
+    private final String tokenKeyPrefix;
+
+    /** ユーザー単位の失効のキーの接頭辞 */
+    private final String subjectKeyPrefix;
+
+    /** キーの検索パターン */
+    private final String keyPattern;
+
+    /** 失効を通知するチャンネル */
+    private final String channel;
+
+    /** トークンの最長の有効期間（ユーザー単位の失効の記録を保持する期間） */
+    private final Duration retention;
+
+    /** 通知の購読 */
+    private final Disposable subscription;
+
+    /**
+     * コンストラクタ
+     * 通知の購読と既存のキーの読み込みを開始する
+     *
+     * @param redisTemplate Redisクライアント
+     * @param keyPrefix キーとチャンネルの接頭辞
+     * @param retention トークンの最長の有効期間
+     */
+    public RedisTokenRevocationList(ReactiveStringRedisTemplate redisTemplate, String keyPrefix, Duration retention) {
+        this.local = new LocalTokenRevocationList(retention);
+        this.redisTemplate = redisTemplate;
+        this.tokenKeyPrefix = keyPrefix + ":jti:";
+        this.subjectKeyPrefix = keyPrefix + ":sub:";
+        this.keyPattern = keyPrefix + ":*";
+        this.channel = keyPrefix + ":events";
+        this.retention = retention;
+        this.subscription = subscribe();
+    }
+
+    @Override
+    public boolean isRevoked(AuthenticatedUser user) {
+        return local.isRevoked(user);
+    }
+
+    @Override
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        Instant until = expiresAt != null ? expiresAt : Instant.now().plus(retention);
+        local.revokeToken(tokenId, until);
+        publish(tokenKeyPrefix + tokenId, until, Duration.between(Instant.now(), until));
+    }
+
+    @Override
+    public void revokeSubject(String subject, Instant issuedBefore) {
+        local.revokeSubject(subject, issuedBefore);
+        publish(subjectKeyPrefix + subject, issuedBefore, Duration.between(Instant.now(), issuedBefore.plus(retention)));
+    }
+
+    /**
+     * 保持している失効の記録数を取得する
+     *
+     * @return 記録数
+     */
+    public int size() {
+        return local.size();
+    }
+
+    @Override
+    public void close() {
+        subscription.dispose();
+    }
+
+    /**
+     * 通知の購読と既存のキーの読み込みを開始する
+     * 読み込み中に登録された失効を取りこぼさないよう、購読と読み込みを同時に行う（重複して反映しても結果は変わらない）
+     * 接続が切れた場合は、再接続して既存のキーを読み込み直す
+     *
+     * @return 購読
+     */
+    private Disposable subscribe() {
+        return Flux.defer(() -> redisTemplate.listenToChannel(channel)
+                .map(ReactiveSubscription.Message::getMessage)
+                .mergeWith(redisTemplate.scan(ScanOptions.scanOptions().match(keyPattern).count(1000).build())
+                    .flatMap(key -> redisTemplate.opsForValue().get(key).map(value -> key + "=" + value))))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> log.warn("失効リストの購読に失敗しました。再接続します: channel={}",
+                    channel, signal.failure())))
+            .subscribe(this::apply);
+    }
+
+    /**
+     * 「キー=値」をプロセス内の失効リストに反映する
+     *
+     * @param entry キーと値（エポック秒）
+     */
+    private void apply(String entry) {
+        int separator = entry.lastIndexOf('=');
+        if (separator < 0) {
+            return;
+        }
+        String key = entry.substring(0, separator);
+        Instant instant;
+        try {
+            instant = Instant.ofEpochSecond(Long.parseLong(entry.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            log.warn("失効リストの値が不正です: {}", entry);
+            return;
+        }
+        if (key.startsWith(tokenKeyPrefix)) {
+            local.revokeToken(key.substring(tokenKeyPrefix.length()), instant);
+        } else if (key.startsWith(subjectKeyPrefix)) {
+            local.revokeSubject(key.substring(subjectKeyPrefix.length()), instant);
+        }
+    }
+
+    /**
+     * 失効をRedisに格納し、他のレプリカに通知する
+     * 格納に失敗しても、このレプリカの失効リストには反映済み
+     *
+     * @param key キー
+     * @param instant 値（有効期限または発行日時）
+     * @param ttl キーのTTL
+     */
+    private void publish(String key, Instant instant, Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        String value = String.valueOf(instant.getEpochSecond());
+        redisTemplate.opsForValue().set(key, value, ttl)
+            .then(redisTemplate.convertAndSend(channel, key + "=" + value))
+            .subscribe(received -> { },
+                e -> log.warn("失効をRedisに格納できませんでした（このレプリカのみに反映します）: key={}", key, e));
+    }
+}
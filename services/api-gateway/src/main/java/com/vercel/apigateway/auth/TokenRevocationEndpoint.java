@@ -0,0 +1,57 @@
+package com.vercel.apigateway.auth;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 失効リストに登録するActuatorエンドポイント（POST /actuator/tokenrevocations）
+ * tokenId を指定した場合はトークン単位（expiresAt まで、ISO-8601）、subject を指定した場合はユーザーが現在までに発行した
+ * トークンを全て失効させる。失効させる操作のため、管理用のポートなどクライアントから到達できない場合のみ公開する
+ */
+@Endpoint(id = "tokenrevocations")
+public class TokenRevocationEndpoint {
+
+    /** 失効リスト */
+    private final TokenRevocationList revocationList;
+
+    /**
+     * コンストラクタ
+     *
+     * @param revocationList 失効リスト
+     */
+    public TokenRevocationEndpoint(TokenRevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * トークンまたはユーザーを失効させる
+     *
+     * @param tokenId トークンID（jti）
+     * @param expiresAt トークンの有効期限（ISO-8601、省略時はトークンの最長の有効期間）
+     * @param subject ユーザーID（sub）
+     * @return 失効させた内容
+     */
+    @WriteOperation
+    public Map<String, Object> revoke(@Nullable String tokenId, @Nullable String expiresAt, @Nullable String subject) {
+        if ((tokenId == null || tokenId.isBlank()) && (subject == null || subject.isBlank())) {
+            throw new IllegalArgumentException("tokenId または subject を指定してください");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (tokenId != null && !tokenId.isBlank()) {
+            revocationList.revokeToken(tokenId, expiresAt != null && !expiresAt.isBlank() ? Instant.parse(expiresAt) : null);
+            result.put("tokenId", tokenId);
+        }
+        if (subject != null && !subject.isBlank()) {
+            Instant issuedBefore = Instant.now();
+            revocationList.revokeSubject(subject, issuedBefore);
+            result.put("subject", subject);
+            result.put("issuedBefore", issuedBefore.toString());
+        }
+        return result;
+    }
+}
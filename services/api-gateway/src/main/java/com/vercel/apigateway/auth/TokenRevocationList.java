@@ -0,0 +1,35 @@
+package com.vercel.apigateway.auth;
+
+import java.time.Instant;
+
+/**
+ * 失効させたアクセストークンの一覧
+ * トークン単位（jti）と、ユーザー単位（指定日時以前に発行したトークン全て、ログアウトやパスワード変更時）で失効させる
+ * 検証済みのトークンのキャッシュにヒットした場合も毎回判定する
+ */
+public interface TokenRevocationList {
+
+    /**
+     * トークンが失効しているかどうかを判定する
+     *
+     * @param user 検証済みのトークンの利用者
+     * @return 失効している場合はtrue
+     */
+    boolean isRevoked(AuthenticatedUser user);
+
+    /**
+     * トークンを失効させる
+     *
+     * @param tokenId トークンID（jti）
+     * @param expiresAt トークンの有効期限（この日時まで失効の記録を保持する）
+     */
+    void revokeToken(String tokenId, Instant expiresAt);
+
+    /**
+     * ユーザーが指定日時以前に発行したトークンを全て失効させる
+     *
+     * @param subject ユーザーID（sub）
+     * @param issuedBefore この日時以前に発行したトークンを失効させる
+     */
+    void revokeSubject(String subject, Instant issuedBefore);
+}
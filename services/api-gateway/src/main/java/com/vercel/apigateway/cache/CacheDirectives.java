@@ -0,0 +1,91 @@
+package com.vercel.apigateway.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cache-Control ヘッダーのディレクティブ（ゲートウェイの共有キャッシュの判定に使うもののみ）
+ *
+ * @param noStore no-store
+ * @param noCache no-cache
+ * @param privateOnly private
+ * @param publicCache public
+ * @param maxAge max-age（指定がない場合はnull）
+ * @param sharedMaxAge s-maxage（指定がない場合はnull）
+ * @param staleWhileRevalidate stale-while-revalidate（指定がない場合はnull）
+ */
+record CacheDirectives(boolean noStore, boolean noCache, boolean privateOnly, boolean publicCache,
+                       Duration maxAge, Duration sharedMaxAge, Duration staleWhileRevalidate) {
+
+    /** ディレクティブの指定がない場合 */
+    static final CacheDirectives NONE = new CacheDirectives(false, false, false, false, null, null, null);
+
+    /**
+     * Cache-Control ヘッダーを解析する
+     * 解釈できない値のディレクティブは無視する
+     *
+     * @param values Cache-Control ヘッダーの値（複数行を含む）
+     * @return ディレクティブ
+     */
+    static CacheDirectives parse(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean privateOnly = false;
+        boolean publicCache = false;
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        Duration staleWhileRevalidate = null;
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String[] pair = directive.trim().split("=", 2);
+                String name = pair[0].trim().toLowerCase(Locale.ROOT);
+                Duration seconds = pair.length == 2 ? seconds(pair[1]) : null;
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> privateOnly = true;
+                    case "public" -> publicCache = true;
+                    case "max-age" -> maxAge = seconds;
+                    case "s-maxage" -> sharedMaxAge = seconds;
+                    case "stale-while-revalidate" -> staleWhileRevalidate = seconds;
+                    default -> {
+                        // 判定に使わないディレクティブ
+                    }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, privateOnly, publicCache,
+            maxAge, sharedMaxAge, staleWhileRevalidate);
+    }
+
+    /**
+     * 共有キャッシュとしての有効期間を求める（s-maxage を max-age より優先する）
+     *
+     * @return 有効期間（指定がない場合はnull）
+     */
+    Duration sharedFreshness() {
+        return sharedMaxAge != null ? sharedMaxAge : maxAge;
+    }
+
+    /**
+     * 秒数のディレクティブ値を解析する
+     *
+     * @param value 値（引用符付きを含む）
+     * @return 秒数（解釈できない場合はnull）
+     */
+    private static Duration seconds(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
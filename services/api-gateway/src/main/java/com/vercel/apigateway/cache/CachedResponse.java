@@ -0,0 +1,85 @@
+package com.vercel.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * キャッシュした応答
+ * 時刻は {@link System#nanoTime()} の値で持つ
+ *
+ * @param status ステータス
+ * @param headers 応答ヘッダー（読み取り専用）
+ * @param body 応答本文
+ * @param storedAt 格納（または再検証）した時刻
+ * @param freshUntil 有効期限
+ * @param staleUntil 古い応答を返せる期限
+ */
+record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body,
+                      long storedAt, long freshUntil, long staleUntil) {
+
+    /**
+     * 有効期限内かどうかを判定する
+     *
+     * @param now 現在時刻
+     * @return 有効期限内の場合はtrue
+     */
+    boolean isFresh(long now) {
+        return now - freshUntil < 0;
+    }
+
+    /**
+     * 古い応答を返せる期限内かどうかを判定する
+     *
+     * @param now 現在時刻
+     * @return 期限内の場合はtrue
+     */
+    boolean isUsableStale(long now) {
+        return now - staleUntil < 0;
+    }
+
+    /**
+     * 格納してからの経過秒数（Age ヘッダーの値）を求める
+     *
+     * @param now 現在時刻
+     * @return 経過秒数
+     */
+    long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1_000_000_000L);
+    }
+
+    /**
+     * ETag を取得する
+     *
+     * @return ETag（ない場合はnull）
+     */
+    String etag() {
+        return headers.getETag();
+    }
+
+    /**
+     * 再検証（304）で有効期限を延長した応答を作成する
+     *
+     * @param now 現在時刻
+     * @return 応答
+     */
+    CachedResponse renew(long now) {
+        return new CachedResponse(status, headers, body, now,
+            now + (freshUntil - storedAt), now + (staleUntil - storedAt));
+    }
+
+    /**
+     * キャッシュの容量の計算に使う大きさ（本文とヘッダーの概算）を求める
+     *
+     * @return バイト数
+     */
+    int weight() {
+        int size = body.length + 64;
+        for (var header : headers.entrySet()) {
+            size += header.getKey().length();
+            for (String value : header.getValue()) {
+                size += value.length();
+            }
+        }
+        return size;
+    }
+}
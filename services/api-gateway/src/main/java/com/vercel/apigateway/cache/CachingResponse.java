@@ -0,0 +1,86 @@
+package com.vercel.apigateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * 下流の応答をクライアントに転送しながら本文を複製し、転送が完了したらキャッシュに格納する応答
+ * 本文はバッファリングせずにそのまま転送し、格納できない応答（ステータス・ヘッダーで判定）は複製しない
+ * 本文が maxEntrySize を超えた時点で複製をやめる
+ */
+class CachingResponse extends ServerHttpResponseDecorator {
+
+    /** 格納できる応答かどうかの判定（ステータス、応答ヘッダー） */
+    private final BiPredicate<HttpStatusCode, HttpHeaders> storable;
+
+    /** 転送が完了した応答の格納（応答ヘッダー、本文） */
+    private final BiConsumer<HttpHeaders, byte[]> store;
+
+    /** 複製する本文の上限（バイト） */
+    private final int maxEntrySize;
+
+    /**
+     * コンストラクタ
+     *
+     * @param delegate クライアントへの応答
+     * @param storable 格納できる応答かどうかの判定
+     * @param store 転送が完了した応答の格納
+     * @param maxEntrySize 複製する本文の上限（バイト）
+     */
+    CachingResponse(ServerHttpResponse delegate, BiPredicate<HttpStatusCode, HttpHeaders> storable,
+                    BiConsumer<HttpHeaders, byte[]> store, int maxEntrySize) {
+        super(delegate);
+        this.storable = storable;
+        this.store = store;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        HttpStatusCode status = getStatusCode();
+        if (status == null || !storable.test(status, getHeaders())) {
+            return super.writeWith(body);
+        }
+        // 転送を始めると応答ヘッダーはクライアントに送信済みとなるため、転送前に複製する
+        HttpHeaders snapshot = new HttpHeaders();
+        snapshot.putAll(getHeaders());
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        boolean[] overflow = {false};
+        Flux<DataBuffer> teed = Flux.<DataBuffer>from(body)
+            .map(buffer -> {
+                int readable = buffer.readableByteCount();
+                if (!overflow[0] && copy.size() + readable <= maxEntrySize) {
+                    byte[] bytes = new byte[readable];
+                    int position = buffer.readPosition();
+                    buffer.read(bytes);
+                    buffer.readPosition(position);
+                    copy.writeBytes(bytes);
+                } else {
+                    overflow[0] = true;
+                }
+                return buffer;
+            })
+            .doOnComplete(() -> {
+                if (!overflow[0]) {
+                    store.accept(snapshot, copy.toByteArray());
+                }
+            });
+        return super.writeWith(teed);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        // ストリーミング応答（text/event-stream など）はキャッシュしない
+        return super.writeAndFlushWith(body);
+    }
+}
@@ -0,0 +1,451 @@
+package com.vercel.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.vercel.apigateway.auth.JwtAuthFilter;
+import com.vercel.apigateway.streaming.StreamingRoutes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GETリクエストのレスポンスキャッシュフィルター
+ * メタデータ {@code response-cache} を指定したルートのみ（ストリーミングルートは除く）を対象とし、メソッド・パス・クエリと指定したリクエストヘッダーをキーに、
+ * 下流の200応答をゲートウェイのメモリ（Caffeine、W-TinyLFUで容量を超えた分を追い出す）にキャッシュする
+ * <ul>
+ *   <li>有効期間は下流の Cache-Control（s-maxage、max-age）を優先し、指定がない場合はルートの ttl とする</li>
+ *   <li>no-store・no-cache・private、Set-Cookie 付き、キーに含めないヘッダーで Vary する応答は格納しない</li>
+ *   <li>Authorization 付き（ゲートウェイで認証済みを含む）のリクエストの応答は public または s-maxage の場合のみ格納する</li>
+ *   <li>期限切れ後も stale-while-revalidate の間は古い応答を返し、同じキーにつき1件のみ裏で再取得する
+ *       （ETag がある場合は If-None-Match で再検証し、304であれば本文を転送せずに期限を延長する）</li>
+ *   <li>クライアントの If-None-Match が ETag と一致する場合はキャッシュから304を返す</li>
+ *   <li>リクエストの Cache-Control: no-cache・no-store はキャッシュを使わずに下流へ転送する（no-store は格納もしない）</li>
+ * </ul>
+ * 応答には X-Cache（HIT / STALE / MISS / BYPASS）と、キャッシュから返した場合は Age を付ける
+ */
+public class ResponseCacheFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    /** フィルターの順序（レート制限の後、ロードバランサーによる転送先の選択より前） */
+    public static final int ORDER = -50;
+
+    /** キャッシュの利用結果のヘッダー */
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    /** 格納しない応答ヘッダー（接続ごとのヘッダーと、リクエストごとにフィルターが付けるヘッダー） */
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+        "connection", "keep-alive", "transfer-encoding", "set-cookie", "age", CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    /** 格納しない応答ヘッダーの接頭辞（レート制限の残り回数など） */
+    private static final String UNCACHED_HEADER_PREFIX = "x-ratelimit-";
+
+    /** キャッシュ */
+    private final Cache<String, CachedResponse> cache;
+
+    /** 格納する本文の上限（バイト） */
+    private final int maxEntrySize;
+
+    /** 裏での再取得のタイムアウト */
+    private final Duration revalidateTimeout;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** ルートIDごとの設定とメトリクス */
+    private final Map<String, RouteCache> routeCaches = new ConcurrentHashMap<>();
+
+    /** 裏で再取得中のキー */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    /**
+     * コンストラクタ
+     *
+     * @param maximumSize キャッシュの容量（バイト）
+     * @param maxEntrySize 格納する本文の上限（バイト）
+     * @param revalidateTimeout 裏での再取得のタイムアウト
+     * @param meterRegistry メトリクスの登録先
+     */
+    public ResponseCacheFilter(long maximumSize, int maxEntrySize, Duration revalidateTimeout,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maximumSize)
+            .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+            // 古い応答を返せる期限まで保持する
+            .expireAfter(new StaleExpiry())
+            .recordStats()
+            .build();
+        this.maxEntrySize = maxEntrySize;
+        this.revalidateTimeout = revalidateTimeout;
+        this.meterRegistry = meterRegistry;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response-cache");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        if (route == null || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        RouteCache routeCache = routeCaches.computeIfAbsent(route.getId(), id -> RouteCache.of(route, meterRegistry));
+        if (routeCache.policy() == null) {
+            return chain.filter(exchange);
+        }
+
+        ResponseCachePolicy policy = routeCache.policy();
+        CacheDirectives requestDirectives = CacheDirectives.parse(request.getHeaders().get(HttpHeaders.CACHE_CONTROL));
+        String key = key(route, request, policy);
+        // 認証フィルターが Authorization を取り除いて X-User-* に置き換えた場合も、利用者ごとの応答として扱う
+        boolean authorized = request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+            || exchange.getAttribute(JwtAuthFilter.USER_ATTR) != null;
+
+        if (!requestDirectives.noCache() && !requestDirectives.noStore()) {
+            CachedResponse cached = cache.getIfPresent(key);
+            long now = System.nanoTime();
+            if (cached != null && cached.isFresh(now)) {
+                routeCache.hit().increment();
+                return writeCached(exchange, cached, now, "HIT");
+            }
+            if (cached != null && cached.isUsableStale(now)) {
+                routeCache.stale().increment();
+                revalidate(exchange, chain, key, cached, routeCache, authorized);
+                return writeCached(exchange, cached, now, "STALE");
+            }
+        }
+
+        if (requestDirectives.noStore()) {
+            routeCache.bypass().increment();
+            exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "BYPASS");
+            return chain.filter(exchange);
+        }
+        routeCache.miss().increment();
+        exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        CachingResponse response = new CachingResponse(exchange.getResponse(),
+            (status, headers) -> isStorable(status, headers, policy, authorized),
+            (headers, body) -> store(key, HttpStatus.OK, headers, body, policy),
+            maxEntrySize);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとの設定を作り直す
+     * キャッシュした応答は有効期限まで残る
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routeCaches.clear();
+    }
+
+    /**
+     * キャッシュした応答をクライアントに返す
+     * クライアントの If-None-Match が ETag と一致する場合は本文なしの304を返す
+     *
+     * @param exchange リクエスト
+     * @param cached キャッシュした応答
+     * @param now 現在時刻
+     * @param cacheStatus X-Cache ヘッダーの値
+     * @return 応答の完了
+     */
+    private static Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, long now,
+                                          String cacheStatus) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds(now)));
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+
+        if (etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * 古い応答を返している間に、裏で下流から応答を再取得する（同じキーにつき1件のみ）
+     * ETag がある場合は If-None-Match で再検証する
+     *
+     * @param exchange リクエスト
+     * @param chain フィルターチェーン
+     * @param key キャッシュのキー
+     * @param cached キャッシュした応答
+     * @param routeCache ルートごとの設定とメトリクス
+     * @param authorized Authorization 付きのリクエストかどうか
+     */
+    private void revalidate(ServerWebExchange exchange, GatewayFilterChain chain, String key, CachedResponse cached,
+                            RouteCache routeCache, boolean authorized) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        String etag = cached.etag();
+        ServerHttpRequest conditional = exchange.getRequest().mutate()
+            .headers(headers -> {
+                headers.remove(HttpHeaders.IF_NONE_MATCH);
+                headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                if (etag != null) {
+                    headers.setIfNoneMatch(etag);
+                }
+            })
+            .build();
+        // クライアントへの応答が先に完了するため、リクエストの本文（GETでは空）を読まない
+        ServerHttpRequest request = new ServerHttpRequestDecorator(conditional) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+        RevalidationResponse response = new RevalidationResponse(exchange.getResponse(), maxEntrySize);
+        ServerWebExchange background = exchange.mutate().request(request).response(response).build();
+
+        chain.filter(background)
+            .timeout(revalidateTimeout)
+            .doFinally(signal -> revalidating.remove(key))
+            .subscribe(
+                unused -> { },
+                e -> {
+                    routeCache.revalidationFailed().increment();
+                    log.debug("レスポンスキャッシュの再取得に失敗しました: {}", key, e);
+                },
+                () -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    long now = System.nanoTime();
+                    if (status != null && status.value() == HttpStatus.NOT_MODIFIED.value() && etag != null) {
+                        cache.asMap().replace(key, cached, cached.renew(now));
+                        routeCache.revalidationNotModified().increment();
+                    } else if (status != null && !response.isTooLarge()
+                            && isStorable(status, response.getHeaders(), routeCache.policy(), authorized)
+                            && response.getCookies().isEmpty()) {
+                        store(key, status, response.getHeaders(), response.body(), routeCache.policy());
+                        routeCache.revalidationUpdated().increment();
+                    } else {
+                        // 期限まで古い応答を返し続け、期限切れ後は下流へ転送する
+                        routeCache.revalidationFailed().increment();
+                        log.debug("レスポンスキャッシュの再取得で格納できない応答を受け取りました: {} {}", key, status);
+                    }
+                });
+    }
+
+    /**
+     * 下流の応答を格納できるかどうかを判定する
+     *
+     * @param status ステータス
+     * @param headers 応答ヘッダー
+     * @param policy ルートのレスポンスキャッシュの設定
+     * @param authorized Authorization 付きのリクエストかどうか
+     * @return 格納できる場合はtrue
+     */
+    private static boolean isStorable(HttpStatusCode status, HttpHeaders headers, ResponseCachePolicy policy,
+                                      boolean authorized) {
+        if (status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        CacheDirectives directives = CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        if (directives.noStore() || directives.noCache() || directives.privateOnly()) {
+            return false;
+        }
+        if (authorized && !directives.publicCache() && directives.sharedMaxAge() == null) {
+            return false;
+        }
+        for (String vary : headers.getVary()) {
+            if (policy.varyHeaders().stream().noneMatch(vary::equalsIgnoreCase)) {
+                return false;
+            }
+        }
+        Duration freshness = directives.sharedFreshness() != null ? directives.sharedFreshness() : policy.ttl();
+        return !freshness.isZero();
+    }
+
+    /**
+     * 下流の応答をキャッシュに格納する
+     *
+     * @param key キャッシュのキー
+     * @param status ステータス
+     * @param headers 応答ヘッダー
+     * @param body 本文
+     * @param policy ルートのレスポンスキャッシュの設定
+     */
+    private void store(String key, HttpStatusCode status, HttpHeaders headers, byte[] body,
+                       ResponseCachePolicy policy) {
+        CacheDirectives directives = CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        Duration freshness = directives.sharedFreshness() != null ? directives.sharedFreshness() : policy.ttl();
+        Duration stale = directives.staleWhileRevalidate() != null
+            ? directives.staleWhileRevalidate() : policy.staleWhileRevalidate();
+
+        HttpHeaders stored = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!UNCACHED_HEADERS.contains(lower) && !lower.startsWith(UNCACHED_HEADER_PREFIX)) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        long now = System.nanoTime();
+        long freshUntil = now + freshness.toNanos();
+        cache.put(key, new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(stored), body,
+            now, freshUntil, freshUntil + stale.toNanos()));
+    }
+
+    /**
+     * キャッシュのキーを作成する（ルートID、メソッド、パス、クエリ、指定したリクエストヘッダー）
+     *
+     * @param route ルート
+     * @param request リクエスト
+     * @param policy ルートのレスポンスキャッシュの設定
+     * @return キャッシュのキー
+     */
+    private static String key(Route route, ServerHttpRequest request, ResponseCachePolicy policy) {
+        StringBuilder key = new StringBuilder(128)
+            .append(route.getId()).append(' ')
+            .append(request.getMethod().name()).append(' ')
+            .append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String name : policy.varyHeaders()) {
+            key.append('\n').append(name.toLowerCase(Locale.ROOT)).append(':');
+            List<String> values = request.getHeaders().get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * If-None-Match が ETag と一致するかどうかを判定する（弱い比較）
+     *
+     * @param ifNoneMatch If-None-Match の値
+     * @param etag キャッシュした応答の ETag
+     * @return 一致する場合はtrue
+     */
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        if (etag == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate)
+                    || opaque.equals(candidate.startsWith("W/") ? candidate.substring(2) : candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 古い応答を返せる期限（{@link CachedResponse#staleUntil()}）で期限切れにする
+     * 格納・更新のたびに期限を求め直し、読み取りでは延長しない
+     */
+    private static final class StaleExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return Math.max(0, value.staleUntil() - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * ルートごとの設定とメトリクス
+     *
+     * @param policy レスポンスキャッシュの設定（キャッシュしないルートの場合はnull）
+     * @param hit 有効期限内の応答を返したリクエスト数
+     * @param stale 古い応答を返したリクエスト数
+     * @param miss 下流へ転送したリクエスト数
+     * @param bypass no-store によりキャッシュを使わなかったリクエスト数
+     * @param revalidationNotModified 裏での再検証で304を受け取った回数
+     * @param revalidationUpdated 裏での再取得で応答を更新した回数
+     * @param revalidationFailed 裏での再取得に失敗した回数
+     */
+    private record RouteCache(ResponseCachePolicy policy, Counter hit, Counter stale, Counter miss, Counter bypass,
+                              Counter revalidationNotModified, Counter revalidationUpdated,
+                              Counter revalidationFailed) {
+
+        /**
+         * ルートのメタデータから設定を作成し、メトリクスを登録する
+         * ストリーミングルート（{@link StreamingRoutes}）は対象外とする
+         *
+         * @param route ルート
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの設定とメトリクス
+         */
+        static RouteCache of(Route route, MeterRegistry meterRegistry) {
+            ResponseCachePolicy policy = ResponseCachePolicy.fromMetadata(route.getMetadata()).orElse(null);
+            if (policy == null || StreamingRoutes.isStreaming(route)) {
+                return new RouteCache(null, null, null, null, null, null, null, null);
+            }
+            return new RouteCache(policy,
+                requests(meterRegistry, route, "hit"),
+                requests(meterRegistry, route, "stale"),
+                requests(meterRegistry, route, "miss"),
+                requests(meterRegistry, route, "bypass"),
+                revalidations(meterRegistry, route, "not-modified"),
+                revalidations(meterRegistry, route, "updated"),
+                revalidations(meterRegistry, route, "failed"));
+        }
+
+        private static Counter requests(MeterRegistry meterRegistry, Route route, String result) {
+            return Counter.builder("gateway.response-cache.requests")
+                .description("レスポンスキャッシュの利用結果ごとのリクエスト数")
+                .tag("route", route.getId())
+                .tag("result", result)
+                .register(meterRegistry);
+        }
+
+        private static Counter revalidations(MeterRegistry meterRegistry, Route route, String outcome) {
+            return Counter.builder("gateway.response-cache.revalidations")
+                .description("古い応答を返している間の裏での再取得の結果")
+                .tag("route", route.getId())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.vercel.apigateway.cache;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ルートごとのレスポンスキャッシュ
+ * ルートのメタデータ {@code response-cache} に指定する
+ * <pre>
+ * metadata:
+ *   response-cache:
+ *     ttl: 30s                       # 下流が max-age / s-maxage を返さない場合の有効期間
+ *     stale-while-revalidate: 5m     # 期限切れ後、古い応答を返しながら裏で再取得する期間
+ *     vary-headers: Accept, Accept-Language   # キーに含めるリクエストヘッダー
+ * </pre>
+ *
+ * @param ttl 有効期間
+ * @param staleWhileRevalidate 期限切れ後に古い応答を返す期間
+ * @param varyHeaders キーに含めるリクエストヘッダー
+ */
+public record ResponseCachePolicy(Duration ttl, Duration staleWhileRevalidate, List<String> varyHeaders) {
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "response-cache";
+
+    /**
+     * ルートのメタデータからレスポンスキャッシュの設定を作成する
+     *
+     * @param metadata ルートのメタデータ
+     * @return レスポンスキャッシュの設定（{@code response-cache} が指定されていない場合は空）
+     * @throws IllegalArgumentException 指定値が不正な場合
+     */
+    public static Optional<ResponseCachePolicy> fromMetadata(Map<String, Object> metadata) {
+        if (!(metadata.get(METADATA_KEY) instanceof Map<?, ?> settings)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ResponseCachePolicy(
+            duration(settings.get("ttl"), Duration.ZERO),
+            duration(settings.get("stale-while-revalidate"), Duration.ZERO),
+            names(settings.get("vary-headers"))));
+    }
+
+    /**
+     * メタデータの期間を解析する（30s などの文字列、または秒数）
+     *
+     * @param value 値
+     * @param defaultValue 指定がない場合の値
+     * @return 期間
+     */
+    private static Duration duration(Object value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number seconds) {
+            return Duration.ofSeconds(seconds.longValue());
+        }
+        return DurationStyle.detectAndParse(value.toString().trim());
+    }
+
+    /**
+     * メタデータのヘッダー名の一覧を解析する（カンマ区切りの文字列、またはYAMLのリスト）
+     *
+     * @param value 値
+     * @return ヘッダー名
+     */
+    private static List<String> names(Object value) {
+        List<String> names = new ArrayList<>();
+        if (value instanceof Map<?, ?> indexed) {
+            // YAMLのリストはメタデータでは添字をキーとするMapになる
+            indexed.values().forEach(name -> names.addAll(names(name)));
+        } else if (value instanceof Collection<?> list) {
+            list.forEach(name -> names.addAll(names(name)));
+        } else if (value != null) {
+            for (String name : value.toString().split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        return List.copyOf(names);
+    }
+}
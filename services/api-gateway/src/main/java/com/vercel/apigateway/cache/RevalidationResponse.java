@@ -0,0 +1,145 @@
+package com.vercel.apigateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 裏での再検証に使う応答
+ * クライアントには古い応答を返し終えているため、下流の応答はクライアントに転送せずにステータス・ヘッダー・本文を保持する
+ * 本文が maxEntrySize を超える場合は保持しない（{@link #isTooLarge()}）
+ */
+class RevalidationResponse extends ServerHttpResponseDecorator {
+
+    /** 下流の応答ヘッダー */
+    private final HttpHeaders headers = new HttpHeaders();
+
+    /** 下流の応答のCookie（格納しない応答の判定のみに使う） */
+    private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+
+    /** 保持する本文の上限（バイト） */
+    private final int maxEntrySize;
+
+    /** 下流の応答のステータス */
+    private volatile HttpStatusCode status;
+
+    /** 下流の応答の本文 */
+    private volatile byte[] body = new byte[0];
+
+    /** 本文が上限を超えたかどうか */
+    private volatile boolean tooLarge;
+
+    /** 応答を受け取り終えたかどうか */
+    private volatile boolean committed;
+
+    /**
+     * コンストラクタ
+     *
+     * @param delegate クライアントへの応答（バッファの作成のみに使う）
+     * @param maxEntrySize 保持する本文の上限（バイト）
+     */
+    RevalidationResponse(ServerHttpResponse delegate, int maxEntrySize) {
+        super(delegate);
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+        this.status = status;
+        return true;
+    }
+
+    @Override
+    public boolean setRawStatusCode(Integer value) {
+        this.status = value != null ? HttpStatusCode.valueOf(value) : null;
+        return true;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return status;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public void addCookie(ResponseCookie cookie) {
+        cookies.add(cookie.getName(), cookie);
+    }
+
+    @Override
+    public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        // クライアントには送信しないため不要
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        committed = true;
+        return DataBufferUtils.join(Flux.from(body), maxEntrySize)
+            .doOnNext(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                this.body = bytes;
+            })
+            .onErrorResume(DataBufferLimitException.class, e -> {
+                tooLarge = true;
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        committed = true;
+        return Mono.empty();
+    }
+
+    /**
+     * 下流の応答の本文を取得する
+     *
+     * @return 本文
+     */
+    byte[] body() {
+        return body;
+    }
+
+    /**
+     * 本文が上限を超えたかどうかを判定する
+     *
+     * @return 上限を超えた場合はtrue
+     */
+    boolean isTooLarge() {
+        return tooLarge;
+    }
+}
@@ -0,0 +1,363 @@
+package com.vercel.apigateway.composition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * APIコンポジションのフィルター
+ * メタデータ {@code compose} を指定したルートのみを対象とし（{@link CompositionPolicy}）、下流への転送の代わりに
+ * 指定した下流のサービスを並行に呼び出して（{@link Mono#zip}）、応答のJSONを呼び出しの名前をキーとする1つのJSONにまとめて返す。
+ * 所要時間は呼び出しの合計ではなく、最も遅い呼び出し（最長でそのタイムアウト）となる
+ * <ul>
+ *   <li>失敗した呼び出し（タイムアウト・4xx・5xx・接続エラー）の値は null とし、{@code errors} に理由を付ける</li>
+ *   <li>required の呼び出しが失敗した場合は全体を失敗とする（下流の4xxはそのステータス、タイムアウトは504、それ以外は502）</li>
+ *   <li>required でない呼び出しのみが失敗した場合は、部分的な結果を200で返す（X-Partial-Result ヘッダーを付け、キャッシュさせない）</li>
+ * </ul>
+ * 認証・レート制限・サーキットブレーカーなどはルートに指定したものが通常のルートと同じく適用され、
+ * 認証済みの利用者（X-User-* ヘッダー）などの forwarded-headers を各呼び出しに転送する
+ */
+public class CompositionFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(CompositionFilter.class);
+
+    /** フィルターの順序（サーキットブレーカー・バルクヘッドの内側、下流への転送より前） */
+    public static final int ORDER = 100;
+
+    /** 部分的な結果であることを示すヘッダー */
+    public static final String PARTIAL_HEADER = "X-Partial-Result";
+
+    /** 下流の呼び出しに使うクライアント（lb:// のサービスIDをロードバランサーで解決する） */
+    private final WebClient webClient;
+
+    /** JSONの読み書き */
+    private final ObjectMapper objectMapper;
+
+    /** 下流の呼び出しに転送するリクエストヘッダー */
+    private final List<String> forwardedHeaders;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** ルートIDごとの設定とメトリクス */
+    private final Map<String, RouteComposition> routes = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param webClient 下流の呼び出しに使うクライアント（ロードバランサーのフィルター付き）
+     * @param objectMapper JSONの読み書き
+     * @param forwardedHeaders 下流の呼び出しに転送するリクエストヘッダー
+     * @param meterRegistry メトリクスの登録先
+     */
+    public CompositionFilter(WebClient webClient, ObjectMapper objectMapper, List<String> forwardedHeaders,
+                             MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.forwardedHeaders = List.copyOf(forwardedHeaders);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RouteComposition composition = routes.computeIfAbsent(route.getId(),
+            id -> RouteComposition.of(route, meterRegistry));
+        if (composition.policy() == null) {
+            return chain.filter(exchange);
+        }
+
+        Map<String, String> variables = variables(exchange);
+        HttpHeaders headers = forwardedHeaders(exchange.getRequest().getHeaders());
+        List<Mono<CallResult>> calls = new ArrayList<>();
+        for (RouteCall call : composition.calls()) {
+            calls.add(call(call, variables, headers));
+        }
+        // 各呼び出しは失敗しても結果を返すため、zip は全ての呼び出しが終わるまで待つ
+        return Mono.zip(calls, this::merge)
+            .flatMap(composed -> write(exchange, composed));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとの設定を作り直す
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routes.clear();
+    }
+
+    /**
+     * URIテンプレートの変数を求める（パスの変数を優先し、次にクエリパラメータの最初の値）
+     *
+     * @param exchange リクエスト
+     * @return 変数
+     */
+    private static Map<String, String> variables(ServerWebExchange exchange) {
+        Map<String, String> variables = new HashMap<>(exchange.getRequest().getQueryParams().toSingleValueMap());
+        variables.putAll(ServerWebExchangeUtils.getUriTemplateVariables(exchange));
+        return variables;
+    }
+
+    /**
+     * 下流の呼び出しに転送するリクエストヘッダーを取り出す
+     * 認証フィルターが書き換えた後のヘッダー（X-User-* を付け、Authorization を取り除いたもの）から取り出す
+     *
+     * @param requestHeaders リクエストヘッダー
+     * @return 転送するヘッダー
+     */
+    private HttpHeaders forwardedHeaders(HttpHeaders requestHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : forwardedHeaders) {
+            List<String> values = requestHeaders.get(name);
+            if (values != null) {
+                headers.addAll(name, values);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 下流を1件呼び出す（失敗した場合も例外にせず、失敗の結果を返す）
+     *
+     * @param routeCall 呼び出しとメトリクス
+     * @param variables URIテンプレートの変数
+     * @param headers 転送するリクエストヘッダー
+     * @return 呼び出しの結果
+     */
+    private Mono<CallResult> call(RouteCall routeCall, Map<String, String> variables, HttpHeaders headers) {
+        CompositionPolicy.Call call = routeCall.call();
+        URI uri;
+        try {
+            // 変数の値は / なども含めてエンコードし、呼び出すパスを変えられないようにする
+            uri = UriComponentsBuilder.fromUriString(call.uri())
+                .scheme("http")
+                .encode()
+                .buildAndExpand(variables)
+                .toUri();
+        } catch (IllegalArgumentException e) {
+            routeCall.error().record(0, TimeUnit.NANOSECONDS);
+            return Mono.just(CallResult.failed(call, HttpStatus.BAD_REQUEST, "URIの変数が指定されていません"));
+        }
+
+        long start = System.nanoTime();
+        return webClient.get()
+            .uri(uri)
+            .headers(h -> h.addAll(headers))
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .defaultIfEmpty(NullNode.getInstance())
+            .timeout(call.timeout())
+            .map(body -> {
+                routeCall.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return CallResult.succeeded(call, body);
+            })
+            .onErrorResume(e -> {
+                long elapsed = System.nanoTime() - start;
+                if (e instanceof TimeoutException) {
+                    routeCall.timeout().record(elapsed, TimeUnit.NANOSECONDS);
+                    return Mono.just(CallResult.failed(call, HttpStatus.GATEWAY_TIMEOUT, "タイムアウトしました"));
+                }
+                routeCall.error().record(elapsed, TimeUnit.NANOSECONDS);
+                if (e instanceof WebClientResponseException response) {
+                    return Mono.just(CallResult.failed(call, response.getStatusCode(),
+                        "下流が " + response.getStatusCode().value() + " を返しました"));
+                }
+                log.debug("コンポジションの呼び出しに失敗しました: call={}, uri={}, error={}", call.name(), uri, e.toString());
+                return Mono.just(CallResult.failed(call, HttpStatus.BAD_GATEWAY, "下流を呼び出せませんでした"));
+            });
+    }
+
+    /**
+     * 呼び出しの結果を1つのJSONにまとめる
+     *
+     * @param results 呼び出しの結果（{@link CallResult}、指定した順）
+     * @return まとめた結果
+     */
+    private Composed merge(Object[] results) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode errors = objectMapper.createObjectNode();
+        HttpStatusCode status = HttpStatus.OK;
+        boolean failed = false;
+        for (Object value : results) {
+            CallResult result = (CallResult) value;
+            String name = result.call().name();
+            body.set(name, result.body());
+            if (result.status() == null) {
+                continue;
+            }
+            errors.putObject(name)
+                .put("status", result.status().value())
+                .put("error", result.error());
+            if (result.call().required() && !failed) {
+                status = failureStatus(result.status());
+                failed = true;
+            }
+        }
+        if (!errors.isEmpty()) {
+            body.set(CompositionPolicy.ERRORS_KEY, errors);
+        }
+        return new Composed(status, !errors.isEmpty(), body);
+    }
+
+    /**
+     * required の呼び出しが失敗した場合の全体のステータスを求める
+     *
+     * @param status 呼び出しのステータス
+     * @return 下流の4xx・504はそのまま、それ以外は502
+     */
+    private static HttpStatusCode failureStatus(HttpStatusCode status) {
+        if (status.is4xxClientError() || status.value() == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            return status;
+        }
+        return HttpStatus.BAD_GATEWAY;
+    }
+
+    /**
+     * まとめた結果をクライアントに返す
+     *
+     * @param exchange リクエスト
+     * @param composed まとめた結果
+     * @return 応答の完了
+     */
+    private Mono<Void> write(ServerWebExchange exchange, Composed composed) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(composed.status());
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (composed.partial()) {
+            headers.setCacheControl(CacheControl.noStore());
+            if (composed.status().is2xxSuccessful()) {
+                headers.set(PARTIAL_HEADER, "true");
+            }
+        }
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(composed.body()))
+            .flatMap(bytes -> {
+                headers.setContentLength(bytes.length);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+            });
+    }
+
+    /**
+     * 呼び出しの結果
+     *
+     * @param call 呼び出し
+     * @param body 応答のJSON（失敗した場合は null のJSON）
+     * @param status 失敗した場合のステータス（成功した場合はnull）
+     * @param error 失敗の理由（成功した場合はnull）
+     */
+    private record CallResult(CompositionPolicy.Call call, JsonNode body, HttpStatusCode status, String error) {
+
+        static CallResult succeeded(CompositionPolicy.Call call, JsonNode body) {
+            return new CallResult(call, body, null, null);
+        }
+
+        static CallResult failed(CompositionPolicy.Call call, HttpStatusCode status, String error) {
+            return new CallResult(call, NullNode.getInstance(), status, error);
+        }
+    }
+
+    /**
+     * まとめた結果
+     *
+     * @param status 応答のステータス
+     * @param partial 失敗した呼び出しがあるかどうか
+     * @param body まとめたJSON
+     */
+    private record Composed(HttpStatusCode status, boolean partial, ObjectNode body) {
+    }
+
+    /**
+     * 呼び出しとメトリクス
+     *
+     * @param call 呼び出し
+     * @param success 成功した呼び出しの所要時間
+     * @param timeout タイムアウトした呼び出しの所要時間
+     * @param error 失敗した呼び出しの所要時間
+     */
+    private record RouteCall(CompositionPolicy.Call call, Timer success, Timer timeout, Timer error) {
+    }
+
+    /**
+     * ルートごとの設定とメトリクス
+     *
+     * @param policy 設定（対象外のルートの場合はnull）
+     * @param calls 呼び出しとメトリクス
+     */
+    private record RouteComposition(CompositionPolicy policy, List<RouteCall> calls) {
+
+        /**
+         * ルートのメタデータから設定を作成し、メトリクスを登録する
+         *
+         * @param route ルート
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの設定とメトリクス
+         */
+        static RouteComposition of(Route route, MeterRegistry meterRegistry) {
+            CompositionPolicy policy = CompositionPolicy.fromMetadata(route.getMetadata()).orElse(null);
+            if (policy == null) {
+                return new RouteComposition(null, List.of());
+            }
+            List<RouteCall> calls = new ArrayList<>();
+            for (CompositionPolicy.Call call : policy.calls()) {
+                calls.add(new RouteCall(call,
+                    timer(meterRegistry, route, call, "success"),
+                    timer(meterRegistry, route, call, "timeout"),
+                    timer(meterRegistry, route, call, "error")));
+            }
+            return new RouteComposition(policy, calls);
+        }
+
+        private static Timer timer(MeterRegistry meterRegistry, Route route, CompositionPolicy.Call call,
+                                   String outcome) {
+            return Timer.builder("gateway.composition.calls")
+                .description("コンポジションの下流の呼び出しの所要時間")
+                .tag("route", route.getId())
+                .tag("call", call.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
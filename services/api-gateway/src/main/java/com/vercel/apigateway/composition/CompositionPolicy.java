@@ -0,0 +1,112 @@
+package com.vercel.apigateway.composition;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ルートごとのAPIコンポジション（下流のサービスを並行に呼び出し、応答のJSONを1つにまとめる）
+ * ルートのメタデータ {@code compose} に、呼び出しの名前（まとめたJSONのキー）ごとに指定する
+ * <pre>
+ * metadata:
+ *   compose:
+ *     user:
+ *       uri: lb://user-service/{userId}          # 呼び出す下流（{名前} はパスの変数・クエリパラメータで置き換える）
+ *       timeout: 500ms                           # 応答を待つ時間（超えた呼び出しは失敗とする）
+ *       required: true                           # 失敗した場合に全体を失敗とするかどうか（既定は false: 部分的な結果を返す）
+ *     product:
+ *       uri: lb://product-service/{productId}
+ *       timeout: 800ms
+ * </pre>
+ *
+ * @param calls 呼び出し（指定した順）
+ */
+public record CompositionPolicy(List<Call> calls) {
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "compose";
+
+    /** まとめたJSONで失敗した呼び出しの理由を格納するキー（呼び出しの名前には使えない） */
+    public static final String ERRORS_KEY = "errors";
+
+    /** 呼び出しの既定のタイムアウト */
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+
+    public CompositionPolicy {
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("compose に呼び出しを1つ以上指定してください");
+        }
+        calls = List.copyOf(calls);
+    }
+
+    /**
+     * ルートのメタデータからコンポジションの設定を作成する
+     *
+     * @param metadata ルートのメタデータ
+     * @return コンポジションの設定（{@code compose} が指定されていない場合は空）
+     * @throws IllegalArgumentException 指定値が不正な場合
+     */
+    public static Optional<CompositionPolicy> fromMetadata(Map<String, Object> metadata) {
+        if (!(metadata.get(METADATA_KEY) instanceof Map<?, ?> settings)) {
+            return Optional.empty();
+        }
+        List<Call> calls = new ArrayList<>();
+        settings.forEach((name, value) -> {
+            Map<?, ?> call = value instanceof Map<?, ?> map ? map : Map.of();
+            Object uri = call.get("uri");
+            if (uri == null) {
+                throw new IllegalArgumentException("compose." + name + " に uri を指定してください");
+            }
+            Object required = call.get("required");
+            calls.add(new Call(name.toString(), uri.toString().trim(),
+                duration(call.get("timeout"), DEFAULT_TIMEOUT),
+                required != null && Boolean.parseBoolean(required.toString().trim())));
+        });
+        return Optional.of(new CompositionPolicy(calls));
+    }
+
+    /**
+     * メタデータの期間を解析する（500ms などの文字列、または response-timeout と同じくミリ秒）
+     *
+     * @param value 値
+     * @param defaultValue 指定がない場合の値
+     * @return 期間
+     */
+    private static Duration duration(Object value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number millis) {
+            return Duration.ofMillis(millis.longValue());
+        }
+        return DurationStyle.detectAndParse(value.toString().trim());
+    }
+
+    /**
+     * 下流の呼び出し
+     *
+     * @param name 呼び出しの名前（まとめたJSONのキー）
+     * @param uri 呼び出す下流のURIテンプレート（lb://サービスID/パス）
+     * @param timeout 応答を待つ時間
+     * @param required 失敗した場合に全体を失敗とするかどうか
+     */
+    public record Call(String name, String uri, Duration timeout, boolean required) {
+
+        public Call {
+            if (ERRORS_KEY.equals(name)) {
+                throw new IllegalArgumentException("compose の呼び出しの名前に " + ERRORS_KEY + " は使えません");
+            }
+            if (!"lb".equalsIgnoreCase(URI.create(uri.replaceAll("\\{[^}]*}", "x")).getScheme())) {
+                throw new IllegalArgumentException("compose." + name + ".uri は lb://サービスID/パス で指定してください: " + uri);
+            }
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("compose." + name + ".timeout は0より大きい値を指定してください: " + timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.auth.JwtAuthFilter;
+import com.vercel.apigateway.auth.JwtTokenVerifier;
+import com.vercel.apigateway.auth.LocalTokenRevocationList;
+import com.vercel.apigateway.auth.RedisTokenRevocationList;
+import com.vercel.apigateway.auth.TokenRevocationEndpoint;
+import com.vercel.apigateway.auth.TokenRevocationList;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * アクセストークンの認証の設定クラス
+ * 失効リストは {@code gateway.auth.revocation-store} が {@code local}（既定）の場合はプロセス内、
+ * {@code redis} の場合はRedisで全レプリカと共有する
+ */
+@Configuration
+@EnableConfigurationProperties(AuthProperties.class)
+@ConditionalOnProperty(name = "gateway.auth.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthConfig {
+
+    /** HMAC-SHA256 の鍵の最小の長さ（バイト、RFC 7518 3.2） */
+    private static final int MIN_SECRET_BYTES = 32;
+
+    @Bean
+    public JwtTokenVerifier jwtTokenVerifier(@Value("${jwt.secret}") String secret, AuthProperties properties,
+                                             MeterRegistry meterRegistry) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("jwt.secret（JWT_SECRET）は" + MIN_SECRET_BYTES + "バイト以上を指定してください: "
+                + key.length + "バイト");
+        }
+        JwtTokenVerifier verifier = new JwtTokenVerifier(Keys.hmacShaKeyFor(key), properties.getIssuer(),
+            properties.getClockSkew(), properties.getCacheMaximumSize(), properties.getCacheMaxTtl());
+        CaffeineCacheMetrics.monitor(meterRegistry, verifier.cache(), "gateway.auth.tokens");
+        return verifier;
+    }
+
+    @Bean
+    public JwtAuthFilter jwtAuthFilter(JwtTokenVerifier jwtTokenVerifier, TokenRevocationList tokenRevocationList,
+                                       AuthProperties properties, MeterRegistry meterRegistry) {
+        return new JwtAuthFilter(jwtTokenVerifier, tokenRevocationList, properties.isForwardAuthorization(),
+            meterRegistry);
+    }
+
+    @Bean
+    public TokenRevocationEndpoint tokenRevocationEndpoint(TokenRevocationList tokenRevocationList) {
+        return new TokenRevocationEndpoint(tokenRevocationList);
+    }
+
+    /**
+     * プロセス内に失効リストを保持する設定
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "gateway.auth.revocation-store", havingValue = "local", matchIfMissing = true)
+    static class LocalRevocation {
+
+        @Bean
+        public LocalTokenRevocationList tokenRevocationList(AuthProperties properties, MeterRegistry meterRegistry) {
+            LocalTokenRevocationList revocationList = new LocalTokenRevocationList(properties.getRevocationRetention());
+            Gauge.builder("gateway.auth.revocations", revocationList, LocalTokenRevocationList::size)
+                .description("保持している失効の記録数")
+                .register(meterRegistry);
+            return revocationList;
+        }
+    }
+
+    /**
+     * Redisで失効リストを共有する設定（他のレプリカやユーザーサービスが登録した失効を反映する）
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "gateway.auth.revocation-store", havingValue = "redis")
+    static class RedisRevocation {
+
+        @Bean
+        public RedisTokenRevocationList tokenRevocationList(ReactiveRedisConnectionFactory connectionFactory,
+                                                            AuthProperties properties, MeterRegistry meterRegistry) {
+            RedisTokenRevocationList revocationList = new RedisTokenRevocationList(
+                new ReactiveStringRedisTemplate(connectionFactory), properties.getRedisKeyPrefix(),
+                properties.getRevocationRetention());
+            Gauge.builder("gateway.auth.revocations", revocationList, RedisTokenRevocationList::size)
+                .description("保持している失効の記録数")
+                .register(meterRegistry);
+            return revocationList;
+        }
+    }
+}
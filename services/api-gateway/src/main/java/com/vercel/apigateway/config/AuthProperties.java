@@ -0,0 +1,112 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * アクセストークンの認証の設定
+ * 認証するルートはルートのメタデータ {@code auth}（required / optional）に指定し、署名の検証鍵は {@code jwt.secret} を使う
+ */
+@ConfigurationProperties(prefix = "gateway.auth")
+public class AuthProperties {
+
+    /** 認証を有効にするかどうか */
+    private boolean enabled = true;
+
+    /** 発行者（iss、未指定の場合は検証しない） */
+    private String issuer;
+
+    /** 有効期限の判定で許容する時刻のずれ */
+    private Duration clockSkew = Duration.ofSeconds(30);
+
+    /** 検証済みのトークンをキャッシュする件数の上限 */
+    private long cacheMaximumSize = 100_000;
+
+    /** 検証済みのトークンをキャッシュする最長の期間（有効期限のないトークンはこの期間キャッシュする） */
+    private Duration cacheMaxTtl = Duration.ofHours(1);
+
+    /** Authorization ヘッダーを下流に転送するかどうか（false の場合は X-User-* ヘッダーのみを転送する） */
+    private boolean forwardAuthorization;
+
+    /** 失効リストの格納先（local: プロセス内 / redis: Redisで複数レプリカと共有） */
+    private String revocationStore = "local";
+
+    /** トークンの最長の有効期間（ユーザー単位の失効を保持する期間） */
+    private Duration revocationRetention = Duration.ofDays(1);
+
+    /** Redisのキーとチャンネルの接頭辞 */
+    private String redisKeyPrefix = "token-revocation";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public Duration getClockSkew() {
+        return clockSkew;
+    }
+
+    public void setClockSkew(Duration clockSkew) {
+        this.clockSkew = clockSkew;
+    }
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    public void setCacheMaximumSize(long cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+    }
+
+    public Duration getCacheMaxTtl() {
+        return cacheMaxTtl;
+    }
+
+    public void setCacheMaxTtl(Duration cacheMaxTtl) {
+        this.cacheMaxTtl = cacheMaxTtl;
+    }
+
+    public boolean isForwardAuthorization() {
+        return forwardAuthorization;
+    }
+
+    public void setForwardAuthorization(boolean forwardAuthorization) {
+        this.forwardAuthorization = forwardAuthorization;
+    }
+
+    public String getRevocationStore() {
+        return revocationStore;
+    }
+
+    public void setRevocationStore(String revocationStore) {
+        this.revocationStore = revocationStore;
+    }
+
+    public Duration getRevocationRetention() {
+        return revocationRetention;
+    }
+
+    public void setRevocationRetention(Duration revocationRetention) {
+        this.revocationRetention = revocationRetention;
+    }
+
+    public String getRedisKeyPrefix() {
+        return redisKeyPrefix;
+    }
+
+    public void setRedisKeyPrefix(String redisKeyPrefix) {
+        this.redisKeyPrefix = redisKeyPrefix;
+    }
+}
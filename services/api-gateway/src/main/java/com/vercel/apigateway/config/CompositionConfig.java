@@ -0,0 +1,31 @@
+package com.vercel.apigateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vercel.apigateway.composition.CompositionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * APIコンポジションの設定クラス
+ * 下流の呼び出しには Spring Cloud LoadBalancer のフィルターを付けた WebClient を使い、
+ * lb:// ルートと同じロードバランサー（{@link LoadBalancerConfig}）で転送先を選ぶ
+ */
+@Configuration
+@EnableConfigurationProperties(CompositionProperties.class)
+@ConditionalOnProperty(name = "gateway.composition.enabled", havingValue = "true", matchIfMissing = true)
+public class CompositionConfig {
+
+    @Bean
+    public CompositionFilter compositionFilter(WebClient.Builder webClientBuilder,
+                                               LoadBalancedExchangeFilterFunction loadBalancerFunction,
+                                               ObjectMapper objectMapper, CompositionProperties properties,
+                                               MeterRegistry meterRegistry) {
+        WebClient webClient = webClientBuilder.clone().filter(loadBalancerFunction).build();
+        return new CompositionFilter(webClient, objectMapper, properties.getForwardedHeaders(), meterRegistry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * APIコンポジションの設定
+ * ルートごとの呼び出しはルートのメタデータ {@code compose} に指定する
+ */
+@ConfigurationProperties(prefix = "gateway.composition")
+public class CompositionProperties {
+
+    /** APIコンポジションを有効にするかどうか */
+    private boolean enabled = true;
+
+    /** 下流の呼び出しに転送するリクエストヘッダー（Authorization は gateway.auth.forward-authorization の場合のみ残る） */
+    private List<String> forwardedHeaders = new ArrayList<>(List.of(
+        "X-User-Id", "X-User-Email", "X-User-Roles", "Authorization", "Accept-Language"));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getForwardedHeaders() {
+        return forwardedHeaders;
+    }
+
+    public void setForwardedHeaders(List<String> forwardedHeaders) {
+        this.forwardedHeaders = forwardedHeaders;
+    }
+}
@@ -0,0 +1,46 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.loadbalancer.LoadBalancerScoreController;
+import com.vercel.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.vercel.apigateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import com.vercel.apigateway.loadbalancer.PeakEwmaLoadBalancerLifecycle;
+import com.vercel.apigateway.loadbalancer.PeakEwmaStats;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.actuate.GatewayControllerEndpoint;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * lb:// ルートの転送先の選択の設定クラス
+ * 全サービスのロードバランサーを、既定のラウンドロビンから {@link PeakEwmaLoadBalancer} に置き換える
+ */
+@Configuration
+@EnableConfigurationProperties(LoadBalancerProperties.class)
+@ConditionalOnProperty(name = "gateway.load-balancer.enabled", havingValue = "true", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    @Bean
+    public PeakEwmaStats peakEwmaStats(LoadBalancerProperties properties) {
+        return new PeakEwmaStats(properties.getInitialLatency(), properties.getDecayTime(),
+            properties.getFailurePenalty());
+    }
+
+    @Bean
+    public PeakEwmaLoadBalancerLifecycle peakEwmaLoadBalancerLifecycle(PeakEwmaStats peakEwmaStats) {
+        return new PeakEwmaLoadBalancerLifecycle(peakEwmaStats);
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint(endpoint = GatewayControllerEndpoint.class)
+    public RouterFunction<ServerResponse> loadBalancerScoreRoutes(PeakEwmaStats peakEwmaStats,
+                                                                  WebEndpointProperties webEndpointProperties) {
+        return new LoadBalancerScoreController(peakEwmaStats).routes(webEndpointProperties.getBasePath());
+    }
+}
@@ -0,0 +1,56 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * lb:// ルートの転送先の選択（Peak EWMA + Power of Two Choices）の設定
+ */
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class LoadBalancerProperties {
+
+    /** 応答時間による転送先の選択を有効にするかどうか（false の場合はラウンドロビン） */
+    private boolean enabled = true;
+
+    /** 過去の応答時間を忘れる時間（短いほど直近の遅延に敏感になる） */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /** 観測前のインスタンスの応答時間（追加直後のインスタンスにリクエストが集中しないようにする） */
+    private Duration initialLatency = Duration.ofMillis(50);
+
+    /** 失敗（5xx・接続エラー）した場合に応答時間として記録する最小の値 */
+    private Duration failurePenalty = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getInitialLatency() {
+        return initialLatency;
+    }
+
+    public void setInitialLatency(Duration initialLatency) {
+        this.initialLatency = initialLatency;
+    }
+
+    public Duration getFailurePenalty() {
+        return failurePenalty;
+    }
+
+    public void setFailurePenalty(Duration failurePenalty) {
+        this.failurePenalty = failurePenalty;
+    }
+}
@@ -0,0 +1,64 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.ratelimit.LocalRateLimitStore;
+import com.vercel.apigateway.ratelimit.RateLimitFilter;
+import com.vercel.apigateway.ratelimit.RateLimitStore;
+import com.vercel.apigateway.ratelimit.RedisRateLimitStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * レート制限の設定クラス
+ * {@code gateway.rate-limit.store} が {@code local}（既定）の場合はプロセス内、
+ * {@code redis} の場合はRedisにバケットを格納する
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "gateway.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitStore rateLimitStore, MeterRegistry meterRegistry,
+                                           RateLimitProperties properties) {
+        return new RateLimitFilter(rateLimitStore, meterRegistry, properties);
+    }
+
+    /**
+     * プロセス内にバケットを格納する設定
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "local", matchIfMissing = true)
+    static class LocalStore {
+
+        @Bean
+        public LocalRateLimitStore rateLimitStore(RateLimitProperties properties, MeterRegistry meterRegistry) {
+            LocalRateLimitStore store = new LocalRateLimitStore(
+                properties.getStripes(), properties.getIdleTtl(), properties.getSweepInterval());
+            Gauge.builder("gateway.rate-limit.buckets", store, LocalRateLimitStore::size)
+                .description("プロセス内に保持しているトークンバケット数")
+                .register(meterRegistry);
+            return store;
+        }
+    }
+
+    /**
+     * Redisにバケットを格納する設定（複数レプリカで制限を共有する）
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "gateway.rate-limit.store", havingValue = "redis")
+    static class RedisStore {
+
+        @Bean
+        public RateLimitStore rateLimitStore(ReactiveRedisConnectionFactory connectionFactory,
+                                             RateLimitProperties properties) {
+            return new RedisRateLimitStore(new ReactiveStringRedisTemplate(connectionFactory),
+                properties.getRedisKeyPrefix());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * レート制限の設定
+ * 制限値はルートのメタデータ {@code rate-limit} に指定し、ここではバケットの格納先とクライアントの識別方法を指定する
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    /** レート制限を有効にするかどうか */
+    private boolean enabled = true;
+
+    /** バケットの格納先（local: プロセス内 / redis: Redisで複数レプリカと共有） */
+    private String store = "local";
+
+    /** クライアントを識別するヘッダー（認証済みの場合はユーザーID、未指定またはヘッダーがない場合は接続元IPアドレス） */
+    private String clientHeader;
+
+    /** X-Forwarded-For のうち信頼するプロキシの段数（0の場合は接続元アドレスをそのまま使う） */
+    private int trustedProxies;
+
+    /** プロセス内の格納先のストライプ数 */
+    private int stripes = 64;
+
+    /** 満杯に戻ってからバケットを削除するまでの時間 */
+    private Duration idleTtl = Duration.ofMinutes(1);
+
+    /** バケットを削除する間隔 */
+    private Duration sweepInterval = Duration.ofSeconds(30);
+
+    /** Redisのキーの接頭辞 */
+    private String redisKeyPrefix = "rate-limit";
+
+    /** 格納先の障害時にリクエストを受け付けるかどうか（falseの場合は503を返す） */
+    private boolean failOpen = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public String getClientHeader() {
+        return clientHeader;
+    }
+
+    public void setClientHeader(String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    public int getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(int trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public Duration getIdleTtl() {
+        return idleTtl;
+    }
+
+    public void setIdleTtl(Duration idleTtl) {
+        this.idleTtl = idleTtl;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public String getRedisKeyPrefix() {
+        return redisKeyPrefix;
+    }
+
+    public void setRedisKeyPrefix(String redisKeyPrefix) {
+        this.redisKeyPrefix = redisKeyPrefix;
+    }
+
+    public boolean isFailOpen() {
+        return failOpen;
+    }
+
+    public void setFailOpen(boolean failOpen) {
+        this.failOpen = failOpen;
+    }
+}
@@ -0,0 +1,49 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.resilience.HedgingFilter;
+import com.vercel.apigateway.resilience.ResilienceFilter;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * サーキットブレーカー・バルクヘッド・ヘッジリクエストの設定クラス
+ * サーキットブレーカーとバルクヘッドの状態は resilience4j.circuitbreaker.*・resilience4j.bulkhead.* のメトリクス（name はルートID）で確認できる
+ */
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.resilience.enabled", havingValue = "true", matchIfMissing = true)
+    public ResilienceFilter resilienceFilter(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        return new ResilienceFilter(circuitBreakerRegistry, bulkheadRegistry, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.resilience.hedging-enabled", havingValue = "true", matchIfMissing = true)
+    public HedgingFilter hedgingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                       LoadBalancerClientFactory loadBalancerClientFactory,
+                                       HttpClientProperties httpClientProperties, ResilienceProperties properties,
+                                       MeterRegistry meterRegistry) {
+        return new HedgingFilter(httpClient, () -> headersFilters.getIfAvailable(List::of), loadBalancerClientFactory,
+            httpClientProperties.getResponseTimeout(), properties.getHedgeMinSamples(), meterRegistry);
+    }
+}
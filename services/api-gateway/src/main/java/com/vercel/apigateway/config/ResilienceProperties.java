@@ -0,0 +1,44 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * サーキットブレーカー・バルクヘッド・ヘッジリクエストの設定
+ * ルートごとの値はルートのメタデータ {@code circuit-breaker}・{@code bulkhead}・{@code fallback}・{@code hedge} に指定する
+ */
+@ConfigurationProperties(prefix = "gateway.resilience")
+public class ResilienceProperties {
+
+    /** サーキットブレーカー・バルクヘッドを有効にするかどうか */
+    private boolean enabled = true;
+
+    /** ヘッジリクエストを有効にするかどうか */
+    private boolean hedgingEnabled = true;
+
+    /** 応答時間のパーセンタイルからヘッジの待ち時間を求める最小の観測数（それまでは max-delay） */
+    private long hedgeMinSamples = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    public long getHedgeMinSamples() {
+        return hedgeMinSamples;
+    }
+
+    public void setHedgeMinSamples(long hedgeMinSamples) {
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+}
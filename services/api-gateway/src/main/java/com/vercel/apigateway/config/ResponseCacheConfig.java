@@ -0,0 +1,24 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.cache.ResponseCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * レスポンスキャッシュの設定クラス
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+@ConditionalOnProperty(name = "gateway.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        return new ResponseCacheFilter(properties.getMaximumSize().toBytes(),
+            (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes()),
+            properties.getRevalidateTimeout(), meterRegistry);
+    }
+}
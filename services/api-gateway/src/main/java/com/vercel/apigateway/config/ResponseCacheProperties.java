@@ -0,0 +1,58 @@
+package com.vercel.apigateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * レスポンスキャッシュの設定
+ * キャッシュするルートと有効期間はルートのメタデータ {@code response-cache} に指定し、ここではキャッシュ全体の容量を指定する
+ */
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /** レスポンスキャッシュを有効にするかどうか */
+    private boolean enabled = true;
+
+    /** キャッシュの容量（本文とヘッダーの合計） */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    /** 格納する本文の上限（超える応答は転送のみ行う） */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /** 古い応答を返している間の裏での再取得のタイムアウト */
+    private Duration revalidateTimeout = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(DataSize maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public Duration getRevalidateTimeout() {
+        return revalidateTimeout;
+    }
+
+    public void setRevalidateTimeout(Duration revalidateTimeout) {
+        this.revalidateTimeout = revalidateTimeout;
+    }
+}
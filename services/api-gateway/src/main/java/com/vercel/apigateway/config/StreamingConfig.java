@@ -0,0 +1,21 @@
+package com.vercel.apigateway.config;
+
+import com.vercel.apigateway.streaming.StreamingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ストリーミングルート（メタデータ {@code streaming: true}）の設定クラス
+ * 無効にした場合も、ストリーミングルートはレスポンスキャッシュ・ヘッジリクエストの対象外のままとなる
+ */
+@Configuration
+@ConditionalOnProperty(name = "gateway.streaming.enabled", havingValue = "true", matchIfMissing = true)
+public class StreamingConfig {
+
+    @Bean
+    public StreamingFilter streamingFilter(MeterRegistry meterRegistry) {
+        return new StreamingFilter(meterRegistry);
+    }
+}
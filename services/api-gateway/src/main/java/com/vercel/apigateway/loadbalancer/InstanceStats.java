@@ -0,0 +1,133 @@
+package com.vercel.apigateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * インスタンスごとの処理中のリクエスト数と応答時間（Peak EWMA）
+ * 応答時間は直近の平均より遅い応答があれば即座にその値まで上げ（peak）、速い応答では時間で重み付けした指数移動平均で下げる
+ * 重みは前回の観測からの経過時間に応じて exp(-経過時間 / decayTime) とし、リクエストの頻度によらず decayTime で過去の観測を忘れる
+ * 参照時も同じ重みで0に向けて減衰させ、遅かったためにリクエストが来なくなったインスタンスにも、時間が経てば再び割り振る
+ * 統計値のため、観測の更新のみを同期し、参照は同期しない
+ */
+public final class InstanceStats {
+
+    /** インスタンスID */
+    private final String instanceId;
+
+    /** ホスト */
+    private final String host;
+
+    /** ポート */
+    private final int port;
+
+    /** 過去の観測を忘れる時間（ナノ秒） */
+    private final double decayNanos;
+
+    /** 処理中のリクエスト数 */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** 応答時間の移動平均（ナノ秒） */
+    private volatile double ewma;
+
+    /** 移動平均を更新した時刻（{@link System#nanoTime()}） */
+    private volatile long stamp;
+
+    /**
+     * コンストラクタ
+     *
+     * @param instanceId インスタンスID
+     * @param host ホスト
+     * @param port ポート
+     * @param initialLatencyNanos 観測前の応答時間（ナノ秒）
+     * @param decayNanos 過去の観測を忘れる時間（ナノ秒）
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     */
+    InstanceStats(String instanceId, String host, int port, long initialLatencyNanos, long decayNanos, long now) {
+        this.instanceId = instanceId;
+        this.host = host;
+        this.port = port;
+        this.decayNanos = Math.max(1, decayNanos);
+        this.ewma = initialLatencyNanos;
+        this.stamp = now;
+    }
+
+    /**
+     * リクエストの転送開始を記録する
+     */
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * リクエストの完了を記録する
+     *
+     * @param latencyNanos 応答時間（ナノ秒、失敗した場合はペナルティを加えた値）
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     */
+    public void complete(long latencyNanos, long now) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            double current = ewma;
+            if (latencyNanos > current) {
+                ewma = latencyNanos;
+            } else {
+                double weight = weight(now);
+                ewma = current * weight + latencyNanos * (1 - weight);
+            }
+            stamp = now;
+        }
+    }
+
+    /**
+     * 応答時間の移動平均を取得する（前回の観測からの経過時間だけ減衰させる）
+     *
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     * @return 応答時間（ナノ秒）
+     */
+    public double latency(long now) {
+        return ewma * weight(now);
+    }
+
+    /**
+     * 負荷のスコアを求める（小さいほど空いている）
+     * 応答時間 ×（処理中のリクエスト数 + 1）で、次のリクエストが完了するまでの見込みの時間を表す
+     *
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     * @return スコア
+     */
+    public double score(long now) {
+        return latency(now) * (inFlight.get() + 1);
+    }
+
+    /**
+     * 処理中のリクエスト数を取得する
+     *
+     * @return リクエスト数
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /**
+     * 前回の観測からの経過時間に応じた重みを求める
+     *
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     * @return 重み（0〜1）
+     */
+    private double weight(long now) {
+        long elapsed = Math.max(0, now - stamp);
+        return Math.exp(-elapsed / decayNanos);
+    }
+}
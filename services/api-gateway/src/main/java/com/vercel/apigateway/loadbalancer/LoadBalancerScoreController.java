@@ -0,0 +1,48 @@
+package com.vercel.apigateway.loadbalancer;
+
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * インスタンスごとの負荷のスコアを、Actuatorの gateway エンドポイント配下に表示する
+ * （GET /actuator/gateway/loadbalancer、gateway エンドポイントを公開している場合のみ）
+ * コンポーネントスキャンの対象にせず、LoadBalancerConfig が {@link #routes(String)} を登録する
+ */
+public class LoadBalancerScoreController {
+
+    /** インスタンスごとの負荷の統計 */
+    private final PeakEwmaStats stats;
+
+    /**
+     * コンストラクタ
+     *
+     * @param stats インスタンスごとの負荷の統計
+     */
+    public LoadBalancerScoreController(PeakEwmaStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * スコアを表示するルートを作成する
+     *
+     * @param basePath Actuatorのエンドポイントのベースパス（例: /actuator）
+     * @return ルート
+     */
+    public RouterFunction<ServerResponse> routes(String basePath) {
+        return RouterFunctions.route(RequestPredicates.GET(basePath + "/gateway/loadbalancer"), this::scores);
+    }
+
+    /**
+     * サービスごとに、インスタンスの処理中のリクエスト数・応答時間（ミリ秒）・スコアをスコアの小さい順に取得する
+     *
+     * @param request リクエスト
+     * @return サービスIDごとのインスタンスの統計
+     */
+    Mono<ServerResponse> scores(ServerRequest request) {
+        return ServerResponse.ok().bodyValue(stats.snapshot());
+    }
+}
@@ -0,0 +1,99 @@
+package com.vercel.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 応答時間（Peak EWMA）と処理中のリクエスト数で転送先を選ぶロードバランサー
+ * インスタンスを無作為に2つ選び、スコア（{@link InstanceStats#score(long)}）の小さい方に転送する（Power of Two Choices）
+ * 全インスタンスの最小を選ばないことで、スコアの更新が追いつくまでに同じインスタンスへ集中することを避ける
+ * GC・ノイジーネイバーなどで遅くなったインスタンスはスコアが上がって選ばれにくくなり、回復すると時間とともに戻る
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /** サービスID */
+    private final String serviceId;
+
+    /** インスタンス一覧 */
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+
+    /** インスタンスごとの負荷の統計 */
+    private final PeakEwmaStats stats;
+
+    /** 最後に統計を整理したインスタンス一覧 */
+    private volatile List<ServiceInstance> lastInstances;
+
+    /**
+     * コンストラクタ
+     *
+     * @param supplierProvider インスタンス一覧
+     * @param serviceId サービスID
+     * @param stats インスタンスごとの負荷の統計
+     */
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                PeakEwmaStats stats) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    // ReactorLoadBalancer#choose の引数が型引数のない Request で宣言されているため、同じ型でオーバーライドする
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    /**
+     * インスタンス一覧から転送先を選ぶ
+     *
+     * @param instances インスタンス一覧
+     * @return 転送先
+     */
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances != lastInstances) {
+            // インスタンス一覧はキャッシュされ、更新されたときのみ別のリストになる
+            lastInstances = instances;
+            stats.retain(serviceId, instances);
+        }
+        int size = instances.size();
+        if (size == 0) {
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        long now = System.nanoTime();
+        double scoreA = stats.get(serviceId, a).score(now);
+        double scoreB = stats.get(serviceId, b).score(now);
+        return new DefaultResponse(scoreA <= scoreB ? a : b);
+    }
+}
@@ -0,0 +1,95 @@
+package com.vercel.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Map;
+
+/**
+ * 転送の開始・完了を {@link PeakEwmaStats} に記録するロードバランサーのライフサイクル
+ * 開始時刻と転送先の統計はリクエストの属性に格納し、完了時に応答時間（本文の転送を含む）として記録する
+ * 5xxの応答と接続エラーは失敗として扱い、ペナルティの応答時間を記録する
+ */
+public class PeakEwmaLoadBalancerLifecycle
+    implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    /** 転送の開始を格納するリクエストの属性 */
+    static final String STARTED_ATTR = PeakEwmaLoadBalancerLifecycle.class.getName() + ".started";
+
+    /** インスタンスごとの負荷の統計 */
+    private final PeakEwmaStats stats;
+
+    /**
+     * コンストラクタ
+     *
+     * @param stats インスタンスごとの負荷の統計
+     */
+    public PeakEwmaLoadBalancerLifecycle(PeakEwmaStats stats) {
+        this.stats = stats;
+    }
+
+    // LoadBalancerLifecycle#supports の引数が型引数のない Class で宣言されているため、同じ型でオーバーライドする
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+            && ResponseData.class.isAssignableFrom(responseClass)
+            && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+        // 転送先が決まってから記録する
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        Map<String, Object> attributes = attributes(request);
+        if (attributes == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        InstanceStats instanceStats = stats.get(instance.getServiceId(), instance);
+        instanceStats.start();
+        attributes.put(STARTED_ATTR, new Started(instanceStats, System.nanoTime()));
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Map<String, Object> attributes = attributes(completionContext.getLoadBalancerRequest());
+        Object started = attributes != null ? attributes.remove(STARTED_ATTR) : null;
+        if (!(started instanceof Started request)) {
+            return;
+        }
+        long latency = System.nanoTime() - request.startNanos();
+        boolean failed = completionContext.status() != CompletionContext.Status.SUCCESS;
+        ResponseData response = completionContext.getClientResponse();
+        if (!failed && response != null) {
+            HttpStatusCode status = response.getHttpStatus();
+            failed = status != null && status.is5xxServerError();
+        }
+        stats.complete(request.stats(), latency, failed);
+    }
+
+    private static Map<String, Object> attributes(Request<RequestDataContext> request) {
+        if (request == null || request.getContext() == null || request.getContext().getClientRequest() == null) {
+            return null;
+        }
+        return request.getContext().getClientRequest().getAttributes();
+    }
+
+    /**
+     * 転送の開始
+     *
+     * @param stats 転送先の統計
+     * @param startNanos 開始時刻（{@link System#nanoTime()}）
+     */
+    private record Started(InstanceStats stats, long startNanos) {
+    }
+}
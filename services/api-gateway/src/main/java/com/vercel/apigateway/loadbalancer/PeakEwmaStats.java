@@ -0,0 +1,129 @@
+package com.vercel.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * サービス・インスタンスごとの負荷の統計
+ * ロードバランサー（転送先の選択）とライフサイクル（転送の開始・完了の記録）で共有し、
+ * ディスカバリーから消えたインスタンスの統計はインスタンス一覧が更新されたときに削除する
+ */
+public class PeakEwmaStats {
+
+    /** サービスIDごとの、インスタンスのキーごとの統計 */
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    /** 観測前の応答時間（ナノ秒） */
+    private final long initialLatencyNanos;
+
+    /** 過去の観測を忘れる時間（ナノ秒） */
+    private final long decayNanos;
+
+    /** 失敗（5xx・接続エラー）した場合に応答時間として記録する最小の値（ナノ秒） */
+    private final long failurePenaltyNanos;
+
+    /**
+     * コンストラクタ
+     *
+     * @param initialLatency 観測前の応答時間
+     * @param decayTime 過去の観測を忘れる時間
+     * @param failurePenalty 失敗した場合に応答時間として記録する最小の値
+     */
+    public PeakEwmaStats(Duration initialLatency, Duration decayTime, Duration failurePenalty) {
+        this.initialLatencyNanos = initialLatency.toNanos();
+        this.decayNanos = decayTime.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+    }
+
+    /**
+     * インスタンスの統計を取得する（ない場合は作成する）
+     *
+     * @param serviceId サービスID
+     * @param instance インスタンス
+     * @return 統計
+     */
+    public InstanceStats get(String serviceId, ServiceInstance instance) {
+        Map<String, InstanceStats> instances = services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+        String key = key(instance);
+        InstanceStats stats = instances.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        return instances.computeIfAbsent(key, k -> new InstanceStats(instance.getInstanceId(), instance.getHost(),
+            instance.getPort(), initialLatencyNanos, decayNanos, System.nanoTime()));
+    }
+
+    /**
+     * リクエストの完了を記録する
+     *
+     * @param stats インスタンスの統計
+     * @param latencyNanos 応答時間（ナノ秒）
+     * @param failed 失敗したかどうか
+     */
+    public void complete(InstanceStats stats, long latencyNanos, boolean failed) {
+        stats.complete(failed ? Math.max(latencyNanos, failurePenaltyNanos) : latencyNanos, System.nanoTime());
+    }
+
+    /**
+     * インスタンス一覧にないインスタンスの統計を削除する
+     *
+     * @param serviceId サービスID
+     * @param current 現在のインスタンス一覧
+     */
+    public void retain(String serviceId, Collection<ServiceInstance> current) {
+        Map<String, InstanceStats> instances = services.get(serviceId);
+        if (instances == null) {
+            return;
+        }
+        Set<String> keys = current.stream().map(PeakEwmaStats::key).collect(Collectors.toSet());
+        instances.keySet().retainAll(keys);
+    }
+
+    /**
+     * サービスごとのインスタンスの統計を取得する（Actuatorでの表示用）
+     *
+     * @return サービスIDごとの、スコアの小さい順のインスタンスの統計
+     */
+    public Map<String, List<Map<String, Object>>> snapshot() {
+        long now = System.nanoTime();
+        Map<String, List<Map<String, Object>>> snapshot = new TreeMap<>();
+        services.forEach((serviceId, instances) -> {
+            List<InstanceStats> sorted = new ArrayList<>(instances.values());
+            sorted.sort((a, b) -> Double.compare(a.score(now), b.score(now)));
+            List<Map<String, Object>> entries = new ArrayList<>();
+            for (InstanceStats stats : sorted) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("instanceId", stats.instanceId());
+                entry.put("host", stats.host());
+                entry.put("port", stats.port());
+                entry.put("inFlight", stats.inFlight());
+                entry.put("latencyMillis", stats.latency(now) / 1_000_000);
+                entry.put("score", stats.score(now) / 1_000_000);
+                entries.add(entry);
+            }
+            snapshot.put(serviceId, entries);
+        });
+        return snapshot;
+    }
+
+    /**
+     * インスタンスのキーを求める（インスタンスIDがない場合はホストとポート）
+     *
+     * @param instance インスタンス
+     * @return キー
+     */
+    private static String key(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        return instanceId != null ? instanceId : instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,148 @@
+package com.vercel.apigateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * プロセス内のトークンバケット
+ * バケットはGCRA（Generic Cell Rate Algorithm）で表し、トークン数と最終補充時刻の代わりに
+ * 「バケットが満杯に戻る時刻（TAT）」を1つの long で持つ。判定はCASのみで行い、ロックを取らない
+ * キーはハッシュでストライプ（ConcurrentHashMap）に振り分け、満杯に戻ってから idleTtl 経過したバケットを
+ * sweepInterval ごとにストライプ単位で削除する（満杯のバケットは削除しても判定が変わらない）
+ * 削除と同時に取り出したリクエストは削除したバケットに記録されるため、その分だけ制限が緩くなることがある
+ */
+public class LocalRateLimitStore implements RateLimitStore, AutoCloseable {
+
+    /** キーを振り分けるストライプ */
+    private final List<ConcurrentHashMap<String, AtomicLong>> stripes;
+
+    /** ストライプ数の2を底とする対数 */
+    private final int stripeBits;
+
+    /** 満杯に戻ってからバケットを削除するまでの時間（ナノ秒） */
+    private final long idleTtlNanos;
+
+    /** バケットを削除するスレッド */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * コンストラクタ
+     *
+     * @param stripes ストライプ数（2のべき乗に切り上げる）
+     * @param idleTtl 満杯に戻ってからバケットを削除するまでの時間
+     * @param sweepInterval バケットを削除する間隔（0以下の場合は定期的に削除しない）
+     */
+    public LocalRateLimitStore(int stripes, Duration idleTtl, Duration sweepInterval) {
+        this.stripeBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, stripes) - 1);
+        this.stripes = new ArrayList<>(1 << stripeBits);
+        for (int i = 0; i < 1 << stripeBits; i++) {
+            this.stripes.add(new ConcurrentHashMap<>());
+        }
+        this.idleTtlNanos = idleTtl.toNanos();
+
+        if (!sweepInterval.isNegative() && !sweepInterval.isZero()) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rate-limit-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = sweepInterval.toNanos();
+            sweeper.scheduleWithFixedDelay(() -> sweep(System.nanoTime()), interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryConsume(String key, RateLimitPolicy policy) {
+        return Mono.just(consume(key, policy, System.nanoTime()));
+    }
+
+    /**
+     * バケットからトークンを1個取り出す
+     *
+     * @param key バケットのキー
+     * @param policy レート制限
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     * @return 判定結果
+     */
+    public RateLimitDecision consume(String key, RateLimitPolicy policy, long now) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripe(key);
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        long interval = policy.nanosPerToken();
+        long burst = policy.burstNanos();
+        while (true) {
+            long tat = bucket.get();
+            long next = (tat - now > 0 ? tat : now) + interval;
+            long backlog = next - now;
+            if (backlog > burst) {
+                return RateLimitDecision.reject(Duration.ofNanos(backlog - burst));
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return RateLimitDecision.allow((burst - backlog) / interval);
+            }
+        }
+    }
+
+    /**
+     * 満杯に戻ってから idleTtl 経過したバケットを削除する
+     *
+     * @param now 現在時刻（{@link System#nanoTime()}）
+     * @return 削除したバケット数
+     */
+    public int sweep(long now) {
+        int removed = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            int before = stripe.size();
+            stripe.values().removeIf(tat -> now - tat.get() > idleTtlNanos);
+            removed += before - stripe.size();
+        }
+        return removed;
+    }
+
+    /**
+     * 保持しているバケット数を取得する
+     *
+     * @return バケット数
+     */
+    public long size() {
+        long size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.mappingCount();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * キーのストライプを求める
+     * ConcurrentHashMap はハッシュの下位ビットでビンを選ぶため、ストライプはハッシュを攪拌した上位ビットで選ぶ
+     *
+     * @param key バケットのキー
+     * @return ストライプ
+     */
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        if (stripeBits == 0) {
+            return stripes.get(0);
+        }
+        return stripes.get((key.hashCode() * 0x9E3779B9) >>> (32 - stripeBits));
+    }
+}
@@ -0,0 +1,33 @@
+package com.vercel.apigateway.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * レート制限の判定結果
+ *
+ * @param allowed 受け付ける場合はtrue
+ * @param remaining このリクエストの後に残っているトークン数
+ * @param retryAfter 拒否した場合に次のトークンが補充されるまでの時間（受け付けた場合は0）
+ */
+public record RateLimitDecision(boolean allowed, long remaining, Duration retryAfter) {
+
+    /**
+     * 受け付ける判定結果を作成する
+     *
+     * @param remaining 残っているトークン数
+     * @return 判定結果
+     */
+    public static RateLimitDecision allow(long remaining) {
+        return new RateLimitDecision(true, remaining, Duration.ZERO);
+    }
+
+    /**
+     * 拒否する判定結果を作成する
+     *
+     * @param retryAfter 次のトークンが補充されるまでの時間
+     * @return 判定結果
+     */
+    public static RateLimitDecision reject(Duration retryAfter) {
+        return new RateLimitDecision(false, 0, retryAfter);
+    }
+}
@@ -0,0 +1,253 @@
+package com.vercel.apigateway.ratelimit;
+
+import com.vercel.apigateway.auth.AuthenticatedUser;
+import com.vercel.apigateway.auth.JwtAuthFilter;
+import com.vercel.apigateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * クライアント・ルートごとのレート制限フィルター
+ * メタデータ {@code rate-limit} を指定したルートのみを対象とし、ルートとクライアント（認証済みの利用者、識別ヘッダー、接続元IPアドレスの順）
+ * ごとのトークンバケットからトークンを取り出せない場合は、下流のサービスに転送せずに429と Retry-After を返す
+ * 応答には Spring Cloud Gateway の RequestRateLimiter と同じ X-RateLimit-* ヘッダーを付ける
+ * ルートごとの制限値とメトリクスはルートの初回リクエスト時に作成し、ルートの再読み込みで作り直す
+ */
+public class RateLimitFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /** フィルターの順序（ロードバランサーによる転送先の選択より前） */
+    public static final int ORDER = -100;
+
+    /** 残りトークン数のヘッダー */
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    /** 1秒あたりの補充数のヘッダー */
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+
+    /** 容量のヘッダー */
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    /** 格納先の障害を警告ログに出力する最短の間隔 */
+    private static final long FAILURE_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /** 格納先の障害を表す判定結果 */
+    private static final RateLimitDecision STORE_FAILED = new RateLimitDecision(false, 0, Duration.ZERO);
+
+    /** バケットの格納先 */
+    private final RateLimitStore store;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** クライアントを識別するヘッダー（nullの場合は接続元IPアドレス） */
+    private final String clientHeader;
+
+    /** 接続元IPアドレスの解決 */
+    private final RemoteAddressResolver remoteAddressResolver;
+
+    /** 格納先の障害時にリクエストを受け付けるかどうか */
+    private final boolean failOpen;
+
+    /** ルートIDごとの制限値とメトリクス */
+    private final Map<String, RouteLimit> routeLimits = new ConcurrentHashMap<>();
+
+    /** 格納先の障害を最後に警告ログに出力した時刻 */
+    private final AtomicLong lastFailureLog = new AtomicLong(System.nanoTime() - FAILURE_LOG_INTERVAL_NANOS);
+
+    /**
+     * コンストラクタ
+     *
+     * @param store バケットの格納先
+     * @param meterRegistry メトリクスの登録先
+     * @param properties レート制限の設定
+     */
+    public RateLimitFilter(RateLimitStore store, MeterRegistry meterRegistry, RateLimitProperties properties) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        String header = properties.getClientHeader();
+        this.clientHeader = header != null && !header.isBlank() ? header : null;
+        this.remoteAddressResolver = properties.getTrustedProxies() > 0
+            ? XForwardedRemoteAddressResolver.maxTrustedIndex(properties.getTrustedProxies())
+            : new RemoteAddressResolver() { };
+        this.failOpen = properties.isFailOpen();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RouteLimit limit = routeLimits.computeIfAbsent(route.getId(), id -> RouteLimit.of(route, meterRegistry));
+        if (limit.policy() == null) {
+            return chain.filter(exchange);
+        }
+
+        return store.tryConsume(route.getId() + ":" + clientKey(exchange), limit.policy())
+            .onErrorResume(e -> {
+                logFailure(route, e);
+                return Mono.just(STORE_FAILED);
+            })
+            .defaultIfEmpty(STORE_FAILED)
+            .flatMap(decision -> {
+                if (decision == STORE_FAILED) {
+                    limit.failed().increment();
+                    return failOpen ? chain.filter(exchange) : unavailable(exchange);
+                }
+                ServerHttpResponse response = exchange.getResponse();
+                HttpHeaders headers = response.getHeaders();
+                headers.set(REMAINING_HEADER, String.valueOf(decision.remaining()));
+                headers.set(REPLENISH_RATE_HEADER, limit.replenishRate());
+                headers.set(BURST_CAPACITY_HEADER, limit.burstCapacity());
+                if (decision.allowed()) {
+                    limit.allowed().increment();
+                    return chain.filter(exchange);
+                }
+                limit.rejected().increment();
+                headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(decision.retryAfter())));
+                response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                return response.setComplete();
+            });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとの制限値を作り直す
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routeLimits.clear();
+    }
+
+    /**
+     * クライアントを識別するキーを求める
+     *
+     * @param exchange リクエスト
+     * @return 認証済みのユーザーID（u:）、識別ヘッダーの値（c:）または接続元IPアドレス（ip:）
+     */
+    private String clientKey(ServerWebExchange exchange) {
+        AuthenticatedUser user = exchange.getAttribute(JwtAuthFilter.USER_ATTR);
+        if (user != null) {
+            return "u:" + user.subject();
+        }
+        if (clientHeader != null) {
+            String client = exchange.getRequest().getHeaders().getFirst(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return "c:" + client;
+            }
+        }
+        InetSocketAddress address = remoteAddressResolver.resolve(exchange);
+        return "ip:" + (address != null ? address.getHostString() : "unknown");
+    }
+
+    /**
+     * 格納先の障害で判定できない場合に503を返す
+     *
+     * @param exchange リクエスト
+     * @return 応答の完了
+     */
+    private static Mono<Void> unavailable(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * 格納先の障害を警告ログに出力する（障害中のログの量を抑えるため、一定間隔に1回のみ）
+     *
+     * @param route ルート
+     * @param e 例外
+     */
+    private void logFailure(Route route, Throwable e) {
+        long now = System.nanoTime();
+        long last = lastFailureLog.get();
+        if (now - last >= FAILURE_LOG_INTERVAL_NANOS && lastFailureLog.compareAndSet(last, now)) {
+            log.warn("レート制限を判定できませんでした（{}）: route={}", failOpen ? "受け付けます" : "503を返します",
+                route.getId(), e);
+        }
+    }
+
+    /**
+     * Retry-After の秒数を求める（1秒未満は1秒に切り上げる）
+     *
+     * @param retryAfter 次のトークンが補充されるまでの時間
+     * @return 秒数
+     */
+    private static long retryAfterSeconds(Duration retryAfter) {
+        long seconds = retryAfter.toSeconds();
+        return retryAfter.minusSeconds(seconds).isZero() ? Math.max(1, seconds) : seconds + 1;
+    }
+
+    /**
+     * ルートごとの制限値とメトリクス
+     *
+     * @param policy レート制限（制限しないルートの場合はnull）
+     * @param replenishRate 1秒あたりの補充数のヘッダー値
+     * @param burstCapacity 容量のヘッダー値
+     * @param allowed 受け付けたリクエスト数
+     * @param rejected 拒否したリクエスト数
+     * @param failed 格納先の障害で判定できなかったリクエスト数
+     */
+    private record RouteLimit(RateLimitPolicy policy, String replenishRate, String burstCapacity,
+                              Counter allowed, Counter rejected, Counter failed) {
+
+        /**
+         * ルートのメタデータから制限値を作成し、メトリクスを登録する
+         *
+         * @param route ルート
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの制限値とメトリクス
+         */
+        static RouteLimit of(Route route, MeterRegistry meterRegistry) {
+            RateLimitPolicy policy = RateLimitPolicy.fromMetadata(route.getMetadata()).orElse(null);
+            if (policy == null) {
+                return new RouteLimit(null, null, null, null, null, null);
+            }
+            return new RouteLimit(policy,
+                policy.refillRate() == Math.rint(policy.refillRate())
+                    ? String.valueOf((long) policy.refillRate()) : String.valueOf(policy.refillRate()),
+                String.valueOf(policy.capacity()),
+                counter(meterRegistry, route, "allowed"),
+                counter(meterRegistry, route, "rejected"),
+                counter(meterRegistry, route, "error"));
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, Route route, String outcome) {
+            return Counter.builder("gateway.rate-limit.requests")
+                .description("レート制限の判定結果ごとのリクエスト数")
+                .tag("route", route.getId())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.vercel.apigateway.ratelimit;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ルートごとのレート制限
+ * ルートのメタデータ {@code rate-limit} に指定する
+ * <pre>
+ * metadata:
+ *   rate-limit:
+ *     capacity: 200      # バケットの容量（連続して受け付けられるリクエスト数）
+ *     refill-rate: 100   # 1秒あたりに補充するトークン数（定常的に受け付けるリクエスト数）
+ * </pre>
+ *
+ * @param capacity バケットの容量
+ * @param refillRate 1秒あたりに補充するトークン数
+ */
+public record RateLimitPolicy(long capacity, double refillRate) {
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "rate-limit";
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    public RateLimitPolicy {
+        if (capacity < 1 || !(refillRate > 0)) {
+            throw new IllegalArgumentException(
+                "レート制限の capacity は1以上、refill-rate は0より大きい値を指定してください: capacity="
+                    + capacity + ", refill-rate=" + refillRate);
+        }
+    }
+
+    /**
+     * ルートのメタデータからレート制限を作成する
+     *
+     * @param metadata ルートのメタデータ
+     * @return レート制限（{@code rate-limit} が指定されていない場合は空）
+     * @throws IllegalArgumentException 指定値が不正な場合
+     */
+    public static Optional<RateLimitPolicy> fromMetadata(Map<String, Object> metadata) {
+        if (!(metadata.get(METADATA_KEY) instanceof Map<?, ?> settings)) {
+            return Optional.empty();
+        }
+        return Optional.of(new RateLimitPolicy(
+            (long) number(settings, "capacity"), number(settings, "refill-rate")));
+    }
+
+    /**
+     * トークン1個を補充する間隔を求める
+     *
+     * @return 間隔（ナノ秒）
+     */
+    public long nanosPerToken() {
+        return Math.max(1, Math.round(NANOS_PER_SECOND / refillRate));
+    }
+
+    /**
+     * 空のバケットを満杯にするまでの時間を求める
+     *
+     * @return 時間（ナノ秒）
+     */
+    public long burstNanos() {
+        return nanosPerToken() * capacity;
+    }
+
+    /**
+     * メタデータの数値を取得する（YAMLの数値と環境変数などの文字列の両方を受け付ける）
+     *
+     * @param settings レート制限のメタデータ
+     * @param name 項目名
+     * @return 数値
+     */
+    private static double number(Map<?, ?> settings, String name) {
+        Object value = settings.get(name);
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                // 下で例外とする
+            }
+        }
+        throw new IllegalArgumentException("レート制限の " + name + " が不正です: " + value);
+    }
+}
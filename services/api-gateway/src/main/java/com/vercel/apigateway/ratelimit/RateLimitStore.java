@@ -0,0 +1,20 @@
+package com.vercel.apigateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * クライアント・ルートごとのトークンバケットの格納先
+ * 既定はゲートウェイのプロセス内（{@link LocalRateLimitStore}）で、
+ * 複数レプリカで制限を共有する場合はRedis（{@link RedisRateLimitStore}）に切り替える
+ */
+public interface RateLimitStore {
+
+    /**
+     * バケットからトークンを1個取り出す
+     *
+     * @param key バケットのキー（ルートIDとクライアント）
+     * @param policy レート制限
+     * @return 判定結果
+     */
+    Mono<RateLimitDecision> tryConsume(String key, RateLimitPolicy policy);
+}
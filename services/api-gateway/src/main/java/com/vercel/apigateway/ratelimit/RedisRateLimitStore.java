@@ -0,0 +1,75 @@
+package com.vercel.apigateway.ratelimit;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redisを使うトークンバケット
+ * 複数レプリカのゲートウェイで同じクライアントの制限を共有する場合に使用する
+ * {@link LocalRateLimitStore} と同じGCRAをLuaスクリプトで1往復で判定し、時刻はレプリカ間の時計のずれの影響を
+ * 受けないようRedisの TIME を使う（Redis 5以降）
+ * バケットのキーは満杯に戻る時刻に期限切れとなるため、削除処理は不要
+ */
+public class RedisRateLimitStore implements RateLimitStore {
+
+    /**
+     * GCRAの判定スクリプト
+     * KEYS[1]: バケットのキー、ARGV[1]: トークン1個の補充間隔（マイクロ秒）、ARGV[2]: 容量
+     * 戻り値: {受け付けた場合は1, 残りトークン数, 拒否した場合の待ち時間（マイクロ秒）}
+     * 時刻は16桁になるため、tostring（有効桁数14桁）ではなく string.format で文字列にする
+     */
+    private static final String SCRIPT = """
+        local interval = tonumber(ARGV[1])
+        local burst = interval * tonumber(ARGV[2])
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+        local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+        if tat < now then
+          tat = now
+        end
+        local backlog = tat + interval - now
+        if backlog > burst then
+          return {0, 0, math.ceil(backlog - burst)}
+        end
+        redis.call('SET', KEYS[1], string.format('%.0f', tat + interval), 'PX', math.ceil(backlog / 1000))
+        return {1, math.floor((burst - backlog) / interval), 0}
+        """;
+
+    /** 判定スクリプト */
+    // List<Long> のクラスリテラルは書けないため、List.class を List<Long> の型として渡す（要素はLuaの整数）
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List<Long>> CONSUME =
+        RedisScript.of(SCRIPT, (Class<List<Long>>) (Class<?>) List.class);
+
+    /** 文字列キー・文字列値のテンプレート */
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    /** キーの接頭辞 */
+    private final String keyPrefix;
+
+    /**
+     * コンストラクタ
+     *
+     * @param redisTemplate 文字列キー・文字列値のテンプレート
+     * @param keyPrefix キーの接頭辞
+     */
+    public RedisRateLimitStore(ReactiveStringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryConsume(String key, RateLimitPolicy policy) {
+        String interval = String.valueOf(policy.nanosPerToken() / 1000.0);
+        return redisTemplate.execute(CONSUME, List.of(keyPrefix + ":" + key),
+                List.of(interval, String.valueOf(policy.capacity())))
+            .next()
+            .map(result -> result.get(0) == 1L
+                ? RateLimitDecision.allow(result.get(1))
+                : RateLimitDecision.reject(Duration.ofNanos(result.get(2) * 1000)));
+    }
+}
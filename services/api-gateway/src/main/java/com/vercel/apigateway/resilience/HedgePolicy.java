@@ -0,0 +1,87 @@
+package com.vercel.apigateway.resilience;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ルートごとのヘッジリクエスト（冪等なGET・HEADのみ）
+ * ルートのメタデータ {@code hedge} に指定する
+ * <pre>
+ * metadata:
+ *   hedge:
+ *     percentile: 0.95    # 応答時間のこのパーセンタイルを待っても応答がなければ、別のインスタンスにも送る
+ *     min-delay: 10ms     # 待ち時間の下限
+ *     max-delay: 500ms    # 待ち時間の上限（観測数が少ない間はこの値）
+ *     budget: 0.1         # リクエストあたりに送ってよいヘッジの数（0.1 であれば最大で1割増し）
+ * </pre>
+ *
+ * @param percentile 待ち時間とする応答時間のパーセンタイル
+ * @param minDelay 待ち時間の下限
+ * @param maxDelay 待ち時間の上限
+ * @param budget リクエストあたりに送ってよいヘッジの数
+ */
+public record HedgePolicy(double percentile, Duration minDelay, Duration maxDelay, double budget) {
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "hedge";
+
+    public HedgePolicy {
+        if (!(percentile > 0 && percentile < 1) || minDelay.compareTo(maxDelay) > 0 || !(budget > 0 && budget <= 1)) {
+            throw new IllegalArgumentException("ヘッジの percentile は0〜1、min-delay は max-delay 以下、"
+                + "budget は0より大きく1以下を指定してください: percentile=" + percentile + ", min-delay=" + minDelay
+                + ", max-delay=" + maxDelay + ", budget=" + budget);
+        }
+    }
+
+    /**
+     * ルートのメタデータからヘッジの設定を作成する
+     *
+     * @param metadata ルートのメタデータ
+     * @return ヘッジの設定（{@code hedge} が指定されていない場合は空）
+     * @throws IllegalArgumentException 指定値が不正な場合
+     */
+    public static Optional<HedgePolicy> fromMetadata(Map<String, Object> metadata) {
+        if (!(metadata.get(METADATA_KEY) instanceof Map<?, ?> settings)) {
+            return Optional.empty();
+        }
+        return Optional.of(new HedgePolicy(
+            number(settings.get("percentile"), 0.95),
+            duration(settings.get("min-delay"), Duration.ofMillis(10)),
+            duration(settings.get("max-delay"), Duration.ofMillis(500)),
+            number(settings.get("budget"), 0.1)));
+    }
+
+    private static double number(Object value, double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ヘッジの設定値が不正です: " + value, e);
+        }
+    }
+
+    /**
+     * メタデータの期間を解析する（10ms などの文字列、または response-timeout と同じくミリ秒）
+     *
+     * @param value 値
+     * @param defaultValue 指定がない場合の値
+     * @return 期間
+     */
+    private static Duration duration(Object value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number millis) {
+            return Duration.ofMillis(millis.longValue());
+        }
+        return DurationStyle.detectAndParse(value.toString().trim());
+    }
+}
@@ -0,0 +1,453 @@
+package com.vercel.apigateway.resilience;
+
+import com.vercel.apigateway.streaming.StreamingRoutes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 冪等なリクエスト（GET・HEAD）のヘッジフィルター
+ * メタデータ {@code hedge} を指定した lb:// ルートのみを対象とし（{@link HedgePolicy}、ストリーミングルートは除く）、ロードバランサーが選んだインスタンスに転送してから
+ * ルートの応答時間のパーセンタイル（既定はp95）を待っても応答ヘッダーが届かなければ、別のインスタンスにも同じリクエストを送り、
+ * 先に応答ヘッダーが届いた方を返す（もう一方は接続を閉じて取り消す）
+ * 下流への転送は NettyRoutingFilter の代わりにこのフィルターで行い、応答本文の転送は NettyWriteResponseFilter に任せる
+ * ヘッジの数はリクエスト数に対する割合（budget）で制限し、下流の全体的な遅延で負荷を増幅させないようにする
+ * 応答時間はルートごとの Timer（gateway.hedge.latency）に記録し、待ち時間は1秒ごとにそのパーセンタイルから求め直す
+ */
+public class HedgingFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    /** フィルターの順序（ロードバランサーによる転送先の選択の後、NettyRoutingFilter より前） */
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    /** ヘッジの応答を返したことを表すヘッダー */
+    public static final String HEDGED_HEADER = "X-Hedged";
+
+    /** 待ち時間を求め直す間隔（ナノ秒） */
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** ヘッジの予算の単位（予算はリクエストごとに budget × この値を積み、ヘッジ1件でこの値を使う） */
+    private static final long BUDGET_UNIT = 1000;
+
+    /** 予算の上限（連続して送れるヘッジの数） */
+    private static final long BUDGET_CAP = 10 * BUDGET_UNIT;
+
+    /** 別のインスタンスを選び直す回数 */
+    private static final int CHOOSE_ATTEMPTS = 3;
+
+    /** 下流へのHTTPクライアント */
+    private final HttpClient httpClient;
+
+    /** リクエスト・応答ヘッダーのフィルター */
+    private final Supplier<List<HttpHeadersFilter>> headersFilters;
+
+    /** サービスごとのロードバランサー */
+    private final ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory;
+
+    /** ルートに response-timeout がない場合の応答のタイムアウト（nullの場合はなし） */
+    private final Duration defaultResponseTimeout;
+
+    /** パーセンタイルから待ち時間を求める最小の観測数 */
+    private final long minSamples;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** ルートIDごとの設定と統計 */
+    private final Map<String, RouteHedge> routes = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param httpClient 下流へのHTTPクライアント
+     * @param headersFilters リクエスト・応答ヘッダーのフィルター
+     * @param loadBalancerFactory サービスごとのロードバランサー
+     * @param defaultResponseTimeout ルートに response-timeout がない場合の応答のタイムアウト
+     * @param minSamples パーセンタイルから待ち時間を求める最小の観測数
+     * @param meterRegistry メトリクスの登録先
+     */
+    public HedgingFilter(HttpClient httpClient, Supplier<List<HttpHeadersFilter>> headersFilters,
+                         ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory, Duration defaultResponseTimeout,
+                         long minSamples, MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.headersFilters = headersFilters;
+        this.loadBalancerFactory = loadBalancerFactory;
+        this.defaultResponseTimeout = defaultResponseTimeout;
+        this.minSamples = minSamples;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+            return chain.filter(exchange);
+        }
+        RouteHedge hedge = routes.computeIfAbsent(route.getId(), id -> RouteHedge.of(route, meterRegistry));
+        ServerHttpRequest request = exchange.getRequest();
+        URI primaryUri = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        Response<ServiceInstance> selected = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (hedge.policy() == null
+            || (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)
+            || primaryUri == null || !("http".equals(primaryUri.getScheme()) || "https".equals(primaryUri.getScheme()))
+            || selected == null || !selected.hasServer()) {
+            return chain.filter(exchange);
+        }
+        hedge.deposit();
+
+        List<HttpHeadersFilter> filters = headersFilters.get();
+        DefaultHttpHeaders requestHeaders = new DefaultHttpHeaders();
+        HttpHeadersFilter.filterRequest(filters, exchange).forEach(requestHeaders::set);
+        requestHeaders.remove(HttpHeaders.HOST);
+        if (exchange.getAttributeOrDefault(ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE, false)) {
+            String host = request.getHeaders().getFirst(HttpHeaders.HOST);
+            if (host != null) {
+                requestHeaders.set(HttpHeaders.HOST, host);
+            }
+        }
+        Duration responseTimeout = responseTimeout(route);
+        io.netty.handler.codec.http.HttpMethod method = io.netty.handler.codec.http.HttpMethod.valueOf(
+            request.getMethod().name());
+
+        AtomicReference<Attempt> winner = new AtomicReference<>();
+        Mono<Attempt> primary = send(hedge, method, primaryUri, requestHeaders, responseTimeout, winner, false);
+        Mono<Attempt> hedged = Mono.delay(hedge.delay(minSamples))
+            .filter(tick -> hedge.withdraw())
+            .flatMap(tick -> otherInstance(route.getUri().getHost(), selected.getServer()))
+            .flatMap(instance -> {
+                hedge.sent().increment();
+                URI uri = UriComponentsBuilder.fromUri(primaryUri)
+                    .host(instance.getHost()).port(instance.getPort()).build(true).toUri();
+                return send(hedge, method, uri, requestHeaders, responseTimeout, winner, true);
+            });
+
+        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+        return Mono.firstWithValue(primary, hedged)
+            .onErrorMap(NoSuchElementException.class, HedgingFilter::firstFailure)
+            .flatMap(attempt -> {
+                apply(exchange, attempt, filters);
+                if (attempt.hedged()) {
+                    hedge.won().increment();
+                    exchange.getResponse().getHeaders().set(HEDGED_HEADER, "true");
+                }
+                return chain.filter(exchange);
+            });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとの設定と統計を作り直す
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routes.clear();
+    }
+
+    /**
+     * 下流にリクエストを送り、応答ヘッダーを受け取る
+     * 先に応答ヘッダーを受け取った方のみを返し、遅れて受け取った方は接続を閉じる
+     *
+     * @param hedge ルートの設定と統計
+     * @param method メソッド
+     * @param uri 転送先
+     * @param headers リクエストヘッダー
+     * @param responseTimeout 応答のタイムアウト（nullの場合はなし）
+     * @param winner 先に応答ヘッダーを受け取った方
+     * @param hedged ヘッジかどうか
+     * @return 応答（遅れて受け取った場合は空）
+     */
+    private Mono<Attempt> send(RouteHedge hedge, io.netty.handler.codec.http.HttpMethod method, URI uri,
+                               DefaultHttpHeaders headers, Duration responseTimeout,
+                               AtomicReference<Attempt> winner, boolean hedged) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Flux<Attempt> response = httpClient
+                .headers(h -> h.add(headers))
+                .request(method)
+                .uri(uri.toASCIIString())
+                .responseConnection((res, connection) -> {
+                    hedge.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    Attempt attempt = new Attempt(res, connection, hedged);
+                    if (winner.compareAndSet(null, attempt)) {
+                        return Mono.just(attempt);
+                    }
+                    connection.dispose();
+                    return Mono.empty();
+                });
+            if (responseTimeout != null) {
+                response = response.timeout(responseTimeout,
+                        Mono.error(new TimeoutException("Response took longer than timeout: " + responseTimeout)))
+                    .onErrorMap(TimeoutException.class,
+                        e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e));
+            }
+            return response.singleOrEmpty();
+        });
+    }
+
+    /**
+     * 先に応答ヘッダーを受け取った方の応答をクライアントへの応答に設定する（NettyRoutingFilter と同じ）
+     *
+     * @param exchange リクエスト
+     * @param attempt 応答
+     * @param filters リクエスト・応答ヘッダーのフィルター
+     */
+    private static void apply(ServerWebExchange exchange, Attempt attempt, List<HttpHeadersFilter> filters) {
+        HttpClientResponse res = attempt.response();
+        HttpHeaders headers = new HttpHeaders();
+        res.responseHeaders().forEach(entry -> headers.add(entry.getKey(), entry.getValue()));
+        HttpHeaders filtered = new HttpHeaders();
+        filtered.putAll(HttpHeadersFilter.filter(filters, headers, exchange, HttpHeadersFilter.Type.RESPONSE));
+        if (filtered.containsKey(HttpHeaders.TRANSFER_ENCODING) && filtered.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            filtered.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(filtered);
+        response.setStatusCode(HttpStatusCode.valueOf(res.status().code()));
+        exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES, filtered.keySet());
+        exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, res);
+        exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR, attempt.connection());
+    }
+
+    /**
+     * ロードバランサーが選んだインスタンス以外のインスタンスを選ぶ
+     *
+     * @param serviceId サービスID
+     * @param selected ロードバランサーが選んだインスタンス
+     * @return 別のインスタンス（インスタンスが1つしかない場合などは空）
+     */
+    private Mono<ServiceInstance> otherInstance(String serviceId, ServiceInstance selected) {
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancerFactory.getInstance(serviceId);
+        if (loadBalancer == null) {
+            return Mono.empty();
+        }
+        return Flux.range(0, CHOOSE_ATTEMPTS)
+            .concatMap(i -> Mono.from(loadBalancer.choose()))
+            .filter(Response::hasServer)
+            .map(Response::getServer)
+            .filter(instance -> !instance.getHost().equals(selected.getHost()) || instance.getPort() != selected.getPort())
+            .next();
+    }
+
+    /**
+     * ルートの応答のタイムアウトを求める（メタデータの response-timeout（ミリ秒）、なければ既定値）
+     *
+     * @param route ルート
+     * @return タイムアウト（負の場合・指定がない場合はnull）
+     */
+    private Duration responseTimeout(Route route) {
+        Object value = route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+        if (value == null) {
+            return defaultResponseTimeout;
+        }
+        long millis = value instanceof Number number ? number.longValue() : Long.parseLong(value.toString().trim());
+        return millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    /**
+     * 元のリクエストとヘッジのどちらも応答を返さなかった場合に、最初の失敗を取り出す
+     *
+     * @param e どちらも応答を返さなかったことを表す例外
+     * @return 最初の失敗（ない場合はそのまま）
+     */
+    private static Throwable firstFailure(NoSuchElementException e) {
+        if (e.getSuppressed().length > 0) {
+            return e.getSuppressed()[0];
+        }
+        if (e.getCause() != null) {
+            List<Throwable> causes = Exceptions.unwrapMultiple(e.getCause());
+            return causes.isEmpty() ? e : causes.get(0);
+        }
+        return e;
+    }
+
+    /**
+     * 下流からの応答
+     *
+     * @param response 応答
+     * @param connection 応答本文を受け取る接続
+     * @param hedged ヘッジかどうか
+     */
+    private record Attempt(HttpClientResponse response, Connection connection, boolean hedged) {
+    }
+
+    /**
+     * ルートごとの設定と統計
+     */
+    private static final class RouteHedge {
+
+        /** 設定（対象外のルートの場合はnull） */
+        private final HedgePolicy policy;
+
+        /** 応答ヘッダーを受け取るまでの時間 */
+        private final Timer latency;
+
+        /** 送ったヘッジの数 */
+        private final Counter sent;
+
+        /** ヘッジの応答を返した数 */
+        private final Counter won;
+
+        /** ヘッジの予算（{@link #BUDGET_UNIT} で1件） */
+        private final AtomicLong budget = new AtomicLong(BUDGET_CAP);
+
+        /** 待ち時間（ナノ秒） */
+        private volatile long delayNanos;
+
+        /** 待ち時間を求めた時刻（{@link System#nanoTime()}） */
+        private volatile long delayComputedAt;
+
+        private RouteHedge(HedgePolicy policy, Timer latency, Counter sent, Counter won) {
+            this.policy = policy;
+            this.latency = latency;
+            this.sent = sent;
+            this.won = won;
+            if (policy != null) {
+                this.delayNanos = policy.maxDelay().toNanos();
+                this.delayComputedAt = System.nanoTime();
+            }
+        }
+
+        /**
+         * ルートのメタデータから設定を作成し、メトリクスを登録する
+         *
+         * @param route ルート
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの設定と統計
+         */
+        static RouteHedge of(Route route, MeterRegistry meterRegistry) {
+            HedgePolicy policy = HedgePolicy.fromMetadata(route.getMetadata()).orElse(null);
+            if (policy == null || StreamingRoutes.isStreaming(route)) {
+                return new RouteHedge(null, null, null, null);
+            }
+            Timer latency = Timer.builder("gateway.hedge.latency")
+                .description("下流の応答ヘッダーを受け取るまでの時間（ヘッジの待ち時間の算出に使う）")
+                .tag("route", route.getId())
+                .publishPercentiles(policy.percentile())
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+            return new RouteHedge(policy, latency,
+                counter(meterRegistry, route, "gateway.hedge.sent", "送ったヘッジの数"),
+                counter(meterRegistry, route, "gateway.hedge.won", "ヘッジの応答を返した数"));
+        }
+
+        HedgePolicy policy() {
+            return policy;
+        }
+
+        Timer latency() {
+            return latency;
+        }
+
+        Counter sent() {
+            return sent;
+        }
+
+        Counter won() {
+            return won;
+        }
+
+        /**
+         * リクエスト1件分の予算を積む
+         */
+        void deposit() {
+            long amount = Math.round(policy.budget() * BUDGET_UNIT);
+            budget.getAndUpdate(current -> Math.min(BUDGET_CAP, current + amount));
+        }
+
+        /**
+         * ヘッジ1件分の予算を使う
+         *
+         * @return 予算が足りた場合はtrue
+         */
+        boolean withdraw() {
+            while (true) {
+                long current = budget.get();
+                if (current < BUDGET_UNIT) {
+                    return false;
+                }
+                if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * ヘッジを送るまでの待ち時間を取得する
+         * 前回から1秒以上経っていれば、応答時間のパーセンタイルから求め直す（観測数が少ない間は上限の値）
+         *
+         * @param minSamples パーセンタイルから求める最小の観測数
+         * @return 待ち時間
+         */
+        Duration delay(long minSamples) {
+            long now = System.nanoTime();
+            if (now - delayComputedAt >= DELAY_REFRESH_NANOS) {
+                delayComputedAt = now;
+                HistogramSnapshot snapshot = latency.takeSnapshot();
+                ValueAtPercentile[] percentiles = snapshot.percentileValues();
+                long delay = policy.maxDelay().toNanos();
+                if (snapshot.count() >= minSamples && percentiles.length > 0) {
+                    delay = (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+                }
+                delayNanos = Math.max(policy.minDelay().toNanos(), Math.min(policy.maxDelay().toNanos(), delay));
+            }
+            return Duration.ofNanos(delayNanos);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, Route route, String name, String description) {
+            return Counter.builder(name)
+                .description(description)
+                .tag("route", route.getId())
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.vercel.apigateway.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ルートごとのサーキットブレーカー・バルクヘッドのフィルター（Resilience4j）
+ * メタデータ {@code circuit-breaker}・{@code bulkhead}・{@code fallback} を指定したルートのみを対象とし（{@link ResiliencePolicy}）、
+ * サーキットが開いている・同時に転送するリクエスト数が上限に達している・下流への転送が失敗した（接続エラー、タイムアウトなど）場合は
+ * 下流の代わりにフォールバックの応答を返す（X-Fallback ヘッダーに理由を付け、キャッシュさせない）
+ * 下流の5xx応答はそのまま返し、サーキットブレーカーには失敗として記録する
+ * 所要時間は下流の応答ヘッダーを受け取るまで（本文の転送は含まない）で、バルクヘッドもその時点で解放する
+ * ルートごとのサーキットブレーカー・バルクヘッドはルートの初回リクエスト時に作成し、ルートの再読み込みで作り直す
+ */
+public class ResilienceFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceFilter.class);
+
+    /** フィルターの順序（レスポンスキャッシュの後、応答本文の転送（NettyWriteResponseFilter）の内側） */
+    public static final int ORDER = 0;
+
+    /** フォールバックの理由のヘッダー */
+    public static final String FALLBACK_HEADER = "X-Fallback";
+
+    /** サーキットブレーカーの登録先 */
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    /** バルクヘッドの登録先 */
+    private final BulkheadRegistry bulkheadRegistry;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** ルートIDごとの設定とメトリクス */
+    private final Map<String, RouteResilience> routes = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param circuitBreakerRegistry サーキットブレーカーの登録先
+     * @param bulkheadRegistry バルクヘッドの登録先
+     * @param meterRegistry メトリクスの登録先
+     */
+    public ResilienceFilter(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                            MeterRegistry meterRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RouteResilience resilience = routes.computeIfAbsent(route.getId(), id -> RouteResilience.of(
+            route, circuitBreakerRegistry, bulkheadRegistry, meterRegistry));
+        if (resilience.policy() == null) {
+            return chain.filter(exchange);
+        }
+
+        CircuitBreaker circuitBreaker = resilience.circuitBreaker();
+        if (!circuitBreaker.tryAcquirePermission()) {
+            long retryAfterMillis = circuitBreaker.getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis))));
+            return fallback(exchange, resilience, resilience.circuitOpen(), "circuit-open");
+        }
+        Bulkhead bulkhead = resilience.bulkhead();
+        if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            return fallback(exchange, resilience, resilience.bulkheadFull(), "bulkhead-full");
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean recorded = new AtomicBoolean();
+        return chain.filter(exchange)
+            .doOnSuccess(v -> {
+                if (recorded.compareAndSet(false, true)) {
+                    long elapsed = System.nanoTime() - start;
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is5xxServerError()) {
+                        circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, new ServerErrorResponse(status));
+                    } else {
+                        circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                    }
+                }
+                if (bulkhead != null) {
+                    bulkhead.onComplete();
+                }
+            })
+            .onErrorResume(e -> {
+                boolean clientError = isClientError(e);
+                if (recorded.compareAndSet(false, true)) {
+                    if (clientError) {
+                        circuitBreaker.releasePermission();
+                    } else {
+                        circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                    }
+                }
+                if (bulkhead != null) {
+                    bulkhead.onComplete();
+                }
+                if (clientError || exchange.getResponse().isCommitted()) {
+                    return Mono.error(e);
+                }
+                log.debug("下流への転送に失敗したためフォールバックを返します: route={}, error={}", route.getId(), e.toString());
+                return fallback(exchange, resilience, resilience.error(), "error");
+            })
+            .doFinally(signal -> {
+                // クライアントが切断した場合は、成功・失敗のどちらにも数えない
+                if (signal == SignalType.CANCEL && recorded.compareAndSet(false, true)) {
+                    circuitBreaker.releasePermission();
+                    if (bulkhead != null) {
+                        bulkhead.onComplete();
+                    }
+                }
+            });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとのサーキットブレーカー・バルクヘッドを作り直す
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routes.clear();
+    }
+
+    /**
+     * フォールバックの応答を返す
+     *
+     * @param exchange リクエスト
+     * @param resilience ルートごとの設定とメトリクス
+     * @param counter フォールバックの理由ごとのリクエスト数
+     * @param reason フォールバックの理由
+     * @return 応答の完了
+     */
+    private static Mono<Void> fallback(ServerWebExchange exchange, RouteResilience resilience, Counter counter,
+                                       String reason) {
+        counter.increment();
+        ResiliencePolicy.Fallback fallback = resilience.policy().fallback();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(fallback.status());
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(fallback.contentType());
+        headers.setContentLength(fallback.body().length);
+        headers.setCacheControl(CacheControl.noStore());
+        headers.set(FALLBACK_HEADER, reason);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(fallback.body())));
+    }
+
+    /**
+     * 下流の障害ではないエラー（4xx）かどうかを判定する
+     *
+     * @param e 例外
+     * @return 4xxの場合はtrue
+     */
+    private static boolean isClientError(Throwable e) {
+        return e instanceof ResponseStatusException status && status.getStatusCode().is4xxClientError();
+    }
+
+    /**
+     * 下流の5xx応答をサーキットブレーカーに失敗として記録するための例外
+     */
+    private static final class ServerErrorResponse extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ServerErrorResponse(HttpStatusCode status) {
+            super("下流が " + status.value() + " を返しました", null, false, false);
+        }
+    }
+
+    /**
+     * ルートごとの設定とメトリクス
+     *
+     * @param policy 設定（対象外のルートの場合はnull）
+     * @param circuitBreaker サーキットブレーカー
+     * @param bulkhead バルクヘッド（指定がない場合はnull）
+     * @param circuitOpen サーキットが開いていたためのフォールバック数
+     * @param bulkheadFull 同時に転送するリクエスト数が上限に達していたためのフォールバック数
+     * @param error 下流への転送に失敗したためのフォールバック数
+     */
+    private record RouteResilience(ResiliencePolicy policy, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                                   Counter circuitOpen, Counter bulkheadFull, Counter error) {
+
+        /**
+         * ルートのメタデータから設定を作成し、サーキットブレーカー・バルクヘッド・メトリクスを登録する
+         * 既に登録されている場合（ルートの再読み込み）は、削除して新しい設定で登録し直す
+         *
+         * @param route ルート
+         * @param circuitBreakerRegistry サーキットブレーカーの登録先
+         * @param bulkheadRegistry バルクヘッドの登録先
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの設定とメトリクス
+         */
+        static RouteResilience of(Route route, CircuitBreakerRegistry circuitBreakerRegistry,
+                                  BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry) {
+            ResiliencePolicy policy = ResiliencePolicy.fromMetadata(route.getMetadata()).orElse(null);
+            String id = route.getId();
+            circuitBreakerRegistry.remove(id);
+            bulkheadRegistry.remove(id);
+            if (policy == null) {
+                return new RouteResilience(null, null, null, null, null, null);
+            }
+            return new RouteResilience(policy,
+                circuitBreakerRegistry.circuitBreaker(id, policy.circuitBreaker()),
+                policy.bulkhead() != null ? bulkheadRegistry.bulkhead(id, policy.bulkhead()) : null,
+                counter(meterRegistry, route, "circuit-open"),
+                counter(meterRegistry, route, "bulkhead-full"),
+                counter(meterRegistry, route, "error"));
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, Route route, String reason) {
+            return Counter.builder("gateway.resilience.fallbacks")
+                .description("フォールバックの理由ごとのリクエスト数")
+                .tag("route", route.getId())
+                .tag("reason", reason)
+                .register(meterRegistry);
+        }
+    }
+}
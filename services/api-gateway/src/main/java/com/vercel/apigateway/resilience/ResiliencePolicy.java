@@ -0,0 +1,161 @@
+package com.vercel.apigateway.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ルートごとのサーキットブレーカー・バルクヘッド・フォールバック
+ * ルートのメタデータ {@code circuit-breaker}・{@code bulkhead}・{@code fallback} に指定する（いずれか1つ以上で有効）
+ * <pre>
+ * metadata:
+ *   circuit-breaker:
+ *     failure-rate-threshold: 50              # 失敗（5xx・接続エラー・タイムアウト）の割合（%）がこれ以上で開く
+ *     slow-call-rate-threshold: 80            # 遅い呼び出しの割合（%）がこれ以上で開く
+ *     slow-call-duration: 2s                  # これ以上かかった呼び出しを遅いとみなす
+ *     sliding-window-size: 50                 # 割合を求める直近の呼び出し数
+ *     minimum-number-of-calls: 20             # 割合を求める最小の呼び出し数
+ *     wait-duration-in-open-state: 10s        # 開いてから半開にするまでの時間
+ *     permitted-calls-in-half-open-state: 5   # 半開で試す呼び出し数
+ *   bulkhead:
+ *     max-concurrent-calls: 100               # 同時に転送するリクエスト数の上限（超えた分は待たずにフォールバック）
+ *   fallback:
+ *     status: 503                             # フォールバックのステータス
+ *     content-type: application/json
+ *     body: '{"message":"..."}'
+ * </pre>
+ *
+ * @param circuitBreaker サーキットブレーカーの設定
+ * @param bulkhead バルクヘッドの設定（指定がない場合はnull）
+ * @param fallback フォールバックの応答
+ */
+public record ResiliencePolicy(CircuitBreakerConfig circuitBreaker, BulkheadConfig bulkhead, Fallback fallback) {
+
+    /** サーキットブレーカーのメタデータのキー */
+    public static final String CIRCUIT_BREAKER_KEY = "circuit-breaker";
+
+    /** バルクヘッドのメタデータのキー */
+    public static final String BULKHEAD_KEY = "bulkhead";
+
+    /** フォールバックのメタデータのキー */
+    public static final String FALLBACK_KEY = "fallback";
+
+    /** 既定のフォールバックの本文 */
+    private static final String DEFAULT_FALLBACK_BODY =
+        "{\"message\":\"サービスが一時的に利用できません。しばらくしてから再度お試しください\"}";
+
+    /**
+     * ルートのメタデータから設定を作成する
+     *
+     * @param metadata ルートのメタデータ
+     * @return 設定（いずれのキーも指定されていない場合は空）
+     * @throws IllegalArgumentException 指定値が不正な場合
+     */
+    public static Optional<ResiliencePolicy> fromMetadata(Map<String, Object> metadata) {
+        Object circuitBreaker = metadata.get(CIRCUIT_BREAKER_KEY);
+        Object bulkhead = metadata.get(BULKHEAD_KEY);
+        Object fallback = metadata.get(FALLBACK_KEY);
+        if (circuitBreaker == null && bulkhead == null && fallback == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ResiliencePolicy(
+            circuitBreakerConfig(settings(circuitBreaker)),
+            bulkhead != null ? bulkheadConfig(settings(bulkhead)) : null,
+            fallback(settings(fallback))));
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(Map<?, ?> settings) {
+        return CircuitBreakerConfig.custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .failureRateThreshold((float) number(settings, "failure-rate-threshold", 50))
+            .slowCallRateThreshold((float) number(settings, "slow-call-rate-threshold", 80))
+            .slowCallDurationThreshold(duration(settings, "slow-call-duration", Duration.ofSeconds(2)))
+            .slidingWindowSize((int) number(settings, "sliding-window-size", 50))
+            .minimumNumberOfCalls((int) number(settings, "minimum-number-of-calls", 20))
+            .waitDurationInOpenState(duration(settings, "wait-duration-in-open-state", Duration.ofSeconds(10)))
+            .permittedNumberOfCallsInHalfOpenState((int) number(settings, "permitted-calls-in-half-open-state", 5))
+            .automaticTransitionFromOpenToHalfOpenEnabled(false)
+            .build();
+    }
+
+    private static BulkheadConfig bulkheadConfig(Map<?, ?> settings) {
+        // イベントループのスレッドを止めないよう、空きを待たない
+        return BulkheadConfig.custom()
+            .maxConcurrentCalls((int) number(settings, "max-concurrent-calls", 100))
+            .maxWaitDuration(Duration.ZERO)
+            .build();
+    }
+
+    private static Fallback fallback(Map<?, ?> settings) {
+        Object contentType = settings.get("content-type");
+        Object body = settings.get("body");
+        return new Fallback(
+            HttpStatusCode.valueOf((int) number(settings, "status", HttpStatus.SERVICE_UNAVAILABLE.value())),
+            contentType != null ? MediaType.parseMediaType(contentType.toString()) : MediaType.APPLICATION_JSON,
+            (body != null ? body.toString() : DEFAULT_FALLBACK_BODY).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<?, ?> settings(Object value) {
+        return value instanceof Map<?, ?> settings ? settings : Map.of();
+    }
+
+    /**
+     * メタデータの数値を取得する（YAMLの数値と環境変数などの文字列の両方を受け付ける）
+     *
+     * @param settings メタデータ
+     * @param name 項目名
+     * @param defaultValue 指定がない場合の値
+     * @return 数値
+     */
+    private static double number(Map<?, ?> settings, String name, double defaultValue) {
+        Object value = settings.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " が不正です: " + value, e);
+        }
+    }
+
+    /**
+     * メタデータの期間を取得する（2s などの文字列、または秒数）
+     *
+     * @param settings メタデータ
+     * @param name 項目名
+     * @param defaultValue 指定がない場合の値
+     * @return 期間
+     */
+    private static Duration duration(Map<?, ?> settings, String name, Duration defaultValue) {
+        Object value = settings.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number seconds) {
+            return Duration.ofSeconds(seconds.longValue());
+        }
+        return DurationStyle.detectAndParse(value.toString().trim());
+    }
+
+    /**
+     * フォールバックの応答
+     *
+     * @param status ステータス
+     * @param contentType Content-Type
+     * @param body 本文
+     */
+    public record Fallback(HttpStatusCode status, MediaType contentType, byte[] body) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.vercel.apigateway.streaming;
+
+import com.vercel.apigateway.cache.ResponseCachePolicy;
+import com.vercel.apigateway.resilience.HedgePolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ストリーミングルート（{@link StreamingRoutes}）の本文の転送を保証するフィルター
+ * Spring Cloud Gateway は本文を Netty のバッファ（ByteBuf）のまま、下流・クライアントの受信に合わせて（背圧）転送する。
+ * このフィルターはストリーミングルートで次を保証する
+ * <ul>
+ *   <li>本文をメモリに読み込むフィルター（ModifyRequestBody・Retry など）が設定されている場合は、転送せずに500を返す</li>
+ *   <li>レスポンスキャッシュ・ヘッジリクエストの対象にしない（メタデータに指定しても無視する）</li>
+ * </ul>
+ * 転送したバイト数は、バッファを複製せずに数えてメトリクス {@code gateway.streaming.bytes} に記録する
+ * 応答の本文の転送（NettyWriteResponseFilter）を含めて包むため、認証・レート制限より前で動作する
+ */
+public class StreamingFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingFilter.class);
+
+    /** フィルターの順序（認証より前） */
+    public static final int ORDER = -300;
+
+    /** メトリクスの登録先 */
+    private final MeterRegistry meterRegistry;
+
+    /** ルートIDごとの判定結果とメトリクス */
+    private final Map<String, RouteStreaming> routes = new ConcurrentHashMap<>();
+
+    /**
+     * コンストラクタ
+     *
+     * @param meterRegistry メトリクスの登録先
+     */
+    public StreamingFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        RouteStreaming streaming = routes.computeIfAbsent(route.getId(), id -> RouteStreaming.of(route, meterRegistry));
+        if (!streaming.streaming()) {
+            return chain.filter(exchange);
+        }
+        if (!streaming.bufferingFilters().isEmpty()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                "ストリーミングルートに本文を読み込むフィルターが設定されています: " + streaming.bufferingFilters()));
+        }
+        return chain.filter(exchange.mutate()
+            .request(new CountingRequest(exchange.getRequest(), streaming.requestBytes()))
+            .response(new CountingResponse(exchange.getResponse(), streaming.responseBytes()))
+            .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * ルートの再読み込み時に、ルートごとの判定をやり直す
+     *
+     * @param event ルートの再読み込みイベント
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesEvent event) {
+        routes.clear();
+    }
+
+    /**
+     * 本文のバイト数を数えるリクエスト（バッファはそのまま下流に渡す）
+     */
+    private static final class CountingRequest extends ServerHttpRequestDecorator {
+
+        /** 転送したバイト数 */
+        private final Counter bytes;
+
+        CountingRequest(ServerHttpRequest delegate, Counter bytes) {
+            super(delegate);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return super.getBody().doOnNext(buffer -> bytes.increment(buffer.readableByteCount()));
+        }
+    }
+
+    /**
+     * 本文のバイト数を数える応答（バッファはそのままクライアントに渡す）
+     * bufferFactory() は元の応答のもの（Netty）を返すため、下流の応答の ByteBuf は複製されずに転送される
+     */
+    private static final class CountingResponse extends ServerHttpResponseDecorator {
+
+        /** 転送したバイト数 */
+        private final Counter bytes;
+
+        CountingResponse(ServerHttpResponse delegate, Counter bytes) {
+            super(delegate);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(buffer -> bytes.increment(buffer.readableByteCount())));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk)
+                .doOnNext(buffer -> bytes.increment(buffer.readableByteCount()))));
+        }
+    }
+
+    /**
+     * ルートごとの判定結果とメトリクス
+     *
+     * @param streaming ストリーミングルートかどうか
+     * @param bufferingFilters 本文を読み込むフィルターの名前
+     * @param requestBytes 転送したリクエストの本文のバイト数（対象外のルートの場合はnull）
+     * @param responseBytes 転送した応答の本文のバイト数（対象外のルートの場合はnull）
+     */
+    private record RouteStreaming(boolean streaming, List<String> bufferingFilters, Counter requestBytes,
+                                  Counter responseBytes) {
+
+        /**
+         * ルートのメタデータ・フィルターから判定し、メトリクスを登録する
+         *
+         * @param route ルート
+         * @param meterRegistry メトリクスの登録先
+         * @return ルートごとの判定結果とメトリクス
+         */
+        static RouteStreaming of(Route route, MeterRegistry meterRegistry) {
+            if (!StreamingRoutes.isStreaming(route)) {
+                return new RouteStreaming(false, List.of(), null, null);
+            }
+            List<String> bufferingFilters = StreamingRoutes.bufferingFilters(route);
+            if (!bufferingFilters.isEmpty()) {
+                log.error("ストリーミングルートに本文を読み込むフィルターが設定されているため、500を返します: route={}, filters={}",
+                    route.getId(), bufferingFilters);
+            }
+            for (String ignored : List.of(ResponseCachePolicy.METADATA_KEY, HedgePolicy.METADATA_KEY)) {
+                if (route.getMetadata().containsKey(ignored)) {
+                    log.warn("ストリーミングルートではメタデータ {} を無視します: route={}", ignored, route.getId());
+                }
+            }
+            return new RouteStreaming(true, bufferingFilters,
+                bytes(meterRegistry, route, "request"),
+                bytes(meterRegistry, route, "response"));
+        }
+
+        private static Counter bytes(MeterRegistry meterRegistry, Route route, String direction) {
+            return Counter.builder("gateway.streaming.bytes")
+                .description("ストリーミングルートで転送した本文のバイト数")
+                .baseUnit("bytes")
+                .tag("route", route.getId())
+                .tag("direction", direction)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.vercel.apigateway.streaming;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ストリーミングルート（本文をバッファリング・デコードせずに転送するルート）の判定
+ * ルートのメタデータ {@code streaming: true} で指定する
+ * <pre>
+ * metadata:
+ *   streaming: true
+ * </pre>
+ */
+public final class StreamingRoutes {
+
+    /** ルートのメタデータのキー */
+    public static final String METADATA_KEY = "streaming";
+
+    /**
+     * 本文をメモリに読み込むフィルター（Spring Cloud Gateway の GatewayFilterFactory 名）
+     * Retry は本文のあるリクエストを再送できるよう、本文を読み込んで保持する
+     */
+    private static final Pattern BUFFERING_FILTER = Pattern.compile(
+        "\\[(ModifyRequestBody|ModifyResponseBody|CacheRequestBody|LocalResponseCache|Retry|JsonToGrpc)[\\s,\\]]");
+
+    private StreamingRoutes() {
+    }
+
+    /**
+     * ストリーミングルートかどうかを判定する
+     *
+     * @param route ルート
+     * @return メタデータに {@code streaming: true} が指定されている場合はtrue
+     */
+    public static boolean isStreaming(Route route) {
+        return isStreaming(route.getMetadata());
+    }
+
+    /**
+     * ストリーミングルートかどうかを判定する
+     *
+     * @param metadata ルートのメタデータ
+     * @return {@code streaming: true} が指定されている場合はtrue
+     */
+    public static boolean isStreaming(Map<String, Object> metadata) {
+        Object value = metadata.get(METADATA_KEY);
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    /**
+     * ルートのフィルター（default-filters を含む）のうち、本文をメモリに読み込むものを取得する
+     * フィルターの名前はフィルターの文字列表現（[StripPrefix parts = 2] など）から求める
+     *
+     * @param route ルート
+     * @return 本文を読み込むフィルターの名前
+     */
+    public static List<String> bufferingFilters(Route route) {
+        List<String> names = new ArrayList<>();
+        for (GatewayFilter filter : route.getFilters()) {
+            GatewayFilter delegate = filter instanceof OrderedGatewayFilter ordered ? ordered.getDelegate() : filter;
+            Matcher matcher = BUFFERING_FILTER.matcher(String.valueOf(delegate));
+            if (matcher.find()) {
+                names.add(matcher.group(1));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,92 @@
+package com.vercel.apigateway.auth;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link JwtTokenVerifier} のテスト
+ */
+class JwtTokenVerifierTest {
+
+    /** 署名鍵 */
+    private static final SecretKey KEY =
+        Keys.hmacShaKeyFor("test-secret-key-for-jwt-token-verifier-0123456789".getBytes(StandardCharsets.UTF_8));
+
+    /** キャッシュする最長の期間 */
+    private static final Duration MAX_CACHE_TTL = Duration.ofHours(1);
+
+    private final JwtTokenVerifier verifier = new JwtTokenVerifier(KEY, null, Duration.ofSeconds(30), 100, MAX_CACHE_TTL);
+
+    /**
+     * 有効期限が数百年先のトークンも検証でき、キャッシュの期間は最長の期間に切り詰める
+     */
+    @Test
+    void cachesFarFutureTokenForMaxCacheTtl() {
+        Instant expiresAt = Instant.parse("9999-12-31T00:00:00Z");
+
+        AuthenticatedUser user = verifier.verify(token(expiresAt));
+
+        assertThat(user.subject()).isEqualTo("u_1");
+        assertThat(user.expiresAt()).isEqualTo(expiresAt);
+        assertThat(cacheTtl()).isLessThanOrEqualTo(MAX_CACHE_TTL).isGreaterThan(MAX_CACHE_TTL.minusMinutes(1));
+    }
+
+    /**
+     * 有効期限が最長の期間より前の場合は、有効期限までキャッシュする
+     */
+    @Test
+    void cachesTokenUntilExpiration() {
+        verifier.verify(token(Instant.now().plus(Duration.ofMinutes(10))));
+
+        assertThat(cacheTtl()).isLessThanOrEqualTo(Duration.ofMinutes(10)).isGreaterThan(Duration.ofMinutes(9));
+    }
+
+    /**
+     * 有効期限を過ぎたトークンは検証に失敗し、キャッシュしない
+     */
+    @Test
+    void rejectsExpiredToken() {
+        assertThatThrownBy(() -> verifier.verify(token(Instant.now().minus(Duration.ofMinutes(5)))))
+            .isInstanceOf(ExpiredJwtException.class);
+        assertThat(verifier.cache().estimatedSize()).isZero();
+    }
+
+    /**
+     * キャッシュした唯一のトークンの残りの期間を取得する
+     *
+     * @return 残りの期間
+     */
+    private Duration cacheTtl() {
+        String hash = verifier.cache().asMap().keySet().iterator().next();
+        long nanos = verifier.cache().policy().expireVariably().orElseThrow()
+            .getExpiresAfter(hash, TimeUnit.NANOSECONDS).orElseThrow();
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * 署名したトークンを作成する
+     *
+     * @param expiresAt 有効期限
+     * @return トークン
+     */
+    private static String token(Instant expiresAt) {
+        return Jwts.builder()
+            .setSubject("u_1")
+            .setIssuedAt(new Date())
+            .setExpiration(Date.from(expiresAt))
+            .signWith(KEY)
+            .compact();
+    }
+}
@@ -0,0 +1,226 @@
+package com.vercel.apigateway.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * サーキットブレーカー・ヘッジリクエストのカオステスト
+ * ゲートウェイを起動し、ローカルのスタブのサービス（reactor-netty）に向けた lb:// ルートを通してGETを送る
+ * <ul>
+ *   <li>catalog: 2台のうち1台のみが遅い（GC・ノイジーネイバー）。遅いインスタンスに転送したリクエストは
+ *       max-delay を待ってもう1台にもヘッジし、ヘッジの応答を返す</li>
+ *   <li>inventory: 全台が遅い。サーキットブレーカーが遅い呼び出しの割合で開き、以降はフォールバック（503）を即座に返す</li>
+ * </ul>
+ * 転送先は既定のラウンドロビンで選ぶ（Peak EWMA は遅いインスタンスを避けるため、ヘッジの数が一定にならない）
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResilienceChaosTest {
+
+    /** 遅いインスタンスの応答時間 */
+    private static final Duration SLOW = Duration.ofMillis(500);
+
+    /** スタブの応答の本文 */
+    private static final String BODY = "[{\"id\":\"p_1\"}]";
+
+    /** サーキットブレーカーが割合を求める呼び出し数 */
+    private static final int WINDOW = 5;
+
+    /** catalog-service の遅いインスタンス */
+    private static DisposableServer slowCatalog;
+
+    /** catalog-service の速いインスタンス */
+    private static DisposableServer fastCatalog;
+
+    /** inventory-service（全台が遅い） */
+    private static DisposableServer slowInventory;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        slowCatalog = stub(SLOW);
+        fastCatalog = stub(Duration.ZERO);
+        slowInventory = stub(SLOW);
+
+        registry.add("eureka.client.enabled", () -> false);
+        registry.add("gateway.load-balancer.enabled", () -> false);
+        registry.add("spring.cloud.discovery.client.simple.instances.catalog-service[0].uri",
+            () -> "http://127.0.0.1:" + slowCatalog.port());
+        registry.add("spring.cloud.discovery.client.simple.instances.catalog-service[1].uri",
+            () -> "http://127.0.0.1:" + fastCatalog.port());
+        registry.add("spring.cloud.discovery.client.simple.instances.inventory-service[0].uri",
+            () -> "http://127.0.0.1:" + slowInventory.port());
+
+        // ルートの一覧ごと application.yml のルートを置き換える
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "catalog");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "lb://catalog-service");
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/catalog/**");
+        registry.add("spring.cloud.gateway.routes[0].filters[0]", () -> "StripPrefix=1");
+        registry.add("spring.cloud.gateway.routes[0].metadata.response-timeout", () -> 3000);
+        registry.add("spring.cloud.gateway.routes[0].metadata.hedge.min-delay", () -> "10ms");
+        registry.add("spring.cloud.gateway.routes[0].metadata.hedge.max-delay", () -> "50ms");
+        registry.add("spring.cloud.gateway.routes[0].metadata.hedge.budget", () -> 1.0);
+
+        registry.add("spring.cloud.gateway.routes[1].id", () -> "inventory");
+        registry.add("spring.cloud.gateway.routes[1].uri", () -> "lb://inventory-service");
+        registry.add("spring.cloud.gateway.routes[1].predicates[0]", () -> "Path=/inventory/**");
+        registry.add("spring.cloud.gateway.routes[1].filters[0]", () -> "StripPrefix=1");
+        registry.add("spring.cloud.gateway.routes[1].metadata.response-timeout", () -> 3000);
+        registry.add("spring.cloud.gateway.routes[1].metadata.circuit-breaker.slow-call-duration", () -> "100ms");
+        registry.add("spring.cloud.gateway.routes[1].metadata.circuit-breaker.slow-call-rate-threshold", () -> 80);
+        registry.add("spring.cloud.gateway.routes[1].metadata.circuit-breaker.sliding-window-size", () -> WINDOW);
+        registry.add("spring.cloud.gateway.routes[1].metadata.circuit-breaker.minimum-number-of-calls", () -> WINDOW);
+        registry.add("spring.cloud.gateway.routes[1].metadata.circuit-breaker.wait-duration-in-open-state", () -> "1m");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        slowCatalog.disposeNow();
+        fastCatalog.disposeNow();
+        slowInventory.disposeNow();
+    }
+
+    /**
+     * 1台のみが遅い場合は、遅いインスタンスに転送したリクエストをヘッジし、ヘッジの応答を返す
+     */
+    @Test
+    void hedgesRequestsToSlowInstance() {
+        // ロードバランサー・接続の初期化にかかる時間を含めないよう、先に両方のインスタンスへ転送しておく
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/catalog/products").exchange().expectStatus().isOk();
+        }
+        double sentBefore = hedgeCount("gateway.hedge.sent");
+        double wonBefore = hedgeCount("gateway.hedge.won");
+
+        int requests = 20;
+        int hedged = 0;
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            EntityExchangeResult<String> result = webTestClient.get()
+                .uri("/catalog/products")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(BODY)
+                .returnResult();
+            if ("true".equals(result.getResponseHeaders().getFirst(HedgingFilter.HEDGED_HEADER))) {
+                // 遅いインスタンスの応答を待たずに返す
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW);
+                hedged++;
+            }
+        }
+
+        double sent = hedgeCount("gateway.hedge.sent") - sentBefore;
+        double won = hedgeCount("gateway.hedge.won") - wonBefore;
+        // ラウンドロビンで半数以上が遅いインスタンスに転送され、いずれも速いインスタンスへのヘッジが先に応答する
+        assertThat(hedged).isGreaterThanOrEqualTo(requests / 2);
+        assertThat(won).isEqualTo(hedged);
+        assertThat(sent).isGreaterThanOrEqualTo(won);
+    }
+
+    /**
+     * 全台が遅い場合は、サーキットブレーカーが開き、以降は下流に転送せずにフォールバックを返す
+     */
+    @Test
+    void opensCircuitWhenAllInstancesAreSlow() {
+        // 起動直後のルートの再読み込みでサーキットブレーカーが作り直される場合があるため、開くまで遅い呼び出しを送る
+        int slowCalls = 0;
+        while (slowCalls < 3 * WINDOW && circuitState("open") == 0) {
+            HttpStatusCode status = webTestClient.get()
+                .uri("/inventory/products")
+                .exchange()
+                .returnResult(String.class)
+                .getStatus();
+            if (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                break;
+            }
+            assertThat(status).isEqualTo(HttpStatus.OK);
+            slowCalls++;
+        }
+
+        assertThat(slowCalls).isGreaterThanOrEqualTo(WINDOW);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(circuitState("open")).isEqualTo(1.0));
+        double circuitOpen = circuitOpenFallbacks();
+
+        long start = System.nanoTime();
+        webTestClient.get()
+            .uri("/inventory/products")
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+            .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(SLOW);
+        assertThat(circuitOpenFallbacks()).isEqualTo(circuitOpen + 1);
+    }
+
+    /**
+     * catalog のヘッジのカウンターの値を取得する
+     *
+     * @param name メトリクス名（gateway.hedge.sent・gateway.hedge.won）
+     * @return カウンターの値
+     */
+    private double hedgeCount(String name) {
+        return meterRegistry.get(name).tag("route", "catalog").counter().count();
+    }
+
+    /**
+     * inventory のサーキットブレーカーの状態を取得する
+     *
+     * @param state 状態（open・closed など）
+     * @return その状態であれば1、そうでない場合・まだ作成されていない場合は0
+     */
+    private double circuitState(String state) {
+        Gauge gauge = meterRegistry.find("resilience4j.circuitbreaker.state")
+            .tag("name", "inventory").tag("state", state)
+            .gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    /**
+     * inventory でサーキットが開いていたために返したフォールバックの数を取得する
+     *
+     * @return フォールバックの数
+     */
+    private double circuitOpenFallbacks() {
+        return meterRegistry.get("gateway.resilience.fallbacks")
+            .tag("route", "inventory").tag("reason", "circuit-open")
+            .counter().count();
+    }
+
+    /**
+     * delay 遅れて応答するスタブのサービスを起動する
+     *
+     * @param delay 応答時間
+     * @return スタブのサービス
+     */
+    private static DisposableServer stub(Duration delay) {
+        return HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .route(routes -> routes.get("/products", (request, response) -> response
+                .header("Content-Type", "application/json")
+                .sendString(Mono.just(BODY).delayElement(delay))))
+            .bindNow();
+    }
+}
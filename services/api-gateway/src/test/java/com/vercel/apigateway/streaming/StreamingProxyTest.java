@@ -0,0 +1,226 @@
+package com.vercel.apigateway.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * ストリーミングルートで、ヒープより大きな本文をゲートウェイを通して転送するテスト
+ * ゲートウェイをローカルのスタブ（reactor-netty）に向けた {@code streaming: true} のルートで起動し、
+ * アップロード（POST）とダウンロード（GET）の本文のバイト数とCRC32が一致することを確認する
+ * 本文をどこかでメモリに読み込むと OutOfMemoryError で失敗するため、小さなヒープの smallHeapTest タスクで実行する
+ * 例: ./gradlew :services:api-gateway:smallHeapTest
+ */
+@Tag("small-heap")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StreamingProxyTest {
+
+    /** 転送する本文の大きさ（smallHeapTest の最大ヒープ 128MB の4倍） */
+    private static final long BODY_SIZE = 512L * 1024 * 1024;
+
+    /** 本文を生成する塊の大きさ（バイト） */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** 転送を待つ時間 */
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    /** 下流のスタブ */
+    private static DisposableServer origin;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** ゲートウェイへのクライアント */
+    private HttpClient client;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        origin = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .route(routes -> routes
+                .post("/upload", (request, response) -> response.sendString(
+                    digest(request.receive()).map(Transfer::toString)))
+                .get("/download/{bytes}", (request, response) -> response
+                    .send(body(Long.parseLong(request.param("bytes"))))))
+            .bindNow();
+
+        // ルートの一覧ごと application.yml のルートを置き換える
+        registry.add("eureka.client.enabled", () -> false);
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "streaming");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://127.0.0.1:" + origin.port());
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/streaming/**");
+        registry.add("spring.cloud.gateway.routes[0].filters[0]", () -> "StripPrefix=1");
+        registry.add("spring.cloud.gateway.routes[0].metadata.streaming", () -> true);
+        registry.add("logging.level.com.vercel.apigateway", () -> "INFO");
+        registry.add("logging.level.org.springframework.cloud.gateway", () -> "INFO");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        origin.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        assertThat(BODY_SIZE)
+            .as("ヒープより大きな本文を転送するため、smallHeapTest タスクで実行してください")
+            .isGreaterThan(Runtime.getRuntime().maxMemory());
+        client = HttpClient.create().baseUrl("http://127.0.0.1:" + port);
+    }
+
+    /**
+     * 本文をゲートウェイ経由で下流にアップロードすると、下流が同じバイト数・CRC32の本文を受け取る
+     */
+    @Test
+    void streamsUploadLargerThanHeap() {
+        long before = streamedBytes("request");
+        String received = client.post()
+            .uri("/streaming/upload")
+            .send(body(BODY_SIZE))
+            .responseSingle((response, content) -> response.status().code() == 200
+                ? content.asString()
+                : Mono.error(new IllegalStateException("ゲートウェイが " + response.status() + " を返しました")))
+            .block(TIMEOUT);
+
+        assertThat(Transfer.parse(received)).isEqualTo(new Transfer(BODY_SIZE, checksum(BODY_SIZE)));
+        await().untilAsserted(() -> assertThat(streamedBytes("request") - before).isEqualTo(BODY_SIZE));
+    }
+
+    /**
+     * 下流の本文をゲートウェイ経由でダウンロードすると、同じバイト数・CRC32の本文を受け取る
+     */
+    @Test
+    void streamsDownloadLargerThanHeap() {
+        long before = streamedBytes("response");
+        Transfer received = client.get()
+            .uri("/streaming/download/" + BODY_SIZE)
+            .response((response, content) -> response.status().code() == 200
+                ? digest(content)
+                : Mono.error(new IllegalStateException("ゲートウェイが " + response.status() + " を返しました")))
+            .single()
+            .block(TIMEOUT);
+
+        assertThat(received).isEqualTo(new Transfer(BODY_SIZE, checksum(BODY_SIZE)));
+        await().untilAsserted(() -> assertThat(streamedBytes("response") - before).isEqualTo(BODY_SIZE));
+    }
+
+    /**
+     * ストリーミングルートでこれまでに転送したバイト数を取得する（テストをまたいで累積する）
+     *
+     * @param direction 向き（request / response）
+     * @return バイト数（まだ転送していない場合は0）
+     */
+    private long streamedBytes(String direction) {
+        Counter counter = meterRegistry.find("gateway.streaming.bytes")
+            .tag("route", "streaming")
+            .tag("direction", direction)
+            .counter();
+        return counter != null ? (long) counter.count() : 0;
+    }
+
+    /**
+     * size バイトの本文を CHUNK_SIZE ずつ生成する
+     *
+     * @param size 本文の大きさ（バイト）
+     * @return 本文
+     */
+    private static Flux<ByteBuf> body(long size) {
+        return Flux.generate(() -> 0L, (sent, sink) -> {
+            int length = (int) Math.min(CHUNK_SIZE, size - sent);
+            if (length <= 0) {
+                sink.complete();
+                return sent;
+            }
+            sink.next(Unpooled.wrappedBuffer(chunk(sent / CHUNK_SIZE), 0, length));
+            return sent + length;
+        });
+    }
+
+    /**
+     * 本文の index 番目の塊を生成する（塊ごとに内容を変え、欠落・重複・順序の入れ替わりも検出できるようにする）
+     *
+     * @param index 塊の番号
+     * @return 塊
+     */
+    private static byte[] chunk(long index) {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        new SplittableRandom(index).nextBytes(chunk);
+        return chunk;
+    }
+
+    /**
+     * size バイトの本文のCRC32を求める
+     *
+     * @param size 本文の大きさ（バイト）
+     * @return CRC32
+     */
+    private static long checksum(long size) {
+        CRC32 crc = new CRC32();
+        for (long index = 0; index * CHUNK_SIZE < size; index++) {
+            crc.update(chunk(index), 0, (int) Math.min(CHUNK_SIZE, size - index * CHUNK_SIZE));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 受け取った本文のバイト数とCRC32を求める
+     *
+     * @param content 本文
+     * @return バイト数とCRC32
+     */
+    private static Mono<Transfer> digest(Flux<ByteBuf> content) {
+        CRC32 crc = new CRC32();
+        return content
+            .reduce(0L, (total, buffer) -> {
+                int length = buffer.readableBytes();
+                crc.update(buffer.nioBuffer());
+                return total + length;
+            })
+            .map(total -> new Transfer(total, crc.getValue()));
+    }
+
+    /**
+     * 転送した本文
+     *
+     * @param bytes バイト数
+     * @param checksum CRC32
+     */
+    private record Transfer(long bytes, long checksum) {
+
+        static Transfer parse(String value) {
+            String[] parts = value.split(":");
+            return new Transfer(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        }
+
+        @Override
+        public String toString() {
+            return bytes + ":" + checksum;
+        }
+    }
+}